@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+
+import edu.uiowa.cs.clc.kind2.api.IProgressMonitor;
+import edu.uiowa.cs.clc.kind2.api.Kind2Api;
+import edu.uiowa.cs.clc.kind2.results.Result;
+
+/**
+ * Measures the end-to-end overhead of {@link Kind2Api}: starting the process, sending the program,
+ * parsing the output, notifying the listener and finishing the result.
+ * <p>
+ * Each workload is rendered once by {@link FakeKind2} to a file, and Kind 2 is replaced by a shell
+ * script that discards its input and prints that file, so the process does no work of its own. The
+ * same script is also run without the API, reading its output without parsing it. The difference
+ * between the two medians is the overhead of the API, reported per run and per megabyte of output.
+ * The script needs a POSIX shell.
+ */
+public class ApiOverheadBenchmark {
+  private static final String PROGRAM = "node Main(x: int) returns (y: int); let y = x; tel\n";
+
+  private static final IProgressMonitor MONITOR = new IProgressMonitor() {
+    @Override
+    public boolean isCanceled() {
+      return false;
+    }
+
+    @Override
+    public void done() {
+    }
+  };
+
+  private ApiOverheadBenchmark() {
+  }
+
+  /**
+   * The timings of one workload.
+   */
+  static class Measurement {
+    final String workload;
+    final long bytes;
+    final int objects;
+    final double rawMillis;
+    final double apiMillis;
+    final double overheadMillis;
+    final double overheadMillisPerMB;
+
+    Measurement(String workload, long bytes, int objects, double rawMillis, double apiMillis) {
+      this.workload = workload;
+      this.bytes = bytes;
+      this.objects = objects;
+      this.rawMillis = rawMillis;
+      this.apiMillis = apiMillis;
+      this.overheadMillis = apiMillis - rawMillis;
+      this.overheadMillisPerMB = bytes == 0 ? Double.NaN : overheadMillis / (bytes / 1e6);
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%-28s %10d %8d %10.2f %10.2f %10.2f %12.2f", workload, bytes, objects,
+          rawMillis, apiMillis, overheadMillis, overheadMillisPerMB);
+    }
+  }
+
+  /**
+   * Measures one workload.
+   *
+   * @param name the name of the workload
+   * @param elements the objects Kind 2 emits, once
+   * @param repeat how many times Kind 2 emits them
+   * @param dir where to write the rendered output and the stand-in script
+   * @param warmups the number of unmeasured runs
+   * @param runs the number of measured runs
+   * @return the medians of the measured runs
+   * @throws Exception if a run fails
+   */
+  static Measurement measure(String name, List<JsonElement> elements, int repeat, Path dir,
+      int warmups, int runs) throws Exception {
+    Path output = Files.createTempFile(dir, "output-", ".json");
+    try (OutputStream out = Files.newOutputStream(output)) {
+      FakeKind2.emit(elements, repeat, 0, out);
+    }
+    Path script = Files.createTempFile(dir, "kind2-", ".sh");
+    Files.write(script, ("#!/bin/sh\ncat > /dev/null\nexec cat '" + output + "'\n")
+        .getBytes(StandardCharsets.UTF_8));
+    script.toFile().setExecutable(true);
+
+    List<Double> raw = new ArrayList<>();
+    List<Double> api = new ArrayList<>();
+    for (int i = 0; i < warmups + runs; i++) {
+      double rawMillis = runRaw(script);
+      double apiMillis = runApi(script, elements.size() * repeat);
+      if (i >= warmups) {
+        raw.add(rawMillis);
+        api.add(apiMillis);
+      }
+    }
+    return new Measurement(name, Files.size(output), elements.size() * repeat, median(raw),
+        median(api));
+  }
+
+  private static double runRaw(Path script) throws IOException, InterruptedException {
+    long start = System.nanoTime();
+    Process process = new ProcessBuilder(script.toString()).redirectErrorStream(true).start();
+    try (OutputStream stdin = process.getOutputStream()) {
+      stdin.write(PROGRAM.getBytes(StandardCharsets.UTF_8));
+    }
+    byte[] buffer = new byte[1 << 16];
+    try (InputStream stdout = process.getInputStream()) {
+      while (stdout.read(buffer) != -1) {
+        // only the transfer is measured
+      }
+    }
+    process.waitFor();
+    return (System.nanoTime() - start) / 1e6;
+  }
+
+  private static double runApi(Path script, int expectedObjects) {
+    Kind2Api api = new Kind2Api();
+    api.setKind2Executable(script.toString());
+    AtomicInteger updates = new AtomicInteger();
+    long start = System.nanoTime();
+    api.execute(PROGRAM, new Result(), MONITOR, result -> updates.incrementAndGet());
+    double millis = (System.nanoTime() - start) / 1e6;
+    if (updates.get() != expectedObjects) {
+      throw new IllegalStateException(
+          "Expected " + expectedObjects + " objects but got " + updates.get());
+    }
+    return millis;
+  }
+
+  private static double median(List<Double> values) {
+    List<Double> sorted = new ArrayList<>(values);
+    Collections.sort(sorted);
+    int n = sorted.size();
+    return n % 2 == 1 ? sorted.get(n / 2) : (sorted.get(n / 2 - 1) + sorted.get(n / 2)) / 2;
+  }
+
+  /**
+   * Runs the synthetic workloads and any recorded outputs given on the command line, and prints
+   * the overhead of each.
+   *
+   * @param args {@code [--runs n] [--warmups n] [--repeat n] [--json file] [recorded]...},
+   *        where {@code --repeat} multiplies the output of every workload and each recorded output
+   *        is a json array or a journal
+   * @throws Exception if a run fails
+   */
+  public static void main(String[] args) throws Exception {
+    int runs = 10;
+    int warmups = 3;
+    int repeat = 1;
+    String json = null;
+    Map<String, List<JsonElement>> workloads = new LinkedHashMap<>();
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals("--runs") && i + 1 < args.length) {
+        runs = Integer.parseInt(args[++i]);
+      } else if (args[i].equals("--warmups") && i + 1 < args.length) {
+        warmups = Integer.parseInt(args[++i]);
+      } else if (args[i].equals("--repeat") && i + 1 < args.length) {
+        repeat = Integer.parseInt(args[++i]);
+      } else if (args[i].equals("--json") && i + 1 < args.length) {
+        json = args[++i];
+      } else {
+        Path file = Paths.get(args[i]);
+        workloads.put(file.getFileName().toString(), FakeKind2.recorded(file));
+      }
+    }
+    // empty output, then growing numbers of properties, then growing counterexamples
+    workloads.put("empty", Collections.emptyList());
+    for (int properties : new int[] {10, 100, 1000}) {
+      workloads.put("synthetic p=" + properties + " k=10", FakeKind2.synthetic(properties, 10, 4));
+    }
+    workloads.put("synthetic p=100 k=1000", FakeKind2.synthetic(100, 1000, 4));
+
+    Path dir = Files.createTempDirectory("kind2-api-overhead");
+    List<Measurement> measurements = new ArrayList<>();
+    System.out.println(String.format("%-28s %10s %8s %10s %10s %10s %12s", "workload", "bytes",
+        "objects", "raw ms", "api ms", "overhead", "overhead/MB"));
+    for (Map.Entry<String, List<JsonElement>> workload : workloads.entrySet()) {
+      Measurement measurement = measure(workload.getKey(), workload.getValue(),
+          repeat, dir, warmups, runs);
+      measurements.add(measurement);
+      System.out.println(measurement);
+    }
+    if (json != null) {
+      try (Writer writer = Files.newBufferedWriter(Paths.get(json), StandardCharsets.UTF_8)) {
+        new GsonBuilder().setPrettyPrinting().serializeSpecialFloatingPointValues().create()
+            .toJson(measurements, writer);
+      }
+    }
+  }
+}
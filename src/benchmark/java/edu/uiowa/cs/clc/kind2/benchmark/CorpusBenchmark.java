@@ -0,0 +1,505 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.benchmark;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.google.gson.GsonBuilder;
+
+import edu.uiowa.cs.clc.kind2.Kind2Exception;
+import edu.uiowa.cs.clc.kind2.api.IProgressMonitor;
+import edu.uiowa.cs.clc.kind2.api.Kind2Api;
+
+/**
+ * Runs a corpus of Lustre programs against every combination of Kind 2 executables and option
+ * sets, and compares the time each property took to reach its verdict.
+ * <p>
+ * Every combination, called a variant, runs every program a number of times, with several runs in
+ * parallel. The report lists the time to verdict of each property in each run, the properties on
+ * which variants gave conflicting definite answers, and the speedup of each variant over the first
+ * one, as the geometric mean over the programs of the ratio of median times.
+ */
+public class CorpusBenchmark {
+  private final List<Path> programs;
+  private final List<String> executables;
+  private final Map<String, List<String>> configs;
+  private final int repetitions;
+  private final int threads;
+  private Float timeout;
+
+  /**
+   * Constructs a benchmark.
+   *
+   * @param programs the Lustre files to run
+   * @param executables the Kind 2 executables to compare
+   * @param configs the option sets to compare, by name
+   * @param repetitions how many times to run each program with each variant
+   * @param threads how many runs to execute in parallel
+   */
+  public CorpusBenchmark(List<Path> programs, List<String> executables,
+      Map<String, List<String>> configs, int repetitions, int threads) {
+    this.programs = programs;
+    this.executables = executables;
+    this.configs = configs;
+    this.repetitions = repetitions;
+    this.threads = threads;
+  }
+
+  /**
+   * Set the Kind 2 timeout of every run, in seconds.
+   *
+   * @param timeout the timeout in seconds
+   */
+  public void setTimeout(float timeout) {
+    this.timeout = timeout;
+  }
+
+  /**
+   * Runs every program with every variant and collects the timings.
+   *
+   * @return the benchmark report
+   * @throws InterruptedException if interrupted while waiting for the runs
+   */
+  public Report run() throws InterruptedException {
+    List<Run> runs = new ArrayList<>();
+    for (int repetition = 0; repetition < repetitions; repetition++) {
+      for (Path program : programs) {
+        for (String executable : executables) {
+          for (Map.Entry<String, List<String>> config : configs.entrySet()) {
+            runs.add(new Run(program.toString(), executable, config.getKey(), repetition));
+          }
+        }
+      }
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (Run run : runs) {
+        futures.add(executor.submit(() -> execute(run)));
+      }
+      for (Future<?> future : futures) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          throw new Kind2Exception(e.getCause().getMessage(), e.getCause());
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    return new Report(runs, variant(executables.get(0), configs.keySet().iterator().next()));
+  }
+
+  private void execute(Run run) {
+    Kind2Api api = new Kind2Api();
+    api.setKind2Executable(run.kind2);
+    api.setOtherOptions(configs.get(run.config));
+    if (timeout != null) {
+      api.setTimeout(timeout);
+    }
+    String program;
+    try {
+      program = new String(Files.readAllBytes(Paths.get(run.program)), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      run.error = e.toString();
+      return;
+    }
+    TimingResult result = new TimingResult();
+    long start = System.nanoTime();
+    try {
+      api.execute(program, result, new IProgressMonitor() {
+        @Override
+        public boolean isCanceled() {
+          return false;
+        }
+
+        @Override
+        public void done() {
+        }
+      });
+    } catch (Kind2Exception e) {
+      run.error = String.valueOf(e.getMessage());
+    }
+    run.wallMillis = (System.nanoTime() - start) / 1e6;
+    for (Map.Entry<String, TimingResult.Verdict> entry : result.getVerdicts().entrySet()) {
+      run.properties.add(
+          new PropertyTiming(entry.getKey(), entry.getValue().answer, entry.getValue().millis));
+    }
+  }
+
+  static String variant(String executable, String config) {
+    return executable + "[" + config + "]";
+  }
+
+  /**
+   * One run of a program with a variant.
+   */
+  static class Run {
+    final String program;
+    final String kind2;
+    final String config;
+    final int repetition;
+    double wallMillis;
+    String error;
+    final List<PropertyTiming> properties = new ArrayList<>();
+
+    Run(String program, String kind2, String config, int repetition) {
+      this.program = program;
+      this.kind2 = kind2;
+      this.config = config;
+      this.repetition = repetition;
+    }
+
+    String variant() {
+      return CorpusBenchmark.variant(kind2, config);
+    }
+  }
+
+  /**
+   * The verdict on one property in one run.
+   */
+  static class PropertyTiming {
+    final String property;
+    final String answer;
+    final double millis;
+
+    PropertyTiming(String property, String answer, double millis) {
+      this.property = property;
+      this.answer = answer;
+      this.millis = millis;
+    }
+  }
+
+  /**
+   * A property on which variants gave conflicting definite answers.
+   */
+  static class Disagreement {
+    final String program;
+    final String property;
+    final Map<String, String> answers;
+
+    Disagreement(String program, String property, Map<String, String> answers) {
+      this.program = program;
+      this.property = property;
+      this.answers = answers;
+    }
+  }
+
+  /**
+   * How much faster a variant is than the baseline, as a geometric mean of median-time ratios.
+   * Values above 1 mean faster.
+   */
+  static class Speedup {
+    final String variant;
+    final int programs;
+    final double wall;
+    final int properties;
+    final double timeToVerdict;
+
+    Speedup(String variant, int programs, double wall, int properties, double timeToVerdict) {
+      this.variant = variant;
+      this.programs = programs;
+      this.wall = wall;
+      this.properties = properties;
+      this.timeToVerdict = timeToVerdict;
+    }
+  }
+
+  /**
+   * The timings of a benchmark, with the disagreements and speedups derived from them.
+   */
+  public static class Report {
+    private final String baseline;
+    private final List<Run> runs;
+    private final List<Disagreement> disagreements = new ArrayList<>();
+    private final List<Speedup> speedups = new ArrayList<>();
+
+    Report(List<Run> runs, String baseline) {
+      this.runs = runs;
+      this.baseline = baseline;
+      findDisagreements();
+      computeSpeedups();
+    }
+
+    private void findDisagreements() {
+      // program -> property -> variant -> definite answer
+      Map<String, Map<String, Map<String, String>>> answers = new TreeMap<>();
+      for (Run run : runs) {
+        for (PropertyTiming timing : run.properties) {
+          if (timing.answer.equals("unknown")) {
+            continue;
+          }
+          answers.computeIfAbsent(run.program, p -> new TreeMap<>())
+              .computeIfAbsent(timing.property, p -> new TreeMap<>())
+              .merge(run.variant(), timing.answer,
+                  (a, b) -> a.equals(b) ? a : a + "|" + b);
+        }
+      }
+      for (Map.Entry<String, Map<String, Map<String, String>>> program : answers.entrySet()) {
+        for (Map.Entry<String, Map<String, String>> property : program.getValue().entrySet()) {
+          if (new TreeSet<>(property.getValue().values()).size() > 1
+              || property.getValue().values().stream().anyMatch(a -> a.contains("|"))) {
+            disagreements
+                .add(new Disagreement(program.getKey(), property.getKey(), property.getValue()));
+          }
+        }
+      }
+    }
+
+    private void computeSpeedups() {
+      // variant -> program -> wall times, and variant -> program/property -> verdict times
+      Map<String, Map<String, List<Double>>> wall = new LinkedHashMap<>();
+      Map<String, Map<String, List<Double>>> verdict = new LinkedHashMap<>();
+      for (Run run : runs) {
+        Map<String, List<Double>> variantWall =
+            wall.computeIfAbsent(run.variant(), v -> new TreeMap<>());
+        Map<String, List<Double>> variantVerdict =
+            verdict.computeIfAbsent(run.variant(), v -> new TreeMap<>());
+        if (run.error != null) {
+          continue;
+        }
+        variantWall.computeIfAbsent(run.program, p -> new ArrayList<>()).add(run.wallMillis);
+        for (PropertyTiming timing : run.properties) {
+          variantVerdict.computeIfAbsent(run.program + "\0" + timing.property,
+              p -> new ArrayList<>()).add(timing.millis);
+        }
+      }
+      for (String variant : wall.keySet()) {
+        double[] wallRatio = geometricMeanRatio(wall.get(baseline), wall.get(variant));
+        double[] verdictRatio = geometricMeanRatio(verdict.get(baseline), verdict.get(variant));
+        speedups.add(new Speedup(variant, (int) wallRatio[1], wallRatio[0], (int) verdictRatio[1],
+            verdictRatio[0]));
+      }
+    }
+
+    /**
+     * Returns the geometric mean of baseline median over variant median, over the keys both
+     * have, and the number of such keys.
+     */
+    private static double[] geometricMeanRatio(Map<String, List<Double>> baseline,
+        Map<String, List<Double>> variant) {
+      double logSum = 0;
+      int count = 0;
+      if (baseline != null && variant != null) {
+        for (Map.Entry<String, List<Double>> entry : variant.entrySet()) {
+          List<Double> reference = baseline.get(entry.getKey());
+          if (reference == null) {
+            continue;
+          }
+          double numerator = median(reference);
+          double denominator = median(entry.getValue());
+          if (numerator > 0 && denominator > 0) {
+            logSum += Math.log(numerator / denominator);
+            count++;
+          }
+        }
+      }
+      return new double[] {count == 0 ? Double.NaN : Math.exp(logSum / count), count};
+    }
+
+    private static double median(List<Double> values) {
+      List<Double> sorted = new ArrayList<>(values);
+      Collections.sort(sorted);
+      int n = sorted.size();
+      return n % 2 == 1 ? sorted.get(n / 2) : (sorted.get(n / 2 - 1) + sorted.get(n / 2)) / 2;
+    }
+
+    /**
+     * Returns the number of properties on which variants gave conflicting definite answers.
+     *
+     * @return the number of disagreements
+     */
+    public int getDisagreementCount() {
+      return disagreements.size();
+    }
+
+    /**
+     * Writes one row per property and run, or per run when it reported no property.
+     *
+     * @param writer where to write the CSV
+     * @throws IOException if the writer fails
+     */
+    public void writeCsv(Writer writer) throws IOException {
+      writer.write("program,kind2,config,repetition,wall_ms,error,property,answer,verdict_ms\n");
+      for (Run run : runs) {
+        String prefix = csv(run.program) + "," + csv(run.kind2) + "," + csv(run.config) + ","
+            + run.repetition + "," + String.format(Locale.ROOT, "%.3f", run.wallMillis) + ","
+            + csv(run.error == null ? "" : run.error);
+        if (run.properties.isEmpty()) {
+          writer.write(prefix + ",,,\n");
+        }
+        for (PropertyTiming timing : run.properties) {
+          writer.write(prefix + "," + csv(timing.property) + "," + timing.answer + ","
+              + String.format(Locale.ROOT, "%.3f", timing.millis) + "\n");
+        }
+      }
+      writer.flush();
+    }
+
+    /**
+     * Writes the whole report, runs included, as JSON.
+     *
+     * @param writer where to write the JSON
+     * @throws IOException if the writer fails
+     */
+    public void writeJson(Writer writer) throws IOException {
+      new GsonBuilder().setPrettyPrinting().serializeSpecialFloatingPointValues().create()
+          .toJson(this, writer);
+      writer.flush();
+    }
+
+    private static String csv(String field) {
+      if (field.contains(",") || field.contains("\"") || field.contains("\n")) {
+        return "\"" + field.replace("\"", "\"\"") + "\"";
+      }
+      return field;
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder builder = new StringBuilder();
+      long failed = runs.stream().filter(r -> r.error != null).count();
+      builder.append(String.format(Locale.ROOT, "%d runs, %d failed, baseline %s%n",
+          runs.size(), failed, baseline));
+      for (Speedup speedup : speedups) {
+        builder.append(String.format(Locale.ROOT,
+            "  %-40s wall x%.3f over %d programs, verdict x%.3f over %d properties%n",
+            speedup.variant, speedup.wall, speedup.programs, speedup.timeToVerdict,
+            speedup.properties));
+      }
+      for (Disagreement disagreement : disagreements) {
+        builder.append(String.format(Locale.ROOT, "  disagreement on %s in %s: %s%n",
+            disagreement.property, disagreement.program, disagreement.answers));
+      }
+      return builder.toString();
+    }
+  }
+
+  private static List<Path> lustreFiles(String location) throws IOException {
+    Path path = Paths.get(location);
+    if (!Files.isDirectory(path)) {
+      return Collections.singletonList(path);
+    }
+    try (Stream<Path> files = Files.walk(path)) {
+      return files.filter(f -> f.toString().endsWith(".lus")).sorted()
+          .collect(Collectors.toList());
+    }
+  }
+
+  private static void usage() {
+    System.out.println("Usage: CorpusBenchmark [options] <file.lus|directory>...\n"
+        + "  --kind2 <path>           Kind 2 executable to compare, repeatable (default: "
+        + Kind2Api.KIND2 + ")\n"
+        + "  --config <name>=<opts>   named set of kind2 options separated by spaces, repeatable\n"
+        + "  --repetitions <n>        runs of each program per variant (default: 3)\n"
+        + "  --threads <n>            runs executed in parallel (default: available processors)\n"
+        + "  --timeout <seconds>      Kind 2 timeout of each run\n"
+        + "  --csv <file>             write per-property timings as CSV\n"
+        + "  --json <file>            write the full report as JSON\n"
+        + "The first executable with the first option set is the baseline for speedups.");
+  }
+
+  /**
+   * Runs the benchmark described by the command line and prints a summary.
+   *
+   * @param args the command line, see the usage message
+   * @throws Exception if the benchmark fails
+   */
+  public static void main(String[] args) throws Exception {
+    List<Path> programs = new ArrayList<>();
+    List<String> executables = new ArrayList<>();
+    Map<String, List<String>> configs = new LinkedHashMap<>();
+    int repetitions = 3;
+    int threads = Runtime.getRuntime().availableProcessors();
+    Float timeout = null;
+    String csv = null;
+    String json = null;
+    for (int i = 0; i < args.length; i++) {
+      String arg = args[i];
+      if (arg.startsWith("--") && i + 1 >= args.length) {
+        usage();
+        return;
+      }
+      switch (arg) {
+        case "--kind2":
+          executables.add(args[++i]);
+          break;
+        case "--config":
+          String[] config = args[++i].split("=", 2);
+          configs.put(config[0], config.length < 2 || config[1].trim().isEmpty()
+              ? Collections.emptyList() : Arrays.asList(config[1].trim().split("\\s+")));
+          break;
+        case "--repetitions":
+          repetitions = Integer.parseInt(args[++i]);
+          break;
+        case "--threads":
+          threads = Integer.parseInt(args[++i]);
+          break;
+        case "--timeout":
+          timeout = Float.parseFloat(args[++i]);
+          break;
+        case "--csv":
+          csv = args[++i];
+          break;
+        case "--json":
+          json = args[++i];
+          break;
+        default:
+          programs.addAll(lustreFiles(arg));
+      }
+    }
+    if (programs.isEmpty()) {
+      usage();
+      return;
+    }
+    if (executables.isEmpty()) {
+      executables.add(Kind2Api.KIND2);
+    }
+    if (configs.isEmpty()) {
+      configs.put("default", Collections.emptyList());
+    }
+
+    CorpusBenchmark benchmark =
+        new CorpusBenchmark(programs, executables, configs, repetitions, threads);
+    if (timeout != null) {
+      benchmark.setTimeout(timeout);
+    }
+    Report report = benchmark.run();
+    if (csv != null) {
+      try (Writer writer = Files.newBufferedWriter(Paths.get(csv), StandardCharsets.UTF_8)) {
+        report.writeCsv(writer);
+      }
+    }
+    if (json != null) {
+      try (Writer writer = Files.newBufferedWriter(Paths.get(json), StandardCharsets.UTF_8)) {
+        report.writeJson(writer);
+      }
+    }
+    System.out.print(report);
+  }
+}
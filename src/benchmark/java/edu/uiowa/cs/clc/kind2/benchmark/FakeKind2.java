@@ -0,0 +1,307 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import edu.uiowa.cs.clc.kind2.api.JournalReplayer;
+import edu.uiowa.cs.clc.kind2.results.Labels;
+
+/**
+ * A stand-in for the Kind 2 executable that emits a synthetic or recorded JSON stream instead of
+ * analyzing anything, for measuring the overhead of the API itself.
+ * <p>
+ * It reads the program from its standard input and ignores its command line, except for
+ * {@code --version} and {@code --help}. The output is configured with environment variables:
+ * <ul>
+ * <li>{@code FAKE_KIND2_INPUT}: a recorded output to emit, either a json array such as the
+ * {@code files/*.json} samples or a {@link JournalReplayer journal}. Without it, a synthetic
+ * analysis is emitted.</li>
+ * <li>{@code FAKE_KIND2_PROPERTIES}, {@code FAKE_KIND2_STEPS}, {@code FAKE_KIND2_STREAMS}: the
+ * number of properties of the synthetic analysis, half of them falsified, and the length and
+ * number of streams of their counterexamples (default 10, 10 and 4).</li>
+ * <li>{@code FAKE_KIND2_REPEAT}: how many times to emit the analyses (default 1).</li>
+ * <li>{@code FAKE_KIND2_RATE}: how many objects to emit per second (default 0, as fast as
+ * possible).</li>
+ * </ul>
+ * The {@code scripts/fake-kind2} launcher runs this class, so that its path can be used as
+ * {@link edu.uiowa.cs.clc.kind2.api.Kind2Api#KIND2}.
+ */
+public class FakeKind2 {
+  /**
+   * The version reported for {@code --version}.
+   */
+  public static final String VERSION = "Kind 2 (fake)";
+
+  private FakeKind2() {
+  }
+
+  /**
+   * Returns the objects of a recorded output, from a json array or a journal file.
+   *
+   * @param file the recorded output
+   * @return the recorded objects
+   * @throws IOException if the file cannot be read
+   */
+  public static List<JsonElement> recorded(Path file) throws IOException {
+    List<JsonElement> elements = new ArrayList<>();
+    byte[] bytes = Files.readAllBytes(file);
+    String text = new String(bytes, StandardCharsets.UTF_8).trim();
+    if (text.startsWith("[")) {
+      for (JsonElement element : JsonParser.parseString(text).getAsJsonArray()) {
+        elements.add(element);
+      }
+      return elements;
+    }
+    try (JournalReplayer replayer = new JournalReplayer(file)) {
+      JsonElement element;
+      while ((element = replayer.next()) != null) {
+        elements.add(element);
+      }
+    }
+    return elements;
+  }
+
+  /**
+   * Returns the objects of a synthetic analysis of one node.
+   *
+   * @param properties the number of properties, every second one falsified
+   * @param steps the length of each counterexample
+   * @param streams the number of streams of each counterexample, alternately int, bool and real
+   * @return the synthetic objects
+   */
+  public static List<JsonElement> synthetic(int properties, int steps, int streams) {
+    List<JsonElement> elements = new ArrayList<>();
+    JsonObject options = object("kind2Options");
+    options.add("enabled", new JsonArray());
+    options.addProperty(Labels.timeout, 0.0);
+    options.addProperty(Labels.bmcMax, 0);
+    options.addProperty(Labels.compositional, false);
+    options.addProperty("modular", false);
+    elements.add(options);
+
+    JsonObject start = object("analysisStart");
+    start.addProperty(Labels.top, "Main");
+    start.add(Labels.concrete, new JsonArray());
+    start.add(Labels.abstractField, new JsonArray());
+    start.add(Labels.assumptions, new JsonArray());
+    elements.add(start);
+
+    for (int p = 0; p < properties; p++) {
+      boolean falsified = p % 2 == 1;
+      JsonObject property = object("property");
+      property.addProperty(Labels.name, "P" + p);
+      property.addProperty(Labels.scope, "Main");
+      property.addProperty(Labels.line, p + 1);
+      property.addProperty(Labels.column, 2);
+      property.addProperty(Labels.source, "PropAnnot");
+      JsonObject answer = new JsonObject();
+      answer.addProperty(Labels.source, falsified ? "bmc" : "ind");
+      answer.addProperty(Labels.value, falsified ? "falsifiable" : "valid");
+      property.add(Labels.answer, answer);
+      if (falsified) {
+        property.addProperty(Labels.k, steps - 1);
+        property.add(Labels.counterExample, counterExample(p, steps, streams));
+      }
+      elements.add(property);
+    }
+    elements.add(object("analysisStop"));
+    return elements;
+  }
+
+  /**
+   * Returns a recorded output with every property and every model element repeated, so that the
+   * analyses and model element sets are larger by the given factor. Each copy of a property is
+   * renamed the same way as the copies of the elements that refer to it.
+   *
+   * @param elements the recorded objects
+   * @param copies the number of copies of each property and model element
+   * @return the scaled objects
+   */
+  public static List<JsonElement> scaled(List<JsonElement> elements, int copies) {
+    List<JsonElement> scaled = new ArrayList<>();
+    for (JsonElement element : elements) {
+      String objectType = element.getAsJsonObject().get(Labels.objectType).getAsString();
+      if (objectType.equals("property")) {
+        for (int c = 0; c < copies; c++) {
+          scaled.add(renamed(element.getAsJsonObject(), c));
+        }
+      } else if (objectType.equals("modelElementSet")) {
+        JsonObject set = element.getAsJsonObject().deepCopy();
+        set.addProperty(Labels.size, set.get(Labels.size).getAsInt() * copies);
+        for (JsonElement node : set.get(Labels.nodes).getAsJsonArray()) {
+          JsonArray nodeElements = new JsonArray();
+          for (JsonElement modelElement : node.getAsJsonObject().get(Labels.elements)
+              .getAsJsonArray()) {
+            for (int c = 0; c < copies; c++) {
+              nodeElements.add(renamed(modelElement.getAsJsonObject(), c));
+            }
+          }
+          node.getAsJsonObject().add(Labels.elements, nodeElements);
+        }
+        scaled.add(set);
+      } else {
+        scaled.add(element);
+      }
+    }
+    return scaled;
+  }
+
+  private static JsonObject renamed(JsonObject object, int copy) {
+    if (copy == 0) {
+      return object;
+    }
+    JsonObject renamed = object.deepCopy();
+    renamed.addProperty(Labels.name, object.get(Labels.name).getAsString() + "_" + copy);
+    return renamed;
+  }
+
+  private static JsonArray counterExample(int seed, int steps, int streams) {
+    JsonObject node = new JsonObject();
+    node.addProperty(Labels.blockType, "node");
+    node.addProperty(Labels.name, "Main");
+    JsonArray streamArray = new JsonArray();
+    for (int s = 0; s < streams; s++) {
+      String type = s % 3 == 0 ? "int" : s % 3 == 1 ? "bool" : "real";
+      JsonObject stream = new JsonObject();
+      stream.addProperty(Labels.name, "x" + s);
+      stream.addProperty(Labels.type, type);
+      stream.addProperty(Labels.classField, s == 0 ? Labels.output : Labels.input);
+      JsonArray values = new JsonArray();
+      for (int i = 0; i < steps; i++) {
+        JsonArray instant = new JsonArray();
+        instant.add(i);
+        int v = (seed * 31 + s * 7 + i) % 17 - 8;
+        if (type.equals("int")) {
+          instant.add(v);
+        } else if (type.equals("bool")) {
+          instant.add(v > 0);
+        } else {
+          JsonObject real = new JsonObject();
+          real.addProperty(Labels.numerator, v);
+          real.addProperty(Labels.denominator, 3);
+          instant.add(real);
+        }
+        values.add(instant);
+      }
+      stream.add(Labels.instantValues, values);
+      streamArray.add(stream);
+    }
+    node.add(Labels.streams, streamArray);
+    JsonArray counterExample = new JsonArray();
+    counterExample.add(node);
+    return counterExample;
+  }
+
+  private static JsonObject object(String objectType) {
+    JsonObject object = new JsonObject();
+    object.addProperty(Labels.objectType, objectType);
+    return object;
+  }
+
+  /**
+   * Writes the objects the way Kind 2 does with {@code -ijson}, one after the other.
+   *
+   * @param elements the objects of one repetition
+   * @param repeat how many times to write the objects
+   * @param rate how many objects to write per second, or 0 for no limit
+   * @param out where to write the stream
+   * @throws IOException if the stream cannot be written
+   * @throws InterruptedException if interrupted while pacing the output
+   */
+  public static void emit(List<JsonElement> elements, int repeat, double rate, OutputStream out)
+      throws IOException, InterruptedException {
+    Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+    long start = System.nanoTime();
+    long count = 0;
+    for (int r = 0; r < repeat; r++) {
+      for (JsonElement element : elements) {
+        if (rate > 0) {
+          long wait = start + (long) (count / rate * 1e9) - System.nanoTime();
+          if (wait > 0) {
+            writer.flush();
+            TimeUnit.NANOSECONDS.sleep(wait);
+          }
+        }
+        writer.write(element.toString());
+        writer.write('\n');
+        count++;
+      }
+    }
+    writer.flush();
+  }
+
+  /**
+   * Returns the objects configured by the {@code FAKE_KIND2_*} variables of an environment.
+   *
+   * @param env the environment
+   * @return the objects of one repetition
+   * @throws IOException if the recorded output cannot be read
+   */
+  public static List<JsonElement> configured(Map<String, String> env) throws IOException {
+    String input = env.get("FAKE_KIND2_INPUT");
+    if (input != null && !input.isEmpty()) {
+      return recorded(Paths.get(input));
+    }
+    return synthetic(intVariable(env, "FAKE_KIND2_PROPERTIES", 10),
+        intVariable(env, "FAKE_KIND2_STEPS", 10), intVariable(env, "FAKE_KIND2_STREAMS", 4));
+  }
+
+  private static int intVariable(Map<String, String> env, String name, int defaultValue) {
+    String value = env.get(name);
+    return value == null || value.isEmpty() ? defaultValue : Integer.parseInt(value);
+  }
+
+  private static void drain(InputStream in) throws IOException {
+    byte[] buffer = new byte[8192];
+    while (in.read(buffer) != -1) {
+      // the program is not analyzed
+    }
+  }
+
+  /**
+   * Behaves like Kind 2 run with {@code -ijson} on a program read from the standard input.
+   *
+   * @param args the Kind 2 command line, ignored except for {@code --version} and {@code --help}
+   * @throws Exception if the configured output cannot be read or written
+   */
+  public static void main(String[] args) throws Exception {
+    for (String arg : args) {
+      if (arg.equals("--version")) {
+        System.out.println(VERSION);
+        return;
+      }
+      if (arg.equals("--help")) {
+        return;
+      }
+    }
+    drain(System.in);
+    Map<String, String> env = System.getenv();
+    String rate = env.get("FAKE_KIND2_RATE");
+    emit(configured(env), intVariable(env, "FAKE_KIND2_REPEAT", 1),
+        rate == null || rate.isEmpty() ? 0 : Double.parseDouble(rate), System.out);
+  }
+}
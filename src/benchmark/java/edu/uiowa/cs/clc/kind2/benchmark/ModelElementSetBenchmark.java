@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.benchmark;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+
+import edu.uiowa.cs.clc.kind2.results.Analysis;
+import edu.uiowa.cs.clc.kind2.results.ModelElementSet;
+import edu.uiowa.cs.clc.kind2.results.Node;
+import edu.uiowa.cs.clc.kind2.results.NodeResult;
+import edu.uiowa.cs.clc.kind2.results.Result;
+
+/**
+ * Measures how the time to parse the output of an IVC or MCS post-analysis grows with the number
+ * of properties and model elements.
+ * <p>
+ * A recorded output, {@code files/ivc.json} by default, is scaled by {@link FakeKind2#scaled} so
+ * that every analysis has more properties and every model element set refers to each of them. The
+ * output is then parsed with {@link Result#analyzeJsonResult(String)}. When each element resolves
+ * its property in constant time, the time per element stays flat as the scale grows.
+ */
+public class ModelElementSetBenchmark {
+  private ModelElementSetBenchmark() {
+  }
+
+  private static String render(List<JsonElement> elements) {
+    JsonArray array = new JsonArray();
+    for (JsonElement element : elements) {
+      array.add(element);
+    }
+    return array.toString();
+  }
+
+  /**
+   * Returns the number of model elements of a result.
+   *
+   * @param result the parsed result
+   * @return the number of model elements in all its model element sets
+   */
+  static int countElements(Result result) {
+    int count = 0;
+    for (NodeResult nodeResult : result.getResultMap().values()) {
+      for (Analysis analysis : nodeResult.getAnalyses()) {
+        if (analysis.getPostAnalysis() == null) {
+          continue;
+        }
+        for (ModelElementSet set : analysis.getPostAnalysis().getModelElements()) {
+          for (Node node : set.getNodes()) {
+            count += node.getElements().size();
+          }
+        }
+      }
+    }
+    return count;
+  }
+
+  private static double median(List<Double> values) {
+    List<Double> sorted = new ArrayList<>(values);
+    Collections.sort(sorted);
+    int n = sorted.size();
+    return n % 2 == 1 ? sorted.get(n / 2) : (sorted.get(n / 2 - 1) + sorted.get(n / 2)) / 2;
+  }
+
+  /**
+   * Parses the recorded output at growing scales and prints the median time of each.
+   *
+   * @param args {@code [--runs n] [--warmups n] [--scales n,n,...] [recorded]}
+   * @throws Exception if the recorded output cannot be read or parsed
+   */
+  public static void main(String[] args) throws Exception {
+    int runs = 10;
+    int warmups = 3;
+    String scales = "1,10,100,1000";
+    Path file = Paths.get("files", "ivc.json");
+    for (int i = 0; i < args.length; i++) {
+      if (args[i].equals("--runs") && i + 1 < args.length) {
+        runs = Integer.parseInt(args[++i]);
+      } else if (args[i].equals("--warmups") && i + 1 < args.length) {
+        warmups = Integer.parseInt(args[++i]);
+      } else if (args[i].equals("--scales") && i + 1 < args.length) {
+        scales = args[++i];
+      } else {
+        file = Paths.get(args[i]);
+      }
+    }
+    List<JsonElement> recorded = FakeKind2.recorded(file);
+
+    System.out.println(String.format("%8s %10s %10s %12s", "scale", "elements", "parse ms",
+        "us/element"));
+    for (String scale : scales.split(",")) {
+      String json = render(FakeKind2.scaled(recorded, Integer.parseInt(scale.trim())));
+      List<Double> times = new ArrayList<>();
+      int elements = 0;
+      for (int i = 0; i < warmups + runs; i++) {
+        long start = System.nanoTime();
+        Result result = Result.analyzeJsonResult(json);
+        double millis = (System.nanoTime() - start) / 1e6;
+        if (i >= warmups) {
+          times.add(millis);
+        }
+        elements = countElements(result);
+      }
+      double millis = median(times);
+      System.out.println(String.format("%8s %10d %10.2f %12.3f", scale.trim(), elements, millis,
+          elements == 0 ? Double.NaN : millis * 1000 / elements));
+    }
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.benchmark;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import edu.uiowa.cs.clc.kind2.results.Labels;
+import edu.uiowa.cs.clc.kind2.results.Object;
+import edu.uiowa.cs.clc.kind2.results.Result;
+
+/**
+ * A result that also records when each property received its final answer, relative to the
+ * construction of the result.
+ */
+class TimingResult extends Result {
+  private final long start = System.nanoTime();
+  private final Map<String, Verdict> verdicts = new LinkedHashMap<>();
+  private String top = "";
+
+  /**
+   * The answer to a property and the time it first appeared, in milliseconds.
+   */
+  static class Verdict {
+    final String answer;
+    final double millis;
+
+    Verdict(String answer, double millis) {
+      this.answer = answer;
+      this.millis = millis;
+    }
+  }
+
+  @Override
+  public void addJsonElement(JsonElement jsonElement) {
+    super.addJsonElement(jsonElement);
+    double millis = (System.nanoTime() - start) / 1e6;
+    JsonObject jsonObject = jsonElement.getAsJsonObject();
+    Object kind2Object = Object.getKind2Object(jsonObject.get(Labels.objectType).getAsString());
+    if (kind2Object == Object.analysisStart) {
+      top = jsonObject.get(Labels.top).getAsString();
+    } else if (kind2Object == Object.property) {
+      String name = top + "." + jsonObject.get(Labels.name).getAsString();
+      String answer =
+          jsonObject.get(Labels.answer).getAsJsonObject().get(Labels.value).getAsString();
+      Verdict previous = verdicts.get(name);
+      // keep the time the answer first appeared when a later analysis repeats it
+      if (previous == null || !previous.answer.equals(answer)) {
+        verdicts.put(name, new Verdict(answer, millis));
+      }
+    }
+  }
+
+  /**
+   * Returns the final answer of each property, keyed by the analyzed node and property name.
+   */
+  Map<String, Verdict> getVerdicts() {
+    return verdicts;
+  }
+}
@@ -0,0 +1,511 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.api;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.io.UncheckedIOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import edu.uiowa.cs.clc.kind2.Kind2Exception;
+
+/**
+ * Copies the library files a Lustre program includes into a local, content-addressed cache, so
+ * that Kind 2 reads them from fast local storage instead of the original include directories.
+ * <p>
+ * For every include directory that provides at least one file the program (transitively) includes,
+ * the stager builds a staged copy of that directory holding just those files, under a name derived
+ * from their contents. A staged copy is written once and then shared by every later run, in this
+ * or any other process using the same cache directory, that needs the same files. Files are only
+ * hashed again when their size or modification time changes, so once staged, a run only checks
+ * the metadata of the original files and never reads them.
+ * <p>
+ * Staged copies are evicted least recently used first when the cache grows beyond its size limit.
+ * Copies used within the last {@link #GRACE_PERIOD_MILLIS} milliseconds are never evicted, since a
+ * Kind 2 process started by another run may still be reading them. Several processes may stage
+ * into and evict from the same cache at once: a copy another process evicts is staged again, and
+ * the private directories of runs that stopped while staging are removed once the grace period is
+ * over.
+ */
+public class IncludeStager {
+  /**
+   * The default limit on the total size of the staged copies, in bytes.
+   */
+  public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+  /**
+   * How long after its last use a staged copy is protected from eviction, in milliseconds.
+   */
+  public static final long GRACE_PERIOD_MILLIS = 10 * 60 * 1000;
+
+  private static final String TEMP_PREFIX = ".staging-";
+  private static final Pattern INCLUDE = Pattern.compile("\\binclude\\s+\"([^\"]+)\"");
+  private static final Pattern LINE_COMMENT = Pattern.compile("--[^\n]*");
+  private static final Pattern BLOCK_COMMENT = Pattern.compile("\\(\\*.*?\\*\\)", Pattern.DOTALL);
+
+  private final Path root;
+  private final long maxBytes;
+  /**
+   * The hash and include directives of each library file, keyed by its absolute path.
+   */
+  private final Map<Path, Fingerprint> fingerprints = new ConcurrentHashMap<>();
+
+  /**
+   * Constructs a stager using the default cache directory and size limit.
+   *
+   * @see #defaultRoot()
+   */
+  public IncludeStager() {
+    this(defaultRoot(), DEFAULT_MAX_BYTES);
+  }
+
+  /**
+   * Constructs a stager using the given cache directory and size limit.
+   *
+   * @param root the directory holding the staged copies, created if needed
+   * @param maxBytes the total size the staged copies may reach before old ones are evicted
+   */
+  public IncludeStager(Path root, long maxBytes) {
+    this.root = root.toAbsolutePath().normalize();
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Returns the default cache directory: a directory under {@code /dev/shm} when that is a
+   * writable memory-backed file system, and under the temporary-file directory otherwise.
+   *
+   * @return the default cache directory
+   */
+  public static Path defaultRoot() {
+    Path shm = Paths.get("/dev/shm");
+    String dirName = "kind2-api-includes-" + System.getProperty("user.name", "user");
+    if (Files.isDirectory(shm) && Files.isWritable(shm)) {
+      return shm.resolve(dirName);
+    }
+    return Paths.get(System.getProperty("java.io.tmpdir")).resolve(dirName);
+  }
+
+  /**
+   * Returns the directory holding the staged copies.
+   *
+   * @return the directory holding the staged copies
+   */
+  public Path getRoot() {
+    return root;
+  }
+
+  /**
+   * Stages the files a program includes and returns the include directories to pass to Kind 2.
+   * <p>
+   * The returned list holds one staged directory for every include directory that provides an
+   * included file, in the original order. If some include directive cannot be resolved, the
+   * original directories are appended after the staged ones, so Kind 2 reports the missing file
+   * exactly as it would have without staging.
+   *
+   * @param program the Lustre program text
+   * @param includeDirs the include directories, searched in order
+   * @return the include directories to pass to Kind 2 instead of {@code includeDirs}
+   * @throws Kind2Exception if an included file cannot be read or staged
+   */
+  public List<String> stage(String program, List<String> includeDirs) {
+    if (includeDirs.isEmpty()) {
+      return includeDirs;
+    }
+    List<Path> dirs = new ArrayList<>();
+    for (String dir : includeDirs) {
+      dirs.add(Paths.get(dir).toAbsolutePath().normalize());
+    }
+
+    try {
+      // the files to stage for each include directory, keyed by their path relative to it
+      List<Map<String, Fingerprint>> staged = new ArrayList<>();
+      for (int i = 0; i < dirs.size(); i++) {
+        staged.add(new TreeMap<>());
+      }
+      boolean unresolved = collect(program, dirs, staged);
+
+      List<String> result = new ArrayList<>();
+      Set<Path> used = new HashSet<>();
+      for (int i = 0; i < dirs.size(); i++) {
+        if (!staged.get(i).isEmpty()) {
+          Path tree = stageTree(dirs.get(i), staged.get(i));
+          used.add(tree);
+          result.add(tree.toString());
+        }
+      }
+      if (unresolved) {
+        result.addAll(includeDirs);
+      }
+      collectGarbage(used);
+      return result;
+    } catch (IOException e) {
+      throw new Kind2Exception("Unable to stage include files: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Finds the files a program transitively includes, resolving each include directive the way
+   * Kind 2 does: first against the directory of the including file, then against the include
+   * directories in order.
+   *
+   * @return {@code true} if some include directive could not be resolved
+   */
+  private boolean collect(String program, List<Path> dirs, List<Map<String, Fingerprint>> staged)
+      throws IOException {
+    boolean unresolved = false;
+    Deque<Included> pending = new ArrayDeque<>();
+    for (String include : includes(program)) {
+      pending.add(new Included(-1, null, include));
+    }
+    while (!pending.isEmpty()) {
+      Included included = pending.remove();
+      Resolved resolved = resolve(included, dirs);
+      if (resolved == null) {
+        unresolved = true;
+        continue;
+      }
+      Map<String, Fingerprint> files = staged.get(resolved.dirIndex);
+      String key = resolved.relative.toString();
+      if (files.containsKey(key)) {
+        continue;
+      }
+      Fingerprint fingerprint = fingerprint(dirs.get(resolved.dirIndex).resolve(resolved.relative));
+      files.put(key, fingerprint);
+      for (String include : fingerprint.includes) {
+        pending.add(new Included(resolved.dirIndex, resolved.relative, include));
+      }
+    }
+    return unresolved;
+  }
+
+  /**
+   * Returns the include directory providing an included file and the file's path relative to it,
+   * or null if no include directory provides it.
+   */
+  private static Resolved resolve(Included included, List<Path> dirs) {
+    Path candidate = includerRelative(included);
+    if (candidate != null && Files.isRegularFile(dirs.get(included.dirIndex).resolve(candidate))) {
+      return new Resolved(included.dirIndex, candidate);
+    }
+    for (int i = 0; i < dirs.size(); i++) {
+      Path dir = dirs.get(i);
+      Path file = dir.resolve(included.name).normalize();
+      if (file.startsWith(dir) && Files.isRegularFile(file)) {
+        return new Resolved(i, dir.relativize(file));
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the path of an included file relative to the include directory of the file including
+   * it, or null if it lies outside that directory.
+   */
+  private static Path includerRelative(Included included) {
+    if (included.dirIndex < 0) {
+      return null;
+    }
+    Path parent = included.includer.getParent();
+    Path candidate = (parent == null ? Paths.get(included.name) : parent.resolve(included.name))
+        .normalize();
+    if (candidate.startsWith("..") || candidate.isAbsolute()) {
+      return null;
+    }
+    return candidate;
+  }
+
+  /**
+   * Returns the hash and include directives of a library file, reading it only if its size or
+   * modification time changed since it was last read.
+   */
+  private Fingerprint fingerprint(Path file) throws IOException {
+    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+    long size = attributes.size();
+    long modified = attributes.lastModifiedTime().toMillis();
+    Fingerprint fingerprint = fingerprints.get(file);
+    if (fingerprint != null && fingerprint.size == size && fingerprint.modified == modified) {
+      return fingerprint;
+    }
+    byte[] contents = Files.readAllBytes(file);
+    fingerprint = new Fingerprint(file, size, modified, sha256(contents),
+        includes(new String(contents, StandardCharsets.UTF_8)));
+    fingerprints.put(file, fingerprint);
+    return fingerprint;
+  }
+
+  /**
+   * Returns the staged copy of the given files of an include directory, creating it if no run has
+   * staged the same files before.
+   */
+  private Path stageTree(Path dir, Map<String, Fingerprint> files) throws IOException {
+    StringBuilder manifest = new StringBuilder();
+    for (Map.Entry<String, Fingerprint> entry : files.entrySet()) {
+      manifest.append(entry.getKey()).append('\0').append(entry.getValue().hash).append('\n');
+    }
+    Path tree = root.resolve(sha256(manifest.toString().getBytes(StandardCharsets.UTF_8)));
+    if (Files.isDirectory(tree)) {
+      try {
+        Files.setLastModifiedTime(tree, FileTime.fromMillis(System.currentTimeMillis()));
+        return tree;
+      } catch (NoSuchFileException e) {
+        // another process evicted the copy since it was found, so stage it again
+      }
+    }
+
+    // build the copy under a private name, then publish it with an atomic rename so concurrent
+    // runs never see a partial copy, and only one of them wins if they race
+    Files.createDirectories(root);
+    Path temp = root.resolve(TEMP_PREFIX + UUID.randomUUID());
+    try {
+      for (Map.Entry<String, Fingerprint> entry : files.entrySet()) {
+        Path target = temp.resolve(entry.getKey());
+        Files.createDirectories(target.getParent());
+        Files.copy(entry.getValue().file, target);
+      }
+      try {
+        Files.move(temp, tree, StandardCopyOption.ATOMIC_MOVE);
+      } catch (FileAlreadyExistsException | AtomicMoveNotSupportedException e) {
+        if (!Files.isDirectory(tree)) {
+          throw e;
+        }
+      } catch (IOException e) {
+        // some file systems report a lost race on a non-empty target as a generic failure
+        if (!Files.isDirectory(tree)) {
+          throw e;
+        }
+      }
+    } finally {
+      deleteRecursively(temp);
+    }
+    return tree;
+  }
+
+  /**
+   * Evicts least recently used staged copies until the cache fits its size limit.
+   */
+  public void collectGarbage() {
+    try {
+      collectGarbage(Collections.<Path>emptySet());
+    } catch (IOException e) {
+      throw new Kind2Exception("Unable to clean include cache: " + e.getMessage(), e);
+    }
+  }
+
+  private void collectGarbage(Set<Path> inUse) throws IOException {
+    if (!Files.isDirectory(root)) {
+      return;
+    }
+    List<StagedTree> trees = new ArrayList<>();
+    long total = 0;
+    long protectedSince = System.currentTimeMillis() - GRACE_PERIOD_MILLIS;
+    try (DirectoryStream<Path> entries = Files.newDirectoryStream(root)) {
+      for (Path entry : entries) {
+        if (!Files.isDirectory(entry)) {
+          continue;
+        }
+        long lastUsed = lastModified(entry);
+        if (entry.getFileName().toString().startsWith(TEMP_PREFIX)) {
+          // left behind by a run that stopped while staging
+          if (lastUsed >= 0 && lastUsed < protectedSince) {
+            deleteRecursively(entry);
+          }
+          continue;
+        }
+        long size = sizeOf(entry);
+        if (lastUsed < 0 || size < 0) {
+          continue;
+        }
+        trees.add(new StagedTree(entry, lastUsed, size));
+        total += size;
+      }
+    }
+    if (total <= maxBytes) {
+      return;
+    }
+    trees.sort((a, b) -> Long.compare(a.lastUsed, b.lastUsed));
+    for (StagedTree tree : trees) {
+      if (total <= maxBytes || tree.lastUsed >= protectedSince) {
+        break;
+      }
+      if (inUse.contains(tree.path)) {
+        continue;
+      }
+      // another run may have used the copy since it was listed
+      long lastUsed = lastModified(tree.path);
+      if (lastUsed >= protectedSince) {
+        continue;
+      }
+      if (lastUsed >= 0) {
+        deleteRecursively(tree.path);
+      }
+      total -= tree.size;
+    }
+  }
+
+  /**
+   * Returns the modification time of a file, or -1 if another process deleted it.
+   */
+  private static long lastModified(Path path) throws IOException {
+    try {
+      return Files.getLastModifiedTime(path).toMillis();
+    } catch (NoSuchFileException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Returns the total size of the files in a directory, or -1 if another process deleted it.
+   */
+  private static long sizeOf(Path dir) throws IOException {
+    try (Stream<Path> files = Files.walk(dir)) {
+      return files.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum();
+    } catch (NoSuchFileException | UncheckedIOException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Deletes a directory and its contents, if no other process deletes them first.
+   */
+  private static void deleteRecursively(Path path) throws IOException {
+    List<Path> paths = new ArrayList<>();
+    try (Stream<Path> files = Files.walk(path)) {
+      files.forEach(paths::add);
+    } catch (NoSuchFileException | UncheckedIOException e) {
+      // deleted by another process, entirely or in part
+    }
+    // delete children before their parents
+    Collections.reverse(paths);
+    for (Path file : paths) {
+      try {
+        Files.deleteIfExists(file);
+      } catch (DirectoryNotEmptyException e) {
+        // the walk missed entries the other process has yet to delete
+      }
+    }
+  }
+
+  /**
+   * Returns the files named by the include directives of a Lustre program, skipping comments.
+   */
+  static List<String> includes(String program) {
+    String code = LINE_COMMENT.matcher(BLOCK_COMMENT.matcher(program).replaceAll(" ")).replaceAll("");
+    List<String> includes = new ArrayList<>();
+    Matcher matcher = INCLUDE.matcher(code);
+    while (matcher.find()) {
+      includes.add(matcher.group(1));
+    }
+    return includes;
+  }
+
+  private static String sha256(byte[] bytes) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+      StringBuilder hex = new StringBuilder();
+      for (byte b : digest) {
+        hex.append(String.format("%02x", b));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new Kind2Exception("SHA-256 is not available", e);
+    }
+  }
+
+  /**
+   * An include directive, together with the file containing it.
+   */
+  private static class Included {
+    /**
+     * The include directory providing the including file, or -1 for the program itself.
+     */
+    final int dirIndex;
+    /**
+     * The including file, relative to its include directory.
+     */
+    final Path includer;
+    /**
+     * The file named by the directive.
+     */
+    final String name;
+
+    Included(int dirIndex, Path includer, String name) {
+      this.dirIndex = dirIndex;
+      this.includer = includer;
+      this.name = name;
+    }
+  }
+
+  /**
+   * An included file, located in one of the include directories.
+   */
+  private static class Resolved {
+    final int dirIndex;
+    final Path relative;
+
+    Resolved(int dirIndex, Path relative) {
+      this.dirIndex = dirIndex;
+      this.relative = relative;
+    }
+  }
+
+  /**
+   * What the stager remembers about a library file between runs.
+   */
+  private static class Fingerprint {
+    final Path file;
+    final long size;
+    final long modified;
+    final String hash;
+    final List<String> includes;
+
+    Fingerprint(Path file, long size, long modified, String hash, List<String> includes) {
+      this.file = file;
+      this.size = size;
+      this.modified = modified;
+      this.hash = hash;
+      this.includes = includes;
+    }
+  }
+
+  private static class StagedTree {
+    final Path path;
+    final long lastUsed;
+    final long size;
+
+    StagedTree(Path path, long lastUsed, long size) {
+      this.path = path;
+      this.lastUsed = lastUsed;
+      this.size = size;
+    }
+  }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.api;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+import edu.uiowa.cs.clc.kind2.Kind2Exception;
+import edu.uiowa.cs.clc.kind2.results.Result;
+
+/**
+ * Reads a journal written by {@link JournalWriter} and feeds the recorded Kind 2 output to a
+ * {@link Result}, either at the pace it was recorded at or as fast as possible.
+ */
+public class JournalReplayer implements Closeable {
+  private final DataInputStream in;
+  private long offsetMicros;
+
+  /**
+   * Opens a journal file, compressed or not.
+   *
+   * @param file the journal file
+   * @throws IOException if the file cannot be read
+   * @throws Kind2Exception if the file is not a journal
+   */
+  public JournalReplayer(Path file) throws IOException {
+    this(Files.newInputStream(file));
+  }
+
+  /**
+   * Reads a journal from a stream, which is closed with the replayer, or right away if it is not a
+   * journal.
+   *
+   * @param stream the journal, compressed or not
+   * @throws IOException if the stream cannot be read
+   * @throws Kind2Exception if the stream is not a journal
+   */
+  public JournalReplayer(InputStream stream) throws IOException {
+    this.in = open(stream);
+  }
+
+  private static DataInputStream open(InputStream stream) throws IOException {
+    try {
+      BufferedInputStream buffered = new BufferedInputStream(stream, 1 << 16);
+      buffered.mark(2);
+      boolean compressed = buffered.read() == 0x1f && buffered.read() == 0x8b;
+      buffered.reset();
+      InputStream input =
+          compressed ? new BufferedInputStream(new GZIPInputStream(buffered, 1 << 16)) : buffered;
+      DataInputStream in = new DataInputStream(input);
+      byte[] magic = new byte[JournalWriter.MAGIC.length + 1];
+      try {
+        in.readFully(magic);
+      } catch (EOFException e) {
+        throw new Kind2Exception("Not a Kind 2 journal");
+      }
+      for (int i = 0; i < JournalWriter.MAGIC.length; i++) {
+        if (magic[i] != JournalWriter.MAGIC[i]) {
+          throw new Kind2Exception("Not a Kind 2 journal");
+        }
+      }
+      if (magic[JournalWriter.MAGIC.length] != JournalWriter.VERSION) {
+        throw new Kind2Exception(
+            "Unsupported journal version: " + magic[JournalWriter.MAGIC.length]);
+      }
+      return in;
+    } catch (IOException | RuntimeException e) {
+      try {
+        stream.close();
+      } catch (IOException suppressed) {
+        e.addSuppressed(suppressed);
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Reads the next recorded object.
+   *
+   * @return the next object, or null at the end of the journal
+   * @throws IOException if the journal cannot be read or is truncated
+   */
+  public JsonElement next() throws IOException {
+    int first = in.read();
+    if (first == -1) {
+      return null;
+    }
+    offsetMicros += readVarint(first);
+    long length = readVarint(in.readUnsignedByte());
+    if (length > Integer.MAX_VALUE) {
+      throw new IOException("Corrupt journal entry of " + length + " bytes");
+    }
+    byte[] bytes = new byte[(int) length];
+    in.readFully(bytes);
+    return JsonParser.parseString(new String(bytes, StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Returns when the object last returned by {@link #next()} arrived, in nanoseconds since Kind 2
+   * started.
+   *
+   * @return the arrival time of the last object read
+   */
+  public long getOffsetNanos() {
+    return offsetMicros * 1000;
+  }
+
+  private long readVarint(int first) throws IOException {
+    long value = first & 0x7F;
+    int shift = 7;
+    int b = first;
+    while ((b & 0x80) != 0) {
+      if (shift > 63) {
+        throw new IOException("Corrupt journal varint");
+      }
+      b = in.readUnsignedByte();
+      value |= (long) (b & 0x7F) << shift;
+      shift += 7;
+    }
+    return value;
+  }
+
+  /**
+   * Feeds every remaining object to a result and a listener, the way {@link Kind2Api} does with
+   * the output of a live Kind 2 process, then finishes the result.
+   *
+   * @param result the result to fill
+   * @param listener notified after each object, may be null
+   * @param paced whether to reproduce the recorded arrival times, or replay as fast as possible
+   * @throws IOException if the journal cannot be read
+   * @throws InterruptedException if interrupted while waiting for the next arrival time
+   */
+  public void replay(Result result, ResultListener listener, boolean paced)
+      throws IOException, InterruptedException {
+    long start = System.nanoTime();
+    JsonElement jsonElement;
+    while ((jsonElement = next()) != null) {
+      if (paced) {
+        long wait = start + getOffsetNanos() - System.nanoTime();
+        if (wait > 0) {
+          TimeUnit.NANOSECONDS.sleep(wait);
+        }
+      }
+      result.addJsonElement(jsonElement);
+      if (listener != null) {
+        listener.onUpdate(result);
+      }
+    }
+    result.finish();
+  }
+
+  /**
+   * Replays a journal file into a new result.
+   *
+   * @param journal the journal file
+   * @param listener notified after each object, may be null
+   * @param paced whether to reproduce the recorded arrival times, or replay as fast as possible
+   * @return the result built from the journal
+   * @throws Kind2Exception if the journal cannot be read
+   */
+  public static Result replay(Path journal, ResultListener listener, boolean paced) {
+    Result result = new Result();
+    try (JournalReplayer replayer = new JournalReplayer(journal)) {
+      replayer.replay(result, listener, paced);
+    } catch (IOException e) {
+      throw new Kind2Exception("Cannot read journal: " + journal, e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new Kind2Exception("Interrupted while replaying journal: " + journal, e);
+    }
+    return result;
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.api;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import com.google.gson.JsonElement;
+
+/**
+ * Writes a journal of the JSON objects Kind 2 emitted, each with the time it arrived, so that the
+ * output can be replayed later by {@link JournalReplayer} without running Kind 2.
+ * <p>
+ * A journal starts with the bytes {@code K2J} and a format version, followed by one entry per
+ * object: the time since the previous entry in microseconds, the length of the object in bytes,
+ * both as unsigned LEB128 varints, and the object as compact UTF-8 JSON. The whole file may be
+ * gzip-compressed.
+ */
+public class JournalWriter implements Closeable {
+  static final byte[] MAGIC = {'K', '2', 'J'};
+  static final int VERSION = 1;
+
+  private final OutputStream out;
+  private long previousMicros;
+
+  /**
+   * Creates a journal file, replacing any existing file.
+   *
+   * @param file the journal file
+   * @param compress whether or not to gzip the journal
+   * @throws IOException if the file cannot be created
+   */
+  public JournalWriter(Path file, boolean compress) throws IOException {
+    this(Files.newOutputStream(file), compress);
+  }
+
+  /**
+   * Writes a journal to a stream, which is closed with the journal, or right away if the header
+   * cannot be written.
+   *
+   * @param out the stream to write to
+   * @param compress whether or not to gzip the journal
+   * @throws IOException if the header cannot be written
+   */
+  public JournalWriter(OutputStream out, boolean compress) throws IOException {
+    this.out = open(out, compress);
+  }
+
+  private static OutputStream open(OutputStream out, boolean compress) throws IOException {
+    try {
+      OutputStream stream = compress ? new GZIPOutputStream(out, 1 << 16) : out;
+      OutputStream buffered = new BufferedOutputStream(stream, 1 << 16);
+      buffered.write(MAGIC);
+      buffered.write(VERSION);
+      return buffered;
+    } catch (IOException | RuntimeException e) {
+      try {
+        out.close();
+      } catch (IOException suppressed) {
+        e.addSuppressed(suppressed);
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Appends an object to the journal.
+   *
+   * @param jsonElement the object Kind 2 emitted
+   * @param offsetNanos when the object arrived, in nanoseconds since Kind 2 started; offsets must
+   *        not decrease
+   * @throws IOException if the journal cannot be written
+   */
+  public void write(JsonElement jsonElement, long offsetNanos) throws IOException {
+    long micros = Math.max(offsetNanos / 1000, previousMicros);
+    byte[] bytes = jsonElement.toString().getBytes(StandardCharsets.UTF_8);
+    writeVarint(micros - previousMicros);
+    writeVarint(bytes.length);
+    out.write(bytes);
+    previousMicros = micros;
+  }
+
+  /**
+   * Writes buffered entries through to the underlying stream.
+   *
+   * @throws IOException if the journal cannot be written
+   */
+  public void flush() throws IOException {
+    out.flush();
+  }
+
+  private void writeVarint(long value) throws IOException {
+    while ((value & ~0x7FL) != 0) {
+      out.write((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.write((int) value);
+  }
+
+  @Override
+  public void close() throws IOException {
+    out.close();
+  }
+}
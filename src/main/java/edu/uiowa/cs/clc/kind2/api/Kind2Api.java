@@ -11,10 +11,12 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.URI;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import com.google.gson.JsonElement;
 import com.google.gson.JsonIOException;
@@ -22,6 +24,11 @@ import com.google.gson.JsonStreamParser;
 
 import edu.uiowa.cs.clc.kind2.Kind2Exception;
 import edu.uiowa.cs.clc.kind2.lustre.Program;
+import edu.uiowa.cs.clc.kind2.results.Formatting;
+import edu.uiowa.cs.clc.kind2.results.JsonRetention;
+import edu.uiowa.cs.clc.kind2.results.OutputRetention;
+import edu.uiowa.cs.clc.kind2.results.ParseFilter;
+import edu.uiowa.cs.clc.kind2.results.ParseMode;
 import edu.uiowa.cs.clc.kind2.results.Result;
 
 /**
@@ -120,6 +127,17 @@ public class Kind2Api {
   private String lusMainType;
   private String lusMainConst;
   private String fakeFilepath;
+  private IncludeStager includeStager;
+  private Kind2CapabilityRegistry capabilityRegistry;
+  private String kind2Executable;
+  private Path journal;
+  private boolean compressJournal;
+  private ParseMode parseMode = ParseMode.tree;
+  private boolean incrementalSuggestions = false;
+  private boolean parallelFinish = false;
+  private Formatting formatting = null;
+  private JsonRetention jsonRetention = JsonRetention.lazy;
+  private OutputRetention outputRetention = OutputRetention.memory;
 
   /**
    * Constructs an API instance with Kind 2's default options.
@@ -237,7 +255,7 @@ public class Kind2Api {
    * @return result of running kind2 on program
    */
   public Result execute(Program program) {
-    Result result = new Result();
+    Result result = newResult();
     execute(program.toString(), result, new IProgressMonitor() {
       @Override
       public boolean isCanceled() {
@@ -257,7 +275,7 @@ public class Kind2Api {
    * @return result of running kind2 on program
    */
   public Result execute(String program) {
-    Result result = new Result();
+    Result result = newResult();
     execute(program, result, new IProgressMonitor() {
       @Override
       public boolean isCanceled() {
@@ -280,8 +298,11 @@ public class Kind2Api {
    * @throws Kind2Exception if Kind 2 fails to run
    */
   public String interpret(URI uri, String main, String json) {
+    if (capabilityRegistry != null) {
+      validateOptions();
+    }
     List<String> options = new ArrayList<>();
-    options.add(KIND2);
+    options.add(getKind2Executable());
     options.addAll(getOptions());
     options.add("--lus_main");
     options.add(main);
@@ -318,9 +339,12 @@ public class Kind2Api {
    * @throws Kind2Exception if Kind 2 fails to run
    */
   public String interpret(String program, String main, String json) {
+    if (capabilityRegistry != null) {
+      validateOptions();
+    }
     List<String> options = new ArrayList<>();
-    options.add(KIND2);
-    options.addAll(getOptions());
+    options.add(getKind2Executable());
+    options.addAll(getOptions(stageIncludeDirs(program)));
     options.add("--lus_main");
     options.add(main);
     options.add("--enable");
@@ -379,18 +403,22 @@ public class Kind2Api {
 
   private void callKind2(String program, Result result, IProgressMonitor monitor, ResultListener listener)
       throws IOException, InterruptedException {
-    ProcessBuilder builder = getKind2ProcessBuilder();
+    ProcessBuilder builder = getKind2ProcessBuilder(program);
     debug.println("Kind 2 command: " + ApiUtil.getQuotedCommand(builder.command()));
     Process process = null;
-    boolean exceptionThrown = false;
+    JournalWriter journalWriter = null;
+    Throwable failure = null;
     JsonStreamParser jsp;
     try {
+      if (journal != null) {
+        journalWriter = new JournalWriter(journal, compressJournal);
+      }
+      long start = System.nanoTime();
       process = builder.start();
       process.getOutputStream().write(program.getBytes());
       process.getOutputStream().flush();
       process.getOutputStream().close();
       final InputStreamReader reader = new InputStreamReader(process.getInputStream(), java.nio.charset.StandardCharsets.UTF_8);
-      jsp = new JsonStreamParser(reader);
       // The following assignment is required because variables used in lambdas must be final or effectively final.
       final Process processForMonitor = process;
       Thread monitorThread = new Thread(() -> {
@@ -404,27 +432,42 @@ public class Kind2Api {
         }
       });
       monitorThread.start();
-      while (jsp.hasNext()) {
+      if (incrementalSuggestions && listener != null) {
+        result.setSuggestionListener(listener::onSuggestions);
+      }
+      if (parseMode == ParseMode.streaming && journalWriter == null) {
+        result.addJsonStream(reader, r -> {
+          if (listener != null) {
+            listener.onUpdate(r);
+          }
+        });
+      } else {
+        jsp = new JsonStreamParser(reader);
+        while (jsp.hasNext()) {
           JsonElement jele = jsp.next();
           debug.println("Parsing JSON element: " + jele.toString());
+          if (journalWriter != null) {
+            journalWriter.write(jele, System.nanoTime() - start);
+          }
           result.addJsonElement(jele);
-          if(listener != null){
+          if (listener != null) {
             listener.onUpdate(result);
           }
           debug.println(result.getResultMap().toString());
+        }
       }
     } catch (JsonIOException e) {
       // ignore JsonIOException, which may occur if the process is destroyed while reading JSON
     } catch (Throwable t) {
-      exceptionThrown = true;
+      failure = t;
       throw t;
     } finally {
       try {
         if (!monitor.isCanceled()) {
           try {
-            result.finish();
+            result.finish(parallelFinish ? ForkJoinPool.commonPool() : null);
           } catch (Throwable t) {
-            if (!exceptionThrown) {
+            if (failure == null) {
               throw t;
             }
           }
@@ -433,15 +476,30 @@ public class Kind2Api {
         if (process != null) {
           process.destroy();
         }
-        monitor.done();
+        try {
+          if (journalWriter != null) {
+            journalWriter.close();
+          }
+        } catch (IOException e) {
+          // an exception of the run is the one to report
+          if (failure == null) {
+            throw e;
+          }
+          failure.addSuppressed(e);
+        } finally {
+          monitor.done();
+        }
       }
     }
   }
 
-  private ProcessBuilder getKind2ProcessBuilder() {
+  private ProcessBuilder getKind2ProcessBuilder(String program) {
+    if (capabilityRegistry != null) {
+      validateOptions();
+    }
     List<String> options = new ArrayList<>();
-    options.add(KIND2);
-    options.addAll(getOptions());
+    options.add(getKind2Executable());
+    options.addAll(getOptions(stageIncludeDirs(program)));
     ProcessBuilder builder = new ProcessBuilder(options);
     builder.redirectErrorStream(true);
     return builder;
@@ -462,6 +520,23 @@ public class Kind2Api {
    * @return the command line options this API will pass to Kind 2
    */
   public List<String> getOptions() {
+    return getOptions(includeDirs);
+  }
+
+  /**
+   * Returns the include directories to pass to Kind 2 for the given program, staged into the local
+   * cache when an include stager is set.
+   */
+  private List<String> stageIncludeDirs(String program) {
+    if (includeStager == null || includeDirs.isEmpty()) {
+      return includeDirs;
+    }
+    List<String> staged = includeStager.stage(program, includeDirs);
+    debug.println("Staged include directories: " + staged);
+    return staged;
+  }
+
+  private List<String> getOptions(List<String> includeDirs) {
     List<String> options = new ArrayList<>();
     options.add("-ijson");
     if (logLevel != null) {
@@ -753,6 +828,9 @@ public class Kind2Api {
    * @param smtSolver the SMT solver to use
    */
   public void setSmtSolver(SolverOption smtSolver) {
+    if (capabilityRegistry != null) {
+      checkSolver(smtSolver);
+    }
     this.smtSolver = smtSolver;
   }
 
@@ -1311,6 +1389,219 @@ public class Kind2Api {
     this.includeDirs.addAll(dirs);
   }
 
+  /**
+   * Stage the files included from the include directories into a local cache before each run, so
+   * Kind 2 reads them from there instead of from the include directories themselves. Passing null
+   * turns staging off.
+   * <p>
+   * Default: no staging
+   *
+   * @param includeStager the stager to use, may be shared by several API instances
+   */
+  public void setIncludeStager(IncludeStager includeStager) {
+    this.includeStager = includeStager;
+  }
+
+  /**
+   * Record the output of every run to a journal that {@link JournalReplayer} can replay later
+   * without Kind 2. Each run overwrites the journal. Passing null turns recording off.
+   * <p>
+   * Default: no recording
+   *
+   * @param journal the journal file to write
+   * @param compress whether or not to gzip the journal
+   */
+  public void setJournal(Path journal, boolean compress) {
+    this.journal = journal;
+    this.compressJournal = compress;
+  }
+
+  /**
+   * Set how the output of Kind 2 is turned into the result. With {@link ParseMode#streaming},
+   * properties and their counterexamples are decoded straight from the output stream and keep no
+   * json, and {@link Result#getJson()} returns null. A journal set with
+   * {@link #setJournal(Path, boolean)} needs every output object as json, so recording always
+   * reads the output with {@link ParseMode#tree}.
+   * <p>
+   * Default: {@link ParseMode#tree}
+   *
+   * @param parseMode how to parse the output of Kind 2
+   */
+  public void setParseMode(ParseMode parseMode) {
+    this.parseMode = parseMode;
+  }
+
+  /**
+   * Set whether the suggestions for each component are computed as soon as its analysis stops,
+   * rather than only once Kind 2 exits, and passed to
+   * {@link ResultListener#onSuggestions(edu.uiowa.cs.clc.kind2.results.NodeResult)}. Computing
+   * suggestions prints the properties involved, and their counterexamples when printing them is
+   * enabled, so this costs more while the output is read.
+   * <p>
+   * Default: false
+   *
+   * @param incrementalSuggestions whether to compute suggestions as analyses complete
+   */
+  public void setIncrementalSuggestions(boolean incrementalSuggestions) {
+    this.incrementalSuggestions = incrementalSuggestions;
+  }
+
+  /**
+   * Set whether the components of the result are analyzed in parallel once Kind 2 exits, using the
+   * common fork/join pool. The suggestions are the same either way; analyzing in parallel shortens
+   * the pause before the result is complete for models with many components.
+   * <p>
+   * Default: false
+   *
+   * @param parallelFinish whether to analyze the components in parallel
+   */
+  public void setParallelFinish(boolean parallelFinish) {
+    this.parallelFinish = parallelFinish;
+  }
+
+  /**
+   * Set how the results returned by {@link #execute(Program)} and {@link #execute(String)} print
+   * names, reals, counterexamples and line numbers, whatever {@link Result#getDefaultFormatting()}
+   * is when they are created.
+   * <p>
+   * Default: null, the default formatting
+   *
+   * @param formatting the formatting of the results, or null for the default formatting
+   */
+  public void setFormatting(Formatting formatting) {
+    this.formatting = formatting;
+  }
+
+  /**
+   * Set how the model objects of the results returned by {@link #execute(Program)} and
+   * {@link #execute(String)} keep the Kind 2 json returned by their {@code getJson()} methods.
+   * <p>
+   * Default: {@link JsonRetention#lazy}
+   *
+   * @param jsonRetention the json retention of the results
+   */
+  public void setJsonRetention(JsonRetention jsonRetention) {
+    this.jsonRetention = jsonRetention;
+  }
+
+  /**
+   * Set how the results returned by {@link #execute(Program)} and {@link #execute(String)} keep the
+   * whole Kind 2 json output returned by {@link Result#getJson()}. Results of the
+   * {@link ParseMode#streaming} parse mode keep no output whatever the retention.
+   * <p>
+   * Default: {@link OutputRetention#memory}
+   *
+   * @param outputRetention the output retention of the results
+   */
+  public void setOutputRetention(OutputRetention outputRetention) {
+    this.outputRetention = outputRetention;
+  }
+
+  /**
+   * Returns an empty result with the formatting and retentions of this instance.
+   */
+  private Result newResult() {
+    return new Result(formatting == null ? Result.getDefaultFormatting() : formatting,
+        ParseFilter.all, jsonRetention, outputRetention);
+  }
+
+  /**
+   * Set the Kind 2 executable this instance runs, overriding {@link #KIND2}. Passing null reverts
+   * to {@link #KIND2}.
+   * <p>
+   * Default: {@link #KIND2}
+   *
+   * @param kind2Executable the path or name of the executable
+   */
+  public void setKind2Executable(String kind2Executable) {
+    this.kind2Executable = kind2Executable;
+  }
+
+  /**
+   * Returns the Kind 2 executable this instance runs.
+   *
+   * @return the path or name of the executable
+   */
+  public String getKind2Executable() {
+    return kind2Executable == null ? KIND2 : kind2Executable;
+  }
+
+  /**
+   * Validate options against the capabilities of the Kind 2 executable, as reported by the given
+   * registry. When set, option setters that can be checked reject unsupported values right away,
+   * and every run checks all options before starting Kind 2. Passing null turns validation off.
+   * <p>
+   * Default: no validation
+   *
+   * @param capabilityRegistry the registry to query, usually {@link Kind2CapabilityRegistry#getDefault()}
+   */
+  public void setCapabilityRegistry(Kind2CapabilityRegistry capabilityRegistry) {
+    this.capabilityRegistry = capabilityRegistry;
+  }
+
+  /**
+   * Returns the capabilities of the Kind 2 executable, from the registry set for validation or
+   * else from the default registry.
+   *
+   * @return the capabilities of the Kind 2 executable
+   * @throws Kind2Exception if Kind 2 is not available
+   */
+  public Kind2Capabilities getCapabilities() {
+    Kind2CapabilityRegistry registry =
+        capabilityRegistry == null ? Kind2CapabilityRegistry.getDefault() : capabilityRegistry;
+    return registry.get(getKind2Executable());
+  }
+
+  /**
+   * Checks the current options against the capabilities of the Kind 2 executable: every long
+   * flag must be listed by Kind 2, and the main SMT solver must be available unless its binary
+   * was set explicitly.
+   *
+   * @throws Kind2Exception if an option is not supported
+   */
+  public void validateOptions() {
+    Kind2Capabilities capabilities = getCapabilities();
+    for (String option : getOptions()) {
+      if (option.startsWith("--") && !capabilities.supportsFlag(option)) {
+        throw new Kind2Exception(
+            "Option " + option + " is not supported by " + capabilities.getExecutable());
+      }
+    }
+    if (smtSolver != null) {
+      checkSolver(smtSolver);
+    }
+  }
+
+  private void checkSolver(SolverOption solver) {
+    if (solver == null || solver == SolverOption.SMTINTERPOL || getSolverBin(solver) != null) {
+      return;
+    }
+    Kind2Capabilities capabilities = getCapabilities();
+    if (!capabilities.hasSolver(solver)) {
+      throw new Kind2Exception("SMT solver " + solver + " is not available on the search path of "
+          + capabilities.getExecutable());
+    }
+  }
+
+  private String getSolverBin(SolverOption solver) {
+    switch (solver) {
+      case BITWUZLA:
+        return bitwuzlaBin;
+      case CVC5:
+        return cvc5Bin;
+      case MATHSAT:
+        return mathsatBin;
+      case YICES:
+        return yicesBin;
+      case YICES2:
+        return yices2Bin;
+      case Z3:
+        return z3Bin;
+      default:
+        return smtinterpolJar;
+    }
+  }
+
   /**
    * Adjust precision of real values in model output In floating-point format {@code f<nn>} means a
    * relative error less than {@code 2^-nn}
@@ -1516,20 +1807,13 @@ public class Kind2Api {
   }
 
   /**
-   * Check if the KindApi is available for running and throw exception if not
+   * Check if the KindApi is available for running and throw exception if not. Kind 2 is only
+   * started the first time an executable is checked, see {@link Kind2CapabilityRegistry}.
    *
    * @return Availability information when Kind is available
    * @throws java.lang.Exception When Kind is not available
    */
   public String checkAvailable() throws Exception {
-    ProcessBuilder builder = new ProcessBuilder(KIND2, "--version");
-    builder.redirectErrorStream(true);
-    Process process = builder.start();
-
-    String output = ApiUtil.readAll(process.getInputStream());
-    if (process.exitValue() != 0) {
-      throw new Kind2Exception("Error running kind2: " + output);
-    }
-    return output;
+    return getCapabilities().getVersion();
   }
 }
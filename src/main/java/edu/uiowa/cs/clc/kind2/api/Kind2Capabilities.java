@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.api;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * What a particular Kind 2 executable supports: its version, the command-line flags it lists in
+ * its help, and the SMT solvers found next to it on the search path.
+ * <p>
+ * Instances are obtained from a {@link Kind2CapabilityRegistry} and never change.
+ */
+public class Kind2Capabilities {
+  private final String executable;
+  private final long size;
+  private final long modified;
+  private final String path;
+  private final String version;
+  /**
+   * The listed flags, without their leading dashes.
+   */
+  private final Set<String> flags;
+  private final Set<SolverOption> solvers;
+
+  Kind2Capabilities(String executable, long size, long modified, String path, String version,
+      Set<String> flags, Set<SolverOption> solvers) {
+    this.executable = executable;
+    this.size = size;
+    this.modified = modified;
+    this.path = path;
+    this.version = version;
+    this.flags = new LinkedHashSet<>(flags);
+    this.solvers = solvers.isEmpty() ? EnumSet.noneOf(SolverOption.class) : EnumSet.copyOf(solvers);
+  }
+
+  /**
+   * Returns the absolute path of the executable these capabilities were probed from.
+   *
+   * @return the absolute path of the executable
+   */
+  public String getExecutable() {
+    return executable;
+  }
+
+  /**
+   * Returns the output of {@code kind2 --version}.
+   *
+   * @return the version information of the executable
+   */
+  public String getVersion() {
+    return version;
+  }
+
+  /**
+   * Returns the flags listed by {@code kind2 --help}, without their leading dashes. The set is
+   * empty if the executable did not list its flags.
+   *
+   * @return the supported flags
+   */
+  public Set<String> getFlags() {
+    return Collections.unmodifiableSet(flags);
+  }
+
+  /**
+   * Returns the main SMT solvers whose binary was found on the search path. SMTInterpol is never
+   * included since it is distributed as a jar rather than a binary.
+   *
+   * @return the available SMT solvers
+   */
+  public Set<SolverOption> getSolvers() {
+    return Collections.unmodifiableSet(solvers);
+  }
+
+  /**
+   * Checks if the executable accepts a flag. Flags are compared without their leading dashes, and
+   * every flag is accepted if the executable did not list its flags.
+   *
+   * @param flag the flag to check, with or without leading dashes
+   * @return whether or not the flag is supported
+   */
+  public boolean supportsFlag(String flag) {
+    return flags.isEmpty() || flags.contains(stripDashes(flag));
+  }
+
+  /**
+   * Checks if the binary of a main SMT solver was found on the search path.
+   *
+   * @param solver the solver to check
+   * @return whether or not the solver is available
+   */
+  public boolean hasSolver(SolverOption solver) {
+    return solvers.contains(solver);
+  }
+
+  /**
+   * Checks if these capabilities were probed from the given executable file, as it is now, with
+   * the given search path.
+   */
+  boolean matches(String executable, long size, long modified, String path) {
+    return this.executable.equals(executable) && this.size == size && this.modified == modified
+        && this.path.equals(path);
+  }
+
+  /**
+   * Checks that no field is missing, as may happen for a damaged on-disk cache entry.
+   */
+  boolean isComplete() {
+    return executable != null && path != null && version != null && flags != null
+        && solvers != null;
+  }
+
+  static String stripDashes(String flag) {
+    int i = 0;
+    while (i < flag.length() && flag.charAt(i) == '-') {
+      i++;
+    }
+    return flag.substring(i);
+  }
+
+  @Override
+  public String toString() {
+    return executable + " (" + version + ")";
+  }
+}
@@ -0,0 +1,340 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.api;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import edu.uiowa.cs.clc.kind2.Kind2Exception;
+
+/**
+ * Probes Kind 2 executables for their {@link Kind2Capabilities} and caches the answers, so that
+ * health checks and option validation do not need to start a Kind 2 process.
+ * <p>
+ * Capabilities are keyed by the absolute path of the executable together with its size and
+ * modification time, so replacing the binary triggers a new probe. Answers are cached in memory
+ * and, unless the registry was constructed without a cache directory, on disk where later
+ * processes pick them up.
+ */
+public class Kind2CapabilityRegistry {
+  /**
+   * How long a single probe of the executable may take, in milliseconds.
+   */
+  public static final long PROBE_TIMEOUT_MILLIS = 30 * 1000;
+
+  private static final Pattern FLAG = Pattern.compile("(?<![\\w-])--?([a-zA-Z][\\w-]*)");
+  private static final Map<SolverOption, String> SOLVER_BINARIES = new EnumMap<>(SolverOption.class);
+  static {
+    SOLVER_BINARIES.put(SolverOption.BITWUZLA, "bitwuzla");
+    SOLVER_BINARIES.put(SolverOption.CVC5, "cvc5");
+    SOLVER_BINARIES.put(SolverOption.MATHSAT, "mathsat");
+    SOLVER_BINARIES.put(SolverOption.YICES, "yices");
+    SOLVER_BINARIES.put(SolverOption.YICES2, "yices-smt2");
+    SOLVER_BINARIES.put(SolverOption.Z3, "z3");
+  }
+
+  private static final Kind2CapabilityRegistry DEFAULT =
+      new Kind2CapabilityRegistry(defaultCacheDir());
+
+  private final Path cacheDir;
+  private final Map<String, Kind2Capabilities> cache = new ConcurrentHashMap<>();
+  /**
+   * The probe running for each executable, which callers asking for it meanwhile wait for.
+   */
+  private final Map<String, FutureTask<Kind2Capabilities>> probes = new ConcurrentHashMap<>();
+  private final Gson gson = new Gson();
+
+  /**
+   * Constructs a registry caching capabilities in the given directory.
+   *
+   * @param cacheDir the directory for the on-disk cache, created if needed, or null to only cache
+   *        in memory
+   */
+  public Kind2CapabilityRegistry(Path cacheDir) {
+    this.cacheDir = cacheDir == null ? null : cacheDir.toAbsolutePath().normalize();
+  }
+
+  /**
+   * Returns the registry shared by all API instances, which caches on disk in
+   * {@link #defaultCacheDir()}.
+   *
+   * @return the shared registry
+   */
+  public static Kind2CapabilityRegistry getDefault() {
+    return DEFAULT;
+  }
+
+  /**
+   * Returns the default on-disk cache directory, under the temporary-file directory.
+   *
+   * @return the default cache directory
+   */
+  public static Path defaultCacheDir() {
+    return Paths.get(System.getProperty("java.io.tmpdir"))
+        .resolve("kind2-api-capabilities-" + System.getProperty("user.name", "user"));
+  }
+
+  /**
+   * Returns the capabilities of a Kind 2 executable, probing it only if it changed since the last
+   * probe. Once cached, this costs a lookup on the search path and a file-attribute read. Callers
+   * asking for an executable while it is probed wait for that probe rather than start their own.
+   *
+   * @param executable the executable, either a path or a name looked up on the search path
+   * @return the capabilities of the executable
+   * @throws Kind2Exception if the executable cannot be found or fails to report its version
+   */
+  public Kind2Capabilities get(String executable) {
+    String path = System.getenv("PATH") == null ? "" : System.getenv("PATH");
+    Path file = which(executable, path);
+    if (file == null) {
+      throw new Kind2Exception("Cannot find kind2 executable: " + executable);
+    }
+    BasicFileAttributes attributes;
+    try {
+      attributes = Files.readAttributes(file, BasicFileAttributes.class);
+    } catch (IOException e) {
+      throw new Kind2Exception("Cannot read kind2 executable: " + file, e);
+    }
+    String key = file.toString();
+    long size = attributes.size();
+    long modified = attributes.lastModifiedTime().toMillis();
+
+    while (true) {
+      Kind2Capabilities capabilities = cache.get(key);
+      if (capabilities != null && capabilities.matches(key, size, modified, path)) {
+        return capabilities;
+      }
+      FutureTask<Kind2Capabilities> task =
+          new FutureTask<>(() -> refresh(file, key, size, modified, path));
+      FutureTask<Kind2Capabilities> running = probes.putIfAbsent(key, task);
+      if (running == null) {
+        running = task;
+        try {
+          task.run();
+        } finally {
+          probes.remove(key, task);
+        }
+      }
+      capabilities = await(running, file);
+      // a probe started before the binary was replaced is not an answer for this one
+      if (capabilities.matches(key, size, modified, path)) {
+        return capabilities;
+      }
+    }
+  }
+
+  /**
+   * Returns the capabilities cached in memory or on disk if they are still current, or else probes
+   * the executable and caches the answer.
+   */
+  private Kind2Capabilities refresh(Path file, String key, long size, long modified,
+      String path) {
+    Kind2Capabilities capabilities = cache.get(key);
+    if (capabilities != null && capabilities.matches(key, size, modified, path)) {
+      return capabilities;
+    }
+    capabilities = load(key);
+    if (capabilities == null || !capabilities.matches(key, size, modified, path)) {
+      capabilities = probe(file, size, modified, path);
+      store(capabilities);
+    }
+    cache.put(key, capabilities);
+    return capabilities;
+  }
+
+  private static Kind2Capabilities await(FutureTask<Kind2Capabilities> probe, Path file) {
+    try {
+      return probe.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof Kind2Exception) {
+        throw (Kind2Exception) e.getCause();
+      }
+      throw new Kind2Exception("Error probing kind2: " + file, e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new Kind2Exception("Interrupted while probing kind2: " + file, e);
+    }
+  }
+
+  /**
+   * Forgets all capabilities cached by this registry, in memory and on disk.
+   */
+  public void clear() {
+    cache.clear();
+    if (cacheDir == null || !Files.isDirectory(cacheDir)) {
+      return;
+    }
+    File[] files = cacheDir.toFile().listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+  }
+
+  private Kind2Capabilities probe(Path file, long size, long modified, String path) {
+    String version = run(file, "--version", PROBE_TIMEOUT_MILLIS);
+    if (version == null) {
+      throw new Kind2Exception("Error running kind2: " + file);
+    }
+    Set<String> flags = new LinkedHashSet<>();
+    String help = run(file, "--help", PROBE_TIMEOUT_MILLIS);
+    if (help != null) {
+      Matcher matcher = FLAG.matcher(help);
+      while (matcher.find()) {
+        flags.add(matcher.group(1));
+      }
+    }
+    Set<SolverOption> solvers = EnumSet.noneOf(SolverOption.class);
+    for (Map.Entry<SolverOption, String> entry : SOLVER_BINARIES.entrySet()) {
+      if (which(entry.getValue(), path) != null) {
+        solvers.add(entry.getKey());
+      }
+    }
+    return new Kind2Capabilities(file.toString(), size, modified, path, version.trim(), flags,
+        solvers);
+  }
+
+  /**
+   * Runs the executable with a single argument and returns its output, or null if it failed or
+   * did not finish within the timeout. The output is read on its own thread, so that a process
+   * that hangs with its output open is killed once the timeout expires.
+   */
+  static String run(Path file, String argument, long timeoutMillis) {
+    ProcessBuilder builder = new ProcessBuilder(file.toString(), argument);
+    builder.redirectErrorStream(true);
+    Process process = null;
+    try {
+      process = builder.start();
+      InputStream stdout = process.getInputStream();
+      FutureTask<String> output = new FutureTask<>(() -> ApiUtil.readAll(stdout));
+      Thread reader = new Thread(output, "kind2-probe-output");
+      reader.setDaemon(true);
+      reader.start();
+      long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+      if (!process.waitFor(timeoutMillis, TimeUnit.MILLISECONDS)) {
+        return null;
+      }
+      // a child of the process may still hold the output open
+      String text = output.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+      return process.exitValue() == 0 ? text : null;
+    } catch (IOException | ExecutionException | TimeoutException e) {
+      return null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new Kind2Exception("Interrupted while probing kind2: " + file, e);
+    } finally {
+      if (process != null) {
+        process.destroyForcibly();
+        try {
+          process.getInputStream().close();
+        } catch (IOException e) {
+          // the probe already failed or finished
+        }
+      }
+    }
+  }
+
+  /**
+   * Resolves an executable name the way a shell does: names containing a separator are paths,
+   * other names are looked up in the directories of the search path.
+   */
+  static Path which(String executable, String path) {
+    if (executable.contains("/") || executable.contains(File.separator)) {
+      Path file = Paths.get(executable).toAbsolutePath().normalize();
+      return Files.isRegularFile(file) ? file : null;
+    }
+    boolean windows = File.separatorChar == '\\';
+    for (String dir : path.split(File.pathSeparator)) {
+      if (dir.isEmpty()) {
+        continue;
+      }
+      for (String name : windows ? Arrays.asList(executable, executable + ".exe")
+          : Arrays.asList(executable)) {
+        Path file = Paths.get(dir, name);
+        if (Files.isRegularFile(file) && Files.isExecutable(file)) {
+          return file.toAbsolutePath().normalize();
+        }
+      }
+    }
+    return null;
+  }
+
+  private Path cacheFile(String key) {
+    return cacheDir.resolve(key.replaceAll("[^A-Za-z0-9._-]", "_") + ".json");
+  }
+
+  private Kind2Capabilities load(String key) {
+    if (cacheDir == null) {
+      return null;
+    }
+    Path file = cacheFile(key);
+    if (!Files.isRegularFile(file)) {
+      return null;
+    }
+    try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      Kind2Capabilities capabilities = gson.fromJson(reader, Kind2Capabilities.class);
+      return capabilities != null && capabilities.isComplete() ? capabilities : null;
+    } catch (IOException | JsonParseException e) {
+      // a corrupt or unreadable entry is simply probed again
+      return null;
+    }
+  }
+
+  private void store(Kind2Capabilities capabilities) {
+    if (cacheDir == null) {
+      return;
+    }
+    Path file = cacheFile(capabilities.getExecutable());
+    Path temp = cacheDir.resolve(".tmp-" + UUID.randomUUID());
+    try {
+      Files.createDirectories(cacheDir);
+      try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+        gson.toJson(capabilities, writer);
+      }
+      try {
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException e) {
+      // the on-disk cache is only an optimization; the answer is still cached in memory
+      try {
+        Files.deleteIfExists(temp);
+      } catch (IOException ignored) {
+      }
+    }
+  }
+}
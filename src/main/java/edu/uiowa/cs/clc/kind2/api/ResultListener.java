@@ -1,5 +1,6 @@
 package edu.uiowa.cs.clc.kind2.api;
 
+import edu.uiowa.cs.clc.kind2.results.NodeResult;
 import edu.uiowa.cs.clc.kind2.results.Result;
 
 /**
@@ -14,5 +15,16 @@ public interface ResultListener {
      * @param result the result, updated with everything read so far
      */
     void onUpdate(Result result);
+
+    /**
+     * Called each time the suggestions for a component are computed, when
+     * {@link Kind2Api#setIncrementalSuggestions(boolean)} is enabled. This happens as soon as the
+     * analysis of the component stops and its subcomponents are analyzed, and again when it or one
+     * of its subcomponents gets another analysis.
+     *
+     * @param nodeResult the component whose suggestions changed
+     */
+    default void onSuggestions(NodeResult nodeResult) {
+    }
     
 }
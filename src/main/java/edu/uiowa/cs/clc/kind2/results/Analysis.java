@@ -7,12 +7,10 @@
 
 package edu.uiowa.cs.clc.kind2.results;
 
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * This class stores the results of kind2 analysis for a given node.
@@ -22,11 +20,31 @@ public class Analysis
   /**
    * Kind2 json output for this object
    */
-  private final String json;
+  private final JsonText json;
   /**
    * Name of the current top-level component.
    */
   private final String nodeName;
+  /**
+   * How the analysis and everything in it is printed.
+   */
+  private final Formatting formatting;
+  /**
+   * The strings of the result this analysis belongs to, kept once.
+   */
+  private final StringPool strings;
+  /**
+   * Which parts of the traces of this analysis to build.
+   */
+  private final ParseFilter filter;
+  /**
+   * How the objects of this analysis keep their json.
+   */
+  private final JsonRetention jsonRetention;
+  /**
+   * The name of the top-level component, as printed.
+   */
+  private final String displayName;
   /**
    * Names of the subcomponents whose contract is used in the analysis.
    */
@@ -50,6 +68,23 @@ public class Analysis
    * in file files/S1.json
    */
   private final Map<String, List<Property>> propertiesMap;
+  /**
+   * The last property attempted by kind2 for each json property name, in the order the names first
+   * appeared.
+   */
+  private final List<Property> lastProperties = new ArrayList<>();
+  /**
+   * The index in {@link #lastProperties} of each json property name.
+   */
+  private final Map<String, Integer> lastPropertyIndex = new HashMap<>();
+  /**
+   * The last properties with each answer.
+   */
+  private final Map<Answer, AnswerList> propertiesByAnswer = byAnswer();
+  /**
+   * Every attempt to prove a property, in the order kind2 reported them.
+   */
+  private final AppendOnlyList<Property> attempts = new AppendOnlyList<>();
   /**
    * realizability result in the current analysis.
    */
@@ -76,17 +111,36 @@ public class Analysis
   private PostAnalysis postAnalysis;
 
   /**
-   * Constructs an analysis from one Kind 2 analysisStart object.
+   * Constructs an analysis from one Kind 2 analysisStart object, printed with the
+   * {@link Result#getDefaultFormatting() default formatting}.
    *
    * @param jsonElement the Kind 2 json object describing the analysis
    */
   public Analysis(JsonElement jsonElement)
   {
-    json = new GsonBuilder().setPrettyPrinting().create().toJson(jsonElement);
+    this(jsonElement, Result.getDefaultFormatting(), new StringPool(), ParseFilter.all,
+        JsonRetention.lazy);
+  }
 
-    this.nodeName = jsonElement.getAsJsonObject().get(Labels.top).getAsString();
+  /**
+   * Constructs an analysis from one Kind 2 analysisStart object, printed with the formatting of its
+   * result, keeping its strings in the pool of the result, building the parts of its traces that
+   * the filter of the result keeps, and keeping json as the result does.
+   */
+  Analysis(JsonElement jsonElement, Formatting formatting, StringPool strings, ParseFilter filter,
+      JsonRetention jsonRetention)
+  {
+    json = JsonText.of(jsonElement, jsonRetention);
+
+    this.formatting = formatting;
+    this.strings = strings;
+    this.filter = filter;
+    this.jsonRetention = jsonRetention;
+    this.nodeName = strings.intern(jsonElement.getAsJsonObject().get(Labels.top).getAsString());
+    this.displayName = formatting.display(nodeName);
     try {
-      this.context = jsonElement.getAsJsonObject().get(Labels.context).getAsString();
+      this.context =
+          strings.intern(jsonElement.getAsJsonObject().get(Labels.context).getAsString());
     } catch (Exception e) {
     }
     this.abstractNodes = new ArrayList<>();
@@ -94,7 +148,7 @@ public class Analysis
     JsonArray abstractArray = jsonElement.getAsJsonObject().get(Labels.abstractField).getAsJsonArray();
       for (JsonElement node : abstractArray)
       {
-        abstractNodes.add(node.getAsString());
+        abstractNodes.add(strings.intern(node.getAsString()));
       }
     } catch (Exception e) {
     }
@@ -104,7 +158,7 @@ public class Analysis
       JsonArray concreteArray = jsonElement.getAsJsonObject().get(Labels.concrete).getAsJsonArray();
       for (JsonElement node : concreteArray)
       {
-        concreteNodes.add(node.getAsString());
+        concreteNodes.add(strings.intern(node.getAsString()));
       }
     } catch (Exception e) {
     }
@@ -119,7 +173,7 @@ public class Analysis
       for (JsonElement invariant : assumptionInvariants)
       {
         JsonArray invariantArray = invariant.getAsJsonArray();
-        String nodeName = invariantArray.get(0).getAsString();
+        String nodeName = strings.intern(invariantArray.get(0).getAsString());
         String number = invariantArray.get(1).getAsString();
         assumptions.add(new Pair<>(nodeName, number));
       }
@@ -134,6 +188,15 @@ public class Analysis
    * @param property the property to add to this analysis
    */
   public void addProperty(Property property)
+  {
+    putProperty(property);
+  }
+
+  /**
+   * Adds a property, and returns the earlier attempt with the same json name it replaces as the
+   * last attempt, if any.
+   */
+  Property putProperty(Property property)
   {
     // add the property
     if (propertiesMap.containsKey(property.getJsonName()))
@@ -150,6 +213,36 @@ public class Analysis
     {
       isModeAnalysis = true;
     }
+
+    attempts.add(property);
+
+    // keep the last attempt of each property indexed
+    Property replaced = null;
+    Integer index = lastPropertyIndex.get(property.getJsonName());
+    if (index == null)
+    {
+      lastPropertyIndex.put(property.getJsonName(), lastProperties.size());
+      lastProperties.add(property);
+    }
+    else
+    {
+      replaced = lastProperties.set(index, property);
+      if (replaced.getAnswer() != null)
+      {
+        propertiesByAnswer.get(replaced.getAnswer()).removeProperty(replaced);
+      }
+    }
+    if (property.getAnswer() != null)
+    {
+      propertiesByAnswer.get(property.getAnswer()).addProperty(property);
+    }
+
+    Result kind2Result = getKind2Result();
+    if (kind2Result != null)
+    {
+      kind2Result.modified();
+    }
+    return replaced;
   }
 
   /**
@@ -219,7 +312,7 @@ public class Analysis
    */
   public String getJson()
   {
-    return json;
+    return json.getJson();
   }
 
   /**
@@ -229,7 +322,57 @@ public class Analysis
    */
   public String getNodeName()
   {
-    return Result.getOpeningSymbols() + nodeName + Result.getClosingSymbols();
+    return displayName;
+  }
+
+  /**
+   * Returns the name of the top-level component as Kind 2 printed it.
+   */
+  String getJsonName()
+  {
+    return nodeName;
+  }
+
+  /**
+   * Returns the pairs (name of subcomponent, number of considered invariants).
+   */
+  List<Pair<String, String>> getAssumptions()
+  {
+    return assumptions;
+  }
+
+  /**
+   * Returns how this analysis and everything in it is printed.
+   *
+   * @return the formatting of this analysis
+   */
+  Formatting getFormatting()
+  {
+    return formatting;
+  }
+
+  /**
+   * Returns the pool of the strings of the result this analysis belongs to.
+   */
+  StringPool getStrings()
+  {
+    return strings;
+  }
+
+  /**
+   * Returns which parts of the traces of this analysis to build.
+   */
+  ParseFilter getFilter()
+  {
+    return filter;
+  }
+
+  /**
+   * Returns how the objects of this analysis keep their json, the retention of its result.
+   */
+  JsonRetention getJsonRetention()
+  {
+    return jsonRetention;
   }
 
   /**
@@ -254,31 +397,108 @@ public class Analysis
 
   /**
    * Returns the properties of the current analysis. Since the same property can appear many
-   * times, this method returns only the output of the last property attempted by kind2.
+   * times, this method returns only the output of the last property attempted by kind2. The
+   * returned list is an unmodifiable view that follows the properties added later.
    *
    * @return the properties of the current analysis. Since the same property can appear many times,
    * this method returns only the output of the last property attempted by kind2.
    */
   public List<Property> getProperties()
   {
-    List<Property> lastProperties = new ArrayList<>();
-    for (Map.Entry<String, List<Property>> entry : propertiesMap.entrySet())
-    {
-      // add the last property object
-      Property lastProperty = entry.getValue().get(entry.getValue().size() - 1);
-      lastProperties.add(lastProperty);
-    }
-    return lastProperties;
+    return Collections.unmodifiableList(lastProperties);
   }
 
   /**
-   * This method filters the properties based on the type of the answer.
+   * This method returns the last properties with the given answer, as an unmodifiable view.
    * @param answer can be valid, falsifiable, unknown, reachable, or unreachable.
    * @return the properties with the specified answer in the current analysis.
    */
   private List<Property> filterProperties(Answer answer)
   {
-    return getProperties().stream().filter(p -> p.getAnswer() == answer).collect(Collectors.toList());
+    return propertiesByAnswer.get(answer);
+  }
+
+  /**
+   * Returns the attempts to prove a property reported so far, as a list that does not change when
+   * more are added.
+   *
+   * @return the attempts reported so far
+   */
+  List<Property> getAttempts()
+  {
+    return attempts.view();
+  }
+
+  /**
+   * Returns an empty list for each answer, so that reading the properties with an answer never
+   * modifies the map, and analyses can be read from several threads once complete.
+   */
+  private static Map<Answer, AnswerList> byAnswer()
+  {
+    Map<Answer, AnswerList> byAnswer = new EnumMap<>(Answer.class);
+    for (Answer answer : Answer.values())
+    {
+      byAnswer.put(answer, new AnswerList());
+    }
+    return byAnswer;
+  }
+
+  /**
+   * The last properties with one answer, in the order they were added, as an unmodifiable list.
+   * The properties are kept in a linked hash set, so that the attempt replaced by a later one is
+   * removed in constant time, and copied to an array for access by index when first needed after
+   * a change.
+   */
+  private static final class AnswerList extends AbstractList<Property>
+  {
+    private final Set<Property> properties = new LinkedHashSet<>();
+    private volatile Property[] array;
+
+    void addProperty(Property property)
+    {
+      properties.add(property);
+      array = null;
+    }
+
+    void removeProperty(Property property)
+    {
+      properties.remove(property);
+      array = null;
+    }
+
+    @Override
+    public Property get(int index)
+    {
+      Property[] array = this.array;
+      if (array == null)
+      {
+        array = properties.toArray(new Property[0]);
+        this.array = array;
+      }
+      if (index < 0 || index >= array.length)
+      {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + array.length);
+      }
+      return array[index];
+    }
+
+    @Override
+    public int size()
+    {
+      return properties.size();
+    }
+
+    @Override
+    public boolean contains(java.lang.Object element)
+    {
+      return properties.contains(element);
+    }
+
+    @Override
+    public Iterator<Property> iterator()
+    {
+      return Collections.unmodifiableSet(properties).iterator();
+    }
   }
 
   /**
@@ -413,8 +633,8 @@ public class Analysis
    */
   public Optional<Property> getProperty(String jsonName)
   {
-    return getProperties()
-        .stream().filter(p -> p.getJsonName().equals(jsonName)).findFirst();
+    Integer index = lastPropertyIndex.get(jsonName);
+    return index == null ? Optional.empty() : Optional.of(lastProperties.get(index));
   }
 
   /**
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.results;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A list that can only grow, whose prefixes can be viewed as immutable lists in constant time.
+ * <p>
+ * An element is never overwritten once added: when the list grows beyond its array, the elements are
+ * copied to a larger one and the old array is left to the views that share it. A view taken on the
+ * adding thread can therefore be read from other threads, once published safely, while elements are
+ * added.
+ */
+final class AppendOnlyList<E> extends AbstractList<E> implements RandomAccess
+{
+  private static final java.lang.Object[] empty = new java.lang.Object[0];
+
+  private java.lang.Object[] elements = empty;
+  private int size;
+  /**
+   * The last view taken, reused while no element is added.
+   */
+  private List<E> view;
+
+  @Override
+  public boolean add(E element)
+  {
+    if (size == elements.length)
+    {
+      elements = Arrays.copyOf(elements, Math.max(8, size * 2));
+    }
+    elements[size++] = element;
+    view = null;
+    return true;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public E get(int index)
+  {
+    if (index >= size)
+    {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    return (E) elements[index];
+  }
+
+  @Override
+  public int size()
+  {
+    return size;
+  }
+
+  /**
+   * Returns an immutable view of the elements added so far, sharing this list's array.
+   *
+   * @return the elements added so far
+   */
+  List<E> view()
+  {
+    if (view == null)
+    {
+      view = new View<>(elements, size);
+    }
+    return view;
+  }
+
+  /**
+   * A prefix of an array none of whose elements is written again.
+   */
+  private static final class View<E> extends AbstractList<E> implements RandomAccess
+  {
+    private final java.lang.Object[] elements;
+    private final int size;
+
+    View(java.lang.Object[] elements, int size)
+    {
+      this.elements = elements;
+      this.size = size;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index)
+    {
+      if (index >= size)
+      {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+      }
+      return (E) elements[index];
+    }
+
+    @Override
+    public int size()
+    {
+      return size;
+    }
+  }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.results;
+
+import edu.uiowa.cs.clc.kind2.Kind2Exception;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Decodes the binary form written by {@link BinaryEncoder} into the model of a {@link Result}.
+ * <p>
+ * Objects other than properties are added through {@link Result#add(com.google.gson.JsonElement)}
+ * as usual. Properties are constructed from their fields, and keep the bytes of their traces,
+ * which are decoded straight into stream columns when they are first requested.
+ */
+class BinaryDecoder
+{
+  private final Result result;
+
+  BinaryDecoder(Result result)
+  {
+    this.result = result;
+  }
+
+  /**
+   * Decodes every record of the stream, up to the end record.
+   *
+   * @param stream the binary form of a result
+   * @param onObject called after each object is added, may be null
+   * @throws IOException if the stream cannot be read or ends early
+   * @throws Kind2Exception if the stream is not a binary result of a supported version
+   */
+  void decode(InputStream stream, Consumer<Result> onObject) throws IOException
+  {
+    BinaryInput in = new BinaryInput(stream);
+    for (byte b : BinaryEncoder.magic)
+    {
+      if (in.peekByte() != (b & 0xFF))
+      {
+        throw new Kind2Exception("Not a binary kind2 result");
+      }
+      in.readByte();
+    }
+    long version = in.readVarint();
+    if (version != BinaryEncoder.version)
+    {
+      throw new Kind2Exception("Unsupported binary kind2 result version " + version);
+    }
+    while (true)
+    {
+      int record = in.readInt();
+      switch (record)
+      {
+        case BinaryEncoder.endRecord:
+          return;
+        case BinaryEncoder.objectRecord:
+          result.add(in.readJson());
+          break;
+        case BinaryEncoder.propertyRecord:
+          property(in);
+          break;
+        default:
+          throw new Kind2Exception("Malformed binary kind2 result");
+      }
+      if (onObject != null)
+      {
+        onObject.accept(result);
+      }
+    }
+  }
+
+  private void property(BinaryInput in) throws IOException
+  {
+    String jsonName = in.readString();
+    String file = in.readString();
+    String scope = in.readString();
+    String line = in.readString();
+    String column = in.readString();
+    PropertyType source = constant(PropertyType.values(), in.readInt());
+    int candidate = in.readInt();
+    Boolean isCandidate = candidate == 0 ? null : candidate == 2;
+    Answer answer = constant(Answer.values(), in.readInt());
+    String trueFor = in.readString();
+    Integer k = in.readBoolean() ? (int) in.readSignedVarint() : null;
+    byte[] counterExample = traceBytes(in);
+    byte[] exampleTrace = traceBytes(in);
+    if (!result.getParseFilter().keeps(Object.property))
+    {
+      return;
+    }
+    Analysis analysis = result.getCurrentAnalysis();
+    Property property = new Property(analysis, jsonName, file, scope, line, column, source,
+        isCandidate, answer, trueFor, k);
+    if (counterExample != null)
+    {
+      property.setCounterExample(p -> trace(p, counterExample));
+    }
+    if (exampleTrace != null)
+    {
+      property.setExampleTrace(p -> trace(p, exampleTrace));
+    }
+    result.addProperty(analysis, property);
+    result.publish();
+  }
+
+  private static <T> T constant(T[] values, int ordinal)
+  {
+    if (ordinal >= values.length)
+    {
+      throw new Kind2Exception("Malformed binary kind2 result");
+    }
+    return values[ordinal];
+  }
+
+  private static byte[] traceBytes(BinaryInput in) throws IOException
+  {
+    return in.readBoolean() ? in.readBytes(in.readInt()) : null;
+  }
+
+  /**
+   * Decodes a trace block kept by {@link #property(BinaryInput)}, when its property first requests
+   * it. The streams, blocks and steps the parse filter excludes are read past and dropped.
+   */
+  private static CounterExample trace(Property property, byte[] bytes)
+  {
+    try
+    {
+      CounterExample counterExample = new CounterExample(property);
+      counterExample.setTopNode(subNode(new BinaryInput(bytes), counterExample, 0));
+      return counterExample;
+    }
+    catch (IOException e)
+    {
+      // the block was read whole with the property
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static SubNode subNode(BinaryInput in, CounterExample counterExample, int depth)
+      throws IOException
+  {
+    ParseFilter filter = counterExample.getFilter();
+    SubNode node = new SubNode(counterExample, in.readString(), in.readString());
+    int streams = in.readInt();
+    for (int i = 0; i < streams; i++)
+    {
+      String name = in.readString();
+      Type type = Type.getType(in.readString());
+      String streamClass = in.readString();
+      if (!filter.keepsStream(name, streamClass))
+      {
+        skipValues(in, type);
+        continue;
+      }
+      Stream stream = new Stream(node, name, type, streamClass);
+      readValues(in, stream, filter);
+      node.addStream(stream);
+    }
+    int subNodes = in.readInt();
+    boolean keepsSubNodes = filter.keepsSubNodes(depth);
+    for (int i = 0; i < subNodes; i++)
+    {
+      if (keepsSubNodes)
+      {
+        node.addSubNode(subNode(in, counterExample, depth + 1));
+      }
+      else
+      {
+        skipSubNode(in);
+      }
+    }
+    return node;
+  }
+
+  /**
+   * Reads past a trace block excluded by the parse filter, and the blocks it contains.
+   */
+  private static void skipSubNode(BinaryInput in) throws IOException
+  {
+    in.readString();
+    in.readString();
+    int streams = in.readInt();
+    for (int i = 0; i < streams; i++)
+    {
+      in.readString();
+      Type type = Type.getType(in.readString());
+      in.readString();
+      skipValues(in, type);
+    }
+    int subNodes = in.readInt();
+    for (int i = 0; i < subNodes; i++)
+    {
+      skipSubNode(in);
+    }
+  }
+
+  /**
+   * Fills an empty stream with the values written by
+   * {@link BinaryEncoder#writeValues(BinaryOutput, Stream)}, keeping those of the steps the filter
+   * keeps only.
+   */
+  static void readValues(BinaryInput in, Stream stream, ParseFilter filter) throws IOException
+  {
+    int count = in.readInt();
+    int[] times = readTimes(in, count);
+    StreamColumn column = stream.getColumn();
+    column.read(in, count);
+    // the steps are in order, so the values kept are the first ones
+    int kept = count;
+    while (kept > 0 && !filter.keepsStep(times == null ? kept - 1 : times[kept - 1]))
+    {
+      column.removeLast();
+      kept--;
+    }
+    stream.setTimes(times == null || kept == count ? times : Arrays.copyOf(times, kept));
+  }
+
+  /**
+   * Reads past the values of a stream excluded by the parse filter. The values of a column are not
+   * length-prefixed, so they are decoded into a column that is dropped.
+   */
+  private static void skipValues(BinaryInput in, Type type) throws IOException
+  {
+    int count = in.readInt();
+    readTimes(in, count);
+    StreamColumn.of(type).read(in, count);
+  }
+
+  /**
+   * Reads the step indexes of the values of a stream, or returns null if every value is at its own
+   * index.
+   */
+  private static int[] readTimes(BinaryInput in, int count) throws IOException
+  {
+    if (in.readBoolean())
+    {
+      return null;
+    }
+    int[] times = new int[count];
+    int time = 0;
+    for (int i = 0; i < count; i++)
+    {
+      time += (int) in.readSignedVarint();
+      times[i] = time;
+    }
+    return times;
+  }
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.results;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Encodes the model of a {@link Result} in its binary form, read back by {@link BinaryDecoder}.
+ * <p>
+ * The form starts with {@link #magic} and the {@link #version} of the format, followed by records,
+ * each introduced by a varint tag, up to {@link #endRecord}:
+ * <ul>
+ * <li>{@link #objectRecord}: a Kind 2 output object other than a property, rebuilt from the model
+ * and written as a json value, since such objects are small and few;</li>
+ * <li>{@link #propertyRecord}: a property, field by field, its answer and type as ordinals, and
+ * each of its traces as a length-prefixed block, so that the reader can keep the block and decode
+ * it when the trace is first requested.</li>
+ * </ul>
+ * A trace block has a string table of its own. It lists the trace blocks depth first, each with its
+ * streams, and the values of a stream by column: the step indexes as differences, unless each
+ * value is at the step of its index, then the values as {@link StreamColumn#write(BinaryOutput)}
+ * writes them, each run of equal values once.
+ * <p>
+ * The version changes whenever the layout, or the order of the constants of {@link Answer} or
+ * {@link PropertyType}, does.
+ */
+class BinaryEncoder
+{
+  static final byte[] magic = {'K', '2', 'R', 'B'};
+  static final int version = 2;
+
+  static final int endRecord = 0;
+  static final int objectRecord = 1;
+  static final int propertyRecord = 2;
+
+  private final BinaryOutput out;
+
+  BinaryEncoder(OutputStream stream)
+  {
+    this.out = new BinaryOutput(stream);
+  }
+
+  /**
+   * Writes every object of a result, then flushes the stream.
+   *
+   * @param result the result to write
+   * @throws IOException if the result cannot be written
+   */
+  void encode(Result result) throws IOException
+  {
+    out.writeBytes(magic);
+    out.writeVarint(version);
+    if (result.getOptions() != null)
+    {
+      // options and AST infos always keep their json, since they print as it
+      object(JsonParser.parseString(result.getOptions().toString()).getAsJsonObject());
+    }
+    for (AstInfo astInfo : result.getAstInfos())
+    {
+      object(JsonParser.parseString(astInfo.toString()).getAsJsonObject());
+    }
+    for (Log log : result.getAllKind2Logs())
+    {
+      JsonObject object = object(Object.log);
+      object.addProperty(Labels.level, log.getLevel().name());
+      object.addProperty(Labels.source, log.getSource());
+      object.addProperty(Labels.value, log.getValue());
+      if (log.getLine() != null)
+      {
+        object.addProperty(Labels.line, log.getLine());
+      }
+      if (log.getColumn() != null)
+      {
+        object.addProperty(Labels.column, log.getColumn());
+      }
+      object(object);
+    }
+    for (Analysis analysis : result.getAnalyses())
+    {
+      analysis(analysis);
+      object(object(Object.analysisStop));
+      PostAnalysis postAnalysis = analysis.getPostAnalysis();
+      if (postAnalysis != null)
+      {
+        JsonObject start = object(Object.postAnalysisStart);
+        start.addProperty(Labels.name, postAnalysis.getJsonName());
+        object(start);
+        for (ModelElementSet modelElementSet : postAnalysis.getModelElements())
+        {
+          object(modelElementSet.getJsonElement().getAsJsonObject());
+        }
+        object(object(Object.postAnalysisEnd));
+      }
+    }
+    Analysis current = result.getAnalysisInProgress();
+    if (current != null)
+    {
+      analysis(current);
+    }
+    out.writeVarint(endRecord);
+    out.flush();
+  }
+
+  /**
+   * Writes the start of an analysis, its realizability result and every attempt of its properties.
+   */
+  private void analysis(Analysis analysis) throws IOException
+  {
+    JsonObject start = object(Object.analysisStart);
+    start.addProperty(Labels.top, analysis.getJsonName());
+    if (analysis.getContext() != null)
+    {
+      start.addProperty(Labels.context, analysis.getContext());
+    }
+    start.add(Labels.abstractField, names(analysis.getAbstractNodes()));
+    start.add(Labels.concrete, names(analysis.getConcreteNodes()));
+    JsonArray assumptions = new JsonArray();
+    for (Pair<String, String> assumption : analysis.getAssumptions())
+    {
+      JsonArray pair = new JsonArray();
+      pair.add(assumption.getKey());
+      pair.add(assumption.getValue());
+      assumptions.add(pair);
+    }
+    start.add(Labels.assumptions, assumptions);
+    object(start);
+
+    if (analysis.getRealizabilityResult() != null || analysis.getDeadlock() != null)
+    {
+      JsonObject realizability = new JsonObject();
+      // the object type kind2 prints, which Object.realizabilityResult stands for
+      realizability.addProperty(Labels.objectType, "realizabilityCheck");
+      realizability.addProperty(Labels.result, analysis.getRealizabilityResult() == null
+          ? "unknown" : analysis.getRealizabilityResult().toString());
+      realizability.add(Labels.deadlockingTrace, analysis.getDeadlock() == null ? null
+          : JsonParser.parseString(analysis.getDeadlock()));
+      object(realizability);
+    }
+
+    for (Property property : analysis.getAttempts())
+    {
+      property(property);
+    }
+  }
+
+  private static JsonArray names(Iterable<String> names)
+  {
+    JsonArray array = new JsonArray();
+    for (String name : names)
+    {
+      array.add(name);
+    }
+    return array;
+  }
+
+  private static JsonObject object(Object objectType)
+  {
+    JsonObject object = new JsonObject();
+    object.addProperty(Labels.objectType, objectType.toString());
+    return object;
+  }
+
+  private void object(JsonObject object) throws IOException
+  {
+    out.writeVarint(objectRecord);
+    out.writeJson(object);
+  }
+
+  private void property(Property property) throws IOException
+  {
+    out.writeVarint(propertyRecord);
+    out.writeString(property.getJsonName());
+    out.writeString(property.getFile());
+    out.writeString(property.getScope());
+    out.writeString(property.getLine());
+    out.writeString(property.getColumn());
+    out.writeVarint(property.getSource().ordinal());
+    Boolean isCandidate = property.getIsCandidate();
+    out.writeVarint(isCandidate == null ? 0 : isCandidate ? 2 : 1);
+    out.writeVarint(property.getAnswer().ordinal());
+    out.writeString(property.getTrueFor());
+    Integer k = property.getKInductionStep();
+    out.writeBoolean(k != null);
+    if (k != null)
+    {
+      out.writeSignedVarint(k);
+    }
+    trace(property.getCounterExample());
+    trace(property.getExampleTrace());
+  }
+
+  private void trace(CounterExample trace) throws IOException
+  {
+    if (trace == null)
+    {
+      out.writeBoolean(false);
+      return;
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    BinaryOutput block = new BinaryOutput(bytes);
+    subNode(block, trace.getTopNode());
+    block.flush();
+    out.writeBoolean(true);
+    out.writeVarint(bytes.size());
+    out.writeBytes(bytes.toByteArray());
+  }
+
+  private static void subNode(BinaryOutput out, SubNode node) throws IOException
+  {
+    out.writeString(node.getJsonName());
+    out.writeString(node.getBlockType());
+    out.writeVarint(node.getStreams().size());
+    for (Stream stream : node.getStreams())
+    {
+      out.writeString(stream.getJsonName());
+      out.writeString(typeName(stream.getKind2Type()));
+      out.writeString(stream.getStreamClass());
+      writeValues(out, stream);
+    }
+    out.writeVarint(node.getSubNodes().size());
+    for (SubNode subNode : node.getSubNodes())
+    {
+      subNode(out, subNode);
+    }
+  }
+
+  /**
+   * Writes the number of values of a stream, whether the index of every value is its step, and if
+   * not, their step indexes as differences, then the values.
+   */
+  static void writeValues(BinaryOutput out, Stream stream) throws IOException
+  {
+    StreamColumn column = stream.getColumn();
+    out.writeVarint(column.size);
+    boolean stepIndexed = true;
+    for (int i = 0; i < column.size && stepIndexed; i++)
+    {
+      stepIndexed = stream.getTime(i) == i;
+    }
+    out.writeBoolean(stepIndexed);
+    int time = 0;
+    for (int i = 0; i < column.size && !stepIndexed; i++)
+    {
+      out.writeSignedVarint(stream.getTime(i) - time);
+      time = stream.getTime(i);
+    }
+    column.write(out);
+  }
+
+  /**
+   * Returns a type string that {@link Type#getType(String)} reads back as the same type.
+   */
+  static String typeName(Type type)
+  {
+    if (type instanceof SubRange)
+    {
+      SubRange subRange = (SubRange) type;
+      return "subrange [" + subRange.getMin() + "," + subRange.getMax() + "] of int";
+    }
+    if (type instanceof Array)
+    {
+      return "array of " + typeName(((Array) type).getElementType());
+    }
+    return type.name;
+  }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.results;
+
+import edu.uiowa.cs.clc.kind2.Kind2Exception;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the primitives written by {@link BinaryOutput}, from a stream or from bytes already in
+ * memory, with the same string table.
+ */
+final class BinaryInput
+{
+  private final InputStream in;
+  private final byte[] buffer;
+  private int position;
+  private int limit;
+  private final List<String> strings = new ArrayList<>();
+
+  BinaryInput(InputStream in)
+  {
+    this.in = in;
+    this.buffer = new byte[8192];
+  }
+
+  BinaryInput(byte[] bytes)
+  {
+    this.in = null;
+    this.buffer = bytes;
+    this.limit = bytes.length;
+  }
+
+  private boolean fill() throws IOException
+  {
+    if (in == null)
+    {
+      return false;
+    }
+    int read = in.read(buffer, 0, buffer.length);
+    if (read <= 0)
+    {
+      return false;
+    }
+    position = 0;
+    limit = read;
+    return true;
+  }
+
+  /**
+   * Returns the next byte, or -1 at the end of the input.
+   */
+  int peekByte() throws IOException
+  {
+    if (position == limit && !fill())
+    {
+      return -1;
+    }
+    return buffer[position] & 0xFF;
+  }
+
+  int readByte() throws IOException
+  {
+    if (position == limit && !fill())
+    {
+      throw new EOFException("Unexpected end of binary kind2 result");
+    }
+    return buffer[position++] & 0xFF;
+  }
+
+  byte[] readBytes(int length) throws IOException
+  {
+    byte[] bytes = new byte[length];
+    int copied = 0;
+    while (copied < length)
+    {
+      if (position == limit && !fill())
+      {
+        throw new EOFException("Unexpected end of binary kind2 result");
+      }
+      int count = Math.min(length - copied, limit - position);
+      System.arraycopy(buffer, position, bytes, copied, count);
+      position += count;
+      copied += count;
+    }
+    return bytes;
+  }
+
+  boolean readBoolean() throws IOException
+  {
+    return readByte() != 0;
+  }
+
+  long readVarint() throws IOException
+  {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7)
+    {
+      int b = readByte();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0)
+      {
+        return value;
+      }
+    }
+    throw new Kind2Exception("Malformed binary kind2 result");
+  }
+
+  int readInt() throws IOException
+  {
+    long value = readVarint();
+    if (value > Integer.MAX_VALUE)
+    {
+      throw new Kind2Exception("Malformed binary kind2 result");
+    }
+    return (int) value;
+  }
+
+  long readSignedVarint() throws IOException
+  {
+    long value = readVarint();
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  String readString() throws IOException
+  {
+    long tag = readVarint();
+    if (tag == 0)
+    {
+      return null;
+    }
+    if (tag == 1)
+    {
+      String value = new String(readBytes(readInt()), StandardCharsets.UTF_8);
+      strings.add(value);
+      return value;
+    }
+    if (tag - 2 >= strings.size())
+    {
+      throw new Kind2Exception("Malformed binary kind2 result");
+    }
+    return strings.get((int) (tag - 2));
+  }
+
+  JsonElement readJson() throws IOException
+  {
+    switch (readInt())
+    {
+      case BinaryOutput.jsonNull:
+        return JsonNull.INSTANCE;
+      case BinaryOutput.jsonFalse:
+        return new JsonPrimitive(false);
+      case BinaryOutput.jsonTrue:
+        return new JsonPrimitive(true);
+      case BinaryOutput.jsonInteger:
+        return new JsonPrimitive(readSignedVarint());
+      case BinaryOutput.jsonNumber:
+        return new JsonPrimitive(new BigDecimal(readString()));
+      case BinaryOutput.jsonString:
+        return new JsonPrimitive(readString());
+      case BinaryOutput.jsonArray:
+      {
+        int size = readInt();
+        JsonArray array = new JsonArray(size);
+        for (int i = 0; i < size; i++)
+        {
+          array.add(readJson());
+        }
+        return array;
+      }
+      case BinaryOutput.jsonObject:
+      {
+        int size = readInt();
+        JsonObject object = new JsonObject();
+        for (int i = 0; i < size; i++)
+        {
+          String key = readString();
+          object.add(key, readJson());
+        }
+        return object;
+      }
+      default:
+        throw new Kind2Exception("Malformed binary kind2 result");
+    }
+  }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.results;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes the primitives of the binary form of a {@link Result}: unsigned and zigzag varints, and
+ * strings through a string table, so that a name, file or type is written in full once and
+ * referred to by index afterwards. Bytes are buffered and written to the stream when the buffer is
+ * full or {@link #flush()} is called.
+ * <p>
+ * A string is written as a varint tag: 0 for null, 1 for a new string followed by its length and
+ * UTF-8 bytes, and {@code 2 + i} for the {@code i}th string written before.
+ */
+final class BinaryOutput
+{
+  static final int jsonNull = 0;
+  static final int jsonFalse = 1;
+  static final int jsonTrue = 2;
+  static final int jsonInteger = 3;
+  static final int jsonNumber = 4;
+  static final int jsonString = 5;
+  static final int jsonArray = 6;
+  static final int jsonObject = 7;
+
+  private final OutputStream out;
+  private final byte[] buffer = new byte[8192];
+  private int position;
+  private final Map<String, Integer> strings = new HashMap<>();
+
+  BinaryOutput(OutputStream out)
+  {
+    this.out = out;
+  }
+
+  void writeByte(int value) throws IOException
+  {
+    if (position == buffer.length)
+    {
+      drain();
+    }
+    buffer[position++] = (byte) value;
+  }
+
+  void writeBytes(byte[] bytes) throws IOException
+  {
+    if (bytes.length > buffer.length - position)
+    {
+      drain();
+      if (bytes.length > buffer.length)
+      {
+        out.write(bytes);
+        return;
+      }
+    }
+    System.arraycopy(bytes, 0, buffer, position, bytes.length);
+    position += bytes.length;
+  }
+
+  void writeBoolean(boolean value) throws IOException
+  {
+    writeByte(value ? 1 : 0);
+  }
+
+  /**
+   * Writes a non-negative number in 7-bit groups, least significant first.
+   */
+  void writeVarint(long value) throws IOException
+  {
+    while ((value & ~0x7FL) != 0)
+    {
+      writeByte((int) (value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    writeByte((int) value);
+  }
+
+  /**
+   * Writes a number of any sign as a varint, small magnitudes taking few bytes.
+   */
+  void writeSignedVarint(long value) throws IOException
+  {
+    writeVarint((value << 1) ^ (value >> 63));
+  }
+
+  void writeString(String value) throws IOException
+  {
+    if (value == null)
+    {
+      writeVarint(0);
+      return;
+    }
+    Integer index = strings.get(value);
+    if (index != null)
+    {
+      writeVarint(2L + index);
+      return;
+    }
+    strings.put(value, strings.size());
+    writeVarint(1);
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    writeVarint(bytes.length);
+    writeBytes(bytes);
+  }
+
+  /**
+   * Writes a json value, integers as varints and object keys through the string table.
+   */
+  void writeJson(JsonElement jsonElement) throws IOException
+  {
+    if (jsonElement == null || jsonElement.isJsonNull())
+    {
+      writeVarint(jsonNull);
+    }
+    else if (jsonElement.isJsonObject())
+    {
+      JsonObject object = jsonElement.getAsJsonObject();
+      writeVarint(jsonObject);
+      writeVarint(object.size());
+      for (Map.Entry<String, JsonElement> entry : object.entrySet())
+      {
+        writeString(entry.getKey());
+        writeJson(entry.getValue());
+      }
+    }
+    else if (jsonElement.isJsonArray())
+    {
+      JsonArray array = jsonElement.getAsJsonArray();
+      writeVarint(jsonArray);
+      writeVarint(array.size());
+      for (JsonElement element : array)
+      {
+        writeJson(element);
+      }
+    }
+    else
+    {
+      JsonPrimitive primitive = jsonElement.getAsJsonPrimitive();
+      if (primitive.isBoolean())
+      {
+        writeVarint(primitive.getAsBoolean() ? jsonTrue : jsonFalse);
+      }
+      else if (primitive.isNumber())
+      {
+        String literal = primitive.getAsString();
+        Long value = parseLong(literal);
+        if (value != null)
+        {
+          writeVarint(jsonInteger);
+          writeSignedVarint(value);
+        }
+        else
+        {
+          writeVarint(jsonNumber);
+          writeString(literal);
+        }
+      }
+      else
+      {
+        writeVarint(jsonString);
+        writeString(primitive.getAsString());
+      }
+    }
+  }
+
+  /**
+   * Returns the value of an integer literal that reads back the same, or null.
+   */
+  private static Long parseLong(String literal)
+  {
+    try
+    {
+      long value = Long.parseLong(literal);
+      return Long.toString(value).equals(literal) ? value : null;
+    }
+    catch (NumberFormatException e)
+    {
+      return null;
+    }
+  }
+
+  private void drain() throws IOException
+  {
+    out.write(buffer, 0, position);
+    position = 0;
+  }
+
+  /**
+   * Writes the buffered bytes to the stream and flushes it.
+   */
+  void flush() throws IOException
+  {
+    drain();
+    out.flush();
+  }
+}
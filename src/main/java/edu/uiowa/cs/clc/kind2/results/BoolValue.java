@@ -29,6 +29,12 @@ public class BoolValue extends Value
     value = Boolean.parseBoolean(jsonElement.getAsString());
   }
 
+  BoolValue(StepValue kind2StepValue, Type kind2Type, JsonElement jsonElement, boolean value)
+  {
+    super(kind2StepValue, kind2Type, jsonElement);
+    this.value = value;
+  }
+
   /**
    * Returns the boolean value.
    *
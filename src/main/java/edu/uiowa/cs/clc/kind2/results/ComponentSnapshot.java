@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.results;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The analyses, subcomponents and suggestions of a component at one point of a {@link Result}, as
+ * seen in a {@link ResultSnapshot}. It never changes, and is shared by the snapshots taken until
+ * the component changes again.
+ */
+public final class ComponentSnapshot
+{
+  private final String name;
+  private final List<Analysis> analyses;
+  private final List<String> children;
+  private final List<Suggestion> suggestions;
+
+  /**
+   * Copies the current state of a component.
+   *
+   * @param nodeResult the component, read on the thread adding the output
+   */
+  ComponentSnapshot(NodeResult nodeResult)
+  {
+    name = nodeResult.getName();
+    analyses = Collections.unmodifiableList(new ArrayList<>(nodeResult.getAnalyses()));
+    List<String> children = new ArrayList<>();
+    for (NodeResult child : nodeResult.getChildren())
+    {
+      children.add(child.getName());
+    }
+    this.children = Collections.unmodifiableList(children);
+    // the suggestions are replaced, never modified, when they are computed again
+    suggestions = Collections.unmodifiableList(nodeResult.getSuggestions());
+  }
+
+  /**
+   * Returns the name of the component.
+   *
+   * @return the name of the component
+   */
+  public String getName()
+  {
+    return name;
+  }
+
+  /**
+   * Returns the analyses of the component that had stopped.
+   *
+   * @return the analyses of the component
+   */
+  public List<Analysis> getAnalyses()
+  {
+    return analyses;
+  }
+
+  /**
+   * Returns the last analysis of the component.
+   *
+   * @return the last analysis of the component
+   */
+  public Analysis getLastAnalysis()
+  {
+    return analyses.get(analyses.size() - 1);
+  }
+
+  /**
+   * Returns the names of the subcomponents linked to the component, which
+   * {@link ResultSnapshot#getComponent(String)} resolves in the same snapshot.
+   *
+   * @return the names of the subcomponents
+   */
+  public List<String> getChildren()
+  {
+    return children;
+  }
+
+  /**
+   * Returns the suggestions computed for the component, empty until they are computed.
+   *
+   * @return the suggestions for the component
+   */
+  public List<Suggestion> getSuggestions()
+  {
+    return suggestions;
+  }
+
+  @Override
+  public String toString()
+  {
+    return name;
+  }
+}
@@ -7,9 +7,11 @@
 
 package edu.uiowa.cs.clc.kind2.results;
 
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
 
+import java.io.IOException;
+import java.io.OutputStream;
+
 /**
  * Counterexample to the property satisfaction (only available when answer is falsifiable).
  * It describes a sequence of values for each stream, and automaton,
@@ -21,17 +23,22 @@ public class CounterExample
   /**
    * Kind2 json output for this object.
    */
-  private final String json;
+  private final JsonText json;
   /**
    * This field stores the input, output, and local streams for the top node in this counter example.
    */
-  private final SubNode topNode;
+  private SubNode topNode;
 
   /**
    * the associated property for this counter example.
    */
   private final Property property;
 
+  /**
+   * The index of the blocks and streams of this counterexample, built when first requested.
+   */
+  private volatile TraceQuery query;
+
   /**
    * Constructs a counterexample from one Kind 2 counterexample object.
    *
@@ -41,10 +48,58 @@ public class CounterExample
   public CounterExample(Property property, JsonElement jsonElement)
   {
     this.property = property;
-    json = new GsonBuilder().setPrettyPrinting().create().toJson(jsonElement);
+    json = JsonText.of(jsonElement, getJsonRetention());
     topNode = new SubNode(this, jsonElement);
   }
 
+  /**
+   * Constructs an empty counterexample for {@link StreamingDecoder}, which sets the top node
+   * afterwards. The counterexample keeps no json.
+   */
+  CounterExample(Property property)
+  {
+    this.property = property;
+    json = JsonText.none;
+  }
+
+  /**
+   * Returns how this counterexample is printed, the formatting of its property's analysis.
+   */
+  Formatting getFormatting()
+  {
+    return Formatting.of(property == null ? null : property.getAnalysis());
+  }
+
+  /**
+   * Returns the pool of the strings of its property's analysis.
+   */
+  StringPool getStrings()
+  {
+    return StringPool.of(property == null ? null : property.getAnalysis());
+  }
+
+  /**
+   * Returns which parts of this counterexample to build, the filter of its property's analysis.
+   */
+  ParseFilter getFilter()
+  {
+    return ParseFilter.of(property == null ? null : property.getAnalysis());
+  }
+
+  /**
+   * Returns how the objects of this counterexample keep their json, the retention of its
+   * property's analysis.
+   */
+  JsonRetention getJsonRetention()
+  {
+    return JsonRetention.of(property == null ? null : property.getAnalysis());
+  }
+
+  void setTopNode(SubNode topNode)
+  {
+    this.topNode = topNode;
+  }
+
   /**
    * Returns the streams for the top node in this counter example.
    *
@@ -55,6 +110,24 @@ public class CounterExample
     return topNode;
   }
 
+  /**
+   * Returns the index of the trace blocks and streams of this counterexample, for looking up
+   * streams by path and values by step, and for finding steps by value. The index is built once,
+   * when first requested.
+   *
+   * @return the index of this counterexample
+   */
+  public TraceQuery getQuery()
+  {
+    TraceQuery query = this.query;
+    if (query == null)
+    {
+      query = new TraceQuery(this);
+      this.query = query;
+    }
+    return query;
+  }
+
   /**
    * Returns the associated kind2 result for this counter example.
    *
@@ -65,12 +138,37 @@ public class CounterExample
     return property.getKind2Result();
   }
 
+  /**
+   * Writes the streams of this counterexample as CSV: a header row with {@code step} and the name
+   * of each stream, qualified by the names of its components, as in {@code main.f.x}, then one row
+   * per step. Names are written as Kind 2 prints them, whatever the formatting. Values are written
+   * as they are read from the trace, so the table is never built in memory.
+   *
+   * @param out where to write the counterexample, flushed but not closed
+   * @throws IOException if the counterexample cannot be written
+   */
+  public void writeCsv(OutputStream out) throws IOException
+  {
+    new TraceExport(this).writeCsv(out);
+  }
+
+  /**
+   * Writes the streams of this counterexample in a compact columnar form: the qualified name,
+   * class and type of each stream, followed by all of its values. Values are written as they are
+   * read from the trace, so the table is never built in memory.
+   *
+   * @param out where to write the counterexample, flushed but not closed
+   * @throws IOException if the counterexample cannot be written
+   */
+  public void writeColumns(OutputStream out) throws IOException
+  {
+    new TraceExport(this).writeColumns(out);
+  }
+
   @Override
   public String toString()
   {
-    int maxNameLength = topNode.getMaxNameLength();
-    int maxValueLength = topNode.getMaxValueLength();
-    return "Counterexample:" + topNode.print(maxNameLength, maxValueLength);
+    return TraceRenderer.all.toString(this);
   }
 
   /**
@@ -80,7 +178,7 @@ public class CounterExample
    */
   public String getJson()
   {
-    return json;
+    return json.getJson();
   }
 
   /**
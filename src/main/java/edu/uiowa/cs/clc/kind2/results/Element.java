@@ -7,7 +7,6 @@
 
 package edu.uiowa.cs.clc.kind2.results;
 
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
@@ -21,7 +20,7 @@ public class Element
   /**
    * Kind2 json output for this object
    */
-  private final String json;
+  private final JsonText json;
   private final JsonElement jsonElement;
   private final String category;
   private final String jsonName;
@@ -42,25 +41,26 @@ public class Element
   {
     this.kind2Node = kind2Node;
     this.jsonElement = jsonElement;
-    json = new GsonBuilder().setPrettyPrinting().create().toJson(jsonElement);
+    json = JsonText.of(jsonElement, kind2Node.getJsonRetention());
     JsonObject jsonObject = jsonElement.getAsJsonObject();
-    jsonName = jsonObject.get(Labels.name).getAsString();
-    category = jsonObject.get(Labels.category).getAsString();
+    StringPool strings = kind2Node.getStrings();
+    jsonName = strings.intern(jsonObject.get(Labels.name).getAsString());
+    category = strings.intern(jsonObject.get(Labels.category).getAsString());
     if (category.equals(Labels.equation))
     {
       // equation does not correspond to a property
       kind2Property = null;
-      name = jsonName;
+      name = strings.intern(kind2Node.getFormatting().display(jsonName));
     }
     else
     {
       // get the corresponding property
       Optional<Property> property = getKind2Analysis().getProperty(jsonName);
       this.kind2Property = property.isPresent() ? property.get() : null;
-      name = jsonName.replaceAll("\\[.*?\\]", "").replaceFirst(".*?\\.", "");
+      name = strings.intern(kind2Node.getFormatting().display(Kind2Lexer.baseName(jsonName)));
     }
 
-    qualifiedName = kind2Node.getName() + "." + Result.getOpeningSymbols() + name + Result.getClosingSymbols();
+    qualifiedName = strings.intern(kind2Node.getName() + "." + name);
     line = jsonObject.get(Labels.line).getAsLong();
     column = jsonObject.get(Labels.column).getAsLong();
   }
@@ -77,7 +77,7 @@ public class Element
    */
   public String getJson()
   {
-    return json;
+    return json.getJson();
   }
 
   /**
@@ -157,7 +157,7 @@ public class Element
    */
   public String getName()
   {
-    return Result.getOpeningSymbols() +  name + Result.getClosingSymbols();
+    return name;
   }
 
   /**
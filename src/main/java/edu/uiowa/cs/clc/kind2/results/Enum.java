@@ -7,11 +7,20 @@
 
 package edu.uiowa.cs.clc.kind2.results;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Kind2 type for enums.
  */
 public class Enum extends Type
 {
+  private static final int maxConstants = 4096;
+  /**
+   * The canonical name of each constant of this type seen in a trace.
+   */
+  private final Map<String, String> constants = new ConcurrentHashMap<>();
+
   /**
    * Constructs an enumeration type with the given name.
    *
@@ -21,4 +30,22 @@ public class Enum extends Type
   {
     super(name);
   }
+
+  /**
+   * Returns the canonical instance of a constant of this type, so that traces share one string per
+   * constant.
+   *
+   * @param constant the name of the constant
+   * @return the canonical name of the constant
+   */
+  String constant(String constant)
+  {
+    if (constants.size() >= maxConstants)
+    {
+      String canonical = constants.get(constant);
+      return canonical == null ? constant : canonical;
+    }
+    String canonical = constants.putIfAbsent(constant, constant);
+    return canonical == null ? constant : canonical;
+  }
 }
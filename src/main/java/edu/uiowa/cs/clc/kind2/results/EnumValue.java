@@ -29,6 +29,12 @@ public class EnumValue extends Value
     name = jsonElement.getAsString().trim();
   }
 
+  EnumValue(StepValue kind2StepValue, Type kind2Type, JsonElement jsonElement, String name)
+  {
+    super(kind2StepValue, kind2Type, jsonElement);
+    this.name = name.trim();
+  }
+
   /**
    * Returns the name of the enumeration constant.
    *
@@ -36,7 +42,7 @@ public class EnumValue extends Value
    */
   public String getName()
   {
-    return Result.getOpeningSymbols() + name + Result.getClosingSymbols();
+    return getFormatting().display(name);
   }
 
   @Override
@@ -0,0 +1,254 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.results;
+
+import java.math.RoundingMode;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * How a {@link Result} prints names, real numbers, counterexamples and line numbers. A result
+ * resolves its formatting once, when it is created, so that results printed differently can be
+ * parsed and read at the same time. Formattings never change; the {@code with} methods return
+ * modified copies.
+ */
+public final class Formatting
+{
+  /**
+   * The most names whose display form a formatting keeps.
+   */
+  private static final int maxDisplayNames = 4096;
+
+  /**
+   * The formatting of {@link Result} unless configured otherwise: lustre names surrounded by
+   * {@code {{}}}, reals with 2 digits rounded half up, and no counterexamples or line numbers.
+   */
+  public static final Formatting defaults =
+      new Formatting(false, false, false, 2, RoundingMode.HALF_UP, "{{", "}}");
+
+  private final boolean printingCounterExamplesEnabled;
+  private final boolean printingUnknownCounterExamplesEnabled;
+  private final boolean printingLineNumbersEnabled;
+  private final int realPrecision;
+  private final RoundingMode realRoundingMode;
+  private final String openingSymbols;
+  private final String closingSymbols;
+  /**
+   * The display form of the names seen so far, so that repeated names are surrounded once.
+   */
+  private final Map<String, String> displayNames = new ConcurrentHashMap<>();
+
+  private Formatting(boolean printingCounterExamplesEnabled,
+      boolean printingUnknownCounterExamplesEnabled, boolean printingLineNumbersEnabled,
+      int realPrecision, RoundingMode realRoundingMode, String openingSymbols,
+      String closingSymbols)
+  {
+    this.printingCounterExamplesEnabled = printingCounterExamplesEnabled;
+    this.printingUnknownCounterExamplesEnabled = printingUnknownCounterExamplesEnabled;
+    this.printingLineNumbersEnabled = printingLineNumbersEnabled;
+    this.realPrecision = realPrecision;
+    this.realRoundingMode = realRoundingMode;
+    this.openingSymbols = openingSymbols == null ? "" : openingSymbols;
+    this.closingSymbols = closingSymbols == null ? "" : closingSymbols;
+  }
+
+  /**
+   * Returns the formatting of an analysis, or the current default one for objects built outside a
+   * result.
+   *
+   * @param analysis the analysis, may be null
+   * @return the formatting to use
+   */
+  static Formatting of(Analysis analysis)
+  {
+    return analysis == null ? Result.getDefaultFormatting() : analysis.getFormatting();
+  }
+
+  /**
+   * Returns a lustre name surrounded by the opening and closing symbols.
+   *
+   * @param name the lustre name
+   * @return the name to display
+   */
+  public String display(String name)
+  {
+    if (openingSymbols.isEmpty() && closingSymbols.isEmpty())
+    {
+      return name;
+    }
+    String display = displayNames.get(name);
+    if (display == null)
+    {
+      display = openingSymbols + name + closingSymbols;
+      if (displayNames.size() < maxDisplayNames)
+      {
+        displayNames.putIfAbsent(name, display);
+      }
+    }
+    return display;
+  }
+
+  /**
+   * Returns {@code true} if counterexamples of falsified properties are printed.
+   *
+   * @return whether counterexamples of falsified properties are printed
+   */
+  public boolean isPrintingCounterExamplesEnabled()
+  {
+    return printingCounterExamplesEnabled;
+  }
+
+  /**
+   * Returns a copy of this formatting that prints the counterexamples of falsified properties or
+   * not.
+   *
+   * @param value whether to print counterexamples of falsified properties
+   * @return the modified formatting
+   */
+  public Formatting withPrintingCounterExamplesEnabled(boolean value)
+  {
+    return new Formatting(value, printingUnknownCounterExamplesEnabled,
+        printingLineNumbersEnabled, realPrecision, realRoundingMode, openingSymbols,
+        closingSymbols);
+  }
+
+  /**
+   * Returns {@code true} if the last counterexamples of unknown properties are printed.
+   *
+   * @return whether the last counterexamples of unknown properties are printed
+   */
+  public boolean isPrintingUnknownCounterExamplesEnabled()
+  {
+    return printingUnknownCounterExamplesEnabled;
+  }
+
+  /**
+   * Returns a copy of this formatting that prints the last counterexamples of unknown properties
+   * or not.
+   *
+   * @param value whether to print the last counterexamples of unknown properties
+   * @return the modified formatting
+   */
+  public Formatting withPrintingUnknownCounterExamplesEnabled(boolean value)
+  {
+    return new Formatting(printingCounterExamplesEnabled, value, printingLineNumbersEnabled,
+        realPrecision, realRoundingMode, openingSymbols, closingSymbols);
+  }
+
+  /**
+   * Returns {@code true} if the line numbers of properties are printed.
+   *
+   * @return whether line numbers are printed
+   */
+  public boolean isPrintingLineNumbersEnabled()
+  {
+    return printingLineNumbersEnabled;
+  }
+
+  /**
+   * Returns a copy of this formatting that prints the line numbers of properties or not.
+   *
+   * @param value whether to print line numbers
+   * @return the modified formatting
+   */
+  public Formatting withPrintingLineNumbersEnabled(boolean value)
+  {
+    return new Formatting(printingCounterExamplesEnabled, printingUnknownCounterExamplesEnabled,
+        value, realPrecision, realRoundingMode, openingSymbols, closingSymbols);
+  }
+
+  /**
+   * Returns the number of digits printed after the decimal point of real numbers.
+   *
+   * @return the precision of real numbers
+   */
+  public int getRealPrecision()
+  {
+    return realPrecision;
+  }
+
+  /**
+   * Returns a copy of this formatting that prints real numbers with another precision.
+   *
+   * @param realPrecision the number of digits to print after the decimal point
+   * @return the modified formatting
+   */
+  public Formatting withRealPrecision(int realPrecision)
+  {
+    return new Formatting(printingCounterExamplesEnabled, printingUnknownCounterExamplesEnabled,
+        printingLineNumbersEnabled, realPrecision, realRoundingMode, openingSymbols,
+        closingSymbols);
+  }
+
+  /**
+   * Returns the rounding mode of real numbers.
+   *
+   * @return the rounding mode of real numbers
+   */
+  public RoundingMode getRealRoundingMode()
+  {
+    return realRoundingMode;
+  }
+
+  /**
+   * Returns a copy of this formatting that rounds real numbers another way.
+   *
+   * @param realRoundingMode the rounding mode of real numbers
+   * @return the modified formatting
+   */
+  public Formatting withRealRoundingMode(RoundingMode realRoundingMode)
+  {
+    return new Formatting(printingCounterExamplesEnabled, printingUnknownCounterExamplesEnabled,
+        printingLineNumbersEnabled, realPrecision, realRoundingMode, openingSymbols,
+        closingSymbols);
+  }
+
+  /**
+   * Returns the symbols printed before a lustre name.
+   *
+   * @return the opening symbols
+   */
+  public String getOpeningSymbols()
+  {
+    return openingSymbols;
+  }
+
+  /**
+   * Returns a copy of this formatting that prints other symbols before lustre names.
+   *
+   * @param symbols the symbols to print before a lustre name
+   * @return the modified formatting
+   */
+  public Formatting withOpeningSymbols(String symbols)
+  {
+    return new Formatting(printingCounterExamplesEnabled, printingUnknownCounterExamplesEnabled,
+        printingLineNumbersEnabled, realPrecision, realRoundingMode, symbols, closingSymbols);
+  }
+
+  /**
+   * Returns the symbols printed after a lustre name.
+   *
+   * @return the closing symbols
+   */
+  public String getClosingSymbols()
+  {
+    return closingSymbols;
+  }
+
+  /**
+   * Returns a copy of this formatting that prints other symbols after lustre names.
+   *
+   * @param symbols the symbols to print after a lustre name
+   * @return the modified formatting
+   */
+  public Formatting withClosingSymbols(String symbols)
+  {
+    return new Formatting(printingCounterExamplesEnabled, printingUnknownCounterExamplesEnabled,
+        printingLineNumbersEnabled, realPrecision, realRoundingMode, openingSymbols, symbols);
+  }
+}
@@ -7,7 +7,6 @@
 
 package edu.uiowa.cs.clc.kind2.results;
 
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
@@ -16,13 +15,9 @@ import com.google.gson.JsonObject;
  */
 public class FunctionInfo implements AstInfo {
     /**
-     * The original kind2 output for this object in pretty json format.
+     * The original kind2 output for this object, printed on demand.
      */
-    private final String prettyJson;
-    /**
-     * The original kind2 output for this object in json format
-     */
-    private final String json;
+    private final JsonText json;
     /**
      * The component name.
      */
@@ -58,9 +53,16 @@ public class FunctionInfo implements AstInfo {
      * @param jsonElement the Kind 2 json object describing the declaration
      */
     public FunctionInfo(JsonElement jsonElement) {
+        this(jsonElement, JsonRetention.lazy);
+    }
+
+    /**
+     * Constructs function declaration information from one Kind 2 source location object, keeping
+     * its json as its result does.
+     */
+    FunctionInfo(JsonElement jsonElement, JsonRetention jsonRetention) {
         JsonObject jsonObject = jsonElement.getAsJsonObject();
-        prettyJson = new GsonBuilder().setPrettyPrinting().create().toJson(jsonElement);
-        json = new GsonBuilder().create().toJson(jsonElement);
+        json = JsonText.of(jsonElement, jsonRetention, true);
         this.name = jsonObject.get(Labels.name).getAsString();
         this.imported = jsonObject.get(Labels.imported).getAsBoolean();
         this.file = jsonObject.get(Labels.file) == null ? null
@@ -79,7 +81,7 @@ public class FunctionInfo implements AstInfo {
      * @return The original kind2 output for this object in pretty json format.
      */
     public String getJson() {
-        return prettyJson;
+        return json.getJson();
     }
 
     /**
@@ -135,6 +137,6 @@ public class FunctionInfo implements AstInfo {
 
     @Override
     public String toString() {
-        return json;
+        return json.printCompact();
     }
 }
@@ -31,6 +31,12 @@ public class IntValue extends Value
     value = new BigInteger(jsonElement.getAsString());
   }
 
+  IntValue(StepValue kind2StepValue, Type kind2Type, JsonElement jsonElement, BigInteger value)
+  {
+    super(kind2StepValue, kind2Type, jsonElement);
+    this.value = value;
+  }
+
   /**
    * Returns the integer value.
    *
@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.results;
+
+import edu.uiowa.cs.clc.kind2.Kind2Exception;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The whole Kind 2 json output of a {@link Result}, kept according to an {@link OutputRetention}.
+ * The output is a json array of the objects added so far, written on one line.
+ */
+abstract class JsonOutput
+{
+  /**
+   * Returns an empty output kept according to the given retention.
+   *
+   * @param retention how to keep the output
+   * @return an empty output
+   */
+  static JsonOutput of(OutputRetention retention)
+  {
+    switch (retention)
+    {
+      case none:
+        return new None();
+      case file:
+        return new Spilled();
+      default:
+        return new Memory(new JsonArray());
+    }
+  }
+
+  /**
+   * Appends an output object.
+   *
+   * @param jsonElement the Kind 2 json object
+   */
+  abstract void add(JsonElement jsonElement);
+
+  /**
+   * Writes the output as a json array.
+   *
+   * @param writer where to write the output
+   * @return false if the output is not kept, in which case nothing is written
+   * @throws IOException if the output cannot be written or read back
+   */
+  abstract boolean write(Writer writer) throws IOException;
+
+  /**
+   * Releases what is held open while objects are added, once the last one is. Objects added later
+   * are still kept.
+   */
+  void finish()
+  {
+  }
+
+  /**
+   * Releases the output, after which it is no longer kept.
+   */
+  void close()
+  {
+  }
+
+  /**
+   * Returns the output as a json array, or null if it is not kept.
+   *
+   * @return the output
+   */
+  String get()
+  {
+    StringWriter writer = new StringWriter();
+    try
+    {
+      return write(writer) ? writer.toString() : null;
+    }
+    catch (IOException e)
+    {
+      throw new Kind2Exception("Failed to read back kind2 json output", e);
+    }
+  }
+
+  /**
+   * Keeps nothing.
+   */
+  static class None extends JsonOutput
+  {
+    @Override
+    void add(JsonElement jsonElement)
+    {
+    }
+
+    @Override
+    boolean write(Writer writer)
+    {
+      return false;
+    }
+  }
+
+  /**
+   * Keeps the output objects in a json array.
+   */
+  static class Memory extends JsonOutput
+  {
+    private final JsonArray json;
+
+    Memory(JsonArray json)
+    {
+      this.json = json;
+    }
+
+    @Override
+    void add(JsonElement jsonElement)
+    {
+      json.add(jsonElement);
+    }
+
+    @Override
+    boolean write(Writer writer)
+    {
+      JsonText.writeCompact(json, writer);
+      return true;
+    }
+
+    @Override
+    String get()
+    {
+      return json.toString();
+    }
+  }
+
+  /**
+   * Appends the output objects to a temporary file, separated by commas, and adds the brackets of
+   * the array when it is read back. The file is written through one writer until the output is
+   * finished, reopened for appending if objects are added afterwards, and deleted when the output
+   * is closed.
+   */
+  static class Spilled extends JsonOutput
+  {
+    private File file;
+    private Writer out;
+    private boolean empty = true;
+    private boolean closed;
+
+    @Override
+    synchronized void add(JsonElement jsonElement)
+    {
+      if (closed)
+      {
+        return;
+      }
+      try
+      {
+        if (file == null)
+        {
+          file = File.createTempFile("kind2-output", ".json");
+        }
+        if (out == null)
+        {
+          out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8,
+              StandardOpenOption.APPEND);
+        }
+        if (!empty)
+        {
+          out.write(',');
+        }
+        JsonText.writeCompact(jsonElement, out);
+        empty = false;
+      }
+      catch (IOException e)
+      {
+        throw new Kind2Exception("Failed to write kind2 json output to a temporary file", e);
+      }
+    }
+
+    @Override
+    synchronized boolean write(Writer writer) throws IOException
+    {
+      if (closed)
+      {
+        return false;
+      }
+      writer.write('[');
+      if (out != null)
+      {
+        out.flush();
+      }
+      if (file != null)
+      {
+        try (Reader in = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8))
+        {
+          char[] buffer = new char[8192];
+          for (int n = in.read(buffer); n != -1; n = in.read(buffer))
+          {
+            writer.write(buffer, 0, n);
+          }
+        }
+      }
+      writer.write(']');
+      return true;
+    }
+
+    @Override
+    synchronized void finish()
+    {
+      try
+      {
+        closeWriter();
+      }
+      catch (IOException e)
+      {
+        throw new Kind2Exception("Failed to write kind2 json output to a temporary file", e);
+      }
+    }
+
+    @Override
+    synchronized void close()
+    {
+      if (closed)
+      {
+        return;
+      }
+      closed = true;
+      try
+      {
+        closeWriter();
+      }
+      catch (IOException e)
+      {
+        // the file is deleted anyway
+      }
+      finally
+      {
+        if (file != null)
+        {
+          file.delete();
+          file = null;
+        }
+      }
+    }
+
+    private void closeWriter() throws IOException
+    {
+      if (out != null)
+      {
+        Writer writer = out;
+        out = null;
+        writer.close();
+      }
+    }
+
+    /**
+     * Returns the temporary file, or null if none is open.
+     */
+    synchronized File getFile()
+    {
+      return file;
+    }
+  }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.results;
+
+/**
+ * How the objects of the results model keep the Kind 2 json they were built from, which their
+ * {@code getJson()} methods return pretty-printed.
+ */
+public enum JsonRetention
+{
+  /**
+   * Keep no json: {@code getJson()} returns null.
+   */
+  none,
+  /**
+   * Keep the json element and pretty-print it the first time {@code getJson()} is called.
+   */
+  lazy,
+  /**
+   * Pretty-print the json element as soon as the object is built.
+   */
+  eager;
+
+  /**
+   * Returns the json retention of an analysis, or {@link #lazy} for objects built outside a
+   * result.
+   *
+   * @param analysis the analysis, may be null
+   * @return the retention to use
+   */
+  static JsonRetention of(Analysis analysis)
+  {
+    return analysis == null ? lazy : analysis.getJsonRetention();
+  }
+}
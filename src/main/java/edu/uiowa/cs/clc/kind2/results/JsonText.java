@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.results;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+
+/**
+ * The Kind 2 json of one model object, kept according to the {@link JsonRetention} of its result.
+ * Rendered strings are cached.
+ */
+final class JsonText
+{
+  private static final Gson prettyGson = new GsonBuilder().setPrettyPrinting().create();
+  private static final Gson compactGson = new GsonBuilder().create();
+
+  /**
+   * The json of objects that keep none.
+   */
+  static final JsonText none = new JsonText(JsonRetention.none, null);
+
+  private final JsonRetention retention;
+  private final JsonElement jsonElement;
+  private volatile String prettyJson;
+  private volatile String compactJson;
+
+  private JsonText(JsonRetention retention, JsonElement jsonElement)
+  {
+    this.retention = retention;
+    this.jsonElement = jsonElement;
+  }
+
+  /**
+   * Keeps the json of an object according to a retention.
+   *
+   * @param jsonElement the json the object was built from, or null if there is none
+   * @param retention the json retention of the result of the object
+   * @return the kept json
+   */
+  static JsonText of(JsonElement jsonElement, JsonRetention retention)
+  {
+    return of(jsonElement, retention, false);
+  }
+
+  /**
+   * Keeps the json of an object according to a retention, and keeps the element whatever the
+   * retention if the object prints as its json.
+   *
+   * @param jsonElement the json the object was built from, or null if there is none
+   * @param retention the json retention of the result of the object
+   * @param printed whether {@link #print()} and {@link #printCompact()} are needed
+   * @return the kept json
+   */
+  static JsonText of(JsonElement jsonElement, JsonRetention retention, boolean printed)
+  {
+    if (jsonElement == null || retention == JsonRetention.none && !printed)
+    {
+      return none;
+    }
+    JsonText text = new JsonText(retention,
+        retention == JsonRetention.eager && !printed ? null : jsonElement);
+    if (retention == JsonRetention.eager)
+    {
+      text.prettyJson = pretty(jsonElement);
+    }
+    return text;
+  }
+
+  /**
+   * Returns the pretty-printed json, or null if it is not kept.
+   *
+   * @return the pretty-printed json
+   */
+  String getJson()
+  {
+    return retention == JsonRetention.none ? null : print();
+  }
+
+  /**
+   * Returns the pretty-printed json whatever the retention, if the element is kept.
+   *
+   * @return the pretty-printed json
+   */
+  String print()
+  {
+    String json = prettyJson;
+    if (json == null && jsonElement != null)
+    {
+      json = pretty(jsonElement);
+      prettyJson = json;
+    }
+    return json;
+  }
+
+  /**
+   * Returns the json on one line whatever the retention, if the element is kept.
+   *
+   * @return the compact json
+   */
+  String printCompact()
+  {
+    String json = compactJson;
+    if (json == null && jsonElement != null)
+    {
+      json = compactGson.toJson(jsonElement);
+      compactJson = json;
+    }
+    return json;
+  }
+
+  /**
+   * Pretty-prints a json element with a shared {@link Gson} instance.
+   *
+   * @param jsonElement the element to print
+   * @return the pretty-printed json
+   */
+  static String pretty(JsonElement jsonElement)
+  {
+    return prettyGson.toJson(jsonElement);
+  }
+
+  /**
+   * Writes a json element on one line with a shared {@link Gson} instance.
+   *
+   * @param jsonElement the element to write
+   * @param writer where to write the element
+   */
+  static void writeCompact(JsonElement jsonElement, Appendable writer)
+  {
+    compactGson.toJson(jsonElement, writer);
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.results;
+
+/**
+ * Reads the names and type strings Kind 2 prints, such as {@code ControlSpec[l117c12].R1[1]} or
+ * {@code subrange [0, 5] of int}, by scanning their characters rather than with regular
+ * expressions, which compile a pattern and create several strings on every call.
+ */
+final class Kind2Lexer
+{
+  private final String text;
+  private int position;
+
+  Kind2Lexer(String text)
+  {
+    this.text = text;
+  }
+
+  /**
+   * Skips white space, then a token if the text continues with it.
+   *
+   * @param token the expected token
+   * @return whether the token was there
+   */
+  boolean skip(String token)
+  {
+    skipWhiteSpace();
+    if (!text.startsWith(token, position))
+    {
+      return false;
+    }
+    position += token.length();
+    return true;
+  }
+
+  /**
+   * Skips white space, then reads an integer, with its sign.
+   *
+   * @return the integer
+   * @throws NumberFormatException if the text does not continue with an integer
+   */
+  int integer()
+  {
+    skipWhiteSpace();
+    int start = position;
+    if (position < text.length() && (text.charAt(position) == '-' || text.charAt(position) == '+'))
+    {
+      position++;
+    }
+    while (position < text.length() && Character.isDigit(text.charAt(position)))
+    {
+      position++;
+    }
+    return Integer.parseInt(text.substring(start, position));
+  }
+
+  /**
+   * Returns the rest of the text without surrounding white space, and reaches its end.
+   *
+   * @return the rest of the text
+   */
+  String rest()
+  {
+    String rest = text.substring(position).trim();
+    position = text.length();
+    return rest;
+  }
+
+  /**
+   * Returns whether only white space is left.
+   *
+   * @return whether the text is read
+   */
+  boolean atEnd()
+  {
+    skipWhiteSpace();
+    return position == text.length();
+  }
+
+  private void skipWhiteSpace()
+  {
+    while (position < text.length() && Character.isWhitespace(text.charAt(position)))
+    {
+      position++;
+    }
+  }
+
+  /**
+   * Strips every location and index in brackets from a Kind 2 property or element name, then the
+   * contract or node prefix before the first dot: {@code ControlSpec[l117c12].R1[1]} becomes
+   * {@code R1}. A name without either is returned as is.
+   *
+   * @param jsonName the name Kind 2 printed
+   * @return the base name
+   */
+  static String baseName(String jsonName)
+  {
+    String name = jsonName;
+    int open = jsonName.indexOf('[');
+    if (open >= 0)
+    {
+      StringBuilder stripped = null;
+      int copied = 0;
+      while (open >= 0)
+      {
+        int close = jsonName.indexOf(']', open + 1);
+        if (close < 0)
+        {
+          break;
+        }
+        if (stripped == null)
+        {
+          stripped = new StringBuilder(jsonName.length());
+        }
+        stripped.append(jsonName, copied, open);
+        copied = close + 1;
+        open = jsonName.indexOf('[', copied);
+      }
+      if (stripped != null)
+      {
+        name = stripped.append(jsonName, copied, jsonName.length()).toString();
+      }
+    }
+    int dot = name.indexOf('.');
+    return dot < 0 ? name : name.substring(dot + 1);
+  }
+}
@@ -7,7 +7,6 @@
 
 package edu.uiowa.cs.clc.kind2.results;
 
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
@@ -16,13 +15,9 @@ import com.google.gson.JsonObject;
  */
 public class LemmaInfo implements AstInfo {
     /**
-     * The original kind2 output for this object in pretty json format.
+     * The original kind2 output for this object, printed on demand.
      */
-    private final String prettyJson;
-    /**
-     * The original kind2 output for this object in json format
-     */
-    private final String json;
+    private final JsonText json;
     /**
      * The component name.
      */
@@ -54,9 +49,16 @@ public class LemmaInfo implements AstInfo {
      * @param jsonElement the Kind 2 json object describing the declaration
      */
     public LemmaInfo(JsonElement jsonElement) {
+        this(jsonElement, JsonRetention.lazy);
+    }
+
+    /**
+     * Constructs lemma declaration information from one Kind 2 source location object, keeping its
+     * json as its result does.
+     */
+    LemmaInfo(JsonElement jsonElement, JsonRetention jsonRetention) {
         JsonObject jsonObject = jsonElement.getAsJsonObject();
-        prettyJson = new GsonBuilder().setPrettyPrinting().create().toJson(jsonElement);
-        json = new GsonBuilder().create().toJson(jsonElement);
+        json = JsonText.of(jsonElement, jsonRetention, true);
         this.name = jsonObject.get(Labels.name).getAsString();
         this.file = jsonObject.get(Labels.file) == null ? null
                 : jsonObject.get(Labels.file).getAsString();
@@ -74,7 +76,7 @@ public class LemmaInfo implements AstInfo {
      * @return The original kind2 output for this object in pretty json format.
      */
     public String getJson() {
-        return prettyJson;
+        return json.getJson();
     }
 
     /**
@@ -121,6 +123,6 @@ public class LemmaInfo implements AstInfo {
 
     @Override
     public String toString() {
-        return json;
+        return json.printCompact();
     }
 }
@@ -7,7 +7,6 @@
 
 package edu.uiowa.cs.clc.kind2.results;
 
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
@@ -34,13 +33,9 @@ public class Log
    */
   private final Result kind2Result;
   /**
-   * The original kind2 output for this object in pretty json format.
+   * The original kind2 output for this object, printed on demand.
    */
-  private final String prettyJson;
-  /**
-   * The original kind2 output for this object in json format
-   */
-  private final String json;
+  private final JsonText json;
   /**
    * Associated line in the input file, if any.
    */
@@ -64,8 +59,8 @@ public class Log
   {
     this.kind2Result = kind2Result;
     JsonObject jsonObject = jsonElement.getAsJsonObject();
-    prettyJson = new GsonBuilder().setPrettyPrinting().create().toJson(jsonElement);
-    json = new GsonBuilder().create().toJson(jsonElement);
+    json = JsonText.of(jsonElement,
+        kind2Result == null ? JsonRetention.lazy : kind2Result.getJsonRetention(), true);
     this.level = LogLevel.getLevel(jsonObject.get(Labels.level).getAsString());
     this.source = jsonObject.get(Labels.source).getAsString();
     this.value = jsonObject.get(Labels.value).getAsString();
@@ -133,7 +128,7 @@ public class Log
    */
   public String getJson()
   {
-    return prettyJson;
+    return json.getJson();
   }
 
   /**
@@ -159,7 +154,7 @@ public class Log
   @Override
   public String toString()
   {
-    return json;
+    return json.printCompact();
   }
 
   /**
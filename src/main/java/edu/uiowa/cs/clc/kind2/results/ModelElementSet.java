@@ -7,7 +7,6 @@
 
 package edu.uiowa.cs.clc.kind2.results;
 
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
@@ -23,7 +22,7 @@ public class ModelElementSet
   /**
    * Kind2 json output for this object.
    */
-  private final String json;
+  private final JsonText json;
 
   private final JsonElement jsonElement;
   /**
@@ -65,7 +64,8 @@ public class ModelElementSet
     this.postAnalysis = analysis;
     this.jsonElement = jsonElement;
     JsonObject jsonObject = jsonElement.getAsJsonObject();
-    json = new GsonBuilder().setPrettyPrinting().create().toJson(jsonElement);
+    json = JsonText.of(jsonElement,
+        JsonRetention.of(analysis == null ? null : analysis.getAnalysis()));
     classField = jsonObject.get(Labels.classField).getAsString();
     size = jsonObject.get(Labels.size).getAsInt();
     JsonObject runtime = jsonObject.get(Labels.runtime).getAsJsonObject();
@@ -88,7 +88,7 @@ public class ModelElementSet
    */
   public String getJson()
   {
-    return json;
+    return json.getJson();
   }
 
   /**
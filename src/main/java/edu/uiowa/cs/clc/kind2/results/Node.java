@@ -7,7 +7,6 @@
 
 package edu.uiowa.cs.clc.kind2.results;
 
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
@@ -22,7 +21,7 @@ public class Node
   /**
    * Kind2 json output for this object.
    */
-  private final String json;
+  private final JsonText json;
 
   /**
    * Name of the node
@@ -46,9 +45,10 @@ public class Node
   public Node(ModelElementSet modelElementSet, JsonElement jsonElement)
   {
     this.modelElementSet = modelElementSet;
-    json = new GsonBuilder().setPrettyPrinting().create().toJson(jsonElement);
+    json = JsonText.of(jsonElement, getJsonRetention());
     JsonObject jsonObject = jsonElement.getAsJsonObject();
-    name = jsonObject.get(Labels.name).getAsString();
+    String jsonName = jsonObject.get(Labels.name).getAsString();
+    name = getStrings().intern(getFormatting().display(jsonName));
 
     elements = new ArrayList<>();
     for (JsonElement element : jsonObject.get(Labels.elements).getAsJsonArray())
@@ -65,7 +65,7 @@ public class Node
    */
   public String getJson()
   {
-    return json;
+    return json.getJson();
   }
 
   /**
@@ -75,7 +75,35 @@ public class Node
    */
   public String getName()
   {
-    return Result.getOpeningSymbols() +  name + Result.getClosingSymbols();
+    return name;
+  }
+
+  /**
+   * Returns how this node is printed, the formatting of the analysis its model element set belongs
+   * to.
+   */
+  Formatting getFormatting()
+  {
+    PostAnalysis postAnalysis = modelElementSet == null ? null : modelElementSet.getPostAnalysis();
+    return Formatting.of(postAnalysis == null ? null : postAnalysis.getAnalysis());
+  }
+
+  /**
+   * Returns the pool of the strings of the analysis its model element set belongs to.
+   */
+  StringPool getStrings()
+  {
+    PostAnalysis postAnalysis = modelElementSet == null ? null : modelElementSet.getPostAnalysis();
+    return StringPool.of(postAnalysis == null ? null : postAnalysis.getAnalysis());
+  }
+
+  /**
+   * Returns how the objects of this node keep their json, the retention of its post-analysis.
+   */
+  JsonRetention getJsonRetention()
+  {
+    PostAnalysis postAnalysis = modelElementSet == null ? null : modelElementSet.getPostAnalysis();
+    return JsonRetention.of(postAnalysis == null ? null : postAnalysis.getAnalysis());
   }
 
   /**
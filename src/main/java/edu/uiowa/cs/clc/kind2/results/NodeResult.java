@@ -8,6 +8,7 @@
 package edu.uiowa.cs.clc.kind2.results;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.stream.Collectors;
 
 /**
@@ -51,6 +52,12 @@ public class NodeResult
    */
   private final Result kind2Result;
 
+  /**
+   * The final properties of this component and its subcomponents for each answer, computed at one
+   * version of the kind2 result, and replaced as a whole when the version changes.
+   */
+  private volatile FinalProperties finalProperties;
+
   /**
    * Constructs an empty result for the named component.
    *
@@ -71,6 +78,10 @@ public class NodeResult
   {
     getAnalyses().add(analysis);
     analysis.setNodeResult(this);
+    if (kind2Result != null)
+    {
+      kind2Result.modified();
+    }
   }
 
   /**
@@ -175,7 +186,7 @@ public class NodeResult
         stringBuilder.append(property.getSource() + ": ");
         stringBuilder.append(property.getQualifiedName());
 
-        if (Result.isPrintingLineNumbersEnabled())
+        if (getFormatting().isPrintingLineNumbersEnabled())
         {
           stringBuilder.append(" in line " + property.getLine() + " ");
           stringBuilder.append("column " + property.getColumn() + ".");
@@ -223,7 +234,15 @@ public class NodeResult
    */
   void addChild(NodeResult child)
   {
-    children.add(child);
+    if (children.add(child))
+    {
+      // the suggestions depend on the subcomponents
+      isAnalyzed = false;
+      if (kind2Result != null)
+      {
+        kind2Result.modified();
+      }
+    }
     // add this as another parent to the nodeResult
     child.parents.add(this);
   }
@@ -271,6 +290,17 @@ public class NodeResult
       }
     }
 
+    updateSuggestions();
+  }
+
+  /**
+   * Computes the suggestions for this component from its analyses and the last analyses of its
+   * subcomponents, in place of any earlier suggestions. Unlike {@link #analyze()}, this does not
+   * analyze the subcomponents.
+   */
+  void updateSuggestions()
+  {
+    List<Suggestion> suggestions = new ArrayList<>();
     Analysis lastAnalysis = getLastAnalysis();
     List<Property> unknownProperties = lastAnalysis.getUnknownProperties();
     List<Property> falsifiedProperties = lastAnalysis.getFalsifiedProperties();
@@ -363,8 +393,8 @@ public class NodeResult
           List<Property> subComponentUnprovenProperties = new ArrayList<>();
           for (NodeResult nodeResult : children)
           {
-            List<Property> properties = nodeResult
-                .getLastAnalysis().getFalsifiedProperties();
+            List<Property> properties = new ArrayList<>(nodeResult
+                .getLastAnalysis().getFalsifiedProperties());
             properties.addAll(nodeResult.getLastAnalysis().getUnknownProperties());
             subComponentUnprovenProperties.addAll(properties);
           }
@@ -391,9 +421,43 @@ public class NodeResult
       suggestions.add(Suggestion.increaseTimeout(this, unknownProperties));
     }
 
+    this.suggestions = suggestions;
     isAnalyzed = true;
   }
 
+  /**
+   * Returns whether the suggestions for this component are computed and up to date with its
+   * subcomponents.
+   *
+   * @return whether this component is analyzed
+   */
+  boolean isAnalyzed()
+  {
+    return isAnalyzed;
+  }
+
+  /**
+   * Returns whether the suggestions for this component can be computed, that is whether it has an
+   * analysis and its subcomponents are analyzed.
+   *
+   * @return whether this component can be analyzed
+   */
+  boolean canAnalyze()
+  {
+    if (analyses.isEmpty())
+    {
+      return false;
+    }
+    for (NodeResult child : children)
+    {
+      if (!child.isAnalyzed)
+      {
+        return false;
+      }
+    }
+    return true;
+  }
+
   /**
    * Returns the associated kind2 result.
    *
@@ -404,6 +468,14 @@ public class NodeResult
     return kind2Result;
   }
 
+  /**
+   * Returns how this component is printed, the formatting of its result.
+   */
+  Formatting getFormatting()
+  {
+    return kind2Result == null ? Result.getDefaultFormatting() : kind2Result.getFormatting();
+  }
+
   /**
    * Returns the final list of falsified properties for this component and its subcomponents.
    *
@@ -411,22 +483,7 @@ public class NodeResult
    */
   public Set<Property> getFalsifiedProperties()
   {
-    Set<Property> falsifiedProperties = new HashSet<>();
-
-    for (NodeResult child : children)
-    {
-      falsifiedProperties.addAll(child.getFalsifiedProperties());
-    }
-
-    for (Analysis analysis : analyses)
-    {
-      if (analysis.isModeAnalysis())
-      {
-        falsifiedProperties.addAll(analysis.getFalsifiedProperties());
-      }
-    }
-    falsifiedProperties.addAll(getLastAnalysis().getFalsifiedProperties());
-    return falsifiedProperties;
+    return getFinalProperties(Answer.falsifiable);
   }
 
   /**
@@ -436,18 +493,7 @@ public class NodeResult
    */
   public Set<Property> getValidProperties()
   {
-    Set<Property> validProperties = new HashSet<>();
-
-    for (NodeResult child : children)
-    {
-      validProperties.addAll(child.getValidProperties());
-    }
-
-    for (Analysis analysis : analyses)
-    {
-      validProperties.addAll(analysis.getValidProperties());
-    }
-    return validProperties;
+    return getFinalProperties(Answer.valid);
   }
 
   /**
@@ -457,16 +503,7 @@ public class NodeResult
    */
   public Set<Property> getUnknownProperties()
   {
-    Set<Property> unknownProperties = new HashSet<>();
-
-    for (NodeResult child : children)
-    {
-      unknownProperties.addAll(child.getUnknownProperties());
-    }
-
-    unknownProperties.addAll(getLastAnalysis().getUnknownProperties());
-
-    return unknownProperties;
+    return getFinalProperties(Answer.unknown);
   }
 
   /**
@@ -476,16 +513,7 @@ public class NodeResult
    */
   public Set<Property> getReachableProperties()
   {
-    Set<Property> reachableProperties = new HashSet<>();
-
-    for (NodeResult child : children)
-    {
-      reachableProperties.addAll(child.getReachableProperties());
-    }
-
-    reachableProperties.addAll(getLastAnalysis().getReachableProperties());
-
-    return reachableProperties;
+    return getFinalProperties(Answer.reachable);
   }
 
   /**
@@ -495,15 +523,95 @@ public class NodeResult
    */
   public Set<Property> getUnreachableProperties()
   {
-    Set<Property> unreachableProperties = new HashSet<>();
+    return getFinalProperties(Answer.unreachable);
+  }
 
-    for (NodeResult child : children)
+  /**
+   * Returns the final properties with the given answer as an unmodifiable set, computed once per
+   * version of the kind2 result. Subcomponents shared by several components are therefore visited
+   * once, and repeated calls between two updates return the same set. The cache is safe to read
+   * from several threads, but the properties are only consistent on the thread adding the output
+   * or once the result is finished; other threads should read a {@link ResultSnapshot} instead.
+   * @param answer the answer of the properties
+   * @return the final properties with the given answer
+   */
+  private Set<Property> getFinalProperties(Answer answer)
+  {
+    if (kind2Result == null)
+    {
+      return Collections.unmodifiableSet(collectFinalProperties(answer));
+    }
+    int version = kind2Result.getVersion();
+    FinalProperties cache = finalProperties;
+    if (cache == null || cache.version != version)
+    {
+      cache = new FinalProperties(version);
+      finalProperties = cache;
+    }
+    Set<Property> properties = cache.byAnswer.get(answer.ordinal());
+    if (properties == null)
     {
-      unreachableProperties.addAll(child.getUnreachableProperties());
+      properties = Collections.unmodifiableSet(collectFinalProperties(answer));
+      if (!cache.byAnswer.compareAndSet(answer.ordinal(), null, properties))
+      {
+        properties = cache.byAnswer.get(answer.ordinal());
+      }
     }
+    return properties;
+  }
 
-    unreachableProperties.addAll(getLastAnalysis().getUnreachableProperties());
+  /**
+   * The final properties for each answer at one version of the kind2 result, each set once.
+   */
+  private static final class FinalProperties
+  {
+    final int version;
+    final AtomicReferenceArray<Set<Property>> byAnswer =
+        new AtomicReferenceArray<>(Answer.values().length);
+
+    FinalProperties(int version)
+    {
+      this.version = version;
+    }
+  }
+
+  private Set<Property> collectFinalProperties(Answer answer)
+  {
+    Set<Property> properties = new HashSet<>();
 
-    return unreachableProperties;
+    for (NodeResult child : children)
+    {
+      properties.addAll(child.getFinalProperties(answer));
+    }
+
+    switch (answer)
+    {
+      case valid:
+        for (Analysis analysis : analyses)
+        {
+          properties.addAll(analysis.getValidProperties());
+        }
+        break;
+      case falsifiable:
+        for (Analysis analysis : analyses)
+        {
+          if (analysis.isModeAnalysis())
+          {
+            properties.addAll(analysis.getFalsifiedProperties());
+          }
+        }
+        properties.addAll(getLastAnalysis().getFalsifiedProperties());
+        break;
+      case unknown:
+        properties.addAll(getLastAnalysis().getUnknownProperties());
+        break;
+      case reachable:
+        properties.addAll(getLastAnalysis().getReachableProperties());
+        break;
+      default:
+        properties.addAll(getLastAnalysis().getUnreachableProperties());
+        break;
+    }
+    return properties;
   }
 }
\ No newline at end of file
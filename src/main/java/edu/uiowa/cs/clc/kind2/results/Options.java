@@ -7,7 +7,6 @@
 
 package edu.uiowa.cs.clc.kind2.results;
 
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
@@ -23,7 +22,7 @@ public class Options
   /**
    * Kind2 json output for this object
    */
-  private final String json;
+  private final JsonText json;
   /**
    * List of Kind 2 module names that are enabled
    */
@@ -51,9 +50,18 @@ public class Options
    * @param jsonElement the Kind 2 json object describing the options
    */
   public Options(JsonElement jsonElement)
+  {
+    this(jsonElement, JsonRetention.lazy);
+  }
+
+  /**
+   * Constructs the options from one Kind 2 kind2Options object, keeping its json as its result
+   * does.
+   */
+  Options(JsonElement jsonElement, JsonRetention jsonRetention)
   {
     JsonObject jsonObject = jsonElement.getAsJsonObject();
-    json = new GsonBuilder().setPrettyPrinting().create().toJson(jsonElement);
+    json = JsonText.of(jsonElement, jsonRetention, true);
     timeout = jsonObject.get(Labels.timeout).getAsDouble();
     bmcMax = jsonObject.get(Labels.bmcMax).getAsInt();
     compositional = jsonObject.get(Labels.compositional).getAsBoolean();
@@ -70,7 +78,7 @@ public class Options
   @Override
   public String toString()
   {
-    return json;
+    return json.print();
   }
 
   /**
@@ -80,7 +88,7 @@ public class Options
    */
   public String getJson()
   {
-    return json;
+    return json.getJson();
   }
 
   /**
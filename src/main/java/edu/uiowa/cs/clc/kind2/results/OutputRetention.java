@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.results;
+
+/**
+ * How a {@link Result} keeps the whole Kind 2 json output, which {@link Result#getJson()} and
+ * {@link Result#writeJson(java.io.Writer)} return.
+ */
+public enum OutputRetention
+{
+  /**
+   * Keep nothing: {@link Result#getJson()} returns null and {@link Result#writeJson(java.io.Writer)}
+   * writes nothing.
+   */
+  none,
+  /**
+   * Keep the output objects in memory.
+   */
+  memory,
+  /**
+   * Write the output objects to a temporary file as they are added, and read them back on request.
+   * The file is deleted by {@link Result#close()}.
+   */
+  file
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.results;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Analyzes the same components as {@link NodeResult#analyze()} on the root, bottom-up on a
+ * fork/join pool: each component is analyzed once all its subcomponents are, and components whose
+ * subcomponents are all analyzed run in parallel. Each component computes its suggestions from the
+ * same inputs as in the sequential walk, so the result is the same.
+ */
+final class ParallelAnalysis extends CountedCompleter<Void>
+{
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * The number of subcomponents each component to analyze is still waiting for.
+   */
+  private final Map<NodeResult, AtomicInteger> waiting = new IdentityHashMap<>();
+  /**
+   * The components to analyze that call each component to analyze.
+   */
+  private final Map<NodeResult, List<NodeResult>> callers = new IdentityHashMap<>();
+
+  private ParallelAnalysis(NodeResult root)
+  {
+    // the components the sequential walk analyzes: the root, and the subcomponents not analyzed
+    // yet that it reaches through components not analyzed yet
+    Deque<NodeResult> pending = new ArrayDeque<>();
+    pending.add(root);
+    waiting.put(root, new AtomicInteger());
+    while (!pending.isEmpty())
+    {
+      NodeResult nodeResult = pending.poll();
+      for (NodeResult child : nodeResult.getChildren())
+      {
+        if (child.isAnalyzed())
+        {
+          continue;
+        }
+        if (!waiting.containsKey(child))
+        {
+          waiting.put(child, new AtomicInteger());
+          pending.add(child);
+        }
+        waiting.get(nodeResult).incrementAndGet();
+        callers.computeIfAbsent(child, c -> new ArrayList<>()).add(nodeResult);
+      }
+    }
+  }
+
+  /**
+   * Analyzes the components {@link NodeResult#analyze()} would analyze on the root, in parallel.
+   *
+   * @param root the top component
+   * @param pool the pool to run the analyses in
+   */
+  static void analyze(NodeResult root, ForkJoinPool pool)
+  {
+    pool.invoke(new ParallelAnalysis(root));
+  }
+
+  @Override
+  public void compute()
+  {
+    setPendingCount(waiting.size());
+    for (Map.Entry<NodeResult, AtomicInteger> entry : waiting.entrySet())
+    {
+      if (entry.getValue().get() == 0)
+      {
+        new Task(this, entry.getKey()).fork();
+      }
+    }
+    tryComplete();
+  }
+
+  /**
+   * Analyzes one component, then starts the callers it was the last subcomponent to wait for.
+   */
+  private final class Task extends CountedCompleter<Void>
+  {
+    private static final long serialVersionUID = 1L;
+    private final NodeResult nodeResult;
+
+    Task(CountedCompleter<?> completer, NodeResult nodeResult)
+    {
+      super(completer);
+      this.nodeResult = nodeResult;
+    }
+
+    @Override
+    public void compute()
+    {
+      nodeResult.updateSuggestions();
+      List<NodeResult> ready = callers.get(nodeResult);
+      if (ready != null)
+      {
+        for (NodeResult caller : ready)
+        {
+          if (waiting.get(caller).decrementAndGet() == 0)
+          {
+            new Task(ParallelAnalysis.this, caller).fork();
+          }
+        }
+      }
+      tryComplete();
+    }
+  }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.results;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Which parts of the Kind 2 output a {@link Result} builds: the kinds of objects to keep, the
+ * streams of counterexamples by class or name, how deep to follow the subcomponents of a trace,
+ * and how many steps to keep. The parser skips what the filter excludes without building it, so a
+ * consumer that only needs a few answers or the top-level inputs and outputs of a trace parses in
+ * proportion. Filters never change; the {@code with} methods return modified copies.
+ */
+public final class ParseFilter
+{
+  /**
+   * The filter of {@link Result} unless configured otherwise: every object, and every stream of
+   * every trace block at every step.
+   */
+  public static final ParseFilter all = new ParseFilter(EnumSet.allOf(Object.class), null, null,
+      Integer.MAX_VALUE, Integer.MAX_VALUE);
+
+  private final Set<Object> objects;
+  private final Set<String> streamClasses;
+  private final Pattern streamNames;
+  private final int subNodeDepth;
+  private final int maxTraceLength;
+
+  private ParseFilter(Set<Object> objects, Set<String> streamClasses, Pattern streamNames,
+      int subNodeDepth, int maxTraceLength)
+  {
+    this.objects = objects;
+    this.streamClasses = streamClasses;
+    this.streamNames = streamNames;
+    this.subNodeDepth = subNodeDepth;
+    this.maxTraceLength = maxTraceLength;
+  }
+
+  /**
+   * Returns a copy of this filter that keeps the given kinds of objects only. The objects that
+   * enclose a kept object are kept too: the analysisStart and analysisStop objects for properties,
+   * realizability results and post-analyses, and the postAnalysisStart and postAnalysisEnd objects
+   * for the model element sets.
+   *
+   * @param kinds the kinds of objects to keep
+   * @return the modified filter
+   */
+  public ParseFilter withObjects(Object... kinds)
+  {
+    Set<Object> objects = EnumSet.noneOf(Object.class);
+    objects.addAll(Arrays.asList(kinds));
+    if (objects.contains(Object.modelElementSet))
+    {
+      objects.add(Object.postAnalysisStart);
+      objects.add(Object.postAnalysisEnd);
+    }
+    if (objects.contains(Object.postAnalysisStart) || objects.contains(Object.postAnalysisEnd))
+    {
+      objects.add(Object.postAnalysisStart);
+      objects.add(Object.postAnalysisEnd);
+      objects.add(Object.analysisStart);
+      objects.add(Object.analysisStop);
+    }
+    if (objects.contains(Object.property) || objects.contains(Object.realizabilityResult))
+    {
+      objects.add(Object.analysisStart);
+      objects.add(Object.analysisStop);
+    }
+    return new ParseFilter(Collections.unmodifiableSet(objects), streamClasses, streamNames,
+        subNodeDepth, maxTraceLength);
+  }
+
+  /**
+   * Returns a copy of this filter that keeps the streams of the given classes only, such as
+   * {@code input}, {@code output} and {@code local}.
+   *
+   * @param classes the classes of streams to keep
+   * @return the modified filter
+   */
+  public ParseFilter withStreamClasses(String... classes)
+  {
+    Set<String> streamClasses = new HashSet<>(Arrays.asList(classes));
+    return new ParseFilter(objects, Collections.unmodifiableSet(streamClasses), streamNames,
+        subNodeDepth, maxTraceLength);
+  }
+
+  /**
+   * Returns a copy of this filter that keeps the streams whose name, as Kind 2 prints it, matches
+   * a pattern only.
+   *
+   * @param pattern the pattern the whole name must match
+   * @return the modified filter
+   */
+  public ParseFilter withStreamNames(Pattern pattern)
+  {
+    return new ParseFilter(objects, streamClasses, pattern, subNodeDepth, maxTraceLength);
+  }
+
+  /**
+   * Returns a copy of this filter that keeps the trace blocks of subcomponents down to a depth
+   * only. At depth 0, a trace keeps the block of its top-level component alone.
+   *
+   * @param depth how many levels of subcomponents to keep
+   * @return the modified filter
+   * @throws IllegalArgumentException if the depth is negative
+   */
+  public ParseFilter withSubNodeDepth(int depth)
+  {
+    if (depth < 0)
+    {
+      throw new IllegalArgumentException("Invalid subnode depth " + depth);
+    }
+    return new ParseFilter(objects, streamClasses, streamNames, depth, maxTraceLength);
+  }
+
+  /**
+   * Returns a copy of this filter that keeps the values of the first steps of a trace only.
+   *
+   * @param steps the number of steps to keep
+   * @return the modified filter
+   * @throws IllegalArgumentException if the number of steps is negative
+   */
+  public ParseFilter withMaxTraceLength(int steps)
+  {
+    if (steps < 0)
+    {
+      throw new IllegalArgumentException("Invalid trace length " + steps);
+    }
+    return new ParseFilter(objects, streamClasses, streamNames, subNodeDepth, steps);
+  }
+
+  /**
+   * Returns whether to build the objects of a kind.
+   */
+  boolean keeps(Object kind)
+  {
+    return objects.contains(kind);
+  }
+
+  /**
+   * Returns whether to build a stream, given its name as Kind 2 prints it and its class.
+   */
+  boolean keepsStream(String name, String streamClass)
+  {
+    return (streamClasses == null || streamClasses.contains(streamClass))
+        && (streamNames == null || streamNames.matcher(name).matches());
+  }
+
+  /**
+   * Returns whether to build the blocks of subcomponents of a block at a depth, where the top-level
+   * block is at depth 0.
+   */
+  boolean keepsSubNodes(int depth)
+  {
+    return depth < subNodeDepth;
+  }
+
+  /**
+   * Returns whether to keep the value of a stream at a step.
+   */
+  boolean keepsStep(int time)
+  {
+    return time < maxTraceLength;
+  }
+
+  /**
+   * Returns the filter of an analysis, or the filter that keeps everything for objects built
+   * outside a result.
+   *
+   * @param analysis the analysis, may be null
+   * @return the filter to use
+   */
+  static ParseFilter of(Analysis analysis)
+  {
+    return analysis == null ? all : analysis.getFilter();
+  }
+}
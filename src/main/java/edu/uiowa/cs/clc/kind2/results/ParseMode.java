@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.results;
+
+/**
+ * How Kind 2 json output is turned into a {@link Result}.
+ */
+public enum ParseMode
+{
+  /**
+   * Parse every output object into a json tree, then build the model from the tree. Every model
+   * object keeps its json.
+   */
+  tree,
+  /**
+   * Decode properties and their traces straight from the character stream into the model, without
+   * building json trees for them. Objects decoded this way keep no json: their {@code getJson()}
+   * and {@link Property#getJsonElement()} return null, and so does {@link Result#getJson()}.
+   */
+  streaming
+}
@@ -7,7 +7,6 @@
 
 package edu.uiowa.cs.clc.kind2.results;
 
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
 
 import java.util.ArrayList;
@@ -24,7 +23,11 @@ public class PostAnalysis
   /**
    * Kind2 json output for this object.
    */
-  private final String json;
+  private final JsonText json;
+  /**
+   * Name of the Kind 2 post-analysis, as Kind 2 printed it.
+   */
+  private final String jsonName;
   /**
    * Name of the Kind 2 post-analysis
    */
@@ -48,9 +51,10 @@ public class PostAnalysis
   public PostAnalysis(Analysis analysis, JsonElement jsonElement)
   {
     this.analysis = analysis;
-    json = new GsonBuilder().setPrettyPrinting().create().toJson(jsonElement);
+    json = JsonText.of(jsonElement, JsonRetention.of(analysis));
 
-    this.name = jsonElement.getAsJsonObject().get(Labels.name).getAsString();
+    this.jsonName = jsonElement.getAsJsonObject().get(Labels.name).getAsString();
+    this.name = Formatting.of(analysis).display(jsonName);
     modelElements = new ArrayList<>();
   }
 
@@ -71,7 +75,7 @@ public class PostAnalysis
    */
   public String getJson()
   {
-    return json;
+    return json.getJson();
   }
 
   /**
@@ -81,7 +85,15 @@ public class PostAnalysis
    */
   public String getName()
   {
-    return Result.getOpeningSymbols() + name + Result.getClosingSymbols();
+    return name;
+  }
+
+  /**
+   * Returns the name of the post-analysis as Kind 2 printed it.
+   */
+  String getJsonName()
+  {
+    return jsonName;
   }
 
   /**
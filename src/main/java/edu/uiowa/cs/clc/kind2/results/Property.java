@@ -7,7 +7,8 @@
 
 package edu.uiowa.cs.clc.kind2.results;
 
-import com.google.gson.GsonBuilder;
+import java.util.function.Function;
+
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
@@ -19,14 +20,14 @@ public class Property
   /**
    * Kind2 json output for this object
    */
-  private final String json;
+  private final JsonText json;
   private final JsonElement jsonElement;
   /**
    * Kind2 unique identifier for this property
    */
   private final String jsonName;
   /**
-   * Identifier for this property without line or column numbers.
+   * Identifier for this property without line or column numbers, as printed.
    * Unlike {@link Property#jsonName} this name may not be unique.
    */
   private final String name;
@@ -75,15 +76,17 @@ public class Property
    * It describes a sequence of values for each stream, and automaton,
    * that leads the system to the violation of the property.
    * It also gives the list of contract modes that are active at each step, if any.
+   * Parsed the first time it is requested, null if the property has none.
    */
-  private final CounterExample counterExample;
+  private LazyTrace counterExample;
   /**
    * Example trace to the property satisfaction (only available when answer is reachable).
    * It describes a sequence of values for each stream, and automaton,
    * that leads the system to the violation of the property.
    * It also gives the list of contract modes that are active at each step, if any.
+   * Parsed the first time it is requested, null if the property has none.
    */
-  private final CounterExample exampleTrace;
+  private LazyTrace exampleTrace;
   private final Analysis analysis;
   /**
    * The value of k in a k-inductive proof, if any.
@@ -102,16 +105,17 @@ public class Property
     this.analysis = analysis;
     this.jsonElement = jsonElement;
     JsonObject jsonObject = jsonElement.getAsJsonObject();
-    json = new GsonBuilder().setPrettyPrinting().create().toJson(jsonElement);
-    jsonName = jsonObject.get(Labels.name).getAsString();
-    name = jsonName.replaceAll("\\[.*?\\]", "").replaceFirst(".*?\\.", "");
-    file =
-        jsonObject.get(Labels.file) == null ? null : jsonObject.get(Labels.file).getAsString();
-    qualifiedName = analysis.getNodeName() + "." + getName();
+    json = JsonText.of(jsonElement, JsonRetention.of(analysis));
+    StringPool strings = StringPool.of(analysis);
+    jsonName = strings.intern(jsonObject.get(Labels.name).getAsString());
+    name = strings.intern(Formatting.of(analysis).display(Kind2Lexer.baseName(jsonName)));
+    file = jsonObject.get(Labels.file) == null ? null :
+        strings.intern(jsonObject.get(Labels.file).getAsString());
+    qualifiedName = strings.intern(analysis.getNodeName() + "." + getName());
     scope = jsonObject.get(Labels.scope) == null ? "" :
-        jsonObject.get(Labels.scope).getAsString();
-    line = jsonObject.get(Labels.line).getAsString();
-    column = jsonObject.get(Labels.column).getAsString();
+        strings.intern(jsonObject.get(Labels.scope).getAsString());
+    line = strings.intern(jsonObject.get(Labels.line).getAsString());
+    column = strings.intern(jsonObject.get(Labels.column).getAsString());
     source = PropertyType.getPropertyType(jsonObject.get(Labels.source).getAsString());
     if (jsonObject.has(Labels.isCandidate)) {
       isCandidate = jsonObject.get(Labels.isCandidate).getAsBoolean();
@@ -122,16 +126,87 @@ public class Property
     answer = Answer.getAnswer(answerJsonObject.getAsJsonObject().get(Labels.value).getAsString());
     JsonElement counterExampleElement = jsonObject.get(Labels.counterExample);
     counterExample = counterExampleElement == null ? null :
-        new CounterExample(this, counterExampleElement);
+        new LazyTrace(property -> new CounterExample(property, counterExampleElement));
     JsonElement exampleTraceElement = jsonObject.get(Labels.exampleTrace);
     exampleTrace = exampleTraceElement == null ? null :
-        new CounterExample(this, exampleTraceElement);
+        new LazyTrace(property -> new CounterExample(property, exampleTraceElement));
     trueFor = jsonObject.get(Labels.trueFor) == null ? null :
         jsonObject.get(Labels.trueFor).getAsString();
     JsonElement k = jsonObject.get(Labels.k);
     kInductionStep = k == null ? null : k.getAsInt();
   }
 
+  /**
+   * Constructs a property from fields decoded by {@link StreamingDecoder}, which sets the traces
+   * afterwards. The property keeps no json.
+   */
+  Property(Analysis analysis, String jsonName, String file, String scope, String line,
+      String column, PropertyType source, Boolean isCandidate, Answer answer, String trueFor,
+      Integer kInductionStep)
+  {
+    this.analysis = analysis;
+    this.jsonElement = null;
+    this.json = JsonText.none;
+    StringPool strings = StringPool.of(analysis);
+    this.jsonName = strings.intern(jsonName);
+    this.name = strings.intern(Formatting.of(analysis).display(Kind2Lexer.baseName(jsonName)));
+    this.file = strings.intern(file);
+    this.qualifiedName = strings.intern(analysis.getNodeName() + "." + getName());
+    this.scope = scope == null ? "" : strings.intern(scope);
+    this.line = strings.intern(line);
+    this.column = strings.intern(column);
+    this.source = source;
+    this.isCandidate = isCandidate;
+    this.answer = answer;
+    this.trueFor = trueFor;
+    this.kInductionStep = kInductionStep;
+  }
+
+  void setCounterExample(Function<Property, CounterExample> parser)
+  {
+    this.counterExample = new LazyTrace(parser);
+  }
+
+  void setExampleTrace(Function<Property, CounterExample> parser)
+  {
+    this.exampleTrace = new LazyTrace(parser);
+  }
+
+  /**
+   * A trace that is parsed the first time it is requested, so that consumers that only look at
+   * answers do not pay for traces. Until then only the raw trace is kept, and the parser is
+   * dropped once it has run.
+   */
+  private static final class LazyTrace
+  {
+    private Function<Property, CounterExample> parser;
+    private volatile CounterExample trace;
+
+    LazyTrace(Function<Property, CounterExample> parser)
+    {
+      this.parser = parser;
+    }
+
+    CounterExample get(Property property)
+    {
+      CounterExample result = trace;
+      if (result == null)
+      {
+        synchronized (this)
+        {
+          result = trace;
+          if (result == null)
+          {
+            result = parser.apply(property);
+            trace = result;
+            parser = null;
+          }
+        }
+      }
+      return result;
+    }
+  }
+
   @Override
   public String toString()
   {
@@ -139,7 +214,7 @@ public class Property
 
     stringBuilder.append("The answer for property '" + getQualifiedName() + "' ");
 
-    if (Result.isPrintingLineNumbersEnabled())
+    if (Formatting.of(analysis).isPrintingLineNumbersEnabled())
     {
       stringBuilder.append("in line " + getLine() + " ");
       stringBuilder.append("column " + getColumn() + " ");
@@ -176,7 +251,7 @@ public class Property
    */
   public String getJson()
   {
-    return json;
+    return json.getJson();
   }
 
   /**
@@ -196,7 +271,7 @@ public class Property
    */
   public String getName()
   {
-    return Result.getOpeningSymbols() + name + Result.getClosingSymbols();
+    return name;
   }
 
   /**
@@ -285,7 +360,7 @@ public class Property
    */
   public CounterExample getCounterExample()
   {
-    return counterExample;
+    return counterExample == null ? null : counterExample.get(this);
   }
 
   /**
@@ -295,7 +370,7 @@ public class Property
    */
   public CounterExample getExampleTrace()
   {
-    return exampleTrace;
+    return exampleTrace == null ? null : exampleTrace.get(this);
   }
 
   /**
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.results;
+
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Indexes of the last attempt of every property of a {@link Result}, by answer, property type,
+ * component, file and qualified name. The indexes are updated as properties are added, and return
+ * unmodifiable views that follow the properties added later. The sets of every answer and property
+ * type exist from the start; a view for a component, file or name no property has yet looks the
+ * key up on each use, so that reading never adds to the indexes.
+ */
+final class PropertyIndex
+{
+  private final Map<Answer, Set<Property>> byAnswer = new EnumMap<>(Answer.class);
+  private final Map<PropertyType, Set<Property>> bySource = new EnumMap<>(PropertyType.class);
+  private final Map<String, Set<Property>> byNode = new HashMap<>();
+  private final Map<String, Set<Property>> byFile = new HashMap<>();
+  private final Map<String, Set<Property>> byName = new HashMap<>();
+
+  PropertyIndex()
+  {
+    for (Answer answer : Answer.values())
+    {
+      byAnswer.put(answer, new LinkedHashSet<>());
+    }
+    for (PropertyType source : PropertyType.values())
+    {
+      bySource.put(source, new LinkedHashSet<>());
+    }
+  }
+
+  /**
+   * Indexes a property in place of the earlier attempt it replaces.
+   *
+   * @param replaced the earlier attempt of the property in the same analysis, or null
+   * @param property the property to index
+   */
+  void replace(Property replaced, Property property)
+  {
+    if (replaced != null)
+    {
+      remove(byAnswer, replaced.getAnswer(), replaced);
+      remove(bySource, replaced.getSource(), replaced);
+      remove(byNode, replaced.getAnalysis().getNodeName(), replaced);
+      remove(byFile, replaced.getFile(), replaced);
+      remove(byName, replaced.getQualifiedName(), replaced);
+    }
+    add(byAnswer, property.getAnswer(), property);
+    add(bySource, property.getSource(), property);
+    add(byNode, property.getAnalysis().getNodeName(), property);
+    add(byFile, property.getFile(), property);
+    add(byName, property.getQualifiedName(), property);
+  }
+
+  Set<Property> get(Answer answer)
+  {
+    return get(byAnswer, answer);
+  }
+
+  Set<Property> get(PropertyType source)
+  {
+    return get(bySource, source);
+  }
+
+  Set<Property> getByNode(String nodeName)
+  {
+    return get(byNode, nodeName);
+  }
+
+  Set<Property> getByFile(String file)
+  {
+    return get(byFile, file);
+  }
+
+  Set<Property> getByName(String qualifiedName)
+  {
+    return get(byName, qualifiedName);
+  }
+
+  private static <K> void add(Map<K, Set<Property>> index, K key, Property property)
+  {
+    if (key != null)
+    {
+      index.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(property);
+    }
+  }
+
+  private static <K> void remove(Map<K, Set<Property>> index, K key, Property property)
+  {
+    Set<Property> properties = key == null ? null : index.get(key);
+    if (properties != null)
+    {
+      properties.remove(property);
+    }
+  }
+
+  private static <K> Set<Property> get(Map<K, Set<Property>> index, K key)
+  {
+    if (key == null)
+    {
+      return Collections.emptySet();
+    }
+    Set<Property> properties = index.get(key);
+    return properties == null ? new KeyView<>(index, key) : Collections.unmodifiableSet(properties);
+  }
+
+  /**
+   * The properties of a key that had none when the view was requested, looked up on each use.
+   */
+  private static final class KeyView<K> extends AbstractSet<Property>
+  {
+    private final Map<K, Set<Property>> index;
+    private final K key;
+
+    KeyView(Map<K, Set<Property>> index, K key)
+    {
+      this.index = index;
+      this.key = key;
+    }
+
+    private Set<Property> properties()
+    {
+      Set<Property> properties = index.get(key);
+      return properties == null ? Collections.<Property>emptySet() : properties;
+    }
+
+    @Override
+    public Iterator<Property> iterator()
+    {
+      return Collections.unmodifiableSet(properties()).iterator();
+    }
+
+    @Override
+    public int size()
+    {
+      return properties().size();
+    }
+
+    @Override
+    public boolean contains(java.lang.Object element)
+    {
+      return properties().contains(element);
+    }
+  }
+}
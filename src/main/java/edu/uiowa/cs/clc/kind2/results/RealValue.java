@@ -8,28 +8,42 @@
 package edu.uiowa.cs.clc.kind2.results;
 
 import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.math.RoundingMode;
+
+import edu.uiowa.cs.clc.kind2.util.BigFraction;
 
 /**
  * The value of kind2 rational number.
+ * <p>
+ * The number is stored exactly, as two longs when its numerator and denominator fit, and is only
+ * converted to a decimal when {@link #getValue()} or {@link #toString()} is called. The conversion
+ * is cached for the precision and rounding mode it was made with.
  */
 public class RealValue extends Value
 {
   /**
-   * the value of the rational number.
+   * The numerator of the rational number, when {@link #fraction} is null.
+   */
+  private final long numerator;
+  /**
+   * The denominator of the rational number, when {@link #fraction} is null.
+   */
+  private final long denominator;
+  /**
+   * The rational number, when its numerator or denominator does not fit in a long.
    */
-  private final BigDecimal value;
+  private final BigFraction fraction;
   /**
-   * The numerator of the rational
+   * The number as Kind 2 printed it, when it printed a decimal rather than a fraction.
    */
-  private final BigInteger numerator;
+  private final BigDecimal decimal;
   /**
-   * The denominator of the rational number
+   * The last conversion to a decimal.
    */
-  private final BigInteger denominator;
+  private volatile Rendering rendering;
 
   /**
    * Constructs a real value from one Kind 2 stream value.
@@ -39,37 +53,159 @@ public class RealValue extends Value
    * @param jsonElement the Kind 2 json element holding the value
    */
   public RealValue(StepValue kind2StepValue, Type kind2Type, JsonElement jsonElement)
+  {
+    this(kind2StepValue, kind2Type, jsonElement,
+        jsonElement.isJsonObject() ? null : jsonElement.getAsBigDecimal(),
+        part(jsonElement, Labels.numerator), part(jsonElement, Labels.denominator));
+  }
+
+  /**
+   * Returns the numerator or the denominator of a Kind 2 fraction, or null for a decimal.
+   */
+  private static BigInteger part(JsonElement jsonElement, String label)
+  {
+    return jsonElement.isJsonObject()
+        ? new BigInteger(jsonElement.getAsJsonObject().get(label).getAsString()) : null;
+  }
+
+  /**
+   * Constructs a real value from a decoded fraction.
+   */
+  RealValue(StepValue kind2StepValue, Type kind2Type, JsonElement jsonElement,
+      BigInteger numerator, BigInteger denominator)
+  {
+    this(kind2StepValue, kind2Type, jsonElement, null, numerator, denominator);
+  }
+
+  /**
+   * Constructs a real value from a decoded fraction whose parts fit in longs.
+   */
+  RealValue(StepValue kind2StepValue, Type kind2Type, JsonElement jsonElement, long numerator,
+      long denominator)
   {
     super(kind2StepValue, kind2Type, jsonElement);
-    if (jsonElement.isJsonObject())
+    this.numerator = numerator;
+    this.denominator = denominator;
+    this.fraction = null;
+    this.decimal = null;
+  }
+
+  /**
+   * Constructs a real value from a decoded decimal number.
+   */
+  RealValue(StepValue kind2StepValue, Type kind2Type, JsonElement jsonElement, BigDecimal value)
+  {
+    this(kind2StepValue, kind2Type, jsonElement, value, null, null);
+  }
+
+  private RealValue(StepValue kind2StepValue, Type kind2Type, JsonElement jsonElement,
+      BigDecimal decimal, BigInteger numerator, BigInteger denominator)
+  {
+    super(kind2StepValue, kind2Type, jsonElement);
+    this.decimal = decimal;
+    if (decimal != null)
+    {
+      this.numerator = 0;
+      this.denominator = 1;
+      this.fraction = BigFraction.valueOf(decimal);
+    }
+    else if (numerator.bitLength() < Long.SIZE && denominator.bitLength() < Long.SIZE)
     {
-      JsonObject jsonObject = jsonElement.getAsJsonObject();
-      numerator = new BigInteger(jsonObject.get(Labels.numerator).getAsString());
-      denominator = new BigInteger(jsonObject.get(Labels.denominator).getAsString());
-      value = new BigDecimal(numerator).divide(new BigDecimal(denominator),
-          Result.getRealPrecision(), Result.getRealRoundingMode());
+      this.numerator = numerator.longValue();
+      this.denominator = denominator.longValue();
+      this.fraction = null;
     }
     else
     {
-      value = jsonElement.getAsBigDecimal();
-      numerator = value.unscaledValue();
-      denominator = BigInteger.TEN.pow(value.scale());
+      this.numerator = 0;
+      this.denominator = 1;
+      this.fraction = new BigFraction(numerator, denominator);
     }
   }
 
   /**
-   * Returns the value of the rational number.
+   * Returns the exact value of the rational number, reduced to lowest terms.
+   *
+   * @return the exact value of the rational number
+   * @throws ArithmeticException if Kind 2 gave a zero denominator
+   */
+  public BigFraction getFraction()
+  {
+    if (fraction != null)
+    {
+      return fraction;
+    }
+    return new BigFraction(BigInteger.valueOf(numerator), BigInteger.valueOf(denominator));
+  }
+
+  /**
+   * Returns the value of the rational number as a decimal, with the precision and rounding mode of
+   * the {@link Formatting} of its result, or of {@link Result#getDefaultFormatting()} for a value
+   * built on its own. A number Kind 2 printed as a decimal is returned as printed.
    *
    * @return the value of the rational number.
    */
   public BigDecimal getValue()
   {
+    Formatting formatting = getFormatting();
+    return getValue(formatting.getRealPrecision(), formatting.getRealRoundingMode());
+  }
+
+  /**
+   * Returns the value of the rational number as a decimal, with the given precision and rounding
+   * mode. A number Kind 2 printed as a decimal is returned as printed.
+   *
+   * @param precision the number of digits after the decimal point
+   * @param roundingMode how to round the last digit
+   * @return the value of the rational number
+   * @throws ArithmeticException if Kind 2 gave a zero denominator
+   */
+  public BigDecimal getValue(int precision, RoundingMode roundingMode)
+  {
+    if (decimal != null)
+    {
+      return decimal;
+    }
+    Rendering last = rendering;
+    if (last != null && last.precision == precision && last.roundingMode == roundingMode)
+    {
+      return last.value;
+    }
+    BigDecimal value;
+    if (fraction == null)
+    {
+      value = BigDecimal.valueOf(numerator).divide(BigDecimal.valueOf(denominator), precision,
+          roundingMode);
+    }
+    else
+    {
+      value = new BigDecimal(fraction.getNumerator()).divide(
+          new BigDecimal(fraction.getDenominator()), precision, roundingMode);
+    }
+    rendering = new Rendering(precision, roundingMode, value);
     return value;
   }
 
   @Override
   public String toString()
   {
-    return value.toString();
+    return getValue().toString();
+  }
+
+  /**
+   * A conversion to a decimal and what it was made with.
+   */
+  private static final class Rendering
+  {
+    final int precision;
+    final RoundingMode roundingMode;
+    final BigDecimal value;
+
+    Rendering(int precision, RoundingMode roundingMode, BigDecimal value)
+    {
+      this.precision = precision;
+      this.roundingMode = roundingMode;
+      this.value = value;
+    }
   }
 }
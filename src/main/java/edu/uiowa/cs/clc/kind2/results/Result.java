@@ -7,16 +7,26 @@
 
 package edu.uiowa.cs.clc.kind2.results;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
 import java.math.RoundingMode;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
@@ -30,72 +40,148 @@ import com.google.gson.JsonParser;
  * uses the names in the lustre code, and surround them with {{}}. These opening and closing symbols
  * can be changed using the method {@link Result#setOpeningSymbols(String)} and
  * {@link Result#setClosingSymbols(String)} respectively.
+ * <p>
+ * The static setters change the {@link #getDefaultFormatting() default formatting}, which each
+ * result resolves once when it is created. Results created with {@link #Result(Formatting)} are
+ * printed with their own formatting, so that concurrent runs do not affect each other.
+ * <p>
+ * A result keeping its json output in a temporary file (see {@link OutputRetention#file}) holds
+ * the file until it is {@link #close() closed}.
  */
-public class Result {
+public class Result implements AutoCloseable {
   /**
-   * Determines whether to print counter examples for falsifiable properties
+   * The formatting of the results created from now on
    */
-  private static boolean printingCounterExamplesEnabled = false;
+  private static volatile Formatting defaultFormatting = Formatting.defaults;
   /**
-   * Determines whether to print the last counter examples for unknown properties
+   * The top component in kind2 output.
    */
-  private static boolean printingUnknownCounterExamplesEnabled = false;
+  private NodeResult root;
   /**
-   * Determines whether to print the line numbers of properties
+   * A mapping to store the results of sub-components.
    */
-  private static boolean printingLineNumbersEnabled = false;
+  private Map<String, NodeResult> resultMap = new HashMap<>();
   /**
-   * Determines the precision for printing real numbers
+   * Every analysis, in the order Kind 2 stopped them.
    */
-  private static int realPrecision = 2;
+  private final List<Analysis> analyses = new ArrayList<>();
   /**
-   * See https://docs.oracle.com/en/java/javase/11/docs/api/java.base/java/math/RoundingMode.html
+   * The options used by kind2 process.
    */
-  private static RoundingMode realRoundingMode = RoundingMode.HALF_UP;
+  private Options options;
   /**
-   * The opening symbols for printing lustre names
+   * Kind2 json output.
    */
-  private static String openingSymbols = "{{";
+  private JsonOutput json;
   /**
-   * The closing symbols for printing lustre names
+   * a list of kind2 logs.
    */
-  private static String closingSymbols = "}}";
+  private final AppendOnlyList<Log> kind2Logs;
   /**
-   * The top component in kind2 output.
+   * a list of kind2 AST infos.
    */
-  private NodeResult root;
+  private final AppendOnlyList<AstInfo> astInfos;
   /**
-   * A mapping to store the results of sub-components.
+   * Is this object properly initialized?
    */
-  private Map<String, NodeResult> resultMap = new HashMap<>();
+  private boolean isInitialized;
   /**
-   * The options used by kind2 process.
+   * The indexes of the last attempt of every property.
    */
-  private Options options;
+  private final PropertyIndex propertyIndex = new PropertyIndex();
   /**
-   * Kind2 json output.
+   * Incremented whenever a property, an analysis or a subcomponent is added to the components.
    */
-  private JsonArray json;
+  private volatile int version;
   /**
-   * a list of kind2 logs.
+   * Notified when the suggestions for a component are computed as its analyses complete, or null to
+   * compute suggestions only in {@link #finish()}.
    */
-  private final List<Log> kind2Logs;
+  private Consumer<NodeResult> suggestionListener;
   /**
-   * a list of kind2 AST infos.
+   * How this result prints names, reals, counterexamples and line numbers.
    */
-  private final List<AstInfo> astInfos;
+  private final Formatting formatting;
   /**
-   * Is this object properly initialized?
+   * The names, files and scopes repeated across the analyses and traces of this result, kept once.
    */
-  private boolean isInitialized;
+  private final StringPool strings = new StringPool();
+  /**
+   * Which parts of the output this result builds.
+   */
+  private final ParseFilter filter;
+  /**
+   * How the model objects of this result keep their json.
+   */
+  private final JsonRetention jsonRetention;
+  /**
+   * How this result keeps the whole json output.
+   */
+  private final OutputRetention outputRetention;
+  /**
+   * Every version of every component, appended each time a component changes.
+   */
+  private final AppendOnlyList<ComponentSnapshot> componentHistory = new AppendOnlyList<>();
+  /**
+   * The number of snapshots published so far.
+   */
+  private long snapshots;
+  /**
+   * The last snapshot published.
+   */
+  private volatile ResultSnapshot snapshot;
 
   /**
-   * a default constructor
+   * a default constructor, with the {@link #getDefaultFormatting() default formatting}
    */
   public Result() {
-    kind2Logs = new ArrayList<>();
-    astInfos = new ArrayList<>();
+    this(defaultFormatting);
+  }
+
+  /**
+   * Constructs an empty result printed with the given formatting, whatever the default formatting.
+   *
+   * @param formatting how the result prints names, reals, counterexamples and line numbers
+   */
+  public Result(Formatting formatting) {
+    this(formatting, ParseFilter.all);
+  }
+
+  /**
+   * Constructs an empty result printed with the given formatting, that builds the parts of the
+   * output the filter keeps only. The objects, streams, trace blocks and steps the filter excludes
+   * are skipped as they are read, in every parse mode and of the binary form, whose traces are
+   * filtered as they are decoded.
+   *
+   * @param formatting how the result prints names, reals, counterexamples and line numbers
+   * @param filter which parts of the output to build
+   */
+  public Result(Formatting formatting, ParseFilter filter) {
+    this(formatting, filter, JsonRetention.lazy, OutputRetention.memory);
+  }
+
+  /**
+   * Constructs an empty result printed with the given formatting, that builds the parts of the
+   * output the filter keeps only, and keeps the json of its model objects and the whole json output
+   * as given. Results built with {@link ParseMode#streaming} keep neither whatever the retentions.
+   *
+   * @param formatting how the result prints names, reals, counterexamples and line numbers
+   * @param filter which parts of the output to build
+   * @param jsonRetention how the model objects keep the json returned by their {@code getJson()}
+   *        methods
+   * @param outputRetention how the result keeps the whole json output returned by
+   *        {@link #getJson()} and {@link #writeJson(Writer)}
+   */
+  public Result(Formatting formatting, ParseFilter filter, JsonRetention jsonRetention,
+      OutputRetention outputRetention) {
+    this.formatting = formatting;
+    this.filter = filter;
+    this.jsonRetention = jsonRetention;
+    this.outputRetention = outputRetention;
+    kind2Logs = new AppendOnlyList<>();
+    astInfos = new AppendOnlyList<>();
     isInitialized = false;
+    publish();
   }
 
   /**
@@ -105,6 +191,7 @@ public class Result {
    * @param analysis the result of the analysis performed on the specified node
    */
   private void put(String key, Analysis analysis) {
+    analyses.add(analysis);
     if (resultMap.containsKey(key)) {
       resultMap.get(key).addAnalysis(analysis);
     } else {
@@ -116,6 +203,15 @@ public class Result {
     }
   }
 
+  /**
+   * Returns every analysis of every component, in the order Kind 2 stopped them.
+   *
+   * @return the stopped analyses
+   */
+  List<Analysis> getAnalyses() {
+    return analyses;
+  }
+
   /**
    * Returns the analyses Kind 2 performed on the named component.
    *
@@ -162,6 +258,51 @@ public class Result {
     return kind2Result;
   }
 
+  /**
+   * Analyze the json output of kind2 verification, with the given parse mode.
+   *
+   * @param json kind2 json output
+   * @param mode how to build the model from the output
+   * @return {@link Result} which contains the result of analyzing kind2 output.
+   */
+  public static Result analyzeJsonResult(String json, ParseMode mode) {
+    return analyzeJsonResult(json, mode, defaultFormatting);
+  }
+
+  /**
+   * Analyze the json output of kind2 verification, with the given parse mode and formatting.
+   *
+   * @param json kind2 json output
+   * @param mode how to build the model from the output
+   * @param formatting how the result prints names, reals, counterexamples and line numbers
+   * @return {@link Result} which contains the result of analyzing kind2 output.
+   */
+  public static Result analyzeJsonResult(String json, ParseMode mode, Formatting formatting) {
+    return analyzeJsonResult(json, mode, formatting, ParseFilter.all);
+  }
+
+  /**
+   * Analyze the json output of kind2 verification, with the given parse mode and formatting,
+   * building the parts of the output the filter keeps only.
+   *
+   * @param json kind2 json output
+   * @param mode how to build the model from the output
+   * @param formatting how the result prints names, reals, counterexamples and line numbers
+   * @param filter which parts of the output to build
+   * @return {@link Result} which contains the result of analyzing kind2 output.
+   */
+  public static Result analyzeJsonResult(String json, ParseMode mode, Formatting formatting,
+      ParseFilter filter) {
+    Result kind2Result = new Result(formatting, filter);
+    if (mode == ParseMode.tree) {
+      kind2Result.initialize(json);
+    } else {
+      kind2Result.addJsonStream(new StringReader(json), null);
+      kind2Result.finish();
+    }
+    return kind2Result;
+  }
+
   /**
    * Populates this result from a complete Kind 2 json output string.
    *
@@ -169,7 +310,15 @@ public class Result {
    */
   public void initialize(String json) {
     JsonArray jsonArray = JsonParser.parseString(json).getAsJsonArray();
-    this.json = jsonArray;
+    if (outputRetention == OutputRetention.memory) {
+      this.json = new JsonOutput.Memory(jsonArray);
+    } else {
+      this.json = JsonOutput.of(outputRetention);
+      for (JsonElement jsonElement : jsonArray) {
+        this.json.add(jsonElement);
+      }
+      this.json.finish();
+    }
     Analysis kind2Analysis = null;
     // for post analysis
     Analysis previousAnalysis = null;
@@ -177,9 +326,12 @@ public class Result {
     for (JsonElement jsonElement : jsonArray) {
       String objectType = jsonElement.getAsJsonObject().get(Labels.objectType).getAsString();
       Object kind2Object = Object.getKind2Object(objectType);
+      if (!filter.keeps(kind2Object)) {
+        continue;
+      }
 
       if (kind2Object == Object.kind2Options) {
-        Options options = new Options(jsonElement);
+        Options options = new Options(jsonElement, jsonRetention);
 
         this.options = options;
       }
@@ -195,23 +347,23 @@ public class Result {
         AstInfo astInfo;
         switch (kind) {
           case "typeDecl":
-            astInfo = new TypeDeclInfo(jsonElement);
+            astInfo = new TypeDeclInfo(jsonElement, jsonRetention);
             break;
           case "constDecl":
           case "paramDecl":
-            astInfo = new ConstDeclInfo(jsonElement);
+            astInfo = new ConstDeclInfo(jsonElement, jsonRetention);
             break;
           case "node":
-            astInfo = new NodeInfo(jsonElement);
+            astInfo = new NodeInfo(jsonElement, jsonRetention);
             break;
           case "function":
-            astInfo = new FunctionInfo(jsonElement);
+            astInfo = new FunctionInfo(jsonElement, jsonRetention);
             break;
           case "contract":
-            astInfo = new ContractInfo(jsonElement);
+            astInfo = new ContractInfo(jsonElement, jsonRetention);
             break;
           case "lemma":
-            astInfo = new LemmaInfo(jsonElement);
+            astInfo = new LemmaInfo(jsonElement, jsonRetention);
             break;
           default:
             throw new RuntimeException("Failed to analyze kind2 json output");
@@ -221,7 +373,7 @@ public class Result {
 
       if (kind2Object == Object.analysisStart) {
         // define new analysis
-        kind2Analysis = new Analysis(jsonElement);
+        kind2Analysis = new Analysis(jsonElement, formatting, strings, filter, jsonRetention);
       }
 
       if (kind2Object == Object.analysisStop) {
@@ -238,7 +390,7 @@ public class Result {
       if (kind2Object == Object.property) {
         if (kind2Analysis != null) {
           Property property = new Property(kind2Analysis, jsonElement);
-          kind2Analysis.addProperty(property);
+          addProperty(kind2Analysis, property);
         } else {
           throw new RuntimeException("Can not parse kind2 json output");
         }
@@ -254,7 +406,7 @@ public class Result {
             kind2Analysis.setRealizabilityResult(RealizabilityResult.unrealizable);
           }
           JsonElement deadlockElement = jsonObject.get(Labels.deadlockingTrace);
-          String deadlock = new GsonBuilder().setPrettyPrinting().create().toJson(deadlockElement);
+          String deadlock = JsonText.pretty(deadlockElement);
           kind2Analysis.setDeadlock(deadlock);
         } else {
           throw new RuntimeException("Can not parse kind2 json output");
@@ -299,6 +451,10 @@ public class Result {
     // analyze the result
     this.analyze();
     isInitialized = true;
+    for (NodeResult nodeResult : resultMap.values()) {
+      componentChanged(nodeResult);
+    }
+    publish();
   }
 
 private Analysis kind2Analysis = null;
@@ -312,16 +468,103 @@ private boolean emptyAnalysis = false;
    */
   public void addJsonElement(JsonElement jsonElement) {
     if (/*init condition */ this.json == null){
-      this.json = new JsonArray();
+      this.json = JsonOutput.of(outputRetention);
     }
-    this.json.add(jsonElement); 
+    this.json.add(jsonElement);
+    add(jsonElement);
+  }
+
+  /**
+   * Adds every Kind 2 output object read from a stream to this result, decoding properties and
+   * their traces without building json trees for them. The stream is either a json array or a
+   * sequence of objects, as Kind 2 writes them. Unlike {@link #addJsonElement(JsonElement)}, the
+   * json output is not retained, and the properties and traces keep no json either.
+   *
+   * @param reader the Kind 2 output
+   * @param onObject called after each object is added, may be null
+   * @throws com.google.gson.JsonIOException if the stream cannot be read
+   * @throws com.google.gson.JsonSyntaxException if the stream is not well-formed json
+   */
+  public void addJsonStream(Reader reader, Consumer<Result> onObject) {
+    new StreamingDecoder(this).decode(reader, onObject);
+  }
+
+  /**
+   * Adds every object of the binary form written by {@link #writeBinary(OutputStream)} to this
+   * result. Like {@link #addJsonStream(Reader, Consumer)}, the json output is not retained, and
+   * the counterexamples are decoded when they are first requested.
+   *
+   * @param in the binary form of a result
+   * @param onObject called after each object is added, may be null
+   * @throws IOException if the stream cannot be read or ends early
+   * @throws edu.uiowa.cs.clc.kind2.Kind2Exception if the stream is not a binary result of a
+   *     supported version
+   */
+  public void addBinaryStream(InputStream in, Consumer<Result> onObject) throws IOException {
+    new BinaryDecoder(this).decode(in, onObject);
+  }
+
+  /**
+   * Reads a result written by {@link #writeBinary(OutputStream)}, with the
+   * {@link #getDefaultFormatting() default formatting}.
+   *
+   * @param in the binary form of a result
+   * @return the result, finished
+   * @throws IOException if the stream cannot be read or ends early
+   * @throws edu.uiowa.cs.clc.kind2.Kind2Exception if the stream is not a binary result of a
+   *     supported version
+   */
+  public static Result readBinary(InputStream in) throws IOException {
+    return readBinary(in, defaultFormatting);
+  }
+
+  /**
+   * Reads a result written by {@link #writeBinary(OutputStream)}, with the given formatting.
+   *
+   * @param in the binary form of a result
+   * @param formatting how the result prints names, reals, counterexamples and line numbers
+   * @return the result, finished
+   * @throws IOException if the stream cannot be read or ends early
+   * @throws edu.uiowa.cs.clc.kind2.Kind2Exception if the stream is not a binary result of a
+   *     supported version
+   */
+  public static Result readBinary(InputStream in, Formatting formatting) throws IOException {
+    Result kind2Result = new Result(formatting);
+    kind2Result.addBinaryStream(in, null);
+    kind2Result.finish();
+    return kind2Result;
+  }
+
+  /**
+   * Writes the model of this result in a compact, versioned binary form, several times smaller than
+   * the json output and much faster to read back with {@link #readBinary(InputStream)}. Names,
+   * files and types are written once through a string table, numbers as varints, and the values of
+   * each counterexample stream by column. The options, logs, AST infos, analyses with their
+   * properties and post-analyses are written in the order they were added; the interleaving of
+   * logs with analyses in the json output is not kept. The stream is flushed but not closed.
+   *
+   * @param out where to write the result
+   * @throws IOException if the result cannot be written
+   */
+  public void writeBinary(OutputStream out) throws IOException {
+    new BinaryEncoder(out).encode(this);
+  }
 
+  /**
+   * Adds one Kind 2 output object to the model, without retaining its json.
+   *
+   * @param jsonElement the Kind 2 json object to add
+   */
+  void add(JsonElement jsonElement) {
       JsonObject jsonObject;
       String objectType = jsonElement.getAsJsonObject().get(Labels.objectType).getAsString();
       Object kind2Object = Object.getKind2Object(objectType);
+      if (!filter.keeps(kind2Object)) {
+        return;
+      }
       switch (kind2Object){
       case kind2Options:
-        Options options = new Options(jsonElement);
+        Options options = new Options(jsonElement, jsonRetention);
         this.options = options;
         break;
       case log:
@@ -336,23 +579,23 @@ private boolean emptyAnalysis = false;
         AstInfo astInfo;
         switch (kind) {
           case "typeDecl":
-            astInfo = new TypeDeclInfo(jsonElement);
+            astInfo = new TypeDeclInfo(jsonElement, jsonRetention);
             break;
           case "constDecl":
           case "paramDecl":
-            astInfo = new ConstDeclInfo(jsonElement);
+            astInfo = new ConstDeclInfo(jsonElement, jsonRetention);
             break;
           case "node":
-            astInfo = new NodeInfo(jsonElement);
+            astInfo = new NodeInfo(jsonElement, jsonRetention);
             break;
           case "function":
-            astInfo = new FunctionInfo(jsonElement);
+            astInfo = new FunctionInfo(jsonElement, jsonRetention);
             break;
           case "contract":
-            astInfo = new ContractInfo(jsonElement);
+            astInfo = new ContractInfo(jsonElement, jsonRetention);
             break;
           case "lemma":
-            astInfo = new LemmaInfo(jsonElement);
+            astInfo = new LemmaInfo(jsonElement, jsonRetention);
             break;
           default:
             throw new RuntimeException("Failed to analyze kind2 json output");
@@ -362,7 +605,7 @@ private boolean emptyAnalysis = false;
 
       case analysisStart:
         // define new analysis
-        kind2Analysis = new Analysis(jsonElement);
+        kind2Analysis = new Analysis(jsonElement, formatting, strings, filter, jsonRetention);
       break;
 
       case analysisStop:
@@ -378,6 +621,10 @@ private boolean emptyAnalysis = false;
               }
             }
           }
+          if (suggestionListener != null) {
+            updateSuggestions(nodeResult);
+          }
+          componentChanged(nodeResult);
 
 
 
@@ -391,12 +638,8 @@ private boolean emptyAnalysis = false;
         break;
 
       case property:
-        if (kind2Analysis != null) {
-          Property property = new Property(kind2Analysis, jsonElement);
-          kind2Analysis.addProperty(property);
-        } else {
-          throw new RuntimeException("Can not parse kind2 json output");
-        }
+        Property property = new Property(getCurrentAnalysis(), jsonElement);
+        addProperty(kind2Analysis, property);
         break;
 
       case realizabilityResult:
@@ -409,7 +652,7 @@ private boolean emptyAnalysis = false;
             kind2Analysis.setRealizabilityResult(RealizabilityResult.unrealizable);
           }
           JsonElement deadlockElement = jsonObject.get(Labels.deadlockingTrace);
-          String deadlock = new GsonBuilder().setPrettyPrinting().create().toJson(deadlockElement);
+          String deadlock = JsonText.pretty(deadlockElement);
           kind2Analysis.setDeadlock(deadlock);
         } else {
           throw new RuntimeException("Can not parse kind2 json output");
@@ -452,20 +695,178 @@ private boolean emptyAnalysis = false;
         // other object types are not tracked by the result
         break;
   }
+      publish();
+  }
 
+  /**
+   * Returns the analysis whose properties are being added.
+   *
+   * @return the analysis in progress
+   * @throws RuntimeException if no analysis is in progress
+   */
+  Analysis getCurrentAnalysis() {
+    if (kind2Analysis == null) {
+      throw new RuntimeException("Can not parse kind2 json output");
+    }
+    return kind2Analysis;
+  }
+
+  /**
+   * Returns the analysis whose properties are being added, if any.
+   *
+   * @return the analysis in progress, or null if none is
+   */
+  Analysis getAnalysisInProgress() {
+    return kind2Analysis;
+  }
+
+  /**
+   * Adds a property to an analysis and to the property indexes.
+   *
+   * @param analysis the analysis the property was checked in
+   * @param property the property to add
+   */
+  void addProperty(Analysis analysis, Property property) {
+    propertyIndex.replace(analysis.putProperty(property), property);
+  }
+
+  /**
+   * Records the current version of a component for the snapshots published from now on.
+   *
+   * @param nodeResult the component that changed
+   */
+  private void componentChanged(NodeResult nodeResult) {
+    componentHistory.add(new ComponentSnapshot(nodeResult));
+  }
+
+  /**
+   * Publishes a snapshot of this result as it is now, for {@link #getSnapshot()}. Called on the
+   * thread adding the output, after each object.
+   */
+  void publish() {
+    Analysis current = kind2Analysis;
+    snapshot = new ResultSnapshot(snapshots++, isInitialized, options, kind2Logs.view(),
+        astInfos.view(), componentHistory.view(), root == null ? null : root.getName(),
+        current == null ? Collections.<Property>emptyList() : current.getAttempts());
+  }
+
+  /**
+   * Returns the last snapshot of this result, which any thread can read while output is still
+   * being added. The snapshot never changes; call again for a more recent one.
+   *
+   * @return the last snapshot published
+   */
+  public ResultSnapshot getSnapshot() {
+    return snapshot;
+  }
+
+  /**
+   * Records that the components changed, so that the properties they cache are computed again.
+   */
+  void modified() {
+    version++;
+  }
+
+  /**
+   * Returns the number of changes to the components so far.
+   *
+   * @return the version of the components
+   */
+  int getVersion() {
+    return version;
   }
 
   /**
    * Builds the component tree and analyses the result, after the last output object has been added.
    */
   public void finish(){
+    finish(null);
+  }
+
+  /**
+   * Builds the component tree and analyses the result, after the last output object has been added,
+   * analyzing components in parallel on the given pool. A component is analyzed once all its
+   * subcomponents are, and the suggestions are the same as with {@link #finish()}.
+   *
+   * @param pool the pool to analyze the components in, or null to analyze them one at a time
+   */
+  public void finish(ForkJoinPool pool){
     
     // build the node tree
     this.buildTree();
+    // components linked to new subcomponents need their suggestions computed again
+    List<NodeResult> stale = new ArrayList<>();
+    if (suggestionListener != null) {
+      for (NodeResult nodeResult : resultMap.values()) {
+        if (!nodeResult.isAnalyzed()) {
+          stale.add(nodeResult);
+        }
+      }
+    }
     // analyze the result
-    this.analyze();
+    if (pool == null || root == null) {
+      this.analyze();
+    } else {
+      ParallelAnalysis.analyze(root, pool);
+    }
+    for (NodeResult nodeResult : stale) {
+      if (!nodeResult.isAnalyzed()) {
+        nodeResult.analyze();
+      }
+      suggestionListener.accept(nodeResult);
+    }
     
+    if (json != null) {
+      json.finish();
+    }
     isInitialized = true;
+    for (NodeResult nodeResult : resultMap.values()) {
+      componentChanged(nodeResult);
+    }
+    publish();
+  }
+
+  /**
+   * Sets a listener notified each time the suggestions for a component are computed. With a
+   * listener, the suggestions for a component are computed as soon as its analysis stops and its
+   * subcomponents are analyzed, and computed again when it or one of its subcomponents gets another
+   * analysis, instead of only in {@link #finish()}. Each call passes the component whose
+   * {@link NodeResult#getSuggestions()} changed, on the thread adding the output.
+   *
+   * @param suggestionListener the listener, or null to compute suggestions only in
+   *        {@link #finish()}
+   */
+  public void setSuggestionListener(Consumer<NodeResult> suggestionListener) {
+    this.suggestionListener = suggestionListener;
+  }
+
+  /**
+   * Computes the suggestions for a component whose analysis stopped, then for the components that
+   * call it, and for those that were waiting for them to be analyzed.
+   *
+   * @param nodeResult the component whose analysis stopped
+   */
+  private void updateSuggestions(NodeResult nodeResult) {
+    Deque<NodeResult> pending = new ArrayDeque<>();
+    Set<NodeResult> visited = new HashSet<>();
+    pending.add(nodeResult);
+    while (!pending.isEmpty()) {
+      NodeResult node = pending.poll();
+      if (!visited.add(node) || !node.canAnalyze()) {
+        continue;
+      }
+      boolean newlyAnalyzed = !node.isAnalyzed();
+      node.updateSuggestions();
+      if (node != nodeResult) {
+        componentChanged(node);
+      }
+      suggestionListener.accept(node);
+      // the suggestions depend on the last analyses of the subcomponents, so only the callers of
+      // the component that changed, or of one that just became analyzed, are affected
+      if (node == nodeResult || newlyAnalyzed) {
+        pending.addAll(node.getParents());
+      }
+    }
   }
 
 
@@ -511,12 +912,39 @@ private boolean emptyAnalysis = false;
   }
 
   /**
-   * Returns the Kind2 json output.
+   * Returns the Kind2 json output, or null if it is not kept (see
+   * {@link Result#getOutputRetention()}).
    *
    * @return Kind2 json output.
    */
   public String getJson() {
-    return json == null ? null : json.toString();
+    return json == null ? null : json.get();
+  }
+
+  /**
+   * Writes the Kind2 json output returned by {@link Result#getJson()}, without building it as one
+   * string. Nothing is written if the output is not kept.
+   *
+   * @param writer where to write the json output
+   * @throws IOException if the output cannot be written, or read back from its temporary file
+   */
+  public void writeJson(Writer writer) throws IOException {
+    if (json != null) {
+      json.write(writer);
+    }
+  }
+
+  /**
+   * Releases the json output, deleting its temporary file when it is kept in one. Afterwards
+   * {@link #getJson()} returns null and {@link #writeJson(Writer)} writes nothing, and the json
+   * of objects added later is not kept; the rest of the result is unaffected.
+   */
+  @Override
+  public void close() {
+    if (json != null) {
+      json.close();
+    }
+    json = new JsonOutput.None();
   }
 
   /**
@@ -537,6 +965,63 @@ private boolean emptyAnalysis = false;
     return resultMap;
   }
 
+  /**
+   * Returns the properties whose last attempt in their analysis has the given answer, whatever the
+   * component. Unlike {@link Result#getFalsifiedProperties()} and the like, this does not depend on
+   * which analysis is final. The returned set is an unmodifiable view that follows the properties
+   * added later.
+   *
+   * @param answer the answer of the properties
+   * @return the properties with the given answer
+   */
+  public Set<Property> getPropertiesWithAnswer(Answer answer) {
+    return propertyIndex.get(answer);
+  }
+
+  /**
+   * Returns the last attempt of every property of the given type, as an unmodifiable view that
+   * follows the properties added later.
+   *
+   * @param type the type of the properties
+   * @return the properties of the given type
+   */
+  public Set<Property> getPropertiesOfType(PropertyType type) {
+    return propertyIndex.get(type);
+  }
+
+  /**
+   * Returns the last attempt of every property checked in an analysis of the named component, as
+   * an unmodifiable view that follows the properties added later.
+   *
+   * @param nodeName the name of the component, as in {@link Result#getNodeResult(String)}
+   * @return the properties checked in the analyses of the component
+   */
+  public Set<Property> getPropertiesOfNode(String nodeName) {
+    return propertyIndex.getByNode(nodeName);
+  }
+
+  /**
+   * Returns the last attempt of every property from the given input file, as an unmodifiable view
+   * that follows the properties added later.
+   *
+   * @param file the input file, as in {@link Property#getFile()}
+   * @return the properties from the file
+   */
+  public Set<Property> getPropertiesInFile(String file) {
+    return propertyIndex.getByFile(file);
+  }
+
+  /**
+   * Returns the last attempt of every property with the given qualified name in each analysis, as
+   * an unmodifiable view that follows the properties added later.
+   *
+   * @param qualifiedName the qualified name, as in {@link Property#getQualifiedName()}
+   * @return the properties with the qualified name
+   */
+  public Set<Property> getPropertiesNamed(String qualifiedName) {
+    return propertyIndex.getByName(qualifiedName);
+  }
+
   /**
    * Returns a list of {@link Property} for all falsified properties including the falsified
    * properties for the subcomponents.
@@ -546,7 +1031,7 @@ private boolean emptyAnalysis = false;
    */
   public Set<Property> getFalsifiedProperties() {
     if (root == null) {
-      return new HashSet<>();
+      return Collections.emptySet();
     }
     return root.getFalsifiedProperties();
   }
@@ -560,7 +1045,7 @@ private boolean emptyAnalysis = false;
    */
   public Set<Property> getValidProperties() {
     if (root == null) {
-      return new HashSet<>();
+      return Collections.emptySet();
     }
     return root.getValidProperties();
   }
@@ -574,7 +1059,7 @@ private boolean emptyAnalysis = false;
    */
   public Set<Property> getUnknownProperties() {
     if (root == null) {
-      return new HashSet<>();
+      return Collections.emptySet();
     }
     return root.getUnknownProperties();
   }
@@ -588,7 +1073,7 @@ private boolean emptyAnalysis = false;
    */
   public Set<Property> getReachableProperties() {
     if (root == null) {
-      return new HashSet<>();
+      return Collections.emptySet();
     }
     return root.getReachableProperties();
   }
@@ -602,7 +1087,7 @@ private boolean emptyAnalysis = false;
    */
   public Set<Property> getUnreachableProperties() {
     if (root == null) {
-      return new HashSet<>();
+      return Collections.emptySet();
     }
     return root.getUnreachableProperties();
   }
@@ -613,16 +1098,16 @@ private boolean emptyAnalysis = false;
    * @return {@code true} if printing counter examples for falsifiable properties is enabled.
    */
   public static boolean isPrintingCounterExamplesEnabled() {
-    return printingCounterExamplesEnabled;
+    return defaultFormatting.isPrintingCounterExamplesEnabled();
   }
 
   /**
-   * Sets the value of printingCounterExamplesEnabled
+   * Sets the value of printingCounterExamplesEnabled for the results created from now on
    *
    * @param value whether to print counter examples for falsified properties
    */
   public static void setPrintingCounterExamplesEnabled(boolean value) {
-    Result.printingCounterExamplesEnabled = value;
+    defaultFormatting = defaultFormatting.withPrintingCounterExamplesEnabled(value);
   }
 
   /**
@@ -633,16 +1118,16 @@ private boolean emptyAnalysis = false;
    *         properties
    */
   public static boolean isPrintingUnknownCounterExamplesEnabled() {
-    return printingUnknownCounterExamplesEnabled;
+    return defaultFormatting.isPrintingUnknownCounterExamplesEnabled();
   }
 
   /**
-   * Sets the value of printingUnknownCounterExamplesEnabled
+   * Sets the value of printingUnknownCounterExamplesEnabled for the results created from now on
    *
    * @param value whether to print the last counter examples for unknown properties
    */
   public static void setPrintingUnknownCounterExamplesEnabled(boolean value) {
-    Result.printingUnknownCounterExamplesEnabled = value;
+    defaultFormatting = defaultFormatting.withPrintingUnknownCounterExamplesEnabled(value);
   }
 
   /**
@@ -651,34 +1136,34 @@ private boolean emptyAnalysis = false;
    * @return a boolean that determines whether line numbers are printed
    */
   public static boolean isPrintingLineNumbersEnabled() {
-    return printingLineNumbersEnabled;
+    return defaultFormatting.isPrintingLineNumbersEnabled();
   }
 
   /**
-   * set the value of printingLineNumbersEnabled
+   * set the value of printingLineNumbersEnabled for the results created from now on
    *
    * @param value whether to print line numbers
    */
   public static void setPrintingLineNumbersEnabled(boolean value) {
-    Result.printingLineNumbersEnabled = value;
+    defaultFormatting = defaultFormatting.withPrintingLineNumbersEnabled(value);
   }
 
   /**
-   * Set the opening symbols for printing lustre names
+   * Set the opening symbols for printing lustre names in the results created from now on
    *
    * @param symbols the symbols to print before a lustre name
    */
   public static void setOpeningSymbols(String symbols) {
-    Result.openingSymbols = symbols;
+    defaultFormatting = defaultFormatting.withOpeningSymbols(symbols);
   }
 
   /**
-   * Set the closing symbols for printing lustre names
+   * Set the closing symbols for printing lustre names in the results created from now on
    *
    * @param symbols the symbols to print after a lustre name
    */
   public static void setClosingSymbols(String symbols) {
-    Result.closingSymbols = symbols;
+    defaultFormatting = defaultFormatting.withClosingSymbols(symbols);
   }
 
   /**
@@ -687,16 +1172,16 @@ private boolean emptyAnalysis = false;
    * @return returns the precision for printing real numbers
    */
   public static int getRealPrecision() {
-    return realPrecision;
+    return defaultFormatting.getRealPrecision();
   }
 
   /**
-   * Set the precision for printing real numbers
+   * Set the precision for printing real numbers in the results created from now on
    *
    * @param realPrecision the number of digits to print after the decimal point
    */
   public static void setRealPrecision(int realPrecision) {
-    Result.realPrecision = realPrecision;
+    defaultFormatting = defaultFormatting.withRealPrecision(realPrecision);
   }
 
   /**
@@ -705,17 +1190,17 @@ private boolean emptyAnalysis = false;
    * @return the rounding mode for real numbers
    */
   public static RoundingMode getRealRoundingMode() {
-    return realRoundingMode;
+    return defaultFormatting.getRealRoundingMode();
   }
 
   /**
-   * Set the rounding mode for real numbers
+   * Set the rounding mode for real numbers in the results created from now on
    *
    * @param realRoundingMode see
    *        https://docs.oracle.com/en/java/javase/11/docs/api/java.base/java/math/RoundingMode.html
    */
   public static void setRealRoundingMode(RoundingMode realRoundingMode) {
-    Result.realRoundingMode = realRoundingMode;
+    defaultFormatting = defaultFormatting.withRealRoundingMode(realRoundingMode);
   }
 
   /**
@@ -724,7 +1209,7 @@ private boolean emptyAnalysis = false;
    * @return the opening symbols for printing lustre names
    */
   public static String getOpeningSymbols() {
-    return openingSymbols;
+    return defaultFormatting.getOpeningSymbols();
   }
 
   /**
@@ -733,7 +1218,67 @@ private boolean emptyAnalysis = false;
    * @return the closing symbols for printing lustre names
    */
   public static String getClosingSymbols() {
-    return closingSymbols;
+    return defaultFormatting.getClosingSymbols();
+  }
+
+  /**
+   * Returns the formatting of the results created from now on, made of the values of the static
+   * setters of this class.
+   *
+   * @return the default formatting
+   */
+  public static Formatting getDefaultFormatting() {
+    return defaultFormatting;
+  }
+
+  /**
+   * Sets the formatting of the results created from now on, in place of the values of all the
+   * static setters of this class. Results already created keep their formatting.
+   * <p>
+   * Default: {@link Formatting#defaults}
+   *
+   * @param formatting the default formatting
+   */
+  public static void setDefaultFormatting(Formatting formatting) {
+    defaultFormatting = formatting;
+  }
+
+  /**
+   * Returns how this result prints names, reals, counterexamples and line numbers, resolved when
+   * it was created.
+   *
+   * @return the formatting of this result
+   */
+  public Formatting getFormatting() {
+    return formatting;
+  }
+
+  /**
+   * Returns which parts of the output this result builds.
+   *
+   * @return the filter of this result
+   */
+  public ParseFilter getParseFilter() {
+    return filter;
+  }
+
+  /**
+   * Returns how the model objects of this result keep the Kind 2 json returned by their
+   * {@code getJson()} methods.
+   *
+   * @return the json retention of this result
+   */
+  public JsonRetention getJsonRetention() {
+    return jsonRetention;
+  }
+
+  /**
+   * Returns how this result keeps the whole Kind 2 json output.
+   *
+   * @return the output retention of this result
+   */
+  public OutputRetention getOutputRetention() {
+    return outputRetention;
   }
 
   /**
@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.results;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A consistent, immutable view of a {@link Result} after some number of output objects, that can
+ * be read from any thread while the output is still being added.
+ * <p>
+ * The thread adding the output publishes a new snapshot after each object, in constant time: the
+ * logs, the AST infos, the versions of the components and the attempts of the analysis in progress
+ * are append-only lists, and a snapshot only records how much of each it covers. Readers never
+ * lock, and the thread adding the output never waits for them.
+ * <p>
+ * A post-analysis is attached to its analysis after the analysis stops, so the post-analyses of the
+ * analyses in a snapshot are only safe to read once the snapshot {@link #isFinished()}.
+ */
+public final class ResultSnapshot
+{
+  private final long version;
+  private final boolean finished;
+  private final Options options;
+  private final List<Log> logs;
+  private final List<AstInfo> astInfos;
+  private final List<ComponentSnapshot> componentHistory;
+  private final String rootName;
+  private final List<Property> currentAttempts;
+
+  /**
+   * The last version of each component, in the order the components first appeared, computed on
+   * first use.
+   */
+  private volatile Map<String, ComponentSnapshot> components;
+  /**
+   * The last attempt of each property of the analysis in progress, computed on first use.
+   */
+  private volatile List<Property> currentProperties;
+
+  ResultSnapshot(long version, boolean finished, Options options, List<Log> logs,
+      List<AstInfo> astInfos, List<ComponentSnapshot> componentHistory, String rootName,
+      List<Property> currentAttempts)
+  {
+    this.version = version;
+    this.finished = finished;
+    this.options = options;
+    this.logs = logs;
+    this.astInfos = astInfos;
+    this.componentHistory = componentHistory;
+    this.rootName = rootName;
+    this.currentAttempts = currentAttempts;
+  }
+
+  /**
+   * Returns the number of snapshots of the result published before this one. A snapshot with a
+   * greater version was taken later.
+   *
+   * @return the version of this snapshot
+   */
+  public long getVersion()
+  {
+    return version;
+  }
+
+  /**
+   * Returns whether the result was complete, with its component tree built and its suggestions
+   * computed, when this snapshot was taken.
+   *
+   * @return whether the result was complete
+   */
+  public boolean isFinished()
+  {
+    return finished;
+  }
+
+  /**
+   * Returns the options used by the Kind 2 process, or null if they were not reported yet.
+   *
+   * @return the options used by the Kind 2 process
+   */
+  public Options getOptions()
+  {
+    return options;
+  }
+
+  /**
+   * Returns all the Kind 2 logs, including hidden ones.
+   *
+   * @return the Kind 2 logs
+   */
+  public List<Log> getAllKind2Logs()
+  {
+    return logs;
+  }
+
+  /**
+   * Returns the AST infos.
+   *
+   * @return the AST infos
+   */
+  public List<AstInfo> getAstInfos()
+  {
+    return astInfos;
+  }
+
+  /**
+   * Returns the components whose analysis had stopped, in the order they first appeared.
+   *
+   * @return the components
+   */
+  public Collection<ComponentSnapshot> getComponents()
+  {
+    return getComponentMap().values();
+  }
+
+  /**
+   * Returns a component by name.
+   *
+   * @param name the name of the component
+   * @return the component, or null if none of its analyses had stopped
+   */
+  public ComponentSnapshot getComponent(String name)
+  {
+    return getComponentMap().get(name);
+  }
+
+  /**
+   * Returns the top component, the last one to appear.
+   *
+   * @return the top component, or null if no analysis had stopped
+   */
+  public ComponentSnapshot getRoot()
+  {
+    return rootName == null ? null : getComponent(rootName);
+  }
+
+  /**
+   * Returns the subcomponents of a component.
+   *
+   * @param component a component of this snapshot
+   * @return the subcomponents of the component that are in this snapshot
+   */
+  public List<ComponentSnapshot> getChildren(ComponentSnapshot component)
+  {
+    List<ComponentSnapshot> children = new ArrayList<>();
+    for (String name : component.getChildren())
+    {
+      ComponentSnapshot child = getComponent(name);
+      if (child != null)
+      {
+        children.add(child);
+      }
+    }
+    return children;
+  }
+
+  private Map<String, ComponentSnapshot> getComponentMap()
+  {
+    Map<String, ComponentSnapshot> map = components;
+    if (map == null)
+    {
+      map = new LinkedHashMap<>();
+      for (ComponentSnapshot component : componentHistory)
+      {
+        map.put(component.getName(), component);
+      }
+      map = Collections.unmodifiableMap(map);
+      components = map;
+    }
+    return map;
+  }
+
+  /**
+   * Returns the last attempt of each property of the analysis in progress, in the order the
+   * properties first appeared.
+   *
+   * @return the properties of the analysis in progress, empty if none was
+   */
+  public List<Property> getCurrentProperties()
+  {
+    List<Property> properties = currentProperties;
+    if (properties == null)
+    {
+      Map<String, Property> last = new LinkedHashMap<>();
+      for (Property property : currentAttempts)
+      {
+        last.put(property.getJsonName(), property);
+      }
+      properties = Collections.unmodifiableList(new ArrayList<>(last.values()));
+      currentProperties = properties;
+    }
+    return properties;
+  }
+
+  /**
+   * Returns the last attempt of each property of the last analysis of every component, followed by
+   * those of the analysis in progress.
+   *
+   * @return the properties
+   */
+  public List<Property> getProperties()
+  {
+    List<Property> properties = new ArrayList<>();
+    for (ComponentSnapshot component : getComponents())
+    {
+      properties.addAll(component.getLastAnalysis().getProperties());
+    }
+    properties.addAll(getCurrentProperties());
+    return properties;
+  }
+
+  /**
+   * Returns the properties of {@link #getProperties()} with an answer.
+   *
+   * @param answer the answer
+   * @return the properties with the answer
+   */
+  public List<Property> getPropertiesWithAnswer(Answer answer)
+  {
+    List<Property> properties = new ArrayList<>();
+    for (Property property : getProperties())
+    {
+      if (property.getAnswer() == answer)
+      {
+        properties.add(property);
+      }
+    }
+    return properties;
+  }
+}
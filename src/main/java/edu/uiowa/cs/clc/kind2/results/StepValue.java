@@ -7,7 +7,6 @@
 
 package edu.uiowa.cs.clc.kind2.results;
 
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
 
 /**
@@ -18,7 +17,7 @@ public class StepValue
   /**
    * Kind2 json output for this object.
    */
-  private final String json;
+  private final JsonText json;
 
   /**
    * The step index in the stream sequence.
@@ -42,11 +41,24 @@ public class StepValue
   public StepValue(Stream stream, JsonElement jsonElement)
   {
     this.stream = stream;
-    json = new GsonBuilder().setPrettyPrinting().create().toJson(jsonElement);
+    json = JsonText.of(jsonElement, getJsonRetention());
     time = jsonElement.getAsJsonArray().get(0).getAsInt();
     kind2Value = Value.getKind2Value(this, getKind2Type(), jsonElement.getAsJsonArray().get(1));
   }
 
+  /**
+   * Constructs a view of one value of a stream stored by column.
+   */
+  StepValue(Stream stream, int index)
+  {
+    this.stream = stream;
+    JsonElement jsonElement = stream.getJsonValue(index);
+    json = JsonText.of(jsonElement, getJsonRetention());
+    time = stream.getTime(index);
+    kind2Value = stream.getColumn().value(this, index,
+        jsonElement == null ? null : jsonElement.getAsJsonArray().get(1));
+  }
+
   /**
    * Returns the type of the current value.
    *
@@ -64,7 +76,7 @@ public class StepValue
    */
   public String getJson()
   {
-    return json;
+    return json.getJson();
   }
 
   /**
@@ -107,6 +119,22 @@ public class StepValue
     return stream.getKind2Result();
   }
 
+  /**
+   * Returns how this value is printed, the formatting of its stream.
+   */
+  Formatting getFormatting()
+  {
+    return stream == null ? Result.getDefaultFormatting() : stream.getFormatting();
+  }
+
+  /**
+   * Returns how this value keeps its json, the retention of its stream.
+   */
+  JsonRetention getJsonRetention()
+  {
+    return stream == null ? JsonRetention.lazy : stream.getJsonRetention();
+  }
+
   /**
    * Returns the value of this object. To get the original json value, use {@link
    * StepValue#getJson()}.
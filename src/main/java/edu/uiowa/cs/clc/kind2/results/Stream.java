@@ -7,12 +7,13 @@
 
 package edu.uiowa.cs.clc.kind2.results;
 
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.RandomAccess;
 
 /**
  * A single variable of a component, together with its values along a trace.
@@ -22,11 +23,15 @@ public class Stream
   /**
    * Kind2 json output for this object.
    */
-  private final String json;
+  private final JsonText json;
   /**
    * the name of the variable for this stream.
    */
   private final String name;
+  /**
+   * The name of the stream, as printed.
+   */
+  private final String displayName;
   /**
    * The type of the variable:  bool, int, uint8, uint16, uint32, uint64, int8, int16, int32, int64. real,
    * subrange, enum, or array.
@@ -37,9 +42,26 @@ public class Stream
    */
   private final String streamClass;
   /**
-   * The sequence of values for this stream.
+   * The step index of each value, or null while the index of every value is its step, as in the
+   * traces Kind 2 prints.
+   */
+  private int[] times;
+  /**
+   * The sequence of values for this stream, by column.
+   */
+  private final StreamColumn column;
+  /**
+   * The Kind 2 json of each step, for the json of the step values, null if the json is not kept.
+   */
+  private final JsonArray jsonValues;
+  /**
+   * A view of the values as {@link StepValue} objects, created as they are requested.
    */
-  private final List<StepValue> stepValues;
+  private final List<StepValue> stepValues = new StepValueList();
+  /**
+   * A view of the values at the steps where the stream changes, created as they are requested.
+   */
+  private final List<StepValue> changePoints = new ChangePointList();
   /**
    * The associated component for this stream.
    */
@@ -54,21 +76,205 @@ public class Stream
   public Stream(SubNode kind2SubNode, JsonElement jsonElement)
   {
     this.kind2SubNode = kind2SubNode;
-    json = new GsonBuilder().setPrettyPrinting().create().toJson(jsonElement);
-    name = jsonElement.getAsJsonObject().get(Labels.name).getAsString();
+    json = JsonText.of(jsonElement, getJsonRetention());
+    StringPool strings = getStrings();
+    name = strings.intern(jsonElement.getAsJsonObject().get(Labels.name).getAsString());
+    displayName = getFormatting().display(name);
     String typeString = jsonElement.getAsJsonObject().get(Labels.type).getAsString();
     JsonElement typeInfo = jsonElement.getAsJsonObject().get(Labels.typeInfo);
     kind2Type = Type.getType(typeString, typeInfo);
-    streamClass = jsonElement.getAsJsonObject().get(Labels.classField).getAsString();
+    streamClass =
+        strings.intern(jsonElement.getAsJsonObject().get(Labels.classField).getAsString());
 
-    this.stepValues = new ArrayList<>();
+    column = StreamColumn.of(kind2Type);
 
     JsonArray streamValues = jsonElement.getAsJsonObject().get(Labels.instantValues).getAsJsonArray();
+    jsonValues = getJsonRetention() == JsonRetention.none ? null : streamValues;
 
+    ParseFilter filter = getFilter();
     for (JsonElement element : streamValues)
     {
-      StepValue stepValue = new StepValue(this, element);
-      stepValues.add(stepValue);
+      JsonArray step = element.getAsJsonArray();
+      int time = step.get(0).getAsInt();
+      if (!filter.keepsStep(time))
+      {
+        // the steps are in order, so the values kept are the first ones of the json
+        break;
+      }
+      column.add(step.get(1));
+      addTime(time);
+    }
+    trim();
+  }
+
+  /**
+   * Constructs a stream without values for {@link StreamingDecoder}, which adds them afterwards.
+   * The stream keeps no json.
+   */
+  Stream(SubNode kind2SubNode, String name, Type kind2Type, String streamClass)
+  {
+    this.kind2SubNode = kind2SubNode;
+    this.json = JsonText.none;
+    this.name = getStrings().intern(name);
+    this.displayName = getFormatting().display(this.name);
+    this.kind2Type = kind2Type;
+    this.streamClass = getStrings().intern(streamClass);
+    this.column = StreamColumn.of(kind2Type);
+    this.jsonValues = null;
+  }
+
+  StreamColumn getColumn()
+  {
+    return column;
+  }
+
+  /**
+   * Records the step index of the value last added to the column.
+   */
+  void addTime(int time)
+  {
+    int index = column.size - 1;
+    if (times == null)
+    {
+      if (time == index)
+      {
+        return;
+      }
+      times = new int[Math.max(8, index + 1)];
+      for (int i = 0; i < index; i++)
+      {
+        times[i] = i;
+      }
+    }
+    if (index >= times.length)
+    {
+      times = Arrays.copyOf(times, StreamColumn.grow(times.length, index));
+    }
+    times[index] = time;
+  }
+
+  /**
+   * Releases unused capacity once every value is added.
+   */
+  void trim()
+  {
+    if (times != null)
+    {
+      times = Arrays.copyOf(times, column.size);
+    }
+    column.trim();
+  }
+
+  /**
+   * Sets the step index of every value at once, after the column is filled in one go.
+   *
+   * @param times the step index of every value, or null if it is the index of the value
+   */
+  void setTimes(int[] times)
+  {
+    this.times = null;
+    for (int i = 0; times != null && i < times.length; i++)
+    {
+      if (times[i] != i)
+      {
+        this.times = times;
+        break;
+      }
+    }
+    column.trim();
+  }
+
+  int getTime(int index)
+  {
+    return times == null ? index : times[index];
+  }
+
+  /**
+   * Returns the index of the value at a step, or -1 if this stream has no value at that step.
+   * Steps are their own index unless some are missing, in which case they are searched.
+   */
+  int indexOf(int step)
+  {
+    if (times == null)
+    {
+      return step >= 0 && step < column.size ? step : -1;
+    }
+    int index = Arrays.binarySearch(times, 0, column.size, step);
+    return index < 0 ? -1 : index;
+  }
+
+  /**
+   * Returns the index of the first value at or after a step, or the number of values if there is
+   * none. Steps are their own index unless some are missing, in which case they are searched.
+   */
+  int indexFrom(int step)
+  {
+    if (times == null)
+    {
+      return Math.max(0, Math.min(step, column.size));
+    }
+    int index = Arrays.binarySearch(times, 0, column.size, step);
+    return index < 0 ? -index - 1 : index;
+  }
+
+  /**
+   * Returns the Kind 2 json of a step, or null if it is not kept.
+   */
+  JsonElement getJsonValue(int index)
+  {
+    return jsonValues == null ? null : jsonValues.get(index);
+  }
+
+  /**
+   * Prints the value of a step without creating a {@link StepValue}.
+   */
+  String print(int index)
+  {
+    return column.print(index, getFormatting());
+  }
+
+  /**
+   * The values of this stream as a list of {@link StepValue} objects, created on request.
+   */
+  private class StepValueList extends AbstractList<StepValue> implements RandomAccess
+  {
+    @Override
+    public StepValue get(int index)
+    {
+      if (index < 0 || index >= column.size)
+      {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + column.size);
+      }
+      return new StepValue(Stream.this, index);
+    }
+
+    @Override
+    public int size()
+    {
+      return column.size;
+    }
+  }
+
+  /**
+   * The values of this stream at its change points as a list of {@link StepValue} objects, created
+   * on request.
+   */
+  private class ChangePointList extends AbstractList<StepValue> implements RandomAccess
+  {
+    @Override
+    public StepValue get(int index)
+    {
+      if (index < 0 || index >= column.getRuns())
+      {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + column.getRuns());
+      }
+      return new StepValue(Stream.this, column.getRunStart(index));
+    }
+
+    @Override
+    public int size()
+    {
+      return column.getRuns();
     }
   }
 
@@ -89,7 +295,47 @@ public class Stream
    */
   public String getName()
   {
-    return Result.getOpeningSymbols() + name + Result.getClosingSymbols();
+    return displayName;
+  }
+
+  /**
+   * Returns the name of the variable as Kind 2 printed it.
+   */
+  String getJsonName()
+  {
+    return name;
+  }
+
+  /**
+   * Returns how this stream is printed, the formatting of its trace block.
+   */
+  Formatting getFormatting()
+  {
+    return kind2SubNode == null ? Result.getDefaultFormatting() : kind2SubNode.getFormatting();
+  }
+
+  /**
+   * Returns the pool of the strings of its trace block.
+   */
+  StringPool getStrings()
+  {
+    return kind2SubNode == null ? StringPool.none : kind2SubNode.getStrings();
+  }
+
+  /**
+   * Returns which steps of this stream to build, the filter of its trace block.
+   */
+  ParseFilter getFilter()
+  {
+    return kind2SubNode == null ? ParseFilter.all : kind2SubNode.getFilter();
+  }
+
+  /**
+   * Returns how the values of this stream keep their json, the retention of its trace block.
+   */
+  JsonRetention getJsonRetention()
+  {
+    return kind2SubNode == null ? JsonRetention.lazy : kind2SubNode.getJsonRetention();
   }
 
   /**
@@ -115,7 +361,8 @@ public class Stream
   }
 
   /**
-   * Returns the sequence of values for this stream.
+   * Returns the sequence of values for this stream. The list is a read-only view, and its
+   * {@link StepValue} objects are created as they are requested.
    *
    * @return The sequence of values for this stream.
    */
@@ -124,6 +371,20 @@ public class Stream
     return stepValues;
   }
 
+  /**
+   * Returns the values of this stream at the steps where it changes: its first step, then every
+   * step whose value differs from the value at the step before. The value at any other step is
+   * the one at the last change point before it, so consumers of long traces can skip the steps in
+   * between. The list is a read-only view, and its {@link StepValue} objects are created as they
+   * are requested.
+   *
+   * @return the values of this stream where it changes
+   */
+  public List<StepValue> getChangePoints()
+  {
+    return changePoints;
+  }
+
   /**
    * Returns the Kind2 json output for this object.
    *
@@ -131,7 +392,7 @@ public class Stream
    */
   public String getJson()
   {
-    return json;
+    return json.getJson();
   }
 
   @Override
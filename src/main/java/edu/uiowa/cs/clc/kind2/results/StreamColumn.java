@@ -0,0 +1,1233 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.results;
+
+import edu.uiowa.cs.clc.kind2.Kind2Exception;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * The values of a stream along a trace, stored by column in primitive arrays rather than as one
+ * {@link Value} per step, and with runs of equal values stored once. {@link Value} objects are
+ * created when a step is requested.
+ */
+abstract class StreamColumn
+{
+  /**
+   * The type of the values.
+   */
+  final Type kind2Type;
+  /**
+   * The number of values.
+   */
+  int size;
+
+  StreamColumn(Type kind2Type)
+  {
+    this.kind2Type = kind2Type;
+  }
+
+  /**
+   * Returns an empty column for the values of a stream of the given type, which keeps runs of
+   * equal values once.
+   *
+   * @param kind2Type the type of the values
+   * @return an empty column
+   */
+  static StreamColumn of(Type kind2Type)
+  {
+    return new RunLengthColumn(kind2Type, plain(kind2Type));
+  }
+
+  /**
+   * Returns an empty column that keeps every value of the given type.
+   */
+  static StreamColumn plain(Type kind2Type)
+  {
+    if (kind2Type instanceof Int || kind2Type instanceof SubRange)
+    {
+      return new IntColumn(kind2Type);
+    }
+    if (kind2Type instanceof Bool)
+    {
+      return new BoolColumn(kind2Type);
+    }
+    if (kind2Type instanceof Real)
+    {
+      return new RealColumn(kind2Type);
+    }
+    if (kind2Type instanceof Array)
+    {
+      return new ArrayColumn(kind2Type, plain(((Array) kind2Type).getElementType()));
+    }
+    if (kind2Type instanceof Enum)
+    {
+      return new EnumColumn(kind2Type);
+    }
+    throw new UnsupportedOperationException(kind2Type.toString());
+  }
+
+  /**
+   * Appends a value given as a json element.
+   *
+   * @param jsonElement the Kind 2 json value
+   */
+  abstract void add(JsonElement jsonElement);
+
+  /**
+   * Appends the next value of a json stream.
+   *
+   * @param in the Kind 2 output, positioned at a value
+   * @throws IOException if the output cannot be read
+   */
+  abstract void read(JsonReader in) throws IOException;
+
+  /**
+   * Writes every value of the column in the binary form of a result.
+   *
+   * @param out where to write the values
+   * @throws IOException if the values cannot be written
+   */
+  abstract void write(BinaryOutput out) throws IOException;
+
+  /**
+   * Fills this empty column with values written by {@link #write(BinaryOutput)}.
+   *
+   * @param in the binary form of a result, positioned at the values
+   * @param count the number of values written
+   * @throws IOException if the values cannot be read
+   */
+  abstract void read(BinaryInput in, int count) throws IOException;
+
+  /**
+   * Creates the value at an index.
+   *
+   * @param stepValue the step the value belongs to
+   * @param index the index of the value
+   * @param jsonElement the json of the value to keep, or null
+   * @return the value
+   */
+  abstract Value value(StepValue stepValue, int index, JsonElement jsonElement);
+
+  /**
+   * Prints the value at an index with the default formatting.
+   *
+   * @param index the index of the value
+   * @return the printed value
+   */
+  String print(int index)
+  {
+    return print(index, Result.getDefaultFormatting());
+  }
+
+  /**
+   * Prints the value at an index the way {@link Value#toString()} does in a result with the given
+   * formatting.
+   *
+   * @param index the index of the value
+   * @param formatting the formatting of the result
+   * @return the printed value
+   */
+  String print(int index, Formatting formatting)
+  {
+    return value(null, index, null).toString();
+  }
+
+  /**
+   * Appends the value at an index as {@link #print(int, Formatting)} prints it, without creating
+   * a string for the value where the column can avoid it.
+   *
+   * @param index the index of the value
+   * @param formatting the formatting of the result
+   * @param builder where to append the value
+   */
+  void print(int index, Formatting formatting, StringBuilder builder)
+  {
+    builder.append(print(index, formatting));
+  }
+
+  /**
+   * Returns whether the values at two indexes are the same.
+   *
+   * @param index an index
+   * @param other another index
+   * @return whether the two values are the same
+   */
+  abstract boolean sameValue(int index, int other);
+
+  /**
+   * Removes the value last added.
+   */
+  abstract void removeLast();
+
+  /**
+   * Returns the value at an index of a column of booleans.
+   *
+   * @param index the index of the value
+   * @return the value
+   */
+  boolean getBool(int index)
+  {
+    throw new UnsupportedOperationException(kind2Type.toString());
+  }
+
+  /**
+   * Returns whether the value at an index of a column of integers fits a long.
+   *
+   * @param index the index of the value
+   * @return whether {@link #getLong(int)} returns the value
+   */
+  boolean fitsLong(int index)
+  {
+    throw new UnsupportedOperationException(kind2Type.toString());
+  }
+
+  /**
+   * Returns the value at an index of a column of integers, if it fits a long.
+   *
+   * @param index the index of the value
+   * @return the value
+   */
+  long getLong(int index)
+  {
+    throw new UnsupportedOperationException(kind2Type.toString());
+  }
+
+  /**
+   * Returns the number of runs of equal values, as many as the values unless the column keeps
+   * runs once.
+   *
+   * @return the number of runs
+   */
+  int getRuns()
+  {
+    return size;
+  }
+
+  /**
+   * Returns the index of the first value of a run.
+   *
+   * @param run the run
+   * @return the index of its first value
+   */
+  int getRunStart(int run)
+  {
+    return run;
+  }
+
+  /**
+   * Releases unused capacity once every value is added.
+   */
+  abstract void trim();
+
+  /**
+   * Returns the capacity of an array of the given length that must hold an element at index
+   * {@code size}.
+   */
+  static int grow(int length, int size)
+  {
+    return size < length ? length : Math.max(8, length + (length >> 1));
+  }
+
+  /**
+   * Integers and subranges as longs, with a {@link BigInteger} only for values that do not fit.
+   */
+  static class IntColumn extends StreamColumn
+  {
+    private static final int smallMin = -128;
+    private static final int smallMax = 1024;
+    /**
+     * Shared values for the small integers counters, indexes and enumerated states take, so that
+     * requesting them allocates nothing.
+     */
+    private static final BigInteger[] small = new BigInteger[smallMax - smallMin + 1];
+
+    static
+    {
+      for (int i = 0; i < small.length; i++)
+      {
+        small[i] = BigInteger.valueOf(smallMin + i);
+      }
+    }
+
+    private long[] values = new long[8];
+    private BigInteger[] overflow;
+
+    IntColumn(Type kind2Type)
+    {
+      super(kind2Type);
+    }
+
+    @Override
+    void add(JsonElement jsonElement)
+    {
+      add(jsonElement.getAsString());
+    }
+
+    @Override
+    void read(JsonReader in) throws IOException
+    {
+      add(in.nextString());
+    }
+
+    private void add(String literal)
+    {
+      ensureCapacity();
+      try
+      {
+        values[size] = Long.parseLong(literal);
+      }
+      catch (NumberFormatException e)
+      {
+        if (overflow == null)
+        {
+          overflow = new BigInteger[values.length];
+        }
+        overflow[size] = new BigInteger(literal);
+      }
+      size++;
+    }
+
+    private void ensureCapacity()
+    {
+      int length = grow(values.length, size);
+      if (length != values.length)
+      {
+        values = Arrays.copyOf(values, length);
+        if (overflow != null)
+        {
+          overflow = Arrays.copyOf(overflow, length);
+        }
+      }
+    }
+
+    /**
+     * Writes the values that do not fit a long first, by index, then every value as a varint.
+     */
+    @Override
+    void write(BinaryOutput out) throws IOException
+    {
+      int overflows = 0;
+      for (int i = 0; overflow != null && i < size; i++)
+      {
+        overflows += overflow[i] == null ? 0 : 1;
+      }
+      out.writeVarint(overflows);
+      for (int i = 0; overflows > 0 && i < size; i++)
+      {
+        if (overflow[i] != null)
+        {
+          out.writeVarint(i);
+          out.writeString(overflow[i].toString());
+        }
+      }
+      for (int i = 0; i < size; i++)
+      {
+        out.writeSignedVarint(values[i]);
+      }
+    }
+
+    @Override
+    void read(BinaryInput in, int count) throws IOException
+    {
+      values = new long[Math.max(count, 1)];
+      int overflows = in.readInt();
+      if (overflows > 0)
+      {
+        overflow = new BigInteger[values.length];
+      }
+      for (int i = 0; i < overflows; i++)
+      {
+        int index = in.readInt();
+        if (index >= count)
+        {
+          throw new Kind2Exception("Malformed binary kind2 result");
+        }
+        overflow[index] = new BigInteger(in.readString());
+      }
+      for (int i = 0; i < count; i++)
+      {
+        values[i] = in.readSignedVarint();
+      }
+      size = count;
+    }
+
+    @Override
+    boolean sameValue(int index, int other)
+    {
+      BigInteger big = overflow == null ? null : overflow[index];
+      BigInteger otherBig = overflow == null ? null : overflow[other];
+      if (big != null || otherBig != null)
+      {
+        return big != null && big.equals(otherBig);
+      }
+      return values[index] == values[other];
+    }
+
+    @Override
+    void removeLast()
+    {
+      size--;
+      if (overflow != null)
+      {
+        overflow[size] = null;
+      }
+    }
+
+    @Override
+    boolean fitsLong(int index)
+    {
+      return overflow == null || overflow[index] == null;
+    }
+
+    @Override
+    long getLong(int index)
+    {
+      return values[index];
+    }
+
+    BigInteger get(int index)
+    {
+      if (overflow != null && overflow[index] != null)
+      {
+        return overflow[index];
+      }
+      long value = values[index];
+      if (value >= smallMin && value <= smallMax)
+      {
+        return small[(int) value - smallMin];
+      }
+      return BigInteger.valueOf(value);
+    }
+
+    @Override
+    Value value(StepValue stepValue, int index, JsonElement jsonElement)
+    {
+      if (kind2Type instanceof SubRange)
+      {
+        return new SubRangeValue(stepValue, kind2Type, jsonElement, get(index));
+      }
+      return new IntValue(stepValue, kind2Type, jsonElement, get(index));
+    }
+
+    @Override
+    String print(int index, Formatting formatting)
+    {
+      if (overflow != null && overflow[index] != null)
+      {
+        return overflow[index].toString();
+      }
+      return Long.toString(values[index]);
+    }
+
+    @Override
+    void print(int index, Formatting formatting, StringBuilder builder)
+    {
+      if (overflow != null && overflow[index] != null)
+      {
+        builder.append(overflow[index]);
+      }
+      else
+      {
+        builder.append(values[index]);
+      }
+    }
+
+    @Override
+    void trim()
+    {
+      values = Arrays.copyOf(values, size);
+      if (overflow != null)
+      {
+        overflow = Arrays.copyOf(overflow, size);
+      }
+    }
+  }
+
+  /**
+   * Booleans as bits.
+   */
+  static class BoolColumn extends StreamColumn
+  {
+    private final BitSet values = new BitSet();
+
+    BoolColumn(Type kind2Type)
+    {
+      super(kind2Type);
+    }
+
+    @Override
+    void add(JsonElement jsonElement)
+    {
+      values.set(size++, Boolean.parseBoolean(jsonElement.getAsString()));
+    }
+
+    @Override
+    void read(JsonReader in) throws IOException
+    {
+      boolean value = in.peek() == JsonToken.BOOLEAN ? in.nextBoolean()
+          : Boolean.parseBoolean(in.nextString());
+      values.set(size++, value);
+    }
+
+    @Override
+    void write(BinaryOutput out) throws IOException
+    {
+      byte[] bytes = values.toByteArray();
+      out.writeVarint(bytes.length);
+      out.writeBytes(bytes);
+    }
+
+    @Override
+    void read(BinaryInput in, int count) throws IOException
+    {
+      values.or(BitSet.valueOf(in.readBytes(in.readInt())));
+      size = count;
+    }
+
+    @Override
+    Value value(StepValue stepValue, int index, JsonElement jsonElement)
+    {
+      return new BoolValue(stepValue, kind2Type, jsonElement, values.get(index));
+    }
+
+    @Override
+    boolean sameValue(int index, int other)
+    {
+      return values.get(index) == values.get(other);
+    }
+
+    @Override
+    boolean getBool(int index)
+    {
+      return values.get(index);
+    }
+
+    @Override
+    void removeLast()
+    {
+      values.clear(--size);
+    }
+
+    @Override
+    String print(int index, Formatting formatting)
+    {
+      return Boolean.toString(values.get(index));
+    }
+
+    @Override
+    void print(int index, Formatting formatting, StringBuilder builder)
+    {
+      builder.append(values.get(index));
+    }
+
+    @Override
+    void trim()
+    {
+      // a bit set only grows to its highest set bit
+    }
+  }
+
+  /**
+   * Enumeration constants as ordinals into the constants seen in this column. The constants are
+   * shared with every other column of the same enumeration type.
+   */
+  static class EnumColumn extends StreamColumn
+  {
+    private int[] ordinals = new int[8];
+    private final List<String> names = new ArrayList<>();
+    private final Map<String, Integer> ordinalOf = new HashMap<>();
+
+    EnumColumn(Type kind2Type)
+    {
+      super(kind2Type);
+    }
+
+    @Override
+    void add(JsonElement jsonElement)
+    {
+      add(jsonElement.getAsString());
+    }
+
+    @Override
+    void read(JsonReader in) throws IOException
+    {
+      add(in.nextString());
+    }
+
+    private void add(String name)
+    {
+      Integer ordinal = ordinalOf.get(name);
+      if (ordinal == null)
+      {
+        String constant = name.trim();
+        if (kind2Type instanceof Enum)
+        {
+          constant = ((Enum) kind2Type).constant(constant);
+        }
+        ordinal = ordinalOf.get(constant);
+        if (ordinal == null)
+        {
+          ordinal = names.size();
+          names.add(constant);
+          ordinalOf.put(constant, ordinal);
+        }
+        ordinalOf.put(name, ordinal);
+      }
+      if (size == ordinals.length)
+      {
+        ordinals = Arrays.copyOf(ordinals, grow(ordinals.length, size));
+      }
+      ordinals[size++] = ordinal;
+    }
+
+    /**
+     * Writes the constants of the column, then the ordinal of every value.
+     */
+    @Override
+    void write(BinaryOutput out) throws IOException
+    {
+      out.writeVarint(names.size());
+      for (String name : names)
+      {
+        out.writeString(name);
+      }
+      for (int i = 0; i < size; i++)
+      {
+        out.writeVarint(ordinals[i]);
+      }
+    }
+
+    @Override
+    void read(BinaryInput in, int count) throws IOException
+    {
+      String[] constants = new String[in.readInt()];
+      for (int i = 0; i < constants.length; i++)
+      {
+        constants[i] = in.readString();
+      }
+      for (int i = 0; i < count; i++)
+      {
+        int ordinal = in.readInt();
+        if (ordinal >= constants.length)
+        {
+          throw new Kind2Exception("Malformed binary kind2 result");
+        }
+        add(constants[ordinal]);
+      }
+    }
+
+    @Override
+    Value value(StepValue stepValue, int index, JsonElement jsonElement)
+    {
+      return new EnumValue(stepValue, kind2Type, jsonElement, names.get(ordinals[index]));
+    }
+
+    @Override
+    boolean sameValue(int index, int other)
+    {
+      return ordinals[index] == ordinals[other];
+    }
+
+    @Override
+    void removeLast()
+    {
+      size--;
+    }
+
+    @Override
+    String print(int index, Formatting formatting)
+    {
+      return names.get(ordinals[index]);
+    }
+
+    @Override
+    void print(int index, Formatting formatting, StringBuilder builder)
+    {
+      builder.append(names.get(ordinals[index]));
+    }
+
+    @Override
+    void trim()
+    {
+      ordinals = Arrays.copyOf(ordinals, size);
+    }
+  }
+
+  /**
+   * Reals as numerator and denominator longs, with {@link BigInteger}s only for parts that do not
+   * fit. Reals that Kind 2 printed as decimals keep their scale in place of the denominator.
+   */
+  static class RealColumn extends StreamColumn
+  {
+    private final IntColumn numerators;
+    private final IntColumn denominators;
+    /**
+     * The indexes of the values Kind 2 printed as decimals.
+     */
+    private final BitSet decimals = new BitSet();
+
+    RealColumn(Type kind2Type)
+    {
+      super(kind2Type);
+      numerators = new IntColumn(kind2Type);
+      denominators = new IntColumn(kind2Type);
+    }
+
+    @Override
+    void add(JsonElement jsonElement)
+    {
+      if (jsonElement.isJsonObject())
+      {
+        JsonObject jsonObject = jsonElement.getAsJsonObject();
+        numerators.add(jsonObject.get(Labels.numerator));
+        denominators.add(jsonObject.get(Labels.denominator));
+        size++;
+      }
+      else
+      {
+        addDecimal(jsonElement.getAsBigDecimal());
+      }
+    }
+
+    @Override
+    void read(JsonReader in) throws IOException
+    {
+      if (in.peek() != JsonToken.BEGIN_OBJECT)
+      {
+        addDecimal(new BigDecimal(in.nextString()));
+        return;
+      }
+      String numerator = null;
+      String denominator = null;
+      in.beginObject();
+      while (in.hasNext())
+      {
+        String field = in.nextName();
+        if (field.equals(Labels.numerator))
+        {
+          numerator = in.nextString();
+        }
+        else if (field.equals(Labels.denominator))
+        {
+          denominator = in.nextString();
+        }
+        else
+        {
+          in.skipValue();
+        }
+      }
+      in.endObject();
+      if (numerator == null || denominator == null)
+      {
+        throw new RuntimeException("Failed to analyze kind2 json output");
+      }
+      numerators.add(numerator);
+      denominators.add(denominator);
+      size++;
+    }
+
+    /**
+     * Writes which values were decimals, then the numerators and the denominators, or scales, as
+     * two integer columns.
+     */
+    @Override
+    void write(BinaryOutput out) throws IOException
+    {
+      byte[] bytes = decimals.toByteArray();
+      out.writeVarint(bytes.length);
+      out.writeBytes(bytes);
+      numerators.write(out);
+      denominators.write(out);
+    }
+
+    @Override
+    void read(BinaryInput in, int count) throws IOException
+    {
+      decimals.or(BitSet.valueOf(in.readBytes(in.readInt())));
+      numerators.read(in, count);
+      denominators.read(in, count);
+      size = count;
+    }
+
+    private void addDecimal(BigDecimal value)
+    {
+      decimals.set(size);
+      numerators.add(value.unscaledValue().toString());
+      denominators.add(Integer.toString(value.scale()));
+      size++;
+    }
+
+    @Override
+    Value value(StepValue stepValue, int index, JsonElement jsonElement)
+    {
+      if (decimals.get(index))
+      {
+        BigDecimal value = new BigDecimal(numerators.get(index),
+            (int) denominators.values[index]);
+        return new RealValue(stepValue, kind2Type, jsonElement, value);
+      }
+      if (numerators.fitsLong(index) && denominators.fitsLong(index))
+      {
+        return new RealValue(stepValue, kind2Type, jsonElement, numerators.values[index],
+            denominators.values[index]);
+      }
+      return new RealValue(stepValue, kind2Type, jsonElement, numerators.get(index),
+          denominators.get(index));
+    }
+
+    @Override
+    boolean sameValue(int index, int other)
+    {
+      return decimals.get(index) == decimals.get(other) && numerators.sameValue(index, other)
+          && denominators.sameValue(index, other);
+    }
+
+    @Override
+    void removeLast()
+    {
+      decimals.clear(--size);
+      numerators.removeLast();
+      denominators.removeLast();
+    }
+
+    @Override
+    String print(int index, Formatting formatting)
+    {
+      RealValue value = (RealValue) value(null, index, null);
+      return value.getValue(formatting.getRealPrecision(), formatting.getRealRoundingMode())
+          .toString();
+    }
+
+    @Override
+    void trim()
+    {
+      numerators.trim();
+      denominators.trim();
+    }
+  }
+
+  /**
+   * Arrays as one column of all their elements, and the offset of the first element of each
+   * array.
+   */
+  static class ArrayColumn extends StreamColumn
+  {
+    private final StreamColumn elements;
+    private int[] offsets = new int[9];
+
+    ArrayColumn(Type kind2Type, StreamColumn elements)
+    {
+      super(kind2Type);
+      this.elements = elements;
+    }
+
+    @Override
+    void add(JsonElement jsonElement)
+    {
+      for (JsonElement element : jsonElement.getAsJsonArray())
+      {
+        elements.add(element);
+      }
+      endArray();
+    }
+
+    @Override
+    void read(JsonReader in) throws IOException
+    {
+      in.beginArray();
+      while (in.hasNext())
+      {
+        elements.read(in);
+      }
+      in.endArray();
+      endArray();
+    }
+
+    private void endArray()
+    {
+      if (size + 1 == offsets.length)
+      {
+        offsets = Arrays.copyOf(offsets, grow(offsets.length, size + 1));
+      }
+      offsets[++size] = elements.size;
+    }
+
+    /**
+     * Writes the length of every array, then all their elements as one column.
+     */
+    @Override
+    void write(BinaryOutput out) throws IOException
+    {
+      for (int i = 0; i < size; i++)
+      {
+        out.writeVarint(offsets[i + 1] - offsets[i]);
+      }
+      elements.write(out);
+    }
+
+    @Override
+    void read(BinaryInput in, int count) throws IOException
+    {
+      offsets = new int[count + 1];
+      for (int i = 0; i < count; i++)
+      {
+        offsets[i + 1] = offsets[i] + in.readInt();
+      }
+      size = count;
+      elements.read(in, offsets[count]);
+    }
+
+    @Override
+    Value value(StepValue stepValue, int index, JsonElement jsonElement)
+    {
+      List<Value> values = new ArrayList<>();
+      for (int i = offsets[index]; i < offsets[index + 1]; i++)
+      {
+        JsonElement element =
+            jsonElement == null ? null : jsonElement.getAsJsonArray().get(i - offsets[index]);
+        values.add(elements.value(stepValue, i, element));
+      }
+      return new ArrayValue(stepValue, kind2Type, jsonElement, values);
+    }
+
+    @Override
+    boolean sameValue(int index, int other)
+    {
+      int length = offsets[index + 1] - offsets[index];
+      if (length != offsets[other + 1] - offsets[other])
+      {
+        return false;
+      }
+      for (int i = 0; i < length; i++)
+      {
+        if (!elements.sameValue(offsets[index] + i, offsets[other] + i))
+        {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    void removeLast()
+    {
+      size--;
+      while (elements.size > offsets[size])
+      {
+        elements.removeLast();
+      }
+    }
+
+    @Override
+    String print(int index, Formatting formatting)
+    {
+      StringJoiner joiner = new StringJoiner(", ", "[", "]");
+      for (int i = offsets[index]; i < offsets[index + 1]; i++)
+      {
+        joiner.add(elements.print(i, formatting));
+      }
+      return joiner.toString();
+    }
+
+    @Override
+    void print(int index, Formatting formatting, StringBuilder builder)
+    {
+      builder.append('[');
+      for (int i = offsets[index]; i < offsets[index + 1]; i++)
+      {
+        if (i > offsets[index])
+        {
+          builder.append(", ");
+        }
+        elements.print(i, formatting, builder);
+      }
+      builder.append(']');
+    }
+
+    @Override
+    void trim()
+    {
+      elements.trim();
+      offsets = Arrays.copyOf(offsets, size + 1);
+    }
+  }
+
+  /**
+   * A column of any type that keeps runs of equal values once: the value of each run in a plain
+   * column, and the index of the first value of each run. The streams of long traces, such as
+   * those of test generation or deep bounded model checking, mostly keep their value from one step
+   * to the next, so that a stream of a million steps takes a few runs.
+   * <p>
+   * The run of an index is found by a binary search of the run starts. Once the column is trimmed,
+   * columns of many runs also keep the run at every {@code 2^blockShift}th index, so that the
+   * search is within one block, in constant time. Columns whose values all differ keep no starts.
+   */
+  static class RunLengthColumn extends StreamColumn
+  {
+    private static final int blockShift = 6;
+
+    /**
+     * The value of each run.
+     */
+    private final StreamColumn runs;
+    /**
+     * The index of the first value of each run, or null if every run is one value.
+     */
+    private int[] starts = new int[8];
+    /**
+     * The run of every {@code 2^blockShift}th index, or null if there are few runs.
+     */
+    private int[] blocks;
+
+    RunLengthColumn(Type kind2Type, StreamColumn runs)
+    {
+      super(kind2Type);
+      this.runs = runs;
+    }
+
+    @Override
+    void add(JsonElement jsonElement)
+    {
+      runs.add(jsonElement);
+      endValue();
+    }
+
+    @Override
+    void read(JsonReader in) throws IOException
+    {
+      runs.read(in);
+      endValue();
+    }
+
+    /**
+     * Merges the value just added to the runs column into the last run if it is the same value.
+     */
+    private void endValue()
+    {
+      expandStarts();
+      int last = runs.size - 1;
+      if (last > 0 && runs.sameValue(last - 1, last))
+      {
+        runs.removeLast();
+      }
+      else
+      {
+        if (last == starts.length)
+        {
+          starts = Arrays.copyOf(starts, grow(starts.length, last));
+        }
+        starts[last] = size;
+      }
+      size++;
+    }
+
+    /**
+     * Restores the run starts dropped by {@link #trim()} when every run is one value.
+     */
+    private void expandStarts()
+    {
+      if (starts == null)
+      {
+        starts = new int[Math.max(8, runs.size + 1)];
+        for (int run = 0; run < runs.size; run++)
+        {
+          starts[run] = run;
+        }
+        blocks = null;
+      }
+    }
+
+    /**
+     * Returns the run that holds the value at an index.
+     */
+    int run(int index)
+    {
+      if (starts == null)
+      {
+        return index;
+      }
+      int low = 0;
+      int high = runs.size - 1;
+      if (blocks != null)
+      {
+        int block = index >>> blockShift;
+        low = blocks[block];
+        if (block + 1 < blocks.length)
+        {
+          high = blocks[block + 1];
+        }
+      }
+      while (low < high)
+      {
+        int middle = (low + high + 1) >>> 1;
+        if (starts[middle] <= index)
+        {
+          low = middle;
+        }
+        else
+        {
+          high = middle - 1;
+        }
+      }
+      return low;
+    }
+
+    @Override
+    int getRuns()
+    {
+      return runs.size;
+    }
+
+    @Override
+    int getRunStart(int run)
+    {
+      return starts == null ? run : starts[run];
+    }
+
+    /**
+     * Writes the length of every run, then the value of every run.
+     */
+    @Override
+    void write(BinaryOutput out) throws IOException
+    {
+      out.writeVarint(runs.size);
+      for (int run = 0; run < runs.size; run++)
+      {
+        int end = run + 1 < runs.size ? getRunStart(run + 1) : size;
+        out.writeVarint(end - getRunStart(run));
+      }
+      runs.write(out);
+    }
+
+    @Override
+    void read(BinaryInput in, int count) throws IOException
+    {
+      int runCount = in.readInt();
+      if (runCount > count)
+      {
+        throw new Kind2Exception("Malformed binary kind2 result");
+      }
+      starts = new int[Math.max(runCount, 1)];
+      int start = 0;
+      for (int run = 0; run < runCount; run++)
+      {
+        int length = in.readInt();
+        if (length == 0 || length > count - start)
+        {
+          throw new Kind2Exception("Malformed binary kind2 result");
+        }
+        starts[run] = start;
+        start += length;
+      }
+      if (start != count)
+      {
+        throw new Kind2Exception("Malformed binary kind2 result");
+      }
+      runs.read(in, runCount);
+      size = count;
+    }
+
+    @Override
+    Value value(StepValue stepValue, int index, JsonElement jsonElement)
+    {
+      return runs.value(stepValue, run(index), jsonElement);
+    }
+
+    @Override
+    String print(int index, Formatting formatting)
+    {
+      return runs.print(run(index), formatting);
+    }
+
+    @Override
+    void print(int index, Formatting formatting, StringBuilder builder)
+    {
+      runs.print(run(index), formatting, builder);
+    }
+
+    @Override
+    boolean sameValue(int index, int other)
+    {
+      int run = run(index);
+      int otherRun = run(other);
+      return run == otherRun || runs.sameValue(run, otherRun);
+    }
+
+    @Override
+    boolean getBool(int index)
+    {
+      return runs.getBool(run(index));
+    }
+
+    @Override
+    boolean fitsLong(int index)
+    {
+      return runs.fitsLong(run(index));
+    }
+
+    @Override
+    long getLong(int index)
+    {
+      return runs.getLong(run(index));
+    }
+
+    @Override
+    void removeLast()
+    {
+      expandStarts();
+      size--;
+      if (starts[runs.size - 1] == size)
+      {
+        runs.removeLast();
+      }
+    }
+
+    @Override
+    void trim()
+    {
+      runs.trim();
+      blocks = null;
+      if (runs.size == size)
+      {
+        starts = null;
+        return;
+      }
+      expandStarts();
+      starts = Arrays.copyOf(starts, runs.size);
+      if (runs.size > 1 << blockShift)
+      {
+        blocks = new int[((size - 1) >>> blockShift) + 1];
+        int run = 0;
+        for (int block = 0; block < blocks.length; block++)
+        {
+          int index = block << blockShift;
+          while (run + 1 < runs.size && starts[run + 1] <= index)
+          {
+            run++;
+          }
+          blocks[block] = run;
+        }
+      }
+    }
+  }
+}
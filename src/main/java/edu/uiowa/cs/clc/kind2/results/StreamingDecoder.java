@@ -0,0 +1,599 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.results;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Decodes Kind 2 json output from a character stream straight into the model of a {@link Result}.
+ * <p>
+ * Properties are decoded field by field with a {@link JsonReader}, so no json tree is built for
+ * them. Their counterexamples and witnesses are copied to compact strings and decoded the same way
+ * when they are first requested. The other objects are small and few, so they are parsed into a
+ * tree and added through {@link Result#add(JsonElement)} as usual.
+ * <p>
+ * The decoder accepts the fields of an object in any order. When a nested object arrives before
+ * the fields its parent needs to be constructed, that object alone is parsed into a tree and
+ * decoded once the parent exists.
+ * <p>
+ * The objects, streams, trace blocks and steps that the {@link ParseFilter} of the result excludes
+ * are skipped token by token, without building them.
+ */
+class StreamingDecoder
+{
+  private final Result result;
+
+  StreamingDecoder(Result result)
+  {
+    this.result = result;
+  }
+
+  /**
+   * Decodes every object of the stream, which is either a json array of Kind 2 objects or a
+   * sequence of Kind 2 objects, as Kind 2 emits them with -ijson.
+   *
+   * @param reader the Kind 2 output
+   * @param onObject called after each object is added, may be null
+   * @throws JsonIOException if the stream cannot be read
+   * @throws JsonSyntaxException if the stream is not well-formed json
+   */
+  void decode(Reader reader, Consumer<Result> onObject)
+  {
+    JsonReader in = new JsonReader(reader);
+    in.setLenient(true);
+    try
+    {
+      JsonToken token;
+      while ((token = peekDocument(in)) != JsonToken.END_DOCUMENT)
+      {
+        if (token == JsonToken.BEGIN_ARRAY)
+        {
+          in.beginArray();
+          while (in.hasNext())
+          {
+            object(in, onObject);
+          }
+          in.endArray();
+        }
+        else
+        {
+          object(in, onObject);
+        }
+      }
+    }
+    catch (MalformedJsonException e)
+    {
+      throw new JsonSyntaxException(e);
+    }
+    catch (IOException e)
+    {
+      throw new JsonIOException(e);
+    }
+  }
+
+  private static JsonToken peekDocument(JsonReader in) throws IOException
+  {
+    try
+    {
+      return in.peek();
+    }
+    catch (EOFException e)
+    {
+      // an empty stream holds no object
+      return JsonToken.END_DOCUMENT;
+    }
+  }
+
+  private void object(JsonReader in, Consumer<Result> onObject) throws IOException
+  {
+    in.beginObject();
+    JsonObject pending = new JsonObject();
+    boolean property = false;
+    while (in.hasNext())
+    {
+      String field = in.nextName();
+      if (field.equals(Labels.objectType) && in.peek() == JsonToken.STRING)
+      {
+        String objectType = in.nextString();
+        Object kind2Object = Object.getKind2Object(objectType);
+        if (!result.getParseFilter().keeps(kind2Object))
+        {
+          while (in.hasNext())
+          {
+            in.nextName();
+            in.skipValue();
+          }
+          in.endObject();
+          return;
+        }
+        if (kind2Object == Object.property)
+        {
+          property(in, pending);
+          property = true;
+          break;
+        }
+        pending.addProperty(Labels.objectType, objectType);
+      }
+      else
+      {
+        pending.add(field, JsonParser.parseReader(in));
+      }
+    }
+    in.endObject();
+    if (!property)
+    {
+      result.add(pending);
+    }
+    if (onObject != null)
+    {
+      onObject.accept(result);
+    }
+  }
+
+  /**
+   * Decodes the remaining fields of a property object, after the fields already read into
+   * {@code pending}, and adds the property to the current analysis.
+   */
+  private void property(JsonReader in, JsonObject pending) throws IOException
+  {
+    Analysis analysis = result.getCurrentAnalysis();
+    PropertyFields fields = new PropertyFields();
+    for (Map.Entry<String, JsonElement> entry : pending.entrySet())
+    {
+      fields.read(entry.getKey(), replay(entry.getValue()));
+    }
+    while (in.hasNext())
+    {
+      fields.read(in.nextName(), in);
+    }
+    if (fields.name == null || fields.line == null || fields.column == null
+        || fields.source == null || fields.answer == null)
+    {
+      throw new RuntimeException("Failed to analyze kind2 json output");
+    }
+    Property property = new Property(analysis, fields.name, fields.file, fields.scope, fields.line,
+        fields.column, PropertyType.getPropertyType(fields.source), fields.isCandidate,
+        Answer.getAnswer(fields.answer), fields.trueFor, fields.k);
+    String counterExample = fields.counterExample;
+    if (counterExample != null)
+    {
+      property.setCounterExample(p -> trace(p, counterExample));
+    }
+    String exampleTrace = fields.exampleTrace;
+    if (exampleTrace != null)
+    {
+      property.setExampleTrace(p -> trace(p, exampleTrace));
+    }
+    result.addProperty(analysis, property);
+    result.publish();
+  }
+
+  /**
+   * The fields of a property, collected until the property can be constructed.
+   */
+  private class PropertyFields
+  {
+    String name;
+    String file;
+    String scope;
+    String line;
+    String column;
+    String source;
+    Boolean isCandidate;
+    String answer;
+    String trueFor;
+    Integer k;
+    String counterExample;
+    String exampleTrace;
+
+    void read(String field, JsonReader in) throws IOException
+    {
+      switch (field)
+      {
+        case Labels.name:
+          name = string(in);
+          break;
+        case Labels.file:
+          file = string(in);
+          break;
+        case Labels.scope:
+          scope = string(in);
+          break;
+        case Labels.line:
+          line = string(in);
+          break;
+        case Labels.column:
+          column = string(in);
+          break;
+        case Labels.source:
+          source = string(in);
+          break;
+        case Labels.isCandidate:
+          isCandidate = in.peek() == JsonToken.BOOLEAN ? in.nextBoolean()
+              : Boolean.parseBoolean(in.nextString());
+          break;
+        case Labels.answer:
+          in.beginObject();
+          while (in.hasNext())
+          {
+            if (in.nextName().equals(Labels.value))
+            {
+              answer = in.nextString();
+            }
+            else
+            {
+              in.skipValue();
+            }
+          }
+          in.endObject();
+          break;
+        case Labels.trueFor:
+          trueFor = string(in);
+          break;
+        case Labels.k:
+          k = in.nextInt();
+          break;
+        case Labels.counterExample:
+          counterExample = copy(in);
+          break;
+        case Labels.exampleTrace:
+          exampleTrace = copy(in);
+          break;
+        default:
+          in.skipValue();
+      }
+    }
+  }
+
+  /**
+   * Copies a json value to a compact string, token by token, without building a tree.
+   */
+  private static String copy(JsonReader in) throws IOException
+  {
+    StringWriter out = new StringWriter();
+    JsonWriter writer = new JsonWriter(out);
+    int depth = 0;
+    do
+    {
+      switch (in.peek())
+      {
+        case BEGIN_ARRAY:
+          in.beginArray();
+          writer.beginArray();
+          depth++;
+          break;
+        case END_ARRAY:
+          in.endArray();
+          writer.endArray();
+          depth--;
+          break;
+        case BEGIN_OBJECT:
+          in.beginObject();
+          writer.beginObject();
+          depth++;
+          break;
+        case END_OBJECT:
+          in.endObject();
+          writer.endObject();
+          depth--;
+          break;
+        case NAME:
+          writer.name(in.nextName());
+          break;
+        case STRING:
+          writer.value(in.nextString());
+          break;
+        case NUMBER:
+          writer.jsonValue(in.nextString());
+          break;
+        case BOOLEAN:
+          writer.value(in.nextBoolean());
+          break;
+        case NULL:
+          in.nextNull();
+          writer.nullValue();
+          break;
+        default:
+          throw new JsonSyntaxException("Unexpected end of kind2 json output");
+      }
+    }
+    while (depth > 0);
+    writer.flush();
+    return out.toString();
+  }
+
+  /**
+   * Decodes a trace copied by {@link #copy(JsonReader)}, when its property first requests it.
+   */
+  private static CounterExample trace(Property property, String trace)
+  {
+    try
+    {
+      CounterExample counterExample = new CounterExample(property);
+      counterExample.setTopNode(subNode(replay(trace), counterExample, 0));
+      return counterExample;
+    }
+    catch (IOException e)
+    {
+      // the trace was checked when it was copied
+      throw new JsonIOException(e);
+    }
+  }
+
+  /**
+   * Decodes a trace block at a depth below the top-level block, or the first block of an array of
+   * blocks.
+   */
+  private static SubNode subNode(JsonReader in, CounterExample counterExample, int depth)
+      throws IOException
+  {
+    if (in.peek() == JsonToken.BEGIN_ARRAY)
+    {
+      in.beginArray();
+      SubNode first = subNode(in, counterExample, depth);
+      while (in.hasNext())
+      {
+        in.skipValue();
+      }
+      in.endArray();
+      return first;
+    }
+    in.beginObject();
+    String name = null;
+    String blockType = null;
+    SubNode node = null;
+    // children read before the name and block type
+    JsonElement pendingStreams = null;
+    JsonElement pendingSubNodes = null;
+    while (in.hasNext())
+    {
+      String field = in.nextName();
+      if (field.equals(Labels.name))
+      {
+        name = in.nextString();
+      }
+      else if (field.equals(Labels.blockType))
+      {
+        blockType = in.nextString();
+      }
+      else if (field.equals(Labels.subNodes) && !counterExample.getFilter().keepsSubNodes(depth))
+      {
+        in.skipValue();
+      }
+      else if (field.equals(Labels.streams) || field.equals(Labels.subNodes))
+      {
+        if (node == null && name != null && blockType != null)
+        {
+          node = new SubNode(counterExample, name, blockType);
+        }
+        if (node == null)
+        {
+          if (field.equals(Labels.streams))
+          {
+            pendingStreams = JsonParser.parseReader(in);
+          }
+          else
+          {
+            pendingSubNodes = JsonParser.parseReader(in);
+          }
+        }
+        else
+        {
+          children(field, in, node, counterExample, depth);
+        }
+      }
+      else
+      {
+        in.skipValue();
+      }
+    }
+    in.endObject();
+    if (node == null)
+    {
+      if (name == null || blockType == null)
+      {
+        throw new RuntimeException("Failed to analyze kind2 json output");
+      }
+      node = new SubNode(counterExample, name, blockType);
+    }
+    if (pendingStreams != null)
+    {
+      children(Labels.streams, replay(pendingStreams), node, counterExample, depth);
+    }
+    if (pendingSubNodes != null)
+    {
+      children(Labels.subNodes, replay(pendingSubNodes), node, counterExample, depth);
+    }
+    return node;
+  }
+
+  /**
+   * Decodes the streams or the subcomponents of a block at a depth, given as an array or a single
+   * object.
+   */
+  private static void children(String field, JsonReader in, SubNode node,
+      CounterExample counterExample, int depth) throws IOException
+  {
+    boolean array = in.peek() == JsonToken.BEGIN_ARRAY;
+    if (array)
+    {
+      in.beginArray();
+    }
+    while (!array || in.hasNext())
+    {
+      if (field.equals(Labels.streams))
+      {
+        Stream stream = stream(in, node);
+        if (stream != null)
+        {
+          node.addStream(stream);
+        }
+      }
+      else
+      {
+        node.addSubNode(subNode(in, counterExample, depth + 1));
+      }
+      if (!array)
+      {
+        return;
+      }
+    }
+    in.endArray();
+  }
+
+  /**
+   * Decodes a stream, or skips it and returns null if the filter excludes it.
+   */
+  private static Stream stream(JsonReader in, SubNode node) throws IOException
+  {
+    ParseFilter filter = node.getFilter();
+    in.beginObject();
+    String name = null;
+    String type = null;
+    JsonElement typeInfo = null;
+    String streamClass = null;
+    Stream stream = null;
+    // values read before the name, type and class
+    JsonElement pendingValues = null;
+    boolean excluded = false;
+    while (in.hasNext())
+    {
+      String field = in.nextName();
+      switch (field)
+      {
+        case Labels.name:
+          name = in.nextString();
+          break;
+        case Labels.type:
+          type = in.nextString();
+          break;
+        case Labels.typeInfo:
+          typeInfo = JsonParser.parseReader(in);
+          break;
+        case Labels.classField:
+          streamClass = in.nextString();
+          break;
+        case Labels.instantValues:
+          if (name != null && streamClass != null && !filter.keepsStream(name, streamClass))
+          {
+            excluded = true;
+            in.skipValue();
+          }
+          else if (name != null && type != null && streamClass != null)
+          {
+            stream = new Stream(node, name, Type.getType(type, typeInfo), streamClass);
+            stepValues(in, stream);
+          }
+          else
+          {
+            pendingValues = JsonParser.parseReader(in);
+          }
+          break;
+        default:
+          in.skipValue();
+      }
+    }
+    in.endObject();
+    if (name == null || type == null || streamClass == null)
+    {
+      throw new RuntimeException("Failed to analyze kind2 json output");
+    }
+    if (excluded || !filter.keepsStream(name, streamClass))
+    {
+      return null;
+    }
+    if (stream == null)
+    {
+      stream = new Stream(node, name, Type.getType(type, typeInfo), streamClass);
+      if (pendingValues == null)
+      {
+        throw new RuntimeException("Failed to analyze kind2 json output");
+      }
+      stepValues(replay(pendingValues), stream);
+    }
+    return stream;
+  }
+
+  /**
+   * Decodes the values of a stream, up to the last step the filter keeps.
+   */
+  private static void stepValues(JsonReader in, Stream stream) throws IOException
+  {
+    ParseFilter filter = stream.getFilter();
+    in.beginArray();
+    while (in.hasNext())
+    {
+      in.beginArray();
+      int time = in.nextInt();
+      if (!filter.keepsStep(time))
+      {
+        // the steps are in order, so the values left are excluded too
+        while (in.hasNext())
+        {
+          in.skipValue();
+        }
+        in.endArray();
+        while (in.hasNext())
+        {
+          in.skipValue();
+        }
+        break;
+      }
+      stream.getColumn().read(in);
+      stream.addTime(time);
+      while (in.hasNext())
+      {
+        in.skipValue();
+      }
+      in.endArray();
+    }
+    in.endArray();
+    stream.trim();
+  }
+
+  private static String string(JsonReader in) throws IOException
+  {
+    if (in.peek() == JsonToken.NULL)
+    {
+      in.nextNull();
+      return null;
+    }
+    return in.nextString();
+  }
+
+  /**
+   * Returns a reader over a value that was parsed into a tree because it arrived early.
+   */
+  private static JsonReader replay(JsonElement jsonElement)
+  {
+    return replay(jsonElement.toString());
+  }
+
+  private static JsonReader replay(String json)
+  {
+    JsonReader in = new JsonReader(new StringReader(json));
+    in.setLenient(true);
+    return in;
+  }
+}
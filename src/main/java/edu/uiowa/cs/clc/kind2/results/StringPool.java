@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.results;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The strings one {@link Result} repeats in every analysis and trace, such as node, property and
+ * stream names, files and scopes, each kept once. Every json parse creates new strings for them,
+ * so without the pool a result holds one copy per analysis, attempt and counterexample.
+ * <p>
+ * The pool is bounded, and safe to use from traces decoded by concurrent readers.
+ */
+final class StringPool
+{
+  /**
+   * A pool that keeps nothing, for objects built outside a result.
+   */
+  static final StringPool none = new StringPool(0);
+
+  private final int maxStrings;
+  private final Map<String, String> strings = new ConcurrentHashMap<>();
+
+  StringPool()
+  {
+    this(1 << 16);
+  }
+
+  private StringPool(int maxStrings)
+  {
+    this.maxStrings = maxStrings;
+  }
+
+  /**
+   * Returns the pooled string equal to the given one, pooling it if needed.
+   *
+   * @param value the string, may be null
+   * @return an equal string, the same instance for every equal string while the pool has room
+   */
+  String intern(String value)
+  {
+    if (value == null)
+    {
+      return null;
+    }
+    String pooled = strings.get(value);
+    if (pooled != null)
+    {
+      return pooled;
+    }
+    if (strings.size() >= maxStrings)
+    {
+      return value;
+    }
+    pooled = strings.putIfAbsent(value, value);
+    return pooled == null ? value : pooled;
+  }
+
+  /**
+   * Returns the pool of an analysis, or a pool that keeps nothing for objects built outside a
+   * result.
+   *
+   * @param analysis the analysis, may be null
+   * @return the pool to use
+   */
+  static StringPool of(Analysis analysis)
+  {
+    return analysis == null ? none : analysis.getStrings();
+  }
+}
@@ -7,8 +7,8 @@
 
 package edu.uiowa.cs.clc.kind2.results;
 
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -21,11 +21,15 @@ public class SubNode
   /**
    * Kind2 json output for this object.
    */
-  private final String json;
+  private final JsonText json;
   /**
    * The name of the current component.
    */
   private final String name;
+  /**
+   * The name of the component, as printed.
+   */
+  private final String displayName;
 
   /**
    * The type of the current component. Can be "node", "function", or "state".
@@ -51,18 +55,30 @@ public class SubNode
    * @param jsonElement the Kind 2 json object describing the block
    */
   public SubNode(CounterExample counterExample, JsonElement jsonElement)
+  {
+    this(counterExample, jsonElement, 0);
+  }
+
+  /**
+   * Constructs a trace block at a depth below the top-level block, with the streams and the
+   * subcomponents its counterexample's filter keeps.
+   */
+  SubNode(CounterExample counterExample, JsonElement jsonElement, int depth)
   {
     this.counterExample = counterExample;
-    json = new GsonBuilder().setPrettyPrinting().create().toJson(jsonElement);
+    json = JsonText.of(jsonElement, getJsonRetention());
 
     if (jsonElement.isJsonArray())
     {
       jsonElement = jsonElement.getAsJsonArray().get(0);
     }
 
-    blockType = jsonElement.getAsJsonObject().get(Labels.blockType).getAsString();
-    name = jsonElement.getAsJsonObject().get(Labels.name).getAsString();
+    StringPool strings = getStrings();
+    blockType = strings.intern(jsonElement.getAsJsonObject().get(Labels.blockType).getAsString());
+    name = strings.intern(jsonElement.getAsJsonObject().get(Labels.name).getAsString());
+    displayName = getFormatting().display(name);
 
+    ParseFilter filter = getFilter();
     streams = new ArrayList<>();
     JsonElement streamElements = jsonElement.getAsJsonObject().get(Labels.streams);
 
@@ -72,37 +88,70 @@ public class SubNode
       {
         for (JsonElement element : streamElements.getAsJsonArray())
         {
-          Stream stream = new Stream(this, element);
-          streams.add(stream);
+          addStream(filter, element);
         }
       }
       else
       {
-        Stream stream = new Stream(this, streamElements);
-        streams.add(stream);
+        addStream(filter, streamElements);
       }
     }
     subNodes = new ArrayList<>();
     JsonElement subNodeElements = jsonElement.getAsJsonObject().get(Labels.subNodes);
 
-    if (subNodeElements != null)
+    if (subNodeElements != null && filter.keepsSubNodes(depth))
     {
       if (subNodeElements.isJsonArray())
       {
         for (JsonElement element : subNodeElements.getAsJsonArray())
         {
-          SubNode node = new SubNode(counterExample, element);
+          SubNode node = new SubNode(counterExample, element, depth + 1);
           subNodes.add(node);
         }
       }
       else
       {
-        SubNode node = new SubNode(counterExample, subNodeElements);
+        SubNode node = new SubNode(counterExample, subNodeElements, depth + 1);
         subNodes.add(node);
       }
     }
   }
 
+  private void addStream(ParseFilter filter, JsonElement element)
+  {
+    JsonObject object = element.getAsJsonObject();
+    if (filter.keepsStream(object.get(Labels.name).getAsString(),
+        object.get(Labels.classField).getAsString()))
+    {
+      streams.add(new Stream(this, element));
+    }
+  }
+
+  /**
+   * Constructs a trace block without streams or subcomponents for {@link StreamingDecoder}, which
+   * adds them afterwards. The block keeps no json.
+   */
+  SubNode(CounterExample counterExample, String name, String blockType)
+  {
+    this.counterExample = counterExample;
+    this.json = JsonText.none;
+    this.name = getStrings().intern(name);
+    this.displayName = getFormatting().display(this.name);
+    this.blockType = getStrings().intern(blockType);
+    this.streams = new ArrayList<>();
+    this.subNodes = new ArrayList<>();
+  }
+
+  void addStream(Stream stream)
+  {
+    streams.add(stream);
+  }
+
+  void addSubNode(SubNode subNode)
+  {
+    subNodes.add(subNode);
+  }
+
   /**
    * Returns the name of the current component.
    *
@@ -110,7 +159,47 @@ public class SubNode
    */
   public String getName()
   {
-    return Result.getOpeningSymbols() + name + Result.getClosingSymbols();
+    return displayName;
+  }
+
+  /**
+   * Returns the name of the component as Kind 2 printed it.
+   */
+  String getJsonName()
+  {
+    return name;
+  }
+
+  /**
+   * Returns how this block is printed, the formatting of its counterexample.
+   */
+  Formatting getFormatting()
+  {
+    return counterExample == null ? Result.getDefaultFormatting() : counterExample.getFormatting();
+  }
+
+  /**
+   * Returns the pool of the strings of its counterexample.
+   */
+  StringPool getStrings()
+  {
+    return counterExample == null ? StringPool.none : counterExample.getStrings();
+  }
+
+  /**
+   * Returns which parts of this block to build, the filter of its counterexample.
+   */
+  ParseFilter getFilter()
+  {
+    return counterExample == null ? ParseFilter.all : counterExample.getFilter();
+  }
+
+  /**
+   * Returns how the objects of this block keep their json, the retention of its counterexample.
+   */
+  JsonRetention getJsonRetention()
+  {
+    return counterExample == null ? JsonRetention.lazy : counterExample.getJsonRetention();
   }
 
   /**
@@ -156,7 +245,7 @@ public class SubNode
   @Override
   public String toString()
   {
-    return print(getMaxNameLength(), getMaxValueLength());
+    return TraceRenderer.all.toString(this);
   }
 
   /**
@@ -166,129 +255,6 @@ public class SubNode
    */
   public String getJson()
   {
-    return json;
-  }
-
-  /**
-   * @return the maximum string length of all variable names in order to align the string output of streams.
-   * This method is used internally and should not be public.
-   */
-  int getMaxNameLength()
-  {
-    int maxLength = 0;
-    for (Stream stream : streams)
-    {
-      if (stream.getName().length() > maxLength)
-      {
-        maxLength = stream.getName().length();
-      }
-    }
-
-    // visit sub nodes
-    for (SubNode node : subNodes)
-    {
-      int subNodeMaxLength = node.getMaxNameLength();
-      if (subNodeMaxLength > maxLength)
-      {
-        maxLength = subNodeMaxLength;
-      }
-    }
-
-    return maxLength;
-  }
-
-  /**
-   * @return the maximum string length of values in order to align values of streams.
-   * This method is used internally and should not be public.
-   */
-  int getMaxValueLength()
-  {
-    int maxLength = 0;
-    for (Stream stream : streams)
-    {
-      for (StepValue value : stream.getStepValues())
-      {
-        if (value.toString().length() > maxLength)
-        {
-          maxLength = value.toString().length();
-        }
-      }
-    }
-
-    // visit sub nodes
-    for (SubNode node : subNodes)
-    {
-      int subNodeMaxLength = node.getMaxValueLength();
-      if (subNodeMaxLength > maxLength)
-      {
-        maxLength = subNodeMaxLength;
-      }
-    }
-
-    return maxLength;
-  }
-
-  /**
-   * Print the result of this component in friendly format.
-   * @param maxNameLength the maximum string lengths of variable names in streams
-   * @param maxValueLength the maximum string length of values in streams.
-   * @return a friendly formatted string for this component.
-   */
-  String print(int maxNameLength, int maxValueLength)
-  {
-    StringBuilder stringBuilder = new StringBuilder();
-    stringBuilder.append("\n  Node " + name + ":\n");
-    stringBuilder.append("    == Inputs ==");
-    // first print the time
-    for (Stream stream : streams)
-    {
-      if (stream.getStreamClass().equals(Labels.input))
-      {
-        printStream(maxNameLength, maxValueLength, stringBuilder, stream);
-      }
-    }
-    stringBuilder.append("\n    == Outputs ==");
-
-    for (Stream stream : streams)
-    {
-      if (stream.getStreamClass().equals(Labels.output))
-      {
-        printStream(maxNameLength, maxValueLength, stringBuilder, stream);
-      }
-    }
-
-    stringBuilder.append("\n    == Locals ==");
-    for (Stream stream : streams)
-    {
-      if (stream.getStreamClass().equals(Labels.local))
-      {
-        printStream(maxNameLength, maxValueLength, stringBuilder, stream);
-      }
-    }
-
-    // visit sub nodes
-    for (SubNode node : subNodes)
-    {
-      stringBuilder.append(node.print(maxNameLength, maxValueLength));
-    }
-
-    return stringBuilder.toString();
-  }
-
-  /**
-   * Print the result of a given stream in friendly format.
-   * @param maxNameLength the maximum string lengths of variable names in streams.
-   * @param maxValueLength the maximum string length of values in streams.
-   * @param stringBuilder used to append a friendly formatted string for the given stream.
-   */
-  private void printStream(int maxNameLength, int maxValueLength, StringBuilder stringBuilder, Stream stream)
-  {
-    String streamName = String.format("%-" + maxNameLength + "s", stream.getName());
-    stringBuilder.append("\n    " + streamName + "\t");
-    for (StepValue value : stream.getStepValues())
-    {
-      String paddedValue = String.format("%1$" + maxValueLength + "s", value.print());
-      stringBuilder.append(paddedValue + "\t");
-    }
+    return json.getJson();
   }
 }
@@ -9,6 +9,8 @@ package edu.uiowa.cs.clc.kind2.results;
 
 import com.google.gson.JsonElement;
 
+import java.math.BigInteger;
+
 /**
  * value for a kind2 subrange.
  */
@@ -25,4 +27,10 @@ public class SubRangeValue extends IntValue
   {
     super(kind2StepValue, kind2Type, jsonElement);
   }
+
+  SubRangeValue(StepValue kind2StepValue, Type kind2Type, JsonElement jsonElement,
+      BigInteger value)
+  {
+    super(kind2StepValue, kind2Type, jsonElement, value);
+  }
 }
@@ -118,7 +118,7 @@ public class Suggestion
       StringBuilder stringBuilder = new StringBuilder();
       stringBuilder.append(property.toString());
 
-      if (Result.isPrintingUnknownCounterExamplesEnabled())
+      if (nodeResult.getFormatting().isPrintingUnknownCounterExamplesEnabled())
       {
         List<Property> propertyList = nodeResult.getLastAnalysis()
                                                      .getPropertiesMap().get(property.getJsonName());
@@ -251,7 +251,7 @@ public class Suggestion
     {
       suggestion.explanations.add(String.format("%1$s is a direct subcomponent of %2$s, "
               + "but one or more assumptions of %1$s are not satisfied by %2$s.",
-          Result.getOpeningSymbols()  + subcomponent.getKey() + Result.getClosingSymbols(),
+          nodeResult.getFormatting().display(subcomponent.getKey()),
           nodeResult.getName()));
 
       suggestion.explanations.add("Falsified assumptions:");
@@ -259,7 +259,7 @@ public class Suggestion
       for (Property assumption : subcomponent.getValue())
       {
         suggestion.explanations.add(assumption.getQualifiedName());
-        if (Result.isPrintingCounterExamplesEnabled())
+        if (nodeResult.getFormatting().isPrintingCounterExamplesEnabled())
         {
           suggestion.explanations.add(assumption.getCounterExample().toString());
         }
@@ -270,7 +270,7 @@ public class Suggestion
             "or remove components: %2$s.",
         nodeResult.getName(),
         subComponents.keySet()
-                .stream().map(n -> Result.getOpeningSymbols()  + n + Result.getClosingSymbols())
+                .stream().map(nodeResult.getFormatting()::display)
                 .collect(Collectors.toSet()));
     return suggestion;
   }
@@ -303,7 +303,7 @@ public class Suggestion
           assumption.getName(),
           assumption.getScope(),
           nodeResult.getName()));
-      if (Result.isPrintingCounterExamplesEnabled())
+      if (nodeResult.getFormatting().isPrintingCounterExamplesEnabled())
       {
         suggestion.explanations.add(assumption.getCounterExample().toString());
       }
@@ -316,11 +316,11 @@ public class Suggestion
     suggestion.explanations.add("\nFalsified Properties:");
     Set<Property> falsifiedProperties = nodeResult.getLastAnalysis().getFalsifiedProperties()
                                                        .stream().filter(p -> p.getSource() != PropertyType.assumption)
-                                                       .collect(Collectors.toSet());
+                                                       .collect(Collectors.toCollection(LinkedHashSet::new));
     for (Property property : falsifiedProperties)
     {
       suggestion.explanations.add(property.toString());
-      if (Result.isPrintingCounterExamplesEnabled())
+      if (nodeResult.getFormatting().isPrintingCounterExamplesEnabled())
       {
         suggestion.explanations.add(property.getCounterExample().toString());
       }
@@ -351,7 +351,7 @@ public class Suggestion
     for (Property property : falsifiedProperties)
     {
       suggestion.explanations.add(property.toString());
-      if (Result.isPrintingCounterExamplesEnabled())
+      if (nodeResult.getFormatting().isPrintingCounterExamplesEnabled())
       {
         suggestion.explanations.add(property.getCounterExample().toString());
       }
@@ -372,7 +372,7 @@ public class Suggestion
     {
       suggestion.explanations.add(property.toString());
       subComponents.add(property.getScope());
-      if (Result.isPrintingCounterExamplesEnabled())
+      if (nodeResult.getFormatting().isPrintingCounterExamplesEnabled())
       {
         suggestion.explanations.add(property.getCounterExample().toString());
       }
@@ -381,7 +381,7 @@ public class Suggestion
     for (Property property : nodeResult.getLastAnalysis().getFalsifiedProperties())
     {
       suggestion.explanations.add(property.toString());
-      if (Result.isPrintingCounterExamplesEnabled())
+      if (nodeResult.getFormatting().isPrintingCounterExamplesEnabled())
       {
         suggestion.explanations.add(property.getCounterExample().toString());
       }
@@ -416,7 +416,7 @@ public class Suggestion
     for (Property property : modeAnalysis.getFalsifiedProperties())
     {
       suggestion.explanations.add(property.toString());
-      if (Result.isPrintingCounterExamplesEnabled())
+      if (nodeResult.getFormatting().isPrintingCounterExamplesEnabled())
       {
         suggestion.explanations.add(property.getCounterExample().toString());
       }
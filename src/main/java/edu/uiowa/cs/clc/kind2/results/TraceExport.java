@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.results;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the streams of a {@link CounterExample} for tools outside this library, as CSV or as
+ * columns. Both walk the stream columns and write each value as they reach it, so neither builds
+ * the table, nor a string per cell for values other than reals.
+ * <p>
+ * Streams are named by the path of their trace blocks, as in {@code main.f.x}, using the names as
+ * Kind 2 prints them, without the opening and closing symbols of the {@link Formatting}, and
+ * listed depth first in the order of the trace.
+ * <p>
+ * The columnar form uses the primitives of {@link BinaryOutput}: {@link #magic}, the
+ * {@link #version}, the number of steps and the number of streams, then for each stream its name,
+ * class and type through the string table, followed by its values as a trace block of the binary
+ * form of a result lists them.
+ */
+final class TraceExport
+{
+  static final byte[] magic = {'K', '2', 'T', 'C'};
+  static final int version = 2;
+
+  private final Formatting formatting;
+  private final List<Stream> streams = new ArrayList<>();
+  private final List<String> names = new ArrayList<>();
+
+  TraceExport(CounterExample counterExample)
+  {
+    this.formatting = counterExample.getFormatting();
+    add(counterExample.getTopNode(), "");
+  }
+
+  private void add(SubNode node, String prefix)
+  {
+    String path = prefix + node.getJsonName() + ".";
+    for (Stream stream : node.getStreams())
+    {
+      streams.add(stream);
+      names.add(path + stream.getJsonName());
+    }
+    for (SubNode subNode : node.getSubNodes())
+    {
+      add(subNode, path);
+    }
+  }
+
+  /**
+   * Returns the number of steps of the trace, one past the last step index of any stream.
+   */
+  int getSteps()
+  {
+    int steps = 0;
+    for (Stream stream : streams)
+    {
+      int size = stream.getColumn().size;
+      if (size > 0)
+      {
+        steps = Math.max(steps, stream.getTime(size - 1) + 1);
+      }
+    }
+    return steps;
+  }
+
+  /**
+   * Writes a header row with {@code step} and the name of each stream, then one row per step, as
+   * RFC 4180 CSV. A stream without a value at a step has an empty cell.
+   *
+   * @param out where to write, flushed but not closed
+   * @throws IOException if the trace cannot be written
+   */
+  void writeCsv(OutputStream out) throws IOException
+  {
+    Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    StringBuilder row = new StringBuilder("step");
+    for (String name : names)
+    {
+      row.append(',');
+      int start = row.length();
+      row.append(name);
+      quote(row, start);
+    }
+    row.append("\r\n");
+    char[] chars = write(writer, row, new char[1024]);
+
+    int[] next = new int[streams.size()];
+    int steps = getSteps();
+    for (int step = 0; step < steps; step++)
+    {
+      row.setLength(0);
+      row.append(step);
+      for (int i = 0; i < next.length; i++)
+      {
+        row.append(',');
+        Stream stream = streams.get(i);
+        if (next[i] < stream.getColumn().size && stream.getTime(next[i]) == step)
+        {
+          int start = row.length();
+          stream.getColumn().print(next[i]++, formatting, row);
+          quote(row, start);
+        }
+      }
+      row.append("\r\n");
+      chars = write(writer, row, chars);
+    }
+    writer.flush();
+  }
+
+  /**
+   * Writes a row through a reused buffer, rather than as a string.
+   *
+   * @return the buffer, grown if the row did not fit
+   */
+  private static char[] write(Writer writer, StringBuilder row, char[] chars) throws IOException
+  {
+    if (chars.length < row.length())
+    {
+      chars = new char[Math.max(row.length(), chars.length * 2)];
+    }
+    row.getChars(0, row.length(), chars, 0);
+    writer.write(chars, 0, row.length());
+    return chars;
+  }
+
+  /**
+   * Quotes the cell that starts at an index of a row, if it holds a separator, a quote or a line
+   * break.
+   */
+  private static void quote(StringBuilder row, int start)
+  {
+    boolean quoted = false;
+    for (int i = start; i < row.length() && !quoted; i++)
+    {
+      char c = row.charAt(i);
+      quoted = c == ',' || c == '"' || c == '\n' || c == '\r';
+    }
+    if (!quoted)
+    {
+      return;
+    }
+    for (int i = row.length() - 1; i >= start; i--)
+    {
+      if (row.charAt(i) == '"')
+      {
+        row.insert(i, '"');
+      }
+    }
+    row.insert(start, '"').append('"');
+  }
+
+  /**
+   * Writes the trace in its columnar form.
+   *
+   * @param out where to write, flushed but not closed
+   * @throws IOException if the trace cannot be written
+   */
+  void writeColumns(OutputStream out) throws IOException
+  {
+    BinaryOutput binary = new BinaryOutput(out);
+    binary.writeBytes(magic);
+    binary.writeVarint(version);
+    binary.writeVarint(getSteps());
+    binary.writeVarint(streams.size());
+    for (int i = 0; i < streams.size(); i++)
+    {
+      Stream stream = streams.get(i);
+      binary.writeString(names.get(i));
+      binary.writeString(stream.getStreamClass());
+      binary.writeString(BinaryEncoder.typeName(stream.getKind2Type()));
+      BinaryEncoder.writeValues(binary, stream);
+    }
+    binary.flush();
+  }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.results;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Answers the questions asked of a {@link CounterExample} over and over, such as the value of a
+ * stream at a step, the first step where a stream is false, or every stream of a given name,
+ * without scanning its blocks and comparing printed names.
+ * <p>
+ * Trace blocks and streams are indexed once by path, the names of the blocks from the top-level
+ * one down and then the name of the stream, joined by dots, as in {@code main.f.x}. Paths use the
+ * names as Kind 2 prints them, without the opening and closing symbols of the
+ * {@link Formatting}. When two blocks or streams have the same path, the first one depth first is
+ * indexed.
+ * <p>
+ * A value is found in constant time when every step of its stream has a value, and by binary
+ * search otherwise. Scans test one value per run of equal values, and test the booleans and
+ * integers of the stream columns without creating {@link Value} objects.
+ */
+public final class TraceQuery
+{
+  private final Map<String, SubNode> blocks = new HashMap<>();
+  private final Map<String, Stream> streams = new HashMap<>();
+  private final Map<String, List<Stream>> names = new HashMap<>();
+  private int steps;
+
+  TraceQuery(CounterExample counterExample)
+  {
+    add(counterExample.getTopNode(), "");
+  }
+
+  private void add(SubNode node, String prefix)
+  {
+    String path = prefix + node.getJsonName();
+    blocks.putIfAbsent(path, node);
+    for (Stream stream : node.getStreams())
+    {
+      streams.putIfAbsent(path + "." + stream.getJsonName(), stream);
+      names.computeIfAbsent(stream.getJsonName(), name -> new ArrayList<>()).add(stream);
+      int size = stream.getColumn().size;
+      if (size > 0)
+      {
+        steps = Math.max(steps, stream.getTime(size - 1) + 1);
+      }
+    }
+    for (SubNode subNode : node.getSubNodes())
+    {
+      add(subNode, path + ".");
+    }
+  }
+
+  /**
+   * Returns the number of steps of the trace, one past the last step of any stream.
+   *
+   * @return the number of steps
+   */
+  public int getSteps()
+  {
+    return steps;
+  }
+
+  /**
+   * Returns the trace block at a path, such as {@code main.f}.
+   *
+   * @param path the names of the blocks from the top-level one, joined by dots
+   * @return the block, or null if there is none at the path
+   */
+  public SubNode getBlock(String path)
+  {
+    return blocks.get(path);
+  }
+
+  /**
+   * Returns the stream at a path, such as {@code main.f.x}.
+   *
+   * @param path the path of its block, a dot and the name of the stream
+   * @return the stream, or null if there is none at the path
+   */
+  public Stream getStream(String path)
+  {
+    return streams.get(path);
+  }
+
+  /**
+   * Returns every stream with a name, in any trace block, depth first.
+   *
+   * @param name the name of the streams, as Kind 2 prints it
+   * @return the streams, empty if no stream has the name
+   */
+  public List<Stream> getStreams(String name)
+  {
+    List<Stream> named = names.get(name);
+    return named == null ? Collections.<Stream>emptyList() : Collections.unmodifiableList(named);
+  }
+
+  /**
+   * Returns the value of a stream at a step.
+   *
+   * @param stream a stream of the trace
+   * @param step the step
+   * @return the value, or null if the stream has no value at the step
+   */
+  public StepValue getStepValue(Stream stream, int step)
+  {
+    int index = stream.indexOf(step);
+    return index < 0 ? null : new StepValue(stream, index);
+  }
+
+  /**
+   * Returns the value of the stream at a path at a step.
+   *
+   * @param path the path of the stream, as in {@link #getStream(String)}
+   * @param step the step
+   * @return the value, or null if there is no stream at the path or it has no value at the step
+   */
+  public StepValue getStepValue(String path, int step)
+  {
+    Stream stream = getStream(path);
+    return stream == null ? null : getStepValue(stream, step);
+  }
+
+  /**
+   * Returns the value of a boolean stream at a step.
+   *
+   * @param stream a stream of type bool
+   * @param step the step
+   * @return the value
+   * @throws IllegalArgumentException if the stream is not boolean or has no value at the step
+   */
+  public boolean getBool(Stream stream, int step)
+  {
+    checkType(stream, stream.getKind2Type() instanceof Bool);
+    return stream.getColumn().getBool(index(stream, step));
+  }
+
+  /**
+   * Returns the value of an integer stream at a step.
+   *
+   * @param stream a stream of type int or of a subrange of int
+   * @param step the step
+   * @return the value
+   * @throws IllegalArgumentException if the stream is not integer or has no value at the step
+   * @throws ArithmeticException if the value does not fit a long
+   */
+  public long getLong(Stream stream, int step)
+  {
+    checkType(stream, isInteger(stream));
+    int index = index(stream, step);
+    if (!stream.getColumn().fitsLong(index))
+    {
+      throw new ArithmeticException(
+          "The value of " + stream.getJsonName() + " at step " + step + " does not fit a long");
+    }
+    return stream.getColumn().getLong(index);
+  }
+
+  /**
+   * Returns the first step where a boolean stream has a value, as in the first step where a
+   * property stream becomes false.
+   *
+   * @param stream a stream of type bool
+   * @param value the value to look for
+   * @return the step, or -1 if the stream never has the value
+   * @throws IllegalArgumentException if the stream is not boolean
+   */
+  public int firstStep(Stream stream, boolean value)
+  {
+    checkType(stream, stream.getKind2Type() instanceof Bool);
+    StreamColumn column = stream.getColumn();
+    for (int run = 0; run < column.getRuns(); run++)
+    {
+      int index = column.getRunStart(run);
+      if (column.getBool(index) == value)
+      {
+        return stream.getTime(index);
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the first step where the value of an integer stream matches a predicate. Values that
+   * do not fit a long never match.
+   *
+   * @param stream a stream of type int or of a subrange of int
+   * @param predicate the test of the values
+   * @return the step, or -1 if no value matches
+   * @throws IllegalArgumentException if the stream is not integer
+   */
+  public int firstLongStep(Stream stream, LongPredicate predicate)
+  {
+    checkType(stream, isInteger(stream));
+    StreamColumn column = stream.getColumn();
+    for (int run = 0; run < column.getRuns(); run++)
+    {
+      int index = column.getRunStart(run);
+      if (column.fitsLong(index) && predicate.test(column.getLong(index)))
+      {
+        return stream.getTime(index);
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the first step where the value of a stream of any type matches a predicate. The
+   * predicate is called once per run of equal values.
+   *
+   * @param stream a stream of the trace
+   * @param predicate the test of the values
+   * @return the step, or -1 if no value matches
+   */
+  public int firstValueStep(Stream stream, Predicate<Value> predicate)
+  {
+    StreamColumn column = stream.getColumn();
+    for (int run = 0; run < column.getRuns(); run++)
+    {
+      int index = column.getRunStart(run);
+      if (predicate.test(new StepValue(stream, index).getKind2Value()))
+      {
+        return stream.getTime(index);
+      }
+    }
+    return -1;
+  }
+
+  private static boolean isInteger(Stream stream)
+  {
+    return stream.getKind2Type() instanceof Int || stream.getKind2Type() instanceof SubRange;
+  }
+
+  private static void checkType(Stream stream, boolean matches)
+  {
+    if (!matches)
+    {
+      throw new IllegalArgumentException(
+          "Stream " + stream.getJsonName() + " is of type " + stream.getKind2Type());
+    }
+  }
+
+  private static int index(Stream stream, int step)
+  {
+    int index = stream.indexOf(step);
+    if (index < 0)
+    {
+      throw new IllegalArgumentException(
+          "Stream " + stream.getJsonName() + " has no value at step " + step);
+    }
+    return index;
+  }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.results;
+
+import edu.uiowa.cs.clc.kind2.Kind2Exception;
+
+import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Prints counterexamples as the table {@link CounterExample#toString()} returns: for each trace
+ * block, its inputs, outputs and locals, one stream per line, with names and values padded to the
+ * widest of the trace. A renderer can print a range of steps and the streams that match a filter
+ * only. Renderers never change; the {@code with} methods return modified copies.
+ * <p>
+ * The values to print are turned into strings once, while the widths are measured, and the table
+ * is written straight to an {@link Appendable}, so that printing a trace takes time and memory
+ * linear in the printed part.
+ */
+public final class TraceRenderer
+{
+  /**
+   * The renderer of {@link CounterExample#toString()}: every step of every stream.
+   */
+  public static final TraceRenderer all = new TraceRenderer(0, Integer.MAX_VALUE, stream -> true);
+
+  private final int fromStep;
+  private final int toStep;
+  private final Predicate<Stream> filter;
+
+  private TraceRenderer(int fromStep, int toStep, Predicate<Stream> filter)
+  {
+    this.fromStep = fromStep;
+    this.toStep = toStep;
+    this.filter = filter;
+  }
+
+  /**
+   * Returns a copy of this renderer that prints the values of a range of steps only.
+   *
+   * @param fromStep the first step to print
+   * @param toStep the step after the last one to print
+   * @return the modified renderer
+   * @throws IllegalArgumentException if the range is empty or negative
+   */
+  public TraceRenderer withSteps(int fromStep, int toStep)
+  {
+    if (fromStep < 0 || toStep <= fromStep)
+    {
+      throw new IllegalArgumentException("Invalid step range [" + fromStep + ", " + toStep + ")");
+    }
+    return new TraceRenderer(fromStep, toStep, filter);
+  }
+
+  /**
+   * Returns a copy of this renderer that prints the streams that match a filter only. Trace blocks
+   * are printed even if none of their streams match.
+   *
+   * @param filter whether to print a stream
+   * @return the modified renderer
+   */
+  public TraceRenderer withStreams(Predicate<Stream> filter)
+  {
+    return new TraceRenderer(fromStep, toStep, filter);
+  }
+
+  /**
+   * Prints a counterexample.
+   *
+   * @param counterExample the counterexample to print
+   * @param out where to print the counterexample
+   * @throws IOException if the counterexample cannot be written
+   */
+  public void render(CounterExample counterExample, Appendable out) throws IOException
+  {
+    out.append("Counterexample:");
+    new Table(counterExample.getFormatting(), counterExample.getTopNode()).render(out);
+  }
+
+  /**
+   * Prints a trace block and the blocks of its subcomponents.
+   *
+   * @param node the trace block to print
+   * @param out where to print the block
+   * @throws IOException if the block cannot be written
+   */
+  public void render(SubNode node, Appendable out) throws IOException
+  {
+    new Table(node.getFormatting(), node).render(out);
+  }
+
+  /**
+   * Returns a counterexample as {@link #render(CounterExample, Appendable)} prints it.
+   */
+  String toString(CounterExample counterExample)
+  {
+    StringBuilder builder = new StringBuilder();
+    try
+    {
+      render(counterExample, builder);
+    }
+    catch (IOException e)
+    {
+      // a string builder does not throw
+      throw new Kind2Exception("Failed to print counterexample", e);
+    }
+    return builder.toString();
+  }
+
+  /**
+   * Returns a trace block as {@link #render(SubNode, Appendable)} prints it.
+   */
+  String toString(SubNode node)
+  {
+    StringBuilder builder = new StringBuilder();
+    try
+    {
+      render(node, builder);
+    }
+    catch (IOException e)
+    {
+      // a string builder does not throw
+      throw new Kind2Exception("Failed to print counterexample", e);
+    }
+    return builder.toString();
+  }
+
+  /**
+   * The printed values of the streams of one trace, and the widths of its columns.
+   */
+  private class Table
+  {
+    private final Formatting formatting;
+    private final SubNode top;
+    private final Map<Stream, String[]> values = new IdentityHashMap<>();
+    private int nameWidth;
+    private int valueWidth;
+
+    Table(Formatting formatting, SubNode top)
+    {
+      this.formatting = formatting;
+      this.top = top;
+      measure(top);
+    }
+
+    private void measure(SubNode node)
+    {
+      for (Stream stream : node.getStreams())
+      {
+        if (!filter.test(stream))
+        {
+          continue;
+        }
+        StreamColumn column = stream.getColumn();
+        int from = stream.indexFrom(fromStep);
+        int to = stream.indexFrom(toStep);
+        String[] printed = new String[to - from];
+        for (int i = 0; i < printed.length; i++)
+        {
+          printed[i] = column.print(from + i, formatting);
+          valueWidth = Math.max(valueWidth, printed[i].length());
+        }
+        values.put(stream, printed);
+        nameWidth = Math.max(nameWidth, stream.getName().length());
+      }
+      for (SubNode subNode : node.getSubNodes())
+      {
+        measure(subNode);
+      }
+    }
+
+    void render(Appendable out) throws IOException
+    {
+      render(top, out);
+    }
+
+    private void render(SubNode node, Appendable out) throws IOException
+    {
+      out.append("\n  Node ").append(node.getJsonName()).append(":\n");
+      out.append("    == Inputs ==");
+      render(node, Labels.input, out);
+      out.append("\n    == Outputs ==");
+      render(node, Labels.output, out);
+      out.append("\n    == Locals ==");
+      render(node, Labels.local, out);
+      for (SubNode subNode : node.getSubNodes())
+      {
+        render(subNode, out);
+      }
+    }
+
+    private void render(SubNode node, String streamClass, Appendable out) throws IOException
+    {
+      for (Stream stream : node.getStreams())
+      {
+        String[] printed = values.get(stream);
+        if (printed == null || !stream.getStreamClass().equals(streamClass))
+        {
+          continue;
+        }
+        out.append("\n    ").append(stream.getName());
+        pad(out, nameWidth - stream.getName().length());
+        out.append('\t');
+        for (String value : printed)
+        {
+          pad(out, valueWidth - value.length());
+          out.append(value).append('\t');
+        }
+      }
+    }
+
+    private void pad(Appendable out, int spaces) throws IOException
+    {
+      for (int i = 0; i < spaces; i++)
+      {
+        out.append(' ');
+      }
+    }
+  }
+}
@@ -10,11 +10,27 @@ import edu.uiowa.cs.clc.kind2.Kind2Exception;
 
 import com.google.gson.JsonElement;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * An abstract class for all kind2 types.
  */
 abstract public class Type
 {
+  /**
+   * The number of canonical types kept, so that a long-running process seeing many programs does
+   * not keep every enumeration it ever saw.
+   */
+  private static final int maxInterned = 4096;
+  /**
+   * The canonical type of each type name, with the base type and dimension of arrays.
+   */
+  private static final Map<String, Type> interned = new ConcurrentHashMap<>();
+  private static final Bool bool = new Bool();
+  private static final Int integer = new Int();
+  private static final Real real = new Real();
+
   /**
    * The name of this type.
    */
@@ -51,6 +67,8 @@ abstract public class Type
 
   /**
    * Returns the type denoted by the given Kind 2 type name and structured type information.
+   * Types are immutable, so the same instance is returned for the same type name and, for arrays,
+   * the same base type and number of dimensions.
    *
    * @param typeString the Kind 2 type name
    * @param typeInfo the structured type information, used for array and subrange types
@@ -61,7 +79,7 @@ abstract public class Type
     switch (typeString)
     {
       case "bool":
-        return new Bool();
+        return bool;
       case "int":
       case "uint8":
       case "uint16":
@@ -72,36 +90,68 @@ abstract public class Type
       case "int32":
       case "int64":
       case "subrange":
-        return new Int();
+        return integer;
       case "real":
-        return new Real();
+        return real;
       case "array":
         if (typeInfo == null) throw new Kind2Exception("Array with no type info found");
         String baseType =  typeInfo.getAsJsonObject().get(Labels.baseType).getAsString();
         int numIndicies = typeInfo.getAsJsonObject().get("sizes").getAsJsonArray().size();
-        return makeNestedArray(baseType, numIndicies);
+        String key = "array\u0000" + baseType + "\u0000" + numIndicies;
+        Type array = interned.get(key);
+        if (array == null)
+        {
+          array = intern(key, makeNestedArray(baseType, numIndicies));
+        }
+        return array;
       default:
       {
-        if (typeString.matches("subrange \\[.*?\\] of int"))
+        Type type = interned.get(typeString);
+        if (type == null)
         {
-          String [] range = typeString.replaceAll("subrange \\[", "")
-                                .replaceAll("\\] of int", "").split(",");
-          int min = Integer.parseInt(range[0]);
-          int max = Integer.parseInt(range[0]);
-          return new SubRange(min, max);
+          type = intern(typeString, makeType(typeString));
         }
+        return type;
+      }
+    }
+  }
+
+  private static Type intern(String key, Type type)
+  {
+    if (interned.size() >= maxInterned)
+    {
+      return type;
+    }
+    Type canonical = interned.putIfAbsent(key, type);
+    return canonical == null ? type : canonical;
+  }
 
-        if (typeString.startsWith("array of"))
+  private static Type makeType(String typeString)
+  {
+    // subrange [min, max] of int
+    Kind2Lexer lexer = new Kind2Lexer(typeString);
+    if (lexer.skip("subrange") && lexer.skip("["))
+    {
+      int min = lexer.integer();
+      if (lexer.skip(","))
+      {
+        int max = lexer.integer();
+        if (lexer.skip("]") && lexer.skip("of") && lexer.skip("int") && lexer.atEnd())
         {
-          String elementTypeName = typeString.replaceFirst("array of", "").trim();
-          Type elementType = getType(elementTypeName);
-          return new Array(elementType);
+          return new SubRange(min, max);
         }
-
-        // the type is enum
-        return new Enum(typeString);
       }
     }
+
+    // array of type
+    lexer = new Kind2Lexer(typeString);
+    if (lexer.skip("array of"))
+    {
+      return new Array(getType(lexer.rest()));
+    }
+
+    // the type is enum
+    return new Enum(typeString);
   }
 
   @Override
@@ -7,7 +7,6 @@
 
 package edu.uiowa.cs.clc.kind2.results;
 
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import java.util.ArrayList;
@@ -21,7 +20,7 @@ abstract public class Value
   /**
    * Kind2 json output for this object
    */
-  private final String json;
+  private final JsonText json;
   private final StepValue kind2StepValue;
   private final Type kind2Type;
 
@@ -29,9 +28,11 @@ abstract public class Value
   {
     this.kind2StepValue = kind2StepValue;
     this.kind2Type = kind2Type;
-    json = new GsonBuilder().setPrettyPrinting().create().toJson(jsonElement);
+    json = JsonText.of(jsonElement,
+        kind2StepValue == null ? JsonRetention.lazy : kind2StepValue.getJsonRetention());
   }
 
+
   /**
    * Returns the type of this value.
    *
@@ -62,6 +63,15 @@ abstract public class Value
     return kind2StepValue.getKind2Result();
   }
 
+  /**
+   * Returns how this value is printed, the formatting of its step, or the default formatting for a
+   * value built on its own.
+   */
+  Formatting getFormatting()
+  {
+    return kind2StepValue == null ? Result.getDefaultFormatting() : kind2StepValue.getFormatting();
+  }
+
   /**
    * Constructs the value of the appropriate subclass for the given type.
    *
@@ -120,7 +130,7 @@ abstract public class Value
    */
   public String getJson()
   {
-    return json;
+    return json.getJson();
   }
 
   @Override
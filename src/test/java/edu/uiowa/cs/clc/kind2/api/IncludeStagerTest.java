@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class IncludeStagerTest {
+  private static void write(Path file, String content) throws IOException {
+    Files.createDirectories(file.getParent());
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String read(Path file) throws IOException {
+    return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  void includesSkipsComments() {
+    String program = "include \"a.lus\"\n-- include \"b.lus\"\n(* include \"c.lus\" *)\n"
+        + "include \"lib/d.lus\" -- trailing\n";
+    assertEquals(Arrays.asList("a.lus", "lib/d.lus"), IncludeStager.includes(program));
+  }
+
+  @Test
+  void stageCopiesTransitiveIncludes() throws IOException {
+    Path tmp = Files.createTempDirectory("kind2-stager-test");
+    Path lib = tmp.resolve("lib");
+    write(lib.resolve("a.lus"), "include \"sub/b.lus\"\nnode A() returns (); let tel");
+    write(lib.resolve("sub/b.lus"), "node B() returns (); let tel");
+    write(lib.resolve("unused.lus"), "node C() returns (); let tel");
+    IncludeStager stager = new IncludeStager(tmp.resolve("cache"), IncludeStager.DEFAULT_MAX_BYTES);
+
+    List<String> staged = stager.stage("include \"a.lus\"", Collections.singletonList(lib.toString()));
+    assertEquals(1, staged.size());
+    Path tree = Paths.get(staged.get(0));
+    assertTrue(tree.startsWith(stager.getRoot()));
+    assertEquals(read(lib.resolve("a.lus")), read(tree.resolve("a.lus")));
+    assertEquals(read(lib.resolve("sub/b.lus")), read(tree.resolve("sub/b.lus")));
+    assertTrue(!Files.exists(tree.resolve("unused.lus")));
+
+    // unchanged sources reuse the same tree
+    assertEquals(staged,
+        stager.stage("include \"a.lus\"", Collections.singletonList(lib.toString())));
+
+    // a changed source produces a new tree
+    write(lib.resolve("sub/b.lus"), "node B2() returns (); let tel");
+    Files.setLastModifiedTime(lib.resolve("sub/b.lus"),
+        FileTime.fromMillis(System.currentTimeMillis() + 5000));
+    List<String> restaged =
+        stager.stage("include \"a.lus\"", Collections.singletonList(lib.toString()));
+    assertNotEquals(staged, restaged);
+    assertEquals("node B2() returns (); let tel",
+        read(Paths.get(restaged.get(0)).resolve("sub/b.lus")));
+  }
+
+  @Test
+  void stageKeepsOriginalDirsForMissingIncludes() throws IOException {
+    Path tmp = Files.createTempDirectory("kind2-stager-test");
+    Path lib = tmp.resolve("lib");
+    Files.createDirectories(lib);
+    IncludeStager stager = new IncludeStager(tmp.resolve("cache"), IncludeStager.DEFAULT_MAX_BYTES);
+
+    List<String> staged =
+        stager.stage("include \"missing.lus\"", Collections.singletonList(lib.toString()));
+    assertTrue(staged.contains(lib.toAbsolutePath().normalize().toString())
+        || staged.contains(lib.toString()));
+  }
+
+  @Test
+  void collectGarbageSparesRecentCopiesAndRemovesAbandonedStaging() throws IOException {
+    Path tmp = Files.createTempDirectory("kind2-stager-test");
+    Path lib = tmp.resolve("lib");
+    write(lib.resolve("a.lus"), "node A() returns (); let tel");
+    write(lib.resolve("b.lus"), "node B() returns (); let tel");
+    IncludeStager stager = new IncludeStager(tmp.resolve("cache"), 0);
+    List<String> dirs = Collections.singletonList(lib.toString());
+    Path old = Paths.get(stager.stage("include \"a.lus\"", dirs).get(0));
+    Path recent = Paths.get(stager.stage("include \"b.lus\"", dirs).get(0));
+    FileTime expired =
+        FileTime.fromMillis(System.currentTimeMillis() - 2 * IncludeStager.GRACE_PERIOD_MILLIS);
+    Files.setLastModifiedTime(old, expired);
+    Path abandoned = stager.getRoot().resolve(".staging-abandoned");
+    write(abandoned.resolve("a.lus"), "node A() returns (); let tel");
+    Files.setLastModifiedTime(abandoned, expired);
+    Path staging = stager.getRoot().resolve(".staging-running");
+    write(staging.resolve("b.lus"), "node B() returns (); let tel");
+
+    stager.collectGarbage();
+    assertFalse(Files.exists(old));
+    assertTrue(Files.exists(recent));
+    assertFalse(Files.exists(abandoned));
+    assertTrue(Files.exists(staging));
+
+    // a copy evicted by another process is staged again
+    assertEquals(old.toString(), stager.stage("include \"a.lus\"", dirs).get(0));
+    assertTrue(Files.exists(old.resolve("a.lus")));
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+import edu.uiowa.cs.clc.kind2.Kind2Exception;
+import edu.uiowa.cs.clc.kind2.results.Result;
+
+class JournalTest {
+  private static String readFile(String name) throws IOException {
+    return new String(Files.readAllBytes(Paths.get("files", name)), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Properties are kept in hash sets, so only the lines of a printed result are comparable.
+   */
+  private static List<String> sortedLines(Result result) {
+    List<String> lines = Arrays.asList(result.toString().split("\n"));
+    Collections.sort(lines);
+    return lines;
+  }
+
+  private static byte[] record(JsonArray elements, boolean compress, long stepNanos)
+      throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (JournalWriter writer = new JournalWriter(bytes, compress)) {
+      long offset = 0;
+      for (JsonElement element : elements) {
+        writer.write(element, offset);
+        offset += stepNanos;
+      }
+    }
+    return bytes.toByteArray();
+  }
+
+  @Test
+  void closesTheStreamIfTheHeaderCannotBeWritten() {
+    AtomicInteger closed = new AtomicInteger();
+    OutputStream failing = new OutputStream() {
+      @Override
+      public void write(int b) throws IOException {
+        throw new IOException("disk full");
+      }
+
+      @Override
+      public void close() {
+        closed.incrementAndGet();
+      }
+    };
+    assertThrows(IOException.class, () -> new JournalWriter(failing, true));
+    assertEquals(1, closed.get());
+  }
+
+  @Test
+  void replayMatchesDirectParse() throws Exception {
+    String json = readFile("S1.json");
+    JsonArray elements = JsonParser.parseString(json).getAsJsonArray();
+    List<String> expected = sortedLines(Result.analyzeJsonResult(json));
+    for (boolean compress : new boolean[] {false, true}) {
+      JournalReplayer replayer =
+          new JournalReplayer(new ByteArrayInputStream(record(elements, compress, 1500)));
+      Result result = new Result();
+      AtomicInteger updates = new AtomicInteger();
+      replayer.replay(result, r -> updates.incrementAndGet(), false);
+      assertEquals(expected, sortedLines(result));
+      assertEquals(elements.size(), updates.get());
+      assertNull(replayer.next());
+      assertEquals((elements.size() - 1) * 1500L, replayer.getOffsetNanos());
+    }
+  }
+
+  @Test
+  void pacedReplayKeepsArrivalTimes() throws Exception {
+    JsonArray elements = JsonParser.parseString(readFile("toy.json")).getAsJsonArray();
+    long step = 20_000_000;
+    JournalReplayer replayer =
+        new JournalReplayer(new ByteArrayInputStream(record(elements, true, step)));
+    long start = System.nanoTime();
+    replayer.replay(new Result(), null, true);
+    assertTrue(System.nanoTime() - start >= (elements.size() - 1) * step);
+  }
+
+  @Test
+  void rejectsOtherFiles() {
+    assertThrows(Kind2Exception.class,
+        () -> new JournalReplayer(
+            new ByteArrayInputStream("[{}]".getBytes(StandardCharsets.UTF_8))));
+  }
+
+  @Test
+  void closesTheStreamOfOtherFiles() {
+    for (String content : new String[] {"", "[{}]", "K2J\u0063"}) {
+      AtomicInteger closed = new AtomicInteger();
+      InputStream other = new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)) {
+        @Override
+        public void close() {
+          closed.incrementAndGet();
+        }
+      };
+      assertThrows(Kind2Exception.class, () -> new JournalReplayer(other));
+      assertEquals(1, closed.get());
+    }
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.api;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import edu.uiowa.cs.clc.kind2.Kind2Exception;
+
+class Kind2CapabilityRegistryTest {
+  /**
+   * Writes a stand-in for kind2 that counts how often it is started.
+   */
+  private static Path fakeKind2(Path dir, String version) throws IOException {
+    return fakeKind2(dir, version, 0);
+  }
+
+  /**
+   * Writes a stand-in for kind2 that counts how often it is started, and takes some seconds to
+   * report its version.
+   */
+  private static Path fakeKind2(Path dir, String version, int seconds) throws IOException {
+    Path script = dir.resolve("kind2");
+    String counter = dir.resolve("runs").toString();
+    Files.write(script, ("#!/bin/sh\n"
+        + "echo run >> '" + counter + "'\n"
+        + "case \"$1\" in\n"
+        + "  --version) sleep " + seconds + "; echo '" + version + "' ;;\n"
+        + "  --help) printf '  --timeout <float>\\n  --smt_solver { z3 | cvc5 }\\n  -json\\n' ;;\n"
+        + "  *) exit 2 ;;\n"
+        + "esac\n").getBytes(StandardCharsets.UTF_8));
+    script.toFile().setExecutable(true);
+    return script;
+  }
+
+  private static int runs(Path dir) throws IOException {
+    Path counter = dir.resolve("runs");
+    return Files.exists(counter) ? Files.readAllLines(counter).size() : 0;
+  }
+
+  @Test
+  void readAllDecodesUtf8() throws IOException {
+    String text = "\u03bb \u2192 ok";
+    assertEquals(text,
+        ApiUtil.readAll(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))));
+  }
+
+  @Test
+  void probeTimesOutWhileOutputIsOpen() throws IOException {
+    if (File.separatorChar == '\\') {
+      return;
+    }
+    Path dir = Files.createTempDirectory("kind2-capabilities-test");
+    Path script = dir.resolve("kind2");
+    Files.write(script, "#!/bin/sh\necho started\nsleep 60\n".getBytes(StandardCharsets.UTF_8));
+    script.toFile().setExecutable(true);
+
+    long start = System.nanoTime();
+    assertNull(Kind2CapabilityRegistry.run(script, "--version", 500));
+    assertTrue(System.nanoTime() - start < 10_000_000_000L);
+  }
+
+  @Test
+  void probesOncePerBinary() throws IOException {
+    if (File.separatorChar == '\\') {
+      return;
+    }
+    Path dir = Files.createTempDirectory("kind2-capabilities-test");
+    Path kind2 = fakeKind2(dir, "Kind 2 v2.0.0");
+    Kind2CapabilityRegistry registry = new Kind2CapabilityRegistry(dir.resolve("cache"));
+
+    Kind2Capabilities capabilities = registry.get(kind2.toString());
+    assertEquals("Kind 2 v2.0.0", capabilities.getVersion());
+    assertTrue(capabilities.supportsFlag("--timeout"));
+    assertTrue(capabilities.supportsFlag("-smt_solver"));
+    assertTrue(capabilities.supportsFlag("json"));
+    assertFalse(capabilities.supportsFlag("--ivc"));
+    assertEquals(2, runs(dir));
+
+    // cached in memory, and on disk for other registries
+    registry.get(kind2.toString());
+    new Kind2CapabilityRegistry(dir.resolve("cache")).get(kind2.toString());
+    assertEquals(2, runs(dir));
+
+    // a replaced binary is probed again
+    fakeKind2(dir, "Kind 2 v2.1.0");
+    Files.setLastModifiedTime(kind2, FileTime.fromMillis(System.currentTimeMillis() + 5000));
+    assertEquals("Kind 2 v2.1.0", registry.get(kind2.toString()).getVersion());
+    assertEquals(4, runs(dir));
+  }
+
+  @Test
+  void concurrentCallersShareOneProbe() throws Exception {
+    if (File.separatorChar == '\\') {
+      return;
+    }
+    Path dir = Files.createTempDirectory("kind2-capabilities-test");
+    Path kind2 = fakeKind2(dir, "Kind 2 v2.0.0", 1);
+    Kind2CapabilityRegistry registry = new Kind2CapabilityRegistry(null);
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<Kind2Capabilities>> answers = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        answers.add(executor.submit(() -> {
+          start.await();
+          return registry.get(kind2.toString());
+        }));
+      }
+      start.countDown();
+      for (Future<Kind2Capabilities> answer : answers) {
+        assertEquals("Kind 2 v2.0.0", answer.get().getVersion());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(2, runs(dir));
+  }
+
+  @Test
+  void validateOptionsRejectsUnlistedFlags() throws IOException {
+    if (File.separatorChar == '\\') {
+      return;
+    }
+    Path dir = Files.createTempDirectory("kind2-capabilities-test");
+    Path kind2 = fakeKind2(dir, "Kind 2 v2.0.0");
+    String previous = Kind2Api.KIND2;
+    Kind2Api.KIND2 = kind2.toString();
+    try {
+      Kind2Api api = new Kind2Api();
+      api.setCapabilityRegistry(new Kind2CapabilityRegistry(null));
+      api.setTimeout(10);
+      api.validateOptions();
+      api.setOtherOptions(Collections.singletonList("--ivc"));
+      assertThrows(Kind2Exception.class, api::validateOptions);
+      assertEquals("Kind 2 v2.0.0", api.checkAvailable());
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    } finally {
+      Kind2Api.KIND2 = previous;
+    }
+  }
+
+  @Test
+  void missingExecutable() {
+    Kind2CapabilityRegistry registry = new Kind2CapabilityRegistry(null);
+    assertThrows(Kind2Exception.class, () -> registry.get("/nonexistent/kind2"));
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonStreamParser;
+
+import edu.uiowa.cs.clc.kind2.results.Analysis;
+import edu.uiowa.cs.clc.kind2.results.Element;
+import edu.uiowa.cs.clc.kind2.results.ModelElementSet;
+import edu.uiowa.cs.clc.kind2.results.Node;
+import edu.uiowa.cs.clc.kind2.results.NodeResult;
+import edu.uiowa.cs.clc.kind2.results.Result;
+
+class FakeKind2Test {
+  private static Result parse(List<JsonElement> elements, int repeat) throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    FakeKind2.emit(elements, repeat, 0, out);
+    Result result = new Result();
+    JsonStreamParser parser =
+        new JsonStreamParser(new String(out.toByteArray(), StandardCharsets.UTF_8));
+    while (parser.hasNext()) {
+      result.addJsonElement(parser.next());
+    }
+    result.finish();
+    return result;
+  }
+
+  @Test
+  void syntheticStreamParses() throws Exception {
+    Result result = parse(FakeKind2.synthetic(7, 5, 3), 1);
+    assertEquals(4, result.getValidProperties().size());
+    assertEquals(3, result.getFalsifiedProperties().size());
+    result.getFalsifiedProperties()
+        .forEach(p -> assertEquals(3, p.getCounterExample().getTopNode().getStreams().size()));
+  }
+
+  @Test
+  void recordedStreamParses() throws Exception {
+    String json = new String(Files.readAllBytes(Paths.get("files/S1.json")), StandardCharsets.UTF_8);
+    Result expected = Result.analyzeJsonResult(json);
+    Result result = parse(FakeKind2.recorded(Paths.get("files/S1.json")), 1);
+    assertEquals(expected.getValidProperties().size(), result.getValidProperties().size());
+    assertEquals(expected.getFalsifiedProperties().size(), result.getFalsifiedProperties().size());
+  }
+
+  private static int resolvedElements(Result result) {
+    int resolved = 0;
+    for (NodeResult nodeResult : result.getResultMap().values()) {
+      for (Analysis analysis : nodeResult.getAnalyses()) {
+        if (analysis.getPostAnalysis() == null) {
+          continue;
+        }
+        for (ModelElementSet set : analysis.getPostAnalysis().getModelElements()) {
+          for (Node node : set.getNodes()) {
+            for (Element element : node.getElements()) {
+              if (element.getKind2Property() != null) {
+                assertEquals(element.getJsonName(), element.getKind2Property().getJsonName());
+                resolved++;
+              }
+            }
+          }
+        }
+      }
+    }
+    return resolved;
+  }
+
+  @Test
+  void scaledModelElementSetsResolveTheirProperties() throws Exception {
+    List<JsonElement> recorded = FakeKind2.recorded(Paths.get("files/ivc.json"));
+    Result expected = parse(recorded, 1);
+    Result result = parse(FakeKind2.scaled(recorded, 3), 1);
+    assertEquals(3 * ModelElementSetBenchmark.countElements(expected),
+        ModelElementSetBenchmark.countElements(result));
+    assertEquals(3 * expected.getValidProperties().size(), result.getValidProperties().size());
+    assertEquals(3 * resolvedElements(expected), resolvedElements(result));
+  }
+}
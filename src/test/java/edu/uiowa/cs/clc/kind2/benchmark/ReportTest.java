@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import edu.uiowa.cs.clc.kind2.benchmark.CorpusBenchmark.PropertyTiming;
+import edu.uiowa.cs.clc.kind2.benchmark.CorpusBenchmark.Report;
+import edu.uiowa.cs.clc.kind2.benchmark.CorpusBenchmark.Run;
+
+class ReportTest {
+  private static final String BASELINE = CorpusBenchmark.variant("kind2", "default");
+  private static final String FAST = CorpusBenchmark.variant("kind2", "fast");
+
+  private static Run run(String program, String config, int repetition, double wallMillis,
+      PropertyTiming... properties) {
+    Run run = new Run(program, "kind2", config, repetition);
+    run.wallMillis = wallMillis;
+    run.properties.addAll(Arrays.asList(properties));
+    return run;
+  }
+
+  /**
+   * Two programs run with two variants. The fast variant is 2 and 8 times faster on the wall
+   * clock, and 4 times faster on every property, and disagrees with the baseline on P of a.lus.
+   */
+  private static Report report() {
+    List<Run> runs = Arrays.asList(
+        run("a.lus", "default", 0, 100, new PropertyTiming("P", "valid", 40),
+            new PropertyTiming("Q", "unknown", 80)),
+        run("a.lus", "default", 1, 300, new PropertyTiming("P", "valid", 40),
+            new PropertyTiming("Q", "unknown", 80)),
+        run("a.lus", "fast", 0, 100, new PropertyTiming("P", "falsifiable", 10),
+            new PropertyTiming("Q", "valid", 20)),
+        run("b.lus", "default", 0, 80, new PropertyTiming("R", "valid", 12)),
+        run("b.lus", "fast", 0, 10, new PropertyTiming("R", "valid", 3)),
+        run("c.lus", "fast", 0, 1));
+    runs.get(5).error = "crashed, \"badly\"";
+    return new Report(runs, BASELINE);
+  }
+
+  @Test
+  void findsConflictingDefiniteAnswersOnly() {
+    Report report = report();
+    assertEquals(1, report.getDisagreementCount());
+    assertTrue(report.toString().contains("disagreement on P in a.lus"));
+  }
+
+  @Test
+  void conflictingRepetitionsOfOneVariantDisagree() {
+    Report report = new Report(Arrays.asList(
+        run("a.lus", "default", 0, 1, new PropertyTiming("P", "valid", 1)),
+        run("a.lus", "default", 1, 1, new PropertyTiming("P", "falsifiable", 1))), BASELINE);
+    assertEquals(1, report.getDisagreementCount());
+  }
+
+  @Test
+  void speedupIsTheGeometricMeanOfMedianRatios() throws Exception {
+    StringWriter json = new StringWriter();
+    report().writeJson(json);
+    JsonObject report = JsonParser.parseString(json.toString()).getAsJsonObject();
+    assertEquals(BASELINE, report.get("baseline").getAsString());
+    assertEquals(6, report.getAsJsonArray("runs").size());
+    JsonArray speedups = report.getAsJsonArray("speedups");
+    assertEquals(2, speedups.size());
+
+    JsonObject baseline = speedups.get(0).getAsJsonObject();
+    assertEquals(BASELINE, baseline.get("variant").getAsString());
+    assertEquals(1, baseline.get("wall").getAsDouble(), 1e-9);
+    assertEquals(1, baseline.get("timeToVerdict").getAsDouble(), 1e-9);
+
+    JsonObject fast = speedups.get(1).getAsJsonObject();
+    assertEquals(FAST, fast.get("variant").getAsString());
+    assertEquals(2, fast.get("programs").getAsInt());
+    assertEquals(4, fast.get("wall").getAsDouble(), 1e-9);
+    assertEquals(3, fast.get("properties").getAsInt());
+    assertEquals(4, fast.get("timeToVerdict").getAsDouble(), 1e-9);
+  }
+
+  @Test
+  void csvDoesNotDependOnTheDefaultLocale() throws Exception {
+    Locale locale = Locale.getDefault();
+    Locale.setDefault(Locale.GERMANY);
+    StringWriter csv = new StringWriter();
+    String text;
+    try {
+      Report report = report();
+      report.writeCsv(csv);
+      text = report.toString();
+    } finally {
+      Locale.setDefault(locale);
+    }
+    String[] lines = csv.toString().split("\n");
+    assertEquals(10, lines.length);
+    assertEquals("program,kind2,config,repetition,wall_ms,error,property,answer,verdict_ms",
+        lines[0]);
+    assertEquals("a.lus,kind2,default,0,100.000,,P,valid,40.000", lines[1]);
+    assertEquals("b.lus,kind2,fast,0,10.000,,R,valid,3.000", lines[8]);
+    assertEquals("c.lus,kind2,fast,0,1.000,\"crashed, \"\"badly\"\"\",,,", lines[9]);
+    assertTrue(text.contains("wall x4.000 over 2 programs, verdict x4.000 over 3 properties"));
+  }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.results;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import edu.uiowa.cs.clc.kind2.Kind2Exception;
+
+class BinaryResultTest
+{
+  private static final String[] FILES = {"S1.json", "S1Uknown.json", "S2.json", "S3.json",
+      "S4.json", "S5.json", "S6.json", "a1.json", "a2.json", "b.json", "c.json", "d.json",
+      "e.json", "f.json", "ivc.json", "real.json", "toy.json"};
+
+  private static byte[] write(Result result) throws IOException
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    result.writeBinary(out);
+    return out.toByteArray();
+  }
+
+  private static Result readBack(byte[] bytes) throws IOException
+  {
+    return Result.readBinary(new ByteArrayInputStream(bytes));
+  }
+
+  /**
+   * Everything the model holds, sorted where it is kept in hash maps.
+   */
+  private static List<String> describe(Result result)
+  {
+    List<String> lines = new ArrayList<>();
+    lines.add(String.valueOf(result.getOptions()));
+    for (AstInfo astInfo : result.getAstInfos())
+    {
+      lines.add(astInfo.toString());
+    }
+    for (Log log : result.getAllKind2Logs())
+    {
+      lines.add(log.getLevel() + " " + log.getSource() + " " + log.getLine() + ":"
+          + log.getColumn() + " " + log.isHidden() + " " + log.getValue());
+    }
+    List<String> components = new ArrayList<>();
+    for (NodeResult nodeResult : result.getResultMap().values())
+    {
+      StringBuilder component = new StringBuilder(nodeResult.getName());
+      component.append(" children=").append(nodeResult.getChildren().size())
+          .append(" suggestions=").append(nodeResult.getSuggestions());
+      for (Analysis analysis : nodeResult.getAnalyses())
+      {
+        component.append("\n").append(analysis.getNodeName()).append(' ')
+            .append(analysis.getContext()).append(' ').append(analysis.getAbstractNodes())
+            .append(' ').append(analysis.getConcreteNodes()).append(' ')
+            .append(analysis.getRealizabilityResult()).append(' ')
+            .append(analysis.getDeadlock()).append(' ').append(analysis.isModeAnalysis());
+        for (Property property : analysis.getAttempts())
+        {
+          component.append('\n').append(property.getJsonName()).append(" | ")
+              .append(property.getFile()).append(" | ").append(property.getScope())
+              .append(" | ").append(property.getLine()).append(':').append(property.getColumn())
+              .append(" | ").append(property.getSource()).append(" | ")
+              .append(property.getAnswer()).append(" | ").append(property.getIsCandidate())
+              .append(" | ").append(property.getKInductionStep()).append(" | ")
+              .append(property.getTrueFor()).append('\n').append(property.getCounterExample())
+              .append('\n').append(property.getExampleTrace());
+        }
+        PostAnalysis postAnalysis = analysis.getPostAnalysis();
+        if (postAnalysis != null)
+        {
+          component.append('\n').append(postAnalysis.getName());
+          for (ModelElementSet modelElementSet : postAnalysis.getModelElements())
+          {
+            component.append('\n').append(modelElementSet.getJson());
+          }
+        }
+      }
+      components.add(component.toString());
+    }
+    Collections.sort(components);
+    lines.addAll(components);
+    lines.add(result.getRoot() == null ? null : result.getRoot().getName());
+    return lines;
+  }
+
+  /**
+   * The summary lists properties kept in hash sets, so only its sorted lines are comparable.
+   */
+  private static List<String> sortedLines(Result result)
+  {
+    if (result.getRoot() == null)
+    {
+      return Collections.emptyList();
+    }
+    List<String> lines = Arrays.asList(result.toString().split("\n"));
+    Collections.sort(lines);
+    return lines;
+  }
+
+  @Test
+  void roundTripsShippedOutput() throws IOException
+  {
+    for (String file : FILES)
+    {
+      String json = TestFiles.read(file);
+      Result tree = Result.analyzeJsonResult(json, ParseMode.tree);
+      Result binary = readBack(write(tree));
+      assertEquals(describe(tree), describe(binary), file);
+      assertEquals(sortedLines(tree), sortedLines(binary), file);
+      assertNull(binary.getJson(), file);
+
+      Result streaming = Result.analyzeJsonResult(json, ParseMode.streaming);
+      assertTrue(Arrays.equals(write(tree), write(streaming)), file);
+      assertTrue(Arrays.equals(write(tree), write(binary)), file);
+    }
+  }
+
+  @Test
+  void isSmallerThanJson() throws IOException
+  {
+    long json = 0;
+    long binary = 0;
+    for (String file : FILES)
+    {
+      String text = TestFiles.read(file);
+      json += text.getBytes(StandardCharsets.UTF_8).length;
+      binary += write(Result.analyzeJsonResult(text)).length;
+    }
+    assertTrue(binary * 4 < json, binary + " bytes for " + json + " bytes of json");
+  }
+
+  @Test
+  void readsOutputIncrementally() throws IOException
+  {
+    Result expected = Result.analyzeJsonResult(TestFiles.read("S1.json"));
+    Result result = new Result();
+    AtomicInteger objects = new AtomicInteger();
+    result.addBinaryStream(new ByteArrayInputStream(write(expected)),
+        r -> objects.incrementAndGet());
+    assertTrue(objects.get() > expected.getResultMap().size());
+    assertTrue(result.getSnapshot().getProperties().size() > 0);
+    result.finish();
+    assertEquals(describe(expected), describe(result));
+  }
+
+  @Test
+  void rejectsOtherInput() throws IOException
+  {
+    byte[] bytes = write(Result.analyzeJsonResult(TestFiles.read("S1.json")));
+    assertThrows(Kind2Exception.class, () -> readBack("[{}]".getBytes(StandardCharsets.UTF_8)));
+    assertThrows(EOFException.class, () -> readBack(Arrays.copyOf(bytes, bytes.length / 2)));
+    byte[] future = bytes.clone();
+    future[BinaryEncoder.magic.length] = (byte) (BinaryEncoder.version + 1);
+    assertThrows(Kind2Exception.class, () -> readBack(future));
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.results;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class FormattingTest
+{
+  private static final Formatting ANGLES = Formatting.defaults.withOpeningSymbols("<")
+      .withClosingSymbols(">").withRealPrecision(4).withRealRoundingMode(RoundingMode.DOWN)
+      .withPrintingCounterExamplesEnabled(true);
+  private static final Formatting PLAIN = Formatting.defaults.withOpeningSymbols("")
+      .withClosingSymbols("");
+
+  @AfterEach
+  void reset()
+  {
+    Result.setDefaultFormatting(Formatting.defaults);
+  }
+
+  /**
+   * Every name and value a result prints, in order.
+   */
+  private static List<String> printed(Result result)
+  {
+    List<String> printed = new ArrayList<>();
+    for (NodeResult nodeResult : result.getResultMap().values())
+    {
+      for (Analysis analysis : nodeResult.getAnalyses())
+      {
+        printed.add(analysis.getNodeName());
+        for (Property property : analysis.getProperties())
+        {
+          printed.add(property.getQualifiedName());
+          CounterExample counterExample = property.getCounterExample();
+          if (counterExample != null)
+          {
+            printed.add(counterExample.getTopNode().getName());
+            for (Stream stream : counterExample.getTopNode().getStreams())
+            {
+              printed.add(stream.getName());
+              for (StepValue stepValue : stream.getStepValues())
+              {
+                printed.add(stepValue.getKind2Value().toString());
+              }
+            }
+          }
+        }
+      }
+      printed.add(nodeResult.getSuggestions().toString());
+    }
+    return printed;
+  }
+
+  @Test
+  void resultsKeepTheFormattingTheyWereCreatedWith() throws IOException
+  {
+    String json = TestFiles.read("real.json");
+    Result.setDefaultFormatting(Formatting.defaults);
+    Result.setOpeningSymbols("<");
+    Result.setClosingSymbols(">");
+    Result.setRealPrecision(4);
+    Result.setRealRoundingMode(RoundingMode.DOWN);
+    Result.setPrintingCounterExamplesEnabled(true);
+    Result angles = Result.analyzeJsonResult(json);
+    List<String> expected = printed(angles);
+
+    Result.setDefaultFormatting(PLAIN);
+    Result plain = Result.analyzeJsonResult(json);
+    assertEquals(expected, printed(angles));
+    assertNotEquals(expected, printed(plain));
+    assertEquals(printed(Result.analyzeJsonResult(json, ParseMode.tree, ANGLES)), expected);
+    assertTrue(expected.stream().anyMatch(name -> name.startsWith("<")));
+  }
+
+  @Test
+  void concurrentResultsDoNotShareFormatting() throws Exception
+  {
+    String json = TestFiles.read("real.json");
+    List<String> angles = printed(Result.analyzeJsonResult(json, ParseMode.tree, ANGLES));
+    List<String> plain = printed(Result.analyzeJsonResult(json, ParseMode.streaming, PLAIN));
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try
+    {
+      List<Future<List<String>>> futures = new ArrayList<>();
+      for (int i = 0; i < 16; i++)
+      {
+        Formatting formatting = i % 2 == 0 ? ANGLES : PLAIN;
+        ParseMode mode = ParseMode.values()[i / 2 % ParseMode.values().length];
+        futures.add(executor.submit(() -> printed(Result.analyzeJsonResult(json, mode,
+            formatting))));
+      }
+      for (int i = 0; i < futures.size(); i++)
+      {
+        assertEquals(i % 2 == 0 ? angles : plain, futures.get(i).get());
+      }
+    }
+    finally
+    {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void namesAreResolvedOnce() throws IOException
+  {
+    Result result = Result.analyzeJsonResult(TestFiles.read("real.json"), ParseMode.tree, ANGLES);
+    for (Property property : result.getRoot().getLastAnalysis().getProperties())
+    {
+      assertSame(property.getName(), property.getName());
+      CounterExample counterExample = property.getCounterExample();
+      if (counterExample != null)
+      {
+        SubNode top = counterExample.getTopNode();
+        assertSame(top.getName(), top.getName());
+        for (Stream stream : top.getStreams())
+        {
+          assertSame(stream.getName(), stream.getName());
+          for (StepValue stepValue : stream.getStepValues())
+          {
+            if (stepValue.getKind2Value() instanceof EnumValue)
+            {
+              EnumValue value = (EnumValue) stepValue.getKind2Value();
+              assertSame(value.getName(), value.getName());
+              assertTrue(value.getName().startsWith("<"));
+            }
+          }
+        }
+      }
+    }
+    assertSame(result.getRoot().getLastAnalysis().getNodeName(),
+        result.getRoot().getLastAnalysis().getNodeName());
+  }
+}
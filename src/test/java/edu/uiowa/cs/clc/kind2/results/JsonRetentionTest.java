@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.results;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class JsonRetentionTest
+{
+  private static Result parse(String file, JsonRetention retention) throws IOException
+  {
+    String json = new String(Files.readAllBytes(Paths.get("files", file)), StandardCharsets.UTF_8);
+    Result result = new Result(Formatting.defaults, ParseFilter.all, retention,
+        OutputRetention.memory);
+    result.initialize(json);
+    return result;
+  }
+
+  /**
+   * Properties are kept in hash sets, so only the sorted json of their traces is comparable.
+   */
+  private static List<String> traceJson(Result result)
+  {
+    List<String> json = new ArrayList<>();
+    for (NodeResult nodeResult : result.getResultMap().values())
+    {
+      for (Analysis analysis : nodeResult.getAnalyses())
+      {
+        json.add(analysis.getJson());
+        for (Property property : analysis.getProperties())
+        {
+          json.add(property.getJson());
+          CounterExample counterExample = property.getCounterExample();
+          if (counterExample != null)
+          {
+            json.add(counterExample.getJson());
+            for (Stream stream : counterExample.getTopNode().getStreams())
+            {
+              json.add(stream.getJson());
+              for (StepValue stepValue : stream.getStepValues())
+              {
+                json.add(stepValue.getJson());
+                json.add(stepValue.getKind2Value().getJson());
+              }
+            }
+          }
+        }
+      }
+    }
+    Collections.sort(json, (a, b) -> String.valueOf(a).compareTo(String.valueOf(b)));
+    return json;
+  }
+
+  @Test
+  void lazyMatchesEager() throws IOException
+  {
+    for (String file : new String[] {"S1.json", "toy.json", "real.json"})
+    {
+      Result eager = parse(file, JsonRetention.eager);
+      Result lazy = parse(file, JsonRetention.lazy);
+      assertEquals(traceJson(eager), traceJson(lazy), file);
+      assertEquals(eager.getOptions().getJson(), lazy.getOptions().getJson(), file);
+      assertEquals(eager.getAllKind2Logs().get(0).getJson(),
+          lazy.getAllKind2Logs().get(0).getJson(), file);
+    }
+  }
+
+  @Test
+  void lazyJsonIsCached() throws IOException
+  {
+    Property property = parse("S1.json", JsonRetention.lazy).getResultMap().values().iterator()
+        .next().getAnalyses().get(0).getProperties().get(0);
+    assertSame(property.getJson(), property.getJson());
+  }
+
+  @Test
+  void noneKeepsNoJson() throws IOException
+  {
+    Result result = parse("toy.json", JsonRetention.none);
+    for (String json : traceJson(result))
+    {
+      assertNull(json);
+    }
+    assertNull(result.getOptions().getJson());
+    Log log = result.getAllKind2Logs().get(0);
+    assertNull(log.getJson());
+    // logs and options still print as their json
+    assertNotNull(log.toString());
+    assertNotNull(result.getOptions().toString());
+  }
+
+  @Test
+  void retentionIsKeptPerResult() throws IOException
+  {
+    Result none = parse("toy.json", JsonRetention.none);
+    Result lazy = parse("toy.json", JsonRetention.lazy);
+    // the traces of both are built now, after both results were created
+    for (String json : traceJson(none))
+    {
+      assertNull(json);
+    }
+    for (String json : traceJson(lazy))
+    {
+      assertNotNull(json);
+    }
+    assertEquals(JsonRetention.none, none.getJsonRetention());
+  }
+}
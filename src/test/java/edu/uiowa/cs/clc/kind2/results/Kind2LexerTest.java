@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.results;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class Kind2LexerTest
+{
+  private static final String[] NAMES = {"R1", "ControlSpec[l117c12].R1[1]",
+      "fSpec[l22c12].guarantee[l17c4][5]", "f[l41c8].assume[l11c4][1]", "a.b.c", "x[1", "x]1[",
+      "[l1c1]", ".", "[a].[b]", "N.P[l3c2]", "ensure[l9c4]"};
+
+  @Test
+  void baseNamesMatchTheRegularExpressions()
+  {
+    for (String name : NAMES)
+    {
+      String expected = name.replaceAll("\\[.*?\\]", "").replaceFirst(".*?\\.", "");
+      assertEquals(expected, Kind2Lexer.baseName(name), name);
+    }
+    assertSame(NAMES[0], Kind2Lexer.baseName(NAMES[0]));
+  }
+
+  @Test
+  void readsSubrangeAndArrayTypes()
+  {
+    SubRange subRange = (SubRange) Type.getType("subrange [-3, 12] of int");
+    assertEquals(-3, subRange.getMin());
+    assertEquals(12, subRange.getMax());
+    SubRange compact = (SubRange) Type.getType("subrange [0,5] of int");
+    assertEquals(5, compact.getMax());
+    Array array = (Array) Type.getType("array of array of subrange [1,2] of int");
+    assertTrue(((Array) array.getElementType()).getElementType() instanceof SubRange);
+    assertTrue(Type.getType("subrange [0,5]") instanceof Enum);
+  }
+
+  @Test
+  void resultsKeepRepeatedNamesOnce() throws IOException
+  {
+    String json = new String(Files.readAllBytes(Paths.get("files", "S1.json")),
+        StandardCharsets.UTF_8);
+    Result result = Result.analyzeJsonResult(json);
+    Map<String, Property> first = new HashMap<>();
+    Map<String, Stream> streams = new HashMap<>();
+    int repeated = 0;
+    for (NodeResult nodeResult : result.getResultMap().values())
+    {
+      for (Analysis analysis : nodeResult.getAnalyses())
+      {
+        for (Property property : analysis.getAttempts())
+        {
+          Property seen = first.putIfAbsent(property.getJsonName(), property);
+          if (seen != null)
+          {
+            repeated++;
+            assertSame(seen.getJsonName(), property.getJsonName());
+            assertSame(seen.getName(), property.getName());
+            assertSame(seen.getQualifiedName(), property.getQualifiedName());
+          }
+          if (property.getCounterExample() != null)
+          {
+            for (Stream stream : property.getCounterExample().getTopNode().getStreams())
+            {
+              Stream other = streams.putIfAbsent(stream.getJsonName(), stream);
+              if (other != null)
+              {
+                assertSame(other.getJsonName(), stream.getJsonName());
+              }
+            }
+          }
+        }
+      }
+    }
+    assertTrue(repeated > 0);
+  }
+}
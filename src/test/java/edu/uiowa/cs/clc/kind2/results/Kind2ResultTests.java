@@ -12,11 +12,15 @@ import java.io.IOException;
 import java.math.RoundingMode;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -575,4 +579,128 @@ public class Kind2ResultTests
     assertNotNull(result.getRoot());
     System.out.println(result);
   }
+
+  @Test
+  void counterExampleParsedOnceAcrossThreads() throws Exception
+  {
+    String json = new String(Files.readAllBytes(Paths.get("files/real.json")));
+    for (ParseMode mode : ParseMode.values())
+    {
+      Result result = Result.analyzeJsonResult(json, mode);
+      int traces = 0;
+      for (NodeResult nodeResult : result.getResultMap().values())
+      {
+        for (Analysis analysis : nodeResult.getAnalyses())
+        {
+          for (Property property : analysis.getProperties())
+          {
+            CounterExample[] seen = new CounterExample[4];
+            Thread[] threads = new Thread[seen.length];
+            for (int i = 0; i < threads.length; i++)
+            {
+              int index = i;
+              threads[i] = new Thread(() -> seen[index] = property.getCounterExample());
+              threads[i].start();
+            }
+            for (Thread thread : threads)
+            {
+              thread.join();
+            }
+            for (CounterExample counterExample : seen)
+            {
+              assertSame(seen[0], counterExample);
+            }
+            if (seen[0] != null)
+            {
+              assertSame(result, seen[0].getTopNode().getKind2Result());
+              traces++;
+            }
+          }
+        }
+      }
+      assertTrue(traces > 0);
+    }
+  }
+
+  private static void collectSuggestions(NodeResult nodeResult, Map<String, String> suggestions)
+  {
+    suggestions.put(nodeResult.getName(), nodeResult.getSuggestions().toString());
+    for (NodeResult child : nodeResult.getChildren())
+    {
+      collectSuggestions(child, suggestions);
+    }
+  }
+
+  @Test
+  void suggestionsComputedAsAnalysesComplete() throws IOException
+  {
+    int before = 0;
+    for (String file : new String[] {"S1.json", "S2.json", "S3.json", "S4.json", "S5.json",
+        "S6.json", "ivc.json"})
+    {
+      String json = new String(Files.readAllBytes(Paths.get("files", file)));
+      Result expected = Result.analyzeJsonResult(json);
+
+      Result incremental = new Result();
+      Map<String, String> notified = new HashMap<>();
+      incremental.setSuggestionListener(
+          nodeResult -> notified.put(nodeResult.getName(), nodeResult.getSuggestions().toString()));
+      for (JsonElement element : JsonParser.parseString(json).getAsJsonArray())
+      {
+        incremental.addJsonElement(element);
+      }
+      before += notified.size();
+      incremental.finish();
+
+      Map<String, String> expectedSuggestions = new HashMap<>();
+      collectSuggestions(expected.getRoot(), expectedSuggestions);
+      Map<String, String> actualSuggestions = new HashMap<>();
+      collectSuggestions(incremental.getRoot(), actualSuggestions);
+      assertEquals(expectedSuggestions, actualSuggestions, file);
+      for (String name : expectedSuggestions.keySet())
+      {
+        if (!name.equals(incremental.getRoot().getName()))
+        {
+          assertEquals(expectedSuggestions.get(name), notified.get(name), file);
+        }
+      }
+    }
+    assertTrue(before > 0);
+  }
+
+  @Test
+  void parallelFinishMatchesSequentialFinish() throws IOException
+  {
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try
+    {
+      for (String file : new String[] {"S1.json", "S2.json", "S3.json", "S4.json", "S5.json",
+          "S6.json", "ivc.json"})
+      {
+        String json = new String(Files.readAllBytes(Paths.get("files", file)));
+        Result expected = Result.analyzeJsonResult(json);
+
+        Result parallel = new Result();
+        for (JsonElement element : JsonParser.parseString(json).getAsJsonArray())
+        {
+          parallel.addJsonElement(element);
+        }
+        parallel.finish(pool);
+
+        Map<String, String> expectedSuggestions = new HashMap<>();
+        collectSuggestions(expected.getRoot(), expectedSuggestions);
+        Map<String, String> actualSuggestions = new HashMap<>();
+        collectSuggestions(parallel.getRoot(), actualSuggestions);
+        assertEquals(expectedSuggestions, actualSuggestions, file);
+        for (NodeResult nodeResult : parallel.getResultMap().values())
+        {
+          assertTrue(nodeResult.isAnalyzed() || !nodeResult.canAnalyze(), file);
+        }
+      }
+    }
+    finally
+    {
+      pool.shutdown();
+    }
+  }
 }
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.results;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+class OutputRetentionTest
+{
+  private static Result create(OutputRetention retention)
+  {
+    return new Result(Formatting.defaults, ParseFilter.all, JsonRetention.lazy, retention);
+  }
+
+  private static Result addOneByOne(String json, OutputRetention retention)
+  {
+    Result result = create(retention);
+    for (JsonElement element : JsonParser.parseString(json).getAsJsonArray())
+    {
+      result.addJsonElement(element);
+    }
+    result.finish();
+    return result;
+  }
+
+  @Test
+  void everyRetentionReturnsTheSameOutput() throws IOException
+  {
+    for (String file : new String[] {"S1.json", "real.json", "ivc.json"})
+    {
+      String json = TestFiles.read(file);
+      JsonElement expected = JsonParser.parseString(json);
+      for (OutputRetention retention : new OutputRetention[] {OutputRetention.memory,
+          OutputRetention.file})
+      {
+        Result result = addOneByOne(json, retention);
+        assertEquals(expected, JsonParser.parseString(result.getJson()), file);
+        StringWriter writer = new StringWriter();
+        result.writeJson(writer);
+        assertEquals(result.getJson(), writer.toString(), file);
+
+        result = create(retention);
+        result.initialize(json);
+        assertEquals(expected, JsonParser.parseString(result.getJson()), file);
+      }
+    }
+  }
+
+  @Test
+  void noRetentionKeepsNothing() throws IOException
+  {
+    Result result = addOneByOne(TestFiles.read("S1.json"), OutputRetention.none);
+    assertNull(result.getJson());
+    StringWriter writer = new StringWriter();
+    result.writeJson(writer);
+    assertEquals("", writer.toString());
+    assertEquals(
+        addOneByOne(TestFiles.read("S1.json"), OutputRetention.memory).getResultMap().keySet(),
+        result.getResultMap().keySet());
+  }
+
+  @Test
+  void theTemporaryFileIsCompleteOnceFinishedAndDeletedOnClose() throws IOException
+  {
+    JsonOutput.Spilled output = new JsonOutput.Spilled();
+    output.add(JsonParser.parseString("{'a' : 1}"));
+    output.finish();
+    File file = output.getFile();
+    assertEquals("{\"a\":1}", new String(Files.readAllBytes(file.toPath()),
+        StandardCharsets.UTF_8));
+    output.add(JsonParser.parseString("{'b' : 2}"));
+    assertEquals("[{\"a\":1},{\"b\":2}]", output.get());
+    output.close();
+    assertFalse(file.exists());
+    assertNull(output.get());
+  }
+
+  @Test
+  void closingAResultReleasesItsOutput() throws IOException
+  {
+    Result result = addOneByOne(TestFiles.read("S1.json"), OutputRetention.file);
+    result.close();
+    assertNull(result.getJson());
+    StringWriter writer = new StringWriter();
+    result.writeJson(writer);
+    assertEquals("", writer.toString());
+    assertFalse(result.getResultMap().isEmpty());
+  }
+}
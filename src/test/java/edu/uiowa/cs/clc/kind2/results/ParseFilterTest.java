@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.results;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+class ParseFilterTest
+{
+  private static final String TRACE = "[{'blockType' : 'node','name' : 'N','streams' : ["
+      + "{'name' : 'in','type' : 'int','class' : 'input','instantValues' : "
+      + "[[0, 1], [1, -200], [2, 7]]},"
+      + "{'name' : 'b','type' : 'bool','class' : 'output','instantValues' : "
+      + "[[0, true], [1, false], [2, true]]},"
+      + "{'name' : 'l','type' : 'int','class' : 'local','instantValues' : "
+      + "[[0, 4], [1, 5], [2, 6]]}],"
+      + "'subnodes' : [{'blockType' : 'node','name' : 'M','streams' : ["
+      + "{'name' : 'e','type' : 'enum','typeInfo' : {'values' : ['A', 'B']},'class' : 'input',"
+      + "'instantValues' : [[0, 'A'], [1, 'B'], [2, 'A']]}]}]}]";
+
+  private static final String JSON = "[{'objectType' : 'log','level' : 'info','source' : 'parse',"
+      + "'value' : 'Parsing'},{'objectType' : 'analysisStart','top' : 'N','concrete' : [],"
+      + "'abstract' : [],'assumptions' : []},{'objectType' : 'property','name' : 'P','line' : 1,"
+      + "'column' : 1,'source' : 'PropAnnot','answer' : {'source' : 'bmc','value' : "
+      + "'falsifiable'},'counterExample' : " + TRACE + "},{'objectType' : 'analysisStop'}]";
+
+  private static final Formatting PLAIN = Formatting.defaults.withOpeningSymbols("")
+      .withClosingSymbols("");
+
+  private static CounterExample decode(ParseMode mode, ParseFilter filter)
+  {
+    Result result = Result.analyzeJsonResult(JSON, mode, PLAIN, filter);
+    return result.getResultMap().get("N").getAnalyses().get(0).getProperties().get(0)
+        .getCounterExample();
+  }
+
+  /**
+   * Writes the binary form of the whole output, and reads it back with a filter.
+   */
+  private static CounterExample decodeBinary(ParseFilter filter) throws IOException
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    Result.analyzeJsonResult(JSON, ParseMode.tree, PLAIN).writeBinary(out);
+    Result result = new Result(PLAIN, filter);
+    result.addBinaryStream(new ByteArrayInputStream(out.toByteArray()), null);
+    result.finish();
+    return result.getResultMap().get("N").getAnalyses().get(0).getProperties().get(0)
+        .getCounterExample();
+  }
+
+  @Test
+  void skipsExcludedStreamsBlocksAndSteps() throws IOException
+  {
+    ParseFilter filter = ParseFilter.all.withStreamClasses(Labels.input, Labels.output)
+        .withSubNodeDepth(0).withMaxTraceLength(2);
+    String expected = "Counterexample:"
+        + "\n  Node N:\n    == Inputs ==\n    in\t    1\t -200\t"
+        + "\n    == Outputs ==\n    b \t true\tfalse\t"
+        + "\n    == Locals ==";
+    for (ParseMode mode : ParseMode.values())
+    {
+      CounterExample counterExample = decode(mode, filter);
+      assertEquals(expected, counterExample.toString(), mode.toString());
+      assertTrue(counterExample.getTopNode().getSubNodes().isEmpty());
+    }
+    CounterExample counterExample = decodeBinary(filter);
+    assertEquals(expected, counterExample.toString());
+    assertTrue(counterExample.getTopNode().getSubNodes().isEmpty());
+  }
+
+  @Test
+  void keepsStreamsByName() throws IOException
+  {
+    ParseFilter filter = ParseFilter.all.withStreamNames(Pattern.compile("in|e"));
+    String expected = "Counterexample:"
+        + "\n  Node N:\n    == Inputs ==\n    in\t   1\t-200\t   7\t"
+        + "\n    == Outputs ==\n    == Locals =="
+        + "\n  Node M:\n    == Inputs ==\n    e \t   A\t   B\t   A\t"
+        + "\n    == Outputs ==\n    == Locals ==";
+    for (ParseMode mode : ParseMode.values())
+    {
+      assertEquals(expected, decode(mode, filter).toString(), mode.toString());
+    }
+    assertEquals(expected, decodeBinary(filter).toString());
+  }
+
+  @Test
+  void keepsObjectsOfTheGivenKinds()
+  {
+    ParseFilter properties = ParseFilter.all.withObjects(Object.property);
+    ParseFilter logs = ParseFilter.all.withObjects(Object.log);
+    for (ParseMode mode : ParseMode.values())
+    {
+      Result result = Result.analyzeJsonResult(JSON, mode, PLAIN, properties);
+      assertTrue(result.getAllKind2Logs().isEmpty());
+      assertEquals(1, result.getFalsifiedProperties().size());
+
+      result = Result.analyzeJsonResult(JSON, mode, PLAIN, logs);
+      assertEquals(1, result.getAllKind2Logs().size());
+      assertTrue(result.getResultMap().isEmpty());
+      assertNull(result.getOptions());
+    }
+  }
+
+  @Test
+  void filtersTheObjectsOfTheBinaryForm() throws IOException
+  {
+    String json = new String(Files.readAllBytes(Paths.get("files", "S1.json")),
+        StandardCharsets.UTF_8);
+    Result result = Result.analyzeJsonResult(json, ParseMode.tree, PLAIN);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    result.writeBinary(out);
+
+    Result filtered = new Result(PLAIN, ParseFilter.all.withObjects(Object.log));
+    filtered.addBinaryStream(new ByteArrayInputStream(out.toByteArray()), null);
+    filtered.finish();
+    assertEquals(result.getAllKind2Logs().size(), filtered.getAllKind2Logs().size());
+    assertTrue(filtered.getResultMap().isEmpty());
+  }
+
+  @Test
+  void rejectsNegativeLimits()
+  {
+    assertThrows(IllegalArgumentException.class, () -> ParseFilter.all.withSubNodeDepth(-1));
+    assertThrows(IllegalArgumentException.class, () -> ParseFilter.all.withMaxTraceLength(-1));
+  }
+}
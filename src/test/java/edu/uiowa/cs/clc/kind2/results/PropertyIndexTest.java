@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.results;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+class PropertyIndexTest
+{
+  private static final String[] FILES = {"S1.json", "S2.json", "real.json", "ivc.json"};
+
+  private static Set<Property> scan(Result result, Predicate<Property> predicate)
+  {
+    Set<Property> properties = new HashSet<>();
+    for (NodeResult nodeResult : result.getResultMap().values())
+    {
+      for (Analysis analysis : nodeResult.getAnalyses())
+      {
+        for (Property property : analysis.getProperties())
+        {
+          if (predicate.test(property))
+          {
+            properties.add(property);
+          }
+        }
+      }
+    }
+    return properties;
+  }
+
+  @Test
+  void indexesMatchAScanOfTheAnalyses() throws IOException
+  {
+    for (String file : FILES)
+    {
+      for (ParseMode mode : ParseMode.values())
+      {
+        Result result = Result.analyzeJsonResult(TestFiles.read(file), mode);
+        for (Answer answer : Answer.values())
+        {
+          assertEquals(scan(result, p -> p.getAnswer() == answer),
+              result.getPropertiesWithAnswer(answer), file);
+        }
+        for (PropertyType type : PropertyType.values())
+        {
+          assertEquals(scan(result, p -> p.getSource() == type),
+              result.getPropertiesOfType(type), file);
+        }
+        for (Property property : scan(result, p -> true))
+        {
+          assertEquals(scan(result, p -> p.getQualifiedName().equals(property.getQualifiedName())),
+              result.getPropertiesNamed(property.getQualifiedName()), file);
+          String node = property.getAnalysis().getNodeName();
+          assertEquals(scan(result, p -> p.getAnalysis().getNodeName().equals(node)),
+              result.getPropertiesOfNode(node), file);
+          if (property.getFile() != null)
+          {
+            assertEquals(scan(result, p -> property.getFile().equals(p.getFile())),
+                result.getPropertiesInFile(property.getFile()), file);
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  void finalPropertiesAreKeptUntilTheNextUpdate() throws IOException
+  {
+    JsonArray json = JsonParser.parseString(TestFiles.read("S1.json")).getAsJsonArray();
+    Result expected = Result.analyzeJsonResult(TestFiles.read("S1.json"));
+    Result result = new Result();
+    Set<Property> falsified = result.getFalsifiedProperties();
+    for (JsonElement element : json)
+    {
+      result.addJsonElement(element);
+      if (result.getRoot() != null)
+      {
+        falsified = result.getFalsifiedProperties();
+        assertSame(falsified, result.getFalsifiedProperties());
+      }
+    }
+    result.finish();
+    assertSame(falsified, result.getFalsifiedProperties());
+    assertEquals(expected.getFalsifiedProperties().size(), falsified.size());
+    assertEquals(expected.getValidProperties().size(), result.getValidProperties().size());
+    assertEquals(expected.getUnknownProperties().size(), result.getUnknownProperties().size());
+
+    Set<Property> valid = result.getValidProperties();
+    Property property = valid.iterator().next();
+    assertThrows(UnsupportedOperationException.class, () -> valid.remove(property));
+    Analysis analysis = property.getAnalysis();
+    assertThrows(UnsupportedOperationException.class,
+        () -> analysis.getProperties().remove(property));
+    analysis.addProperty(property);
+    assertNotSame(valid, result.getValidProperties());
+    assertTrue(result.getValidProperties().contains(property));
+  }
+
+  @Test
+  void viewsTakenBeforeTheOutputFollowIt() throws IOException
+  {
+    Result expected = Result.analyzeJsonResult(TestFiles.read("S1.json"), ParseMode.streaming);
+    Property property = expected.getPropertiesWithAnswer(Answer.valid).iterator().next();
+    String node = property.getAnalysis().getNodeName();
+
+    Result result = new Result();
+    Set<Property> valid = result.getPropertiesWithAnswer(Answer.valid);
+    Set<Property> ofType = result.getPropertiesOfType(property.getSource());
+    Set<Property> ofNode = result.getPropertiesOfNode(node);
+    Set<Property> named = result.getPropertiesNamed(property.getQualifiedName());
+    result.addJsonStream(new StringReader(TestFiles.read("S1.json")), null);
+    result.finish();
+    assertEquals(expected.getPropertiesWithAnswer(Answer.valid).size(), valid.size());
+    assertEquals(expected.getPropertiesOfType(property.getSource()).size(), ofType.size());
+    assertEquals(expected.getPropertiesOfNode(node).size(), ofNode.size());
+    assertEquals(expected.getPropertiesNamed(property.getQualifiedName()).size(), named.size());
+    assertTrue(valid.size() > 0);
+  }
+
+  @Test
+  void analysesListTheLastPropertiesOfAnAnswerInOrder() throws IOException
+  {
+    Result result = Result.analyzeJsonResult(TestFiles.read("S1.json"));
+    for (NodeResult nodeResult : result.getResultMap().values())
+    {
+      for (Analysis analysis : nodeResult.getAnalyses())
+      {
+        List<Property> valid = new ArrayList<>();
+        for (Property property : analysis.getAttempts())
+        {
+          if (property.getAnswer() == Answer.valid && analysis.getProperties().contains(property))
+          {
+            valid.add(property);
+          }
+        }
+        assertEquals(valid, analysis.getValidProperties());
+        assertEquals(valid, new ArrayList<>(analysis.getValidProperties()));
+        for (int i = 0; i < valid.size(); i++)
+        {
+          assertSame(valid.get(i), analysis.getValidProperties().get(i));
+          assertTrue(analysis.getValidProperties().contains(valid.get(i)));
+        }
+        assertThrows(UnsupportedOperationException.class,
+            () -> analysis.getValidProperties().iterator().remove());
+      }
+    }
+  }
+}
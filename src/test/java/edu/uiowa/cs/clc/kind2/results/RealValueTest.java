@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.results;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.JsonParser;
+
+import edu.uiowa.cs.clc.kind2.util.BigFraction;
+
+class RealValueTest
+{
+  private static final Type REAL = Type.getType("real");
+
+  @AfterEach
+  void reset()
+  {
+    Result.setRealPrecision(2);
+    Result.setRealRoundingMode(RoundingMode.HALF_UP);
+  }
+
+  private static RealValue parse(String json)
+  {
+    return new RealValue(null, REAL, JsonParser.parseString(json));
+  }
+
+  @Test
+  void keepsFractionsExactly()
+  {
+    RealValue value = parse("{'num' : 2, 'den' : 6}");
+    assertEquals(new BigFraction(BigInteger.ONE, BigInteger.valueOf(3)), value.getFraction());
+    assertEquals(new BigDecimal("0.33"), value.getValue());
+    assertEquals(new BigDecimal("0.33333"), value.getValue(5, RoundingMode.HALF_UP));
+
+    RealValue large = parse("{'num' : 100000000000000000000, 'den' : 3}");
+    assertEquals(new BigInteger("100000000000000000000"), large.getFraction().getNumerator());
+    assertEquals("33333333333333333333.33", large.toString());
+  }
+
+  @Test
+  void rendersAtTheCurrentPrecision()
+  {
+    RealValue value = parse("{'num' : 2, 'den' : 3}");
+    assertEquals("0.67", value.toString());
+    assertSame(value.getValue(), value.getValue());
+    Result.setRealPrecision(4);
+    Result.setRealRoundingMode(RoundingMode.DOWN);
+    assertEquals("0.6666", value.toString());
+  }
+
+  @Test
+  void keepsDecimalsAsPrinted()
+  {
+    RealValue value = parse("2.50");
+    assertEquals("2.50", value.toString());
+    assertEquals(new BigFraction(BigInteger.valueOf(5), BigInteger.valueOf(2)),
+        value.getFraction());
+    assertEquals(new BigFraction(BigInteger.valueOf(1000)), parse("1E+3").getFraction());
+  }
+}
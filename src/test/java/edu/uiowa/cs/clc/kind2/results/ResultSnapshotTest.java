@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.results;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+class ResultSnapshotTest
+{
+  private static final String[] FILES = {"S1.json", "S4.json", "ivc.json"};
+
+  /**
+   * Everything a snapshot shows, as a string that changes if the snapshot does.
+   */
+  private static String describe(ResultSnapshot snapshot)
+  {
+    StringBuilder builder = new StringBuilder();
+    builder.append(snapshot.getVersion()).append(' ').append(snapshot.isFinished())
+        .append(" logs=").append(snapshot.getAllKind2Logs().size())
+        .append(" ast=").append(snapshot.getAstInfos().size());
+    for (ComponentSnapshot component : snapshot.getComponents())
+    {
+      builder.append('\n').append(component.getName())
+          .append(" analyses=").append(component.getAnalyses().size())
+          .append(" children=").append(snapshot.getChildren(component))
+          .append(" suggestions=").append(component.getSuggestions());
+    }
+    builder.append("\nroot=").append(snapshot.getRoot());
+    for (Property property : snapshot.getProperties())
+    {
+      builder.append('\n').append(property.getJsonName()).append(' ').append(property.getAnswer());
+    }
+    return builder.toString();
+  }
+
+  @Test
+  void snapshotsDoNotChangeAsOutputIsAdded() throws IOException
+  {
+    for (String file : FILES)
+    {
+      Result result = new Result();
+      result.setSuggestionListener(nodeResult -> { });
+      List<ResultSnapshot> snapshots = new ArrayList<>();
+      List<String> descriptions = new ArrayList<>();
+      snapshots.add(result.getSnapshot());
+      descriptions.add(describe(result.getSnapshot()));
+      for (JsonElement element : JsonParser.parseString(TestFiles.read(file)).getAsJsonArray())
+      {
+        result.addJsonElement(element);
+        ResultSnapshot snapshot = result.getSnapshot();
+        assertTrue(snapshot.getVersion() > snapshots.get(snapshots.size() - 1).getVersion());
+        snapshots.add(snapshot);
+        descriptions.add(describe(snapshot));
+      }
+      result.finish();
+
+      for (int i = 0; i < snapshots.size(); i++)
+      {
+        assertEquals(descriptions.get(i), describe(snapshots.get(i)), file);
+      }
+      assertNull(snapshots.get(0).getRoot());
+      assertFalse(snapshots.get(snapshots.size() - 1).isFinished());
+
+      ResultSnapshot last = result.getSnapshot();
+      assertTrue(last.isFinished());
+      assertEquals(result.getAllKind2Logs(), last.getAllKind2Logs());
+      assertEquals(result.getRoot().getName(), last.getRoot().getName());
+      assertEquals(result.getResultMap().size(), last.getComponents().size());
+      int properties = 0;
+      for (NodeResult nodeResult : result.getResultMap().values())
+      {
+        ComponentSnapshot component = last.getComponent(nodeResult.getName());
+        assertEquals(nodeResult.getAnalyses(), component.getAnalyses(), file);
+        assertEquals(nodeResult.getSuggestions(), component.getSuggestions(), file);
+        assertEquals(nodeResult.getChildren().size(), last.getChildren(component).size(), file);
+        properties += nodeResult.getLastAnalysis().getProperties().size();
+      }
+      assertEquals(properties, last.getProperties().size(), file);
+      assertTrue(last.getCurrentProperties().isEmpty());
+    }
+  }
+
+  @Test
+  void snapshotsShowTheAnalysisInProgress() throws IOException
+  {
+    Result result = new Result();
+    List<ResultSnapshot> snapshots = new ArrayList<>();
+    result.addJsonStream(new StringReader(TestFiles.read("S1.json")),
+        r -> snapshots.add(r.getSnapshot()));
+    int inProgress = 0;
+    for (ResultSnapshot snapshot : snapshots)
+    {
+      List<Property> current = snapshot.getCurrentProperties();
+      inProgress = Math.max(inProgress, current.size());
+      for (Property property : current)
+      {
+        assertSame(current.get(0).getAnalysis(), property.getAnalysis());
+        assertTrue(property.getAnalysis().getProperties().size() >= current.size());
+      }
+    }
+    assertTrue(inProgress > 0);
+
+    Result expected = Result.analyzeJsonResult(TestFiles.read("S1.json"));
+    ResultSnapshot last = snapshots.get(snapshots.size() - 1);
+    int properties = 0;
+    for (NodeResult nodeResult : expected.getResultMap().values())
+    {
+      properties += nodeResult.getLastAnalysis().getProperties().size();
+    }
+    assertEquals(properties, last.getProperties().size());
+  }
+
+  @Test
+  void readersTakeSnapshotsWhileOutputIsAdded() throws Exception
+  {
+    List<JsonElement> elements = new ArrayList<>();
+    for (String file : FILES)
+    {
+      for (JsonElement element : JsonParser.parseString(TestFiles.read(file)).getAsJsonArray())
+      {
+        elements.add(element);
+      }
+    }
+    Result result = new Result();
+    result.setSuggestionListener(nodeResult -> { });
+    AtomicBoolean done = new AtomicBoolean();
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    List<Thread> readers = new ArrayList<>();
+    for (int r = 0; r < 2; r++)
+    {
+      Thread reader = new Thread(() -> {
+        try
+        {
+          long version = -1;
+          while (!done.get())
+          {
+            ResultSnapshot snapshot = result.getSnapshot();
+            if (snapshot.getVersion() < version)
+            {
+              throw new AssertionError("snapshot went back in time");
+            }
+            version = snapshot.getVersion();
+            describe(snapshot);
+          }
+        }
+        catch (Throwable e)
+        {
+          failure.compareAndSet(null, e);
+        }
+      });
+      reader.start();
+      readers.add(reader);
+    }
+    for (int repeat = 0; repeat < 20; repeat++)
+    {
+      for (JsonElement element : elements)
+      {
+        result.addJsonElement(element);
+      }
+    }
+    result.finish();
+    done.set(true);
+    for (Thread reader : readers)
+    {
+      reader.join();
+    }
+    if (failure.get() != null)
+    {
+      throw new AssertionError(failure.get());
+    }
+    assertTrue(result.getSnapshot().isFinished());
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.results;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+class StreamColumnTest
+{
+  private static final String STREAMS = "["
+      + "{'name' : 'i','type' : 'int','class' : 'input','instantValues' : "
+      + "[[0, 1], [1, -92233720368547758080], [2, 9223372036854775807]]},"
+      + "{'name' : 'b','type' : 'bool','class' : 'input','instantValues' : "
+      + "[[0, true], [1, false], [2, true]]},"
+      + "{'name' : 'r','type' : 'real','class' : 'output','instantValues' : "
+      + "[[0, {'num' : 1, 'den' : 3}], [1, 2.50],"
+      + "[2, {'num' : 100000000000000000000, 'den' : 7}]]},"
+      + "{'name' : 's','type' : 'subrange','typeInfo' : {'min' : 0, 'max' : 5},'class' : 'local',"
+      + "'instantValues' : [[0, 5], [1, 0], [2, 3]]},"
+      + "{'name' : 'e','type' : 'enum','typeInfo' : {'values' : ['A', 'B']},'class' : 'local',"
+      + "'instantValues' : [[0, 'A'], [1, ' B '], [2, 'A']]},"
+      + "{'name' : 'a','type' : 'array','typeInfo' : {'baseType' : 'int','sizes' : [2]},"
+      + "'class' : 'local','instantValues' : [[0, [1, 2]], [1, []], [2, [3, 4]]]}]";
+
+  private static String counterExample()
+  {
+    return "[{'blockType' : 'node','name' : 'N','streams' : " + STREAMS + "}]";
+  }
+
+  private static CounterExample decode(ParseMode mode)
+  {
+    String json = "[{'objectType' : 'analysisStart','top' : 'N','concrete' : [],'abstract' : [],"
+        + "'assumptions' : []},{'objectType' : 'property','name' : 'P','line' : 1,'column' : 1,"
+        + "'source' : 'PropAnnot','answer' : {'source' : 'bmc','value' : 'falsifiable'},"
+        + "'counterExample' : " + counterExample() + "},{'objectType' : 'analysisStop'}]";
+    Result result = Result.analyzeJsonResult(json, mode);
+    return result.getResultMap().get("N").getAnalyses().get(0).getProperties().get(0)
+        .getCounterExample();
+  }
+
+  @Test
+  void columnsMatchValuesParsedOneByOne()
+  {
+    JsonElement streams = JsonParser.parseString(STREAMS);
+    for (ParseMode mode : ParseMode.values())
+    {
+      CounterExample counterExample = decode(mode);
+      List<Stream> decoded = counterExample.getTopNode().getStreams();
+      assertEquals(streams.getAsJsonArray().size(), decoded.size());
+      for (int s = 0; s < decoded.size(); s++)
+      {
+        Stream stream = decoded.get(s);
+        JsonElement instantValues =
+            streams.getAsJsonArray().get(s).getAsJsonObject().get(Labels.instantValues);
+        List<StepValue> stepValues = stream.getStepValues();
+        assertEquals(instantValues.getAsJsonArray().size(), stepValues.size());
+        for (int i = 0; i < stepValues.size(); i++)
+        {
+          StepValue expected = new StepValue(stream, instantValues.getAsJsonArray().get(i));
+          StepValue actual = stepValues.get(i);
+          assertEquals(expected.getTime(), actual.getTime());
+          assertEquals(expected.toString(), actual.toString());
+          assertEquals(expected.getKind2Value().getClass(), actual.getKind2Value().getClass());
+          assertSame(stream, actual.getStream());
+          assertSame(actual, actual.getKind2Value().getKind2StepValue());
+        }
+      }
+    }
+  }
+
+  @Test
+  void integersOutsideLongRangeKeepTheirValue()
+  {
+    Stream stream = decode(ParseMode.streaming).getTopNode().getStreams().get(0);
+    assertEquals(new BigInteger("-92233720368547758080"),
+        ((IntValue) stream.getStepValues().get(1).getKind2Value()).getValue());
+    assertEquals(BigInteger.valueOf(Long.MAX_VALUE),
+        ((IntValue) stream.getStepValues().get(2).getKind2Value()).getValue());
+  }
+
+  @Test
+  void arraysKeepTheirElements()
+  {
+    Stream stream = decode(ParseMode.streaming).getTopNode().getStreams().get(5);
+    ArrayValue first = (ArrayValue) stream.getStepValues().get(0).getKind2Value();
+    assertEquals(2, first.getValues().size());
+    assertTrue(((ArrayValue) stream.getStepValues().get(1).getKind2Value()).getValues().isEmpty());
+    assertEquals("[3, 4]", stream.getStepValues().get(2).toString());
+  }
+
+  @Test
+  void stepValuesAreReadOnly()
+  {
+    List<StepValue> stepValues =
+        decode(ParseMode.tree).getTopNode().getStreams().get(0).getStepValues();
+    assertThrows(UnsupportedOperationException.class, () -> stepValues.remove(0));
+    assertThrows(IndexOutOfBoundsException.class, () -> stepValues.get(3));
+  }
+
+  /**
+   * Returns a stream of the given type with a value at each step.
+   */
+  private static Stream stream(String type, String... values)
+  {
+    Stream stream = new Stream(null, "s", Type.getType(type), Labels.local);
+    for (int i = 0; i < values.length; i++)
+    {
+      stream.getColumn().add(JsonParser.parseString(values[i]));
+      stream.addTime(i);
+    }
+    stream.trim();
+    return stream;
+  }
+
+  @Test
+  void stableStreamsKeepTheirChanges()
+  {
+    int steps = 100000;
+    String[] values = new String[steps];
+    for (int i = 0; i < steps; i++)
+    {
+      values[i] = Integer.toString(i / 1000);
+    }
+    Stream stream = stream("int", values);
+    assertEquals(steps, stream.getStepValues().size());
+    assertEquals(100, stream.getColumn().getRuns());
+    for (int i = 0; i < steps; i += 997)
+    {
+      assertEquals(values[i], stream.getStepValues().get(i).toString());
+      assertEquals(i, stream.getStepValues().get(i).getTime());
+    }
+    List<StepValue> changes = stream.getChangePoints();
+    assertEquals(100, changes.size());
+    assertEquals(3000, changes.get(3).getTime());
+    assertEquals("3", changes.get(3).toString());
+  }
+
+  @Test
+  void runsAreFoundAtEveryIndex()
+  {
+    // runs of 1, 2, 3, ... equal values, more than a block of the index holds
+    StringBuilder expected = new StringBuilder();
+    List<String> values = new ArrayList<>();
+    for (int run = 0; run < 200; run++)
+    {
+      for (int i = 0; i <= run % 7; i++)
+      {
+        values.add(run % 2 == 0 ? "true" : "false");
+      }
+    }
+    Stream stream = stream("bool", values.toArray(new String[0]));
+    assertEquals(200, stream.getColumn().getRuns());
+    for (int i = 0; i < values.size(); i++)
+    {
+      expected.append(values.get(i)).append(' ');
+    }
+    StringBuilder actual = new StringBuilder();
+    for (StepValue stepValue : stream.getStepValues())
+    {
+      actual.append(stepValue).append(' ');
+    }
+    assertEquals(expected.toString(), actual.toString());
+
+    Stream changing = stream("int", "1", "2", "3", "2");
+    assertEquals(4, changing.getColumn().getRuns());
+    assertEquals("[1, 2, 3, 2]", changing.getChangePoints().toString());
+  }
+
+  @Test
+  void equalValuesOfEveryTypeShareARun()
+  {
+    assertEquals(2, stream("real", "{'num' : 1, 'den' : 3}", "{'num' : 1, 'den' : 3}", "0.5",
+        "0.5").getColumn().getRuns());
+    assertEquals(3, stream("Color", "'Red'", "' Red '", "'Blue'", "'Red'").getColumn().getRuns());
+    Stream arrays = new Stream(null, "a", new Array(Type.getType("int")), Labels.local);
+    for (String value : new String[] {"[1, 2]", "[1, 2]", "[1]", "[]", "[]", "[1, 2]"})
+    {
+      arrays.getColumn().add(JsonParser.parseString(value));
+      arrays.addTime(arrays.getColumn().size - 1);
+    }
+    arrays.trim();
+    assertEquals(4, arrays.getColumn().getRuns());
+    assertEquals("[[1, 2], [1], [], [1, 2]]", arrays.getChangePoints().toString());
+    assertEquals("[1, 2]", arrays.getStepValues().get(1).toString());
+  }
+}
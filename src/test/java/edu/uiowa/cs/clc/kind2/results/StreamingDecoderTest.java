@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.results;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.JsonSyntaxException;
+
+class StreamingDecoderTest
+{
+  private static final String[] FILES = {"S1.json", "S1Uknown.json", "S2.json", "S3.json",
+      "S4.json", "S5.json", "S6.json", "a1.json", "a2.json", "b.json", "c.json", "d.json",
+      "e.json", "f.json", "ivc.json", "real.json", "toy.json"};
+
+  @BeforeEach
+  void reset()
+  {
+    Result.setOpeningSymbols("");
+    Result.setClosingSymbols("");
+  }
+
+  /**
+   * Properties are kept in hash sets, so only sorted descriptions of them are comparable.
+   */
+  private static List<String> describe(Result result)
+  {
+    List<String> lines = new ArrayList<>();
+    for (NodeResult nodeResult : result.getResultMap().values())
+    {
+      for (Analysis analysis : nodeResult.getAnalyses())
+      {
+        for (Property property : analysis.getProperties())
+        {
+          StringBuilder line = new StringBuilder();
+          line.append(analysis.getNodeName()).append(" | ").append(property.getJsonName())
+              .append(" | ").append(property.getScope()).append(" | ").append(property.getLine())
+              .append(":").append(property.getColumn()).append(" | ").append(property.getSource())
+              .append(" | ").append(property.getAnswer()).append(" | ")
+              .append(property.getIsCandidate()).append(" | ")
+              .append(property.getKInductionStep()).append(" | ").append(property.getTrueFor());
+          if (property.getCounterExample() != null)
+          {
+            line.append('\n').append(property.getCounterExample());
+          }
+          if (property.getExampleTrace() != null)
+          {
+            line.append('\n').append(property.getExampleTrace());
+          }
+          lines.add(line.toString());
+        }
+      }
+    }
+    Collections.sort(lines);
+    return lines;
+  }
+
+  private static List<String> sortedLines(Result result)
+  {
+    if (result.getRoot() == null)
+    {
+      return Collections.emptyList();
+    }
+    List<String> lines = Arrays.asList(result.toString().split("\n"));
+    Collections.sort(lines);
+    return lines;
+  }
+
+  @Test
+  void streamingMatchesTree() throws IOException
+  {
+    for (String file : FILES)
+    {
+      String json = new String(Files.readAllBytes(Paths.get("files", file)),
+          StandardCharsets.UTF_8);
+      Result tree = Result.analyzeJsonResult(json, ParseMode.tree);
+      Result streaming = Result.analyzeJsonResult(json, ParseMode.streaming);
+      assertEquals(describe(tree), describe(streaming), file);
+      assertEquals(sortedLines(tree), sortedLines(streaming), file);
+      assertNull(streaming.getJson(), file);
+    }
+  }
+
+  @Test
+  void decodesObjectSequenceInAnyFieldOrder()
+  {
+    String json = "{'objectType' : 'analysisStart','top' : 'N','concrete' : [],'abstract' : [],"
+        + "'assumptions' : []}\n"
+        + "{'name' : 'P[l5c4]','counterExample' : [{'streams' : [{'instantValues' : "
+        + "[[0, 5], [1, 4]],'name' : 'x','class' : 'input','typeInfo' : {'min' : 0,'max' : 5},'type' : 'subrange'},"
+        + "{'name' : 'r','type' : 'real','class' : 'output','instantValues' : [[0, {'num' : 1,"
+        + "'den' : 3}], [1, 2.5]]}],'name' : 'N','blockType' : 'node'}],'objectType' : 'property',"
+        + "'source' : 'PropAnnot','line' : 5,'column' : 4,'k' : 1,"
+        + "'answer' : {'source' : 'bmc', 'value' : 'falsifiable'}}\n"
+        + "{'objectType' : 'analysisStop'}";
+    Result result = new Result();
+    AtomicInteger updates = new AtomicInteger();
+    result.addJsonStream(new StringReader(json), r -> updates.incrementAndGet());
+    result.finish();
+    assertEquals(3, updates.get());
+    assertEquals(describe(Result.analyzeJsonResult("[" + json.replace("}\n{", "},{") + "]")),
+        describe(result));
+    Property property =
+        result.getResultMap().get("N").getAnalyses().get(0).getProperties().get(0);
+    assertEquals("5", property.getLine());
+    assertEquals(Answer.falsifiable, property.getAnswer());
+    assertSame(result, property.getCounterExample().getKind2Result());
+  }
+
+  @Test
+  void emptyStreamAddsNothing()
+  {
+    Result result = new Result();
+    AtomicInteger updates = new AtomicInteger();
+    result.addJsonStream(new StringReader("  "), r -> updates.incrementAndGet());
+    assertEquals(0, updates.get());
+  }
+
+  @Test
+  void rejectsMalformedOutput()
+  {
+    assertThrows(JsonSyntaxException.class, () -> new Result()
+        .addJsonStream(new StringReader("[{'objectType' : 'log',,]"), null));
+  }
+}
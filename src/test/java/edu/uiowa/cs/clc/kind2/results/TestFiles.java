@@ -0,0 +1,28 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.results;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Reads the Kind 2 outputs of the files directory.
+ */
+final class TestFiles
+{
+  private TestFiles()
+  {
+  }
+
+  static String read(String file) throws IOException
+  {
+    return new String(Files.readAllBytes(Paths.get("files", file)), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.results;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class TraceExportTest
+{
+  private static final String TRACE = "[{'blockType' : 'node','name' : 'N','streams' : ["
+      + "{'name' : 'i','type' : 'int','class' : 'input','instantValues' : "
+      + "[[0, 1], [1, -92233720368547758080], [2, 7]]},"
+      + "{'name' : 'a','type' : 'array','typeInfo' : {'baseType' : 'bool','sizes' : [2]},"
+      + "'class' : 'output','instantValues' : [[0, [true, false]], [1, []], [2, [false, true]]]}],"
+      + "'subnodes' : [{'blockType' : 'node','name' : 'M','streams' : ["
+      + "{'name' : 'e','type' : 'enum','typeInfo' : {'values' : ['A', 'B']},'class' : 'local',"
+      + "'instantValues' : [[0, 'A'], [2, 'B']]}]}]}]";
+
+  private static final Formatting PLAIN = Formatting.defaults.withOpeningSymbols("")
+      .withClosingSymbols("");
+
+  private static CounterExample decode(ParseMode mode)
+  {
+    return decode(mode, PLAIN);
+  }
+
+  private static CounterExample decode(ParseMode mode, Formatting formatting)
+  {
+    String json = "[{'objectType' : 'analysisStart','top' : 'N','concrete' : [],'abstract' : [],"
+        + "'assumptions' : []},{'objectType' : 'property','name' : 'P','line' : 1,'column' : 1,"
+        + "'source' : 'PropAnnot','answer' : {'source' : 'bmc','value' : 'falsifiable'},"
+        + "'counterExample' : " + TRACE + "},{'objectType' : 'analysisStop'}]";
+    Result result = Result.analyzeJsonResult(json, mode, formatting);
+    return result.getFalsifiedProperties().iterator().next().getCounterExample();
+  }
+
+  private static String csv(CounterExample counterExample) throws IOException
+  {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    counterExample.writeCsv(out);
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  void writesOneRowPerStep() throws IOException
+  {
+    String expected = "step,N.i,N.a,N.M.e\r\n"
+        + "0,1,\"[true, false]\",A\r\n"
+        + "1,-92233720368547758080,[],\r\n"
+        + "2,7,\"[false, true]\",B\r\n";
+    for (ParseMode mode : ParseMode.values())
+    {
+      assertEquals(expected, csv(decode(mode)), mode.toString());
+    }
+  }
+
+  @Test
+  void namesStreamsWithoutTheFormattingSymbols() throws IOException
+  {
+    for (ParseMode mode : ParseMode.values())
+    {
+      String csv = csv(decode(mode, Formatting.defaults));
+      assertEquals("step,N.i,N.a,N.M.e", csv.substring(0, csv.indexOf('\r')), mode.toString());
+    }
+  }
+
+  /**
+   * Reads the columnar form back into streams.
+   */
+  private static List<String> readColumns(byte[] bytes) throws IOException
+  {
+    List<String> lines = new ArrayList<>();
+    BinaryInput in = new BinaryInput(bytes);
+    for (byte b : TraceExport.magic)
+    {
+      assertEquals(b, in.readByte());
+    }
+    assertEquals(TraceExport.version, in.readVarint());
+    lines.add("steps " + in.readInt());
+    int streams = in.readInt();
+    for (int i = 0; i < streams; i++)
+    {
+      String name = in.readString();
+      String streamClass = in.readString();
+      Stream stream = new Stream(null, name, Type.getType(in.readString()), streamClass);
+      BinaryDecoder.readValues(in, stream, ParseFilter.all);
+      lines.add(describe(name, stream));
+    }
+    return lines;
+  }
+
+  private static String describe(String name, Stream stream)
+  {
+    StringBuilder builder = new StringBuilder(name).append(' ')
+        .append(stream.getStreamClass()).append(' ').append(stream.getKind2Type());
+    for (int i = 0; i < stream.getStepValues().size(); i++)
+    {
+      builder.append(' ').append(stream.getTime(i)).append('=').append(stream.print(i));
+    }
+    return builder.toString();
+  }
+
+  private static void describe(SubNode node, String prefix, List<String> lines)
+  {
+    String path = prefix + node.getJsonName() + ".";
+    for (Stream stream : node.getStreams())
+    {
+      lines.add(describe(path + stream.getJsonName(), stream));
+    }
+    for (SubNode subNode : node.getSubNodes())
+    {
+      describe(subNode, path, lines);
+    }
+  }
+
+  @Test
+  void columnsReadBackAsTheTrace() throws IOException
+  {
+    for (String file : new String[] {"S1.json", "S5.json", "a1.json", "real.json", "toy.json"})
+    {
+      String json = new String(Files.readAllBytes(Paths.get("files", file)),
+          StandardCharsets.UTF_8);
+      for (Property property : Result.analyzeJsonResult(json).getFalsifiedProperties())
+      {
+        CounterExample counterExample = property.getCounterExample();
+        List<String> expected = new ArrayList<>();
+        expected.add("steps " + new TraceExport(counterExample).getSteps());
+        describe(counterExample.getTopNode(), "", expected);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        counterExample.writeColumns(out);
+        assertEquals(expected, readColumns(out.toByteArray()), file);
+      }
+    }
+  }
+}
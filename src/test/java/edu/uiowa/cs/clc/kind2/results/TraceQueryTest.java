@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.results;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class TraceQueryTest
+{
+  private static final String TRACE = "[{'blockType' : 'node','name' : 'N','streams' : ["
+      + "{'name' : 'in','type' : 'int','class' : 'input','instantValues' : "
+      + "[[0, 1], [1, -200], [2, 7], [3, 92233720368547758080]]},"
+      + "{'name' : 'ok','type' : 'bool','class' : 'output','instantValues' : "
+      + "[[0, true], [1, true], [2, false], [3, false]]},"
+      + "{'name' : 'alarm','type' : 'bool','class' : 'local','instantValues' : "
+      + "[[0, false], [2, true]]}],"
+      + "'subnodes' : [{'blockType' : 'node','name' : 'M','streams' : ["
+      + "{'name' : 'e','type' : 'enum','typeInfo' : {'values' : ['A', 'B']},'class' : 'input',"
+      + "'instantValues' : [[0, 'A'], [1, 'A'], [2, 'B'], [3, 'A']]},"
+      + "{'name' : 'alarm','type' : 'bool','class' : 'output','instantValues' : "
+      + "[[0, false], [1, false], [2, false], [3, true]]}]}]}]";
+
+  private static CounterExample decode(ParseMode mode)
+  {
+    String json = "[{'objectType' : 'analysisStart','top' : 'N','concrete' : [],'abstract' : [],"
+        + "'assumptions' : []},{'objectType' : 'property','name' : 'P','line' : 1,'column' : 1,"
+        + "'source' : 'PropAnnot','answer' : {'source' : 'bmc','value' : 'falsifiable'},"
+        + "'counterExample' : " + TRACE + "},{'objectType' : 'analysisStop'}]";
+    Result result = Result.analyzeJsonResult(json, mode, Formatting.defaults);
+    return result.getFalsifiedProperties().iterator().next().getCounterExample();
+  }
+
+  @Test
+  void findsBlocksAndStreamsByPathAndName()
+  {
+    for (ParseMode mode : ParseMode.values())
+    {
+      CounterExample counterExample = decode(mode);
+      TraceQuery query = counterExample.getQuery();
+      assertSame(query, counterExample.getQuery());
+      assertEquals(4, query.getSteps());
+      SubNode m = query.getBlock("N.M");
+      assertSame(counterExample.getTopNode().getSubNodes().get(0), m);
+      assertSame(m.getStreams().get(0), query.getStream("N.M.e"));
+      assertNull(query.getStream("N.e"));
+      assertNull(query.getBlock("M"));
+
+      List<Stream> alarms = query.getStreams("alarm");
+      assertEquals(2, alarms.size());
+      assertSame(query.getStream("N.alarm"), alarms.get(0));
+      assertSame(query.getStream("N.M.alarm"), alarms.get(1));
+      assertTrue(query.getStreams("{{alarm}}").isEmpty());
+    }
+  }
+
+  @Test
+  void readsValuesByStep()
+  {
+    TraceQuery query = decode(ParseMode.streaming).getQuery();
+    Stream in = query.getStream("N.in");
+    assertEquals(-200, query.getLong(in, 1));
+    assertEquals("7", query.getStepValue("N.in", 2).print());
+    assertThrows(ArithmeticException.class, () -> query.getLong(in, 3));
+    assertThrows(IllegalArgumentException.class, () -> query.getLong(in, 4));
+    assertThrows(IllegalArgumentException.class, () -> query.getBool(in, 0));
+
+    Stream alarm = query.getStream("N.alarm");
+    assertTrue(query.getBool(alarm, 2));
+    assertNull(query.getStepValue(alarm, 1));
+    assertEquals(2, query.getStepValue(alarm, 2).getTime());
+    assertNull(query.getStepValue("N.x", 0));
+  }
+
+  @Test
+  void findsTheFirstStepOfAValue()
+  {
+    TraceQuery query = decode(ParseMode.tree).getQuery();
+    assertEquals(2, query.firstStep(query.getStream("N.ok"), false));
+    assertEquals(2, query.firstStep(query.getStream("N.alarm"), true));
+    assertEquals(0, query.firstStep(query.getStream("N.M.alarm"), false));
+    assertEquals(3, query.firstStep(query.getStream("N.M.alarm"), true));
+    assertEquals(2, query.firstLongStep(query.getStream("N.in"), value -> value > 5));
+    assertEquals(-1, query.firstLongStep(query.getStream("N.in"), value -> value > 7));
+    assertEquals(2,
+        query.firstValueStep(query.getStream("N.M.e"), value -> value.toString().equals("B")));
+    assertThrows(IllegalArgumentException.class,
+        () -> query.firstLongStep(query.getStream("N.ok"), value -> true));
+  }
+
+  @Test
+  void agreesWithScanningTheStreams() throws IOException
+  {
+    for (String file : new String[] {"S1.json", "S5.json", "a1.json", "toy.json"})
+    {
+      String json = new String(Files.readAllBytes(Paths.get("files", file)),
+          StandardCharsets.UTF_8);
+      for (Property property : Result.analyzeJsonResult(json).getFalsifiedProperties())
+      {
+        CounterExample counterExample = property.getCounterExample();
+        check(counterExample.getQuery(), counterExample.getTopNode(), "", new HashSet<>());
+      }
+    }
+  }
+
+  /**
+   * Checks the blocks and streams of a trace against the query, the first one of each path only,
+   * as blocks of the same component called twice have the same path.
+   */
+  private static void check(TraceQuery query, SubNode node, String prefix, Set<String> paths)
+  {
+    String path = prefix + node.getJsonName();
+    if (paths.add(path))
+    {
+      assertSame(node, query.getBlock(path));
+    }
+    for (Stream stream : node.getStreams())
+    {
+      if (paths.add(path + "." + stream.getJsonName()))
+      {
+        assertSame(stream, query.getStream(path + "." + stream.getJsonName()));
+      }
+      int firstFalse = -1;
+      for (StepValue stepValue : stream.getStepValues())
+      {
+        assertEquals(stepValue.print(), query.getStepValue(stream, stepValue.getTime()).print());
+        if (firstFalse < 0 && stepValue.print().equals("false"))
+        {
+          firstFalse = stepValue.getTime();
+        }
+      }
+      if (stream.getKind2Type() instanceof Bool)
+      {
+        assertEquals(firstFalse, query.firstStep(stream, false));
+      }
+    }
+    for (SubNode subNode : node.getSubNodes())
+    {
+      check(query, subNode, path + ".", paths);
+    }
+  }
+}
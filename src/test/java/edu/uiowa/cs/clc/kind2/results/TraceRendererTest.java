@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.results;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+class TraceRendererTest
+{
+  private static final String TRACE = "[{'blockType' : 'node','name' : 'N','streams' : ["
+      + "{'name' : 'in','type' : 'int','class' : 'input','instantValues' : "
+      + "[[0, 1], [1, -200], [2, 7]]},"
+      + "{'name' : 'b','type' : 'bool','class' : 'output','instantValues' : "
+      + "[[0, true], [1, false], [2, true]]}],"
+      + "'subnodes' : [{'blockType' : 'node','name' : 'M','streams' : ["
+      + "{'name' : 'e','type' : 'enum','typeInfo' : {'values' : ['A', 'B']},'class' : 'local',"
+      + "'instantValues' : [[0, 'A'], [1, 'B'], [2, 'A']]}]}]}]";
+
+  private static final Formatting PLAIN = Formatting.defaults.withOpeningSymbols("")
+      .withClosingSymbols("");
+
+  private static CounterExample decode()
+  {
+    return decode(TRACE);
+  }
+
+  private static CounterExample decode(String trace)
+  {
+    String json = "[{'objectType' : 'analysisStart','top' : 'N','concrete' : [],'abstract' : [],"
+        + "'assumptions' : []},{'objectType' : 'property','name' : 'P','line' : 1,'column' : 1,"
+        + "'source' : 'PropAnnot','answer' : {'source' : 'bmc','value' : 'falsifiable'},"
+        + "'counterExample' : " + trace + "},{'objectType' : 'analysisStop'}]";
+    Result result = Result.analyzeJsonResult(json, ParseMode.tree, PLAIN);
+    return result.getResultMap().get("N").getAnalyses().get(0).getProperties().get(0)
+        .getCounterExample();
+  }
+
+  private static String render(TraceRenderer renderer, CounterExample counterExample)
+      throws IOException
+  {
+    StringBuilder builder = new StringBuilder();
+    renderer.render(counterExample, builder);
+    return builder.toString();
+  }
+
+  @Test
+  void printsTheWholeTraceAsToString() throws IOException
+  {
+    CounterExample counterExample = decode();
+    String expected = "Counterexample:"
+        + "\n  Node N:\n    == Inputs ==\n    in\t    1\t -200\t    7\t"
+        + "\n    == Outputs ==\n    b \t true\tfalse\t true\t"
+        + "\n    == Locals =="
+        + "\n  Node M:\n    == Inputs ==\n    == Outputs ==\n    == Locals =="
+        + "\n    e \t    A\t    B\t    A\t";
+    assertEquals(expected, render(TraceRenderer.all, counterExample));
+    assertEquals(expected, counterExample.toString());
+  }
+
+  @Test
+  void printsARangeOfSteps() throws IOException
+  {
+    String expected = "Counterexample:"
+        + "\n  Node N:\n    == Inputs ==\n    in\t -200\t    7\t"
+        + "\n    == Outputs ==\n    b \tfalse\t true\t"
+        + "\n    == Locals =="
+        + "\n  Node M:\n    == Inputs ==\n    == Outputs ==\n    == Locals =="
+        + "\n    e \t    B\t    A\t";
+    assertEquals(expected, render(TraceRenderer.all.withSteps(1, 5), decode()));
+    assertThrows(IllegalArgumentException.class, () -> TraceRenderer.all.withSteps(2, 2));
+  }
+
+  @Test
+  void printsARangeOfStepsOfStreamsWithMissingSteps() throws IOException
+  {
+    String trace = "[{'blockType' : 'node','name' : 'N','streams' : ["
+        + "{'name' : 'in','type' : 'int','class' : 'input','instantValues' : "
+        + "[[0, 1], [2, 7], [4, 3], [6, 5]]},"
+        + "{'name' : 'b','type' : 'bool','class' : 'output','instantValues' : "
+        + "[[3, true], [4, false]]}]}]";
+    String expected = "Counterexample:"
+        + "\n  Node N:\n    == Inputs ==\n    in\t    7\t    3\t"
+        + "\n    == Outputs ==\n    b \t true\tfalse\t"
+        + "\n    == Locals ==";
+    assertEquals(expected, render(TraceRenderer.all.withSteps(1, 5), decode(trace)));
+  }
+
+  @Test
+  void printsMatchingStreams() throws IOException
+  {
+    TraceRenderer renderer = TraceRenderer.all.withSteps(0, 2)
+        .withStreams(stream -> !stream.getStreamClass().equals(Labels.output));
+    String expected = "Counterexample:"
+        + "\n  Node N:\n    == Inputs ==\n    in\t   1\t-200\t"
+        + "\n    == Outputs ==\n    == Locals =="
+        + "\n  Node M:\n    == Inputs ==\n    == Outputs ==\n    == Locals =="
+        + "\n    e \t   A\t   B\t";
+    assertEquals(expected, render(renderer, decode()));
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2020, Board of Trustees of the University of Iowa
+ * All rights reserved.
+ *
+ * Licensed under the BSD 3-Clause License. See LICENSE in the project root for license information.
+ */
+
+package edu.uiowa.cs.clc.kind2.results;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.JsonParser;
+
+class TypeTest
+{
+  @Test
+  void typesAreShared()
+  {
+    assertSame(Type.getType("bool"), Type.getType("bool"));
+    assertSame(Type.getType("int"), Type.getType("int16"));
+    assertSame(Type.getType("Color"), Type.getType("Color"));
+    assertTrue(Type.getType("subrange [0, 5] of int") instanceof SubRange);
+    assertSame(Type.getType("subrange [0, 5] of int"), Type.getType("subrange [0, 5] of int"));
+
+    Type matrix = Type.getType("array",
+        JsonParser.parseString("{'baseType' : 'int','sizes' : [2, 3]}"));
+    assertSame(matrix, Type.getType("array",
+        JsonParser.parseString("{'baseType' : 'int','sizes' : [4, 5]}")));
+    assertEquals("array of array of int", matrix.toString());
+    assertNotSame(matrix, Type.getType("array",
+        JsonParser.parseString("{'baseType' : 'int','sizes' : [2]}")));
+  }
+
+  @Test
+  void columnsShareSmallValues()
+  {
+    StreamColumn.IntColumn first = new StreamColumn.IntColumn(Type.getType("int"));
+    StreamColumn.IntColumn second = new StreamColumn.IntColumn(Type.getType("int"));
+    first.add(JsonParser.parseString("7"));
+    second.add(JsonParser.parseString("7"));
+    first.add(JsonParser.parseString("100000"));
+    assertSame(first.get(0), second.get(0));
+    assertEquals(BigInteger.valueOf(100000), first.get(1));
+
+    StreamColumn one = StreamColumn.of(Type.getType("Color"));
+    StreamColumn other = StreamColumn.of(Type.getType("Color"));
+    one.add(JsonParser.parseString("' Red '"));
+    other.add(JsonParser.parseString("'Red'"));
+    assertEquals("Red", one.print(0));
+    assertSame(one.print(0), other.print(0));
+  }
+}